@@ -69,6 +69,8 @@ public class JobExecution extends BaseDTO {
         message = "The amount of memory this job is set to use on the system"
     )
     private final Integer memory;
+    private final Long cpuTime;
+    private final Long peakRss;
 
     /**
      * Constructor used by the builder build() method.
@@ -82,6 +84,8 @@ public class JobExecution extends BaseDTO {
         this.checkDelay = builder.bCheckDelay;
         this.exitCode = builder.bExitCode;
         this.memory = builder.bMemory;
+        this.cpuTime = builder.bCpuTime;
+        this.peakRss = builder.bPeakRss;
         if (builder.bTimeout != null) {
             this.timeout = new Date(builder.bTimeout.getTime());
         } else {
@@ -138,6 +142,24 @@ public class JobExecution extends BaseDTO {
         return Optional.ofNullable(this.memory);
     }
 
+    /**
+     * Get the CPU time (in milliseconds) the processes of the job used so far.
+     *
+     * @return The CPU time as an Optional as it could be null
+     */
+    public Optional<Long> getCpuTime() {
+        return Optional.ofNullable(this.cpuTime);
+    }
+
+    /**
+     * Get the highest resident memory (in bytes) the processes of the job used at once so far.
+     *
+     * @return The peak resident set size as an Optional as it could be null
+     */
+    public Optional<Long> getPeakRss() {
+        return Optional.ofNullable(this.peakRss);
+    }
+
     /**
      * A builder to create job requests.
      *
@@ -153,6 +175,8 @@ public class JobExecution extends BaseDTO {
         private Date bTimeout;
         private Integer bExitCode;
         private Integer bMemory;
+        private Long bCpuTime;
+        private Long bPeakRss;
 
         /**
          * Constructor which has required fields.
@@ -226,6 +250,28 @@ public class JobExecution extends BaseDTO {
             return this;
         }
 
+        /**
+         * Set the CPU time (in milliseconds) the processes of the job used.
+         *
+         * @param cpuTime The CPU time used by the job
+         * @return The builder
+         */
+        public Builder withCpuTime(final Long cpuTime) {
+            this.bCpuTime = cpuTime;
+            return this;
+        }
+
+        /**
+         * Set the highest resident memory (in bytes) the processes of the job used at once.
+         *
+         * @param peakRss The peak resident set size of the job
+         * @return The builder
+         */
+        public Builder withPeakRss(final Long peakRss) {
+            this.bPeakRss = peakRss;
+            return this;
+        }
+
         /**
          * Build the job request.
          *
@@ -39,6 +39,8 @@ public class JobMetadata extends BaseDTO {
     private final Long totalSizeOfAttachments;
     private final Long stdOutSize;
     private final Long stdErrSize;
+    private final Long cpuTime;
+    private final Long peakRss;
 
     /**
      * Constructor used only through the builder.
@@ -53,6 +55,8 @@ public class JobMetadata extends BaseDTO {
         this.totalSizeOfAttachments = builder.bTotalSizeOfAttachments;
         this.stdOutSize = builder.bStdOutSize;
         this.stdErrSize = builder.bStdErrSize;
+        this.cpuTime = builder.bCpuTime;
+        this.peakRss = builder.bPeakRss;
     }
 
     /**
@@ -109,6 +113,24 @@ public class JobMetadata extends BaseDTO {
         return Optional.ofNullable(this.stdErrSize);
     }
 
+    /**
+     * Get the CPU time used by the processes of this job.
+     *
+     * @return The CPU time (in milliseconds) used by the job as Optional
+     */
+    public Optional<Long> getCpuTime() {
+        return Optional.ofNullable(this.cpuTime);
+    }
+
+    /**
+     * Get the highest resident memory used by the processes of this job at once.
+     *
+     * @return The peak resident set size (in bytes) of the job as Optional
+     */
+    public Optional<Long> getPeakRss() {
+        return Optional.ofNullable(this.peakRss);
+    }
+
     /**
      * Builder for creating a JobMetadata instance.
      *
@@ -122,6 +144,8 @@ public class JobMetadata extends BaseDTO {
         private Long bTotalSizeOfAttachments;
         private Long bStdOutSize;
         private Long bStdErrSize;
+        private Long bCpuTime;
+        private Long bPeakRss;
 
         /**
          * Set the host name that sent the job request.
@@ -189,6 +213,28 @@ public class JobMetadata extends BaseDTO {
             return this;
         }
 
+        /**
+         * Set the CPU time (in milliseconds) used by the processes of the job.
+         *
+         * @param cpuTime The CPU time used by the job
+         * @return The builder
+         */
+        public Builder withCpuTime(final Long cpuTime) {
+            this.bCpuTime = cpuTime;
+            return this;
+        }
+
+        /**
+         * Set the highest resident memory (in bytes) used by the processes of the job at once.
+         *
+         * @param peakRss The peak resident set size of the job
+         * @return The builder
+         */
+        public Builder withPeakRss(final Long peakRss) {
+            this.bPeakRss = peakRss;
+            return this;
+        }
+
         /**
          * Create a new JobMetadata object from this builder.
          *
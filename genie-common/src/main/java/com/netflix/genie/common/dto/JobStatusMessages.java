@@ -99,6 +99,12 @@ public final class JobStatusMessages {
     public static final String SUBMIT_INIT_FAILURE =
         "Job initialization failed, further details available in the job output directory";
 
+    /**
+     * Job was accepted but is waiting for enough memory to be free on the node before it's launched.
+     */
+    public static final String JOB_QUEUED_WAITING_FOR_MEMORY =
+        "Job queued until enough memory is available on the node to run it";
+
     /**
      * Private constructor, this class is not meant to be instantiated.
      */
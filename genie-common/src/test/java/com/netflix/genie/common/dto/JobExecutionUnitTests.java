@@ -40,6 +40,8 @@ public class JobExecutionUnitTests {
     private static final int PROCESS_ID = 134234;
     private static final Date TIMEOUT = new Date();
     private static final int MEMORY = 1_024;
+    private static final long CPU_TIME = 23_480L;
+    private static final long PEAK_RSS = 536_870_912L;
 
     /**
      * Test to make sure can build a valid JobExecution using the builder.
@@ -56,6 +58,8 @@ public class JobExecutionUnitTests {
         Assert.assertFalse(execution.getId().isPresent());
         Assert.assertFalse(execution.getUpdated().isPresent());
         Assert.assertFalse(execution.getMemory().isPresent());
+        Assert.assertFalse(execution.getCpuTime().isPresent());
+        Assert.assertFalse(execution.getPeakRss().isPresent());
     }
 
     /**
@@ -71,6 +75,8 @@ public class JobExecutionUnitTests {
         builder.withProcessId(PROCESS_ID);
         builder.withTimeout(TIMEOUT);
         builder.withMemory(MEMORY);
+        builder.withCpuTime(CPU_TIME);
+        builder.withPeakRss(PEAK_RSS);
 
         final int exitCode = 0;
         builder.withExitCode(exitCode);
@@ -96,6 +102,8 @@ public class JobExecutionUnitTests {
         Assert.assertThat(execution.getId().orElseThrow(IllegalArgumentException::new), Matchers.is(id));
         Assert.assertThat(execution.getUpdated().orElseThrow(IllegalArgumentException::new), Matchers.is(updated));
         Assert.assertThat(execution.getMemory().orElseThrow(IllegalArgumentException::new), Matchers.is(MEMORY));
+        Assert.assertThat(execution.getCpuTime().orElseThrow(IllegalArgumentException::new), Matchers.is(CPU_TIME));
+        Assert.assertThat(execution.getPeakRss().orElseThrow(IllegalArgumentException::new), Matchers.is(PEAK_RSS));
     }
 
     /**
@@ -109,6 +117,8 @@ public class JobExecutionUnitTests {
         builder.withCheckDelay(null);
         builder.withTimeout(null);
         builder.withMemory(null);
+        builder.withCpuTime(null);
+        builder.withPeakRss(null);
         builder.withCreated(null);
         builder.withId(null);
         builder.withUpdated(null);
@@ -123,6 +133,8 @@ public class JobExecutionUnitTests {
         Assert.assertFalse(execution.getId().isPresent());
         Assert.assertFalse(execution.getUpdated().isPresent());
         Assert.assertFalse(execution.getMemory().isPresent());
+        Assert.assertFalse(execution.getCpuTime().isPresent());
+        Assert.assertFalse(execution.getPeakRss().isPresent());
     }
 
     /**
@@ -47,6 +47,8 @@ public class JobMetadataUnitTests {
         final long totalSizeOfAttachments = 3809234L;
         final long stdOutSize = 80283L;
         final long stdErrSize = 8002343L;
+        final long cpuTime = 3482L;
+        final long peakRss = 1073741824L;
 
         final JobMetadata metadata = new JobMetadata
             .Builder()
@@ -56,6 +58,8 @@ public class JobMetadataUnitTests {
             .withTotalSizeOfAttachments(totalSizeOfAttachments)
             .withStdOutSize(stdOutSize)
             .withStdErrSize(stdErrSize)
+            .withCpuTime(cpuTime)
+            .withPeakRss(peakRss)
             .build();
 
         Assert.assertThat(metadata.getClientHost().orElseThrow(IllegalArgumentException::new), Matchers.is(clientHost));
@@ -76,6 +80,8 @@ public class JobMetadataUnitTests {
             metadata.getStdErrSize().orElseThrow(IllegalArgumentException::new),
             Matchers.is(stdErrSize)
         );
+        Assert.assertThat(metadata.getCpuTime().orElseThrow(IllegalArgumentException::new), Matchers.is(cpuTime));
+        Assert.assertThat(metadata.getPeakRss().orElseThrow(IllegalArgumentException::new), Matchers.is(peakRss));
     }
 
     /**
@@ -0,0 +1,222 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.services.impl.GenieFileTransferService;
+import com.netflix.spectator.api.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.validator.constraints.NotBlank;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * The files a job needs on local disk before it can run. The workflow tasks add files to the plan as they go and the
+ * files are then downloaded in parallel, at most the configured number at a time for the job. The calling thread
+ * downloads files too and the rest of the work is spread over an executor shared by all the jobs on the node. Once
+ * the calling thread runs out of files it only waits for the helpers already downloading, never for ones still queued
+ * behind the downloads of other jobs.
+ * <p>
+ * Not thread safe. A plan belongs to a single job workflow.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Slf4j
+public class DownloadPlan {
+
+    private final AsyncTaskExecutor executor;
+    private final int maxConcurrent;
+    private final Timer timer;
+    // Keyed by destination so if two files end up at the same path the last one added wins as it would serially
+    private final Map<String, Download> downloads = new LinkedHashMap<>();
+
+    /**
+     * Constructor.
+     *
+     * @param executor      The executor shared by all jobs to download files on
+     * @param maxConcurrent The maximum number of files to download at the same time for this job
+     * @param timer         The timer to record how long downloading the files took
+     */
+    public DownloadPlan(
+        @NotNull final AsyncTaskExecutor executor,
+        @Min(1) final int maxConcurrent,
+        @NotNull final Timer timer
+    ) {
+        this.executor = executor;
+        this.maxConcurrent = maxConcurrent;
+        this.timer = timer;
+    }
+
+    /**
+     * Add a file to download.
+     *
+     * @param fts         The file transfer service to use to download the file
+     * @param source      The location of the file
+     * @param destination The local path to download the file to
+     */
+    public void add(
+        @NotNull final GenieFileTransferService fts,
+        @NotBlank final String source,
+        @NotBlank final String destination
+    ) {
+        this.downloads.remove(destination);
+        this.downloads.put(destination, new Download(fts, source, destination));
+    }
+
+    /**
+     * Get the number of files waiting to be downloaded.
+     *
+     * @return The number of files
+     */
+    public int size() {
+        return this.downloads.size();
+    }
+
+    /**
+     * Download all the files added so far and wait for them to finish. If the calling thread is interrupted the
+     * remaining downloads are cancelled and the method returns with the interrupt flag set.
+     *
+     * @throws GenieException If any of the files couldn't be downloaded
+     */
+    public void execute() throws GenieException {
+        if (this.downloads.isEmpty()) {
+            return;
+        }
+
+        final long start = System.nanoTime();
+        final Queue<Download> pending = new ConcurrentLinkedQueue<>(this.downloads.values());
+        this.downloads.clear();
+        final AtomicReference<GenieException> failure = new AtomicReference<>();
+        final Runnable worker = () -> {
+            while (failure.get() == null && !Thread.currentThread().isInterrupted()) {
+                final Download download = pending.poll();
+                if (download == null) {
+                    return;
+                }
+                try {
+                    download.getFts().getFile(download.getSource(), download.getDestination());
+                } catch (final GenieException ge) {
+                    failure.compareAndSet(null, ge);
+                } catch (final RuntimeException re) {
+                    failure.compareAndSet(
+                        null,
+                        new GenieServerException("Unable to download " + download.getSource(), re)
+                    );
+                }
+            }
+        };
+
+        final int helpers = Math.min(this.maxConcurrent, pending.size()) - 1;
+        final List<Helper> started = new ArrayList<>(helpers);
+        try {
+            for (int i = 0; i < helpers; i++) {
+                final Helper helper = new Helper(worker);
+                try {
+                    helper.future = this.executor.submit(helper);
+                    started.add(helper);
+                } catch (final TaskRejectedException tre) {
+                    log.warn("Download executor is full. Continuing with {} threads", started.size() + 1);
+                    break;
+                }
+            }
+            worker.run();
+            for (final Helper helper : started) {
+                // Helpers still queued behind the downloads of other jobs have nothing left to do so don't wait for
+                // them. Only the ones already downloading are waited for.
+                if (helper.claim()) {
+                    helper.future.cancel(false);
+                } else {
+                    helper.future.get();
+                }
+            }
+        } catch (final InterruptedException ie) {
+            log.info("Interrupted while downloading files. Cancelling the remaining downloads.");
+            pending.clear();
+            started.forEach(helper -> helper.future.cancel(true));
+            Thread.currentThread().interrupt();
+            return;
+        } catch (final ExecutionException ee) {
+            // The workers handle anything the downloads throw so this shouldn't happen
+            throw new GenieServerException("Unable to download files", ee.getCause());
+        } finally {
+            this.timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+    }
+
+    /**
+     * A worker submitted to the executor. Runs the worker unless it was claimed by the calling thread first, which
+     * happens once the calling thread ran out of files to download before the executor got to the helper.
+     */
+    private static final class Helper implements Runnable {
+        private final Runnable worker;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+        private Future<?> future;
+
+        private Helper(final Runnable worker) {
+            this.worker = worker;
+        }
+
+        private boolean claim() {
+            return this.claimed.compareAndSet(false, true);
+        }
+
+        @Override
+        public void run() {
+            if (this.claim()) {
+                this.worker.run();
+            }
+        }
+    }
+
+    /**
+     * A single file to download.
+     */
+    @Getter
+    private static final class Download {
+        private final GenieFileTransferService fts;
+        private final String source;
+        private final String destination;
+
+        private Download(final GenieFileTransferService fts, final String source, final String destination) {
+            this.fts = fts;
+            this.source = source;
+            this.destination = destination;
+        }
+    }
+}
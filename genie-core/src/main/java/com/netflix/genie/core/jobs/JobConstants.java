@@ -50,6 +50,11 @@ public final class JobConstants {
      **/
     public static final String JOB_EXECUTION_DTO_KEY = "jexecdto";
 
+    /**
+     * Key used for look up of the Download Plan of a job in a Context Map for workflows.
+     **/
+    public static final String DOWNLOAD_PLAN_KEY = "downloads";
+
     /**
      * The launcher script name that genie creates to setup a job for running.
      **/
@@ -121,7 +121,7 @@ public class ApplicationTask extends GenieBaseTask {
                                 FileType.SETUP,
                                 AdminResources.APPLICATION
                             );
-                            this.fts.getFile(applicationSetupFile, localPath);
+                            super.fetchFile(context, this.fts, applicationSetupFile, localPath);
 
                             super.generateSetupFileSourceSnippet(
                                 applicationId,
@@ -141,7 +141,7 @@ public class ApplicationTask extends GenieBaseTask {
                             FileType.DEPENDENCIES,
                             AdminResources.APPLICATION
                         );
-                        fts.getFile(dependencyFile, localPath);
+                        super.fetchFile(context, this.fts, dependencyFile, localPath);
                     }
 
                     // Iterate over and get all configuration files
@@ -153,7 +153,7 @@ public class ApplicationTask extends GenieBaseTask {
                             FileType.CONFIG,
                             AdminResources.APPLICATION
                         );
-                        fts.getFile(configFile, localPath);
+                        super.fetchFile(context, this.fts, configFile, localPath);
                     }
                 }
             }
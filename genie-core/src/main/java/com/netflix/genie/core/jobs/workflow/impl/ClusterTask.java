@@ -118,7 +118,7 @@ public class ClusterTask extends GenieBaseTask {
                         AdminResources.CLUSTER
                     );
 
-                    fts.getFile(clusterSetupFile, localPath);
+                    super.fetchFile(context, this.fts, clusterSetupFile, localPath);
 
                     super.generateSetupFileSourceSnippet(
                         clusterId,
@@ -138,7 +138,7 @@ public class ClusterTask extends GenieBaseTask {
                     FileType.CONFIG,
                     AdminResources.CLUSTER
                 );
-                fts.getFile(configFile, localPath);
+                super.fetchFile(context, this.fts, configFile, localPath);
             }
 
             // Iterate over and get all dependencies
@@ -150,7 +150,7 @@ public class ClusterTask extends GenieBaseTask {
                     FileType.DEPENDENCIES,
                     AdminResources.CLUSTER
                 );
-                fts.getFile(dependencyFile, localPath);
+                super.fetchFile(context, this.fts, dependencyFile, localPath);
             }
             log.info("Finished Cluster Task for job {}", jobExecEnv.getJobRequest().getId());
         } finally {
@@ -116,7 +116,7 @@ public class CommandTask extends GenieBaseTask {
                         AdminResources.COMMAND
                     );
 
-                    fts.getFile(commandSetupFile, localPath);
+                    super.fetchFile(context, this.fts, commandSetupFile, localPath);
 
                     super.generateSetupFileSourceSnippet(
                         commandId,
@@ -136,7 +136,7 @@ public class CommandTask extends GenieBaseTask {
                     FileType.CONFIG,
                     AdminResources.COMMAND
                 );
-                fts.getFile(configFile, localPath);
+                super.fetchFile(context, this.fts, configFile, localPath);
             }
 
             // Iterate over and get all dependencies
@@ -148,7 +148,7 @@ public class CommandTask extends GenieBaseTask {
                     FileType.DEPENDENCIES,
                     AdminResources.COMMAND
                 );
-                fts.getFile(dependencyFile, localPath);
+                super.fetchFile(context, this.fts, dependencyFile, localPath);
             }
             log.info("Finished Command Task for job {}", jobExecEnv.getJobRequest().getId());
         } finally {
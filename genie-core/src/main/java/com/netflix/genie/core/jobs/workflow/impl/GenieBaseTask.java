@@ -20,9 +20,11 @@ package com.netflix.genie.core.jobs.workflow.impl;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.core.jobs.AdminResources;
+import com.netflix.genie.core.jobs.DownloadPlan;
 import com.netflix.genie.core.jobs.FileType;
 import com.netflix.genie.core.jobs.JobConstants;
 import com.netflix.genie.core.jobs.workflow.WorkflowTask;
+import com.netflix.genie.core.services.impl.GenieFileTransferService;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.validator.constraints.NotBlank;
 
@@ -30,6 +32,7 @@ import javax.validation.constraints.NotNull;
 import java.io.File;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.Map;
 
 /**
  * An abstract class that all classes that implement a workflow task should inherit from. Provides some
@@ -264,6 +267,50 @@ public abstract class GenieBaseTask implements WorkflowTask {
         }
     }
 
+    /**
+     * Helper method to get a file the job needs on local disk. If the job has a download plan the file is added to it
+     * to be downloaded along with the others before the job is launched, otherwise it's downloaded right away.
+     *
+     * @param context     The context of the job workflow
+     * @param fts         The file transfer service to download the file with
+     * @param source      The location of the file to download
+     * @param destination The local path to download the file to
+     * @throws GenieException If there is a problem downloading the file
+     */
+    protected void fetchFile(
+        @NotNull
+        final Map<String, Object> context,
+        @NotNull
+        final GenieFileTransferService fts,
+        @NotBlank
+        final String source,
+        @NotBlank
+        final String destination
+    ) throws GenieException {
+        final DownloadPlan downloadPlan = (DownloadPlan) context.get(JobConstants.DOWNLOAD_PLAN_KEY);
+        if (downloadPlan != null) {
+            downloadPlan.add(fts, source, destination);
+        } else {
+            fts.getFile(source, destination);
+        }
+    }
+
+    /**
+     * Helper method to download all the files added to the download plan of the job so far, if it has one.
+     *
+     * @param context The context of the job workflow
+     * @throws GenieException If any of the files couldn't be downloaded
+     */
+    protected void downloadFiles(
+        @NotNull
+        final Map<String, Object> context
+    ) throws GenieException {
+        final DownloadPlan downloadPlan = (DownloadPlan) context.get(JobConstants.DOWNLOAD_PLAN_KEY);
+        if (downloadPlan != null) {
+            downloadPlan.execute();
+        }
+    }
+
     protected void generateSetupFileSourceSnippet(
         final String id,
         final String type,
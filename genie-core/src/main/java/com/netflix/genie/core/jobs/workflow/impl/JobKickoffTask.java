@@ -97,6 +97,13 @@ public class JobKickoffTask extends GenieBaseTask {
      */
     @Override
     public void executeTask(@NotNull final Map<String, Object> context) throws GenieException, IOException {
+        // Make sure every file the job needs is on disk before it's launched
+        super.downloadFiles(context);
+        if (Thread.currentThread().isInterrupted()) {
+            log.info("Interrupted while downloading the files for the job. Not launching it.");
+            return;
+        }
+
         final long start = System.nanoTime();
         try {
             final JobExecutionEnvironment jobExecEnv =
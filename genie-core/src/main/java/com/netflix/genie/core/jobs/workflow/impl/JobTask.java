@@ -97,7 +97,7 @@ public class JobTask extends GenieBaseTask {
                             + JobConstants.FILE_PATH_DELIMITER
                             + jobSetupFile.substring(jobSetupFile.lastIndexOf(JobConstants.FILE_PATH_DELIMITER) + 1);
 
-                    fts.getFile(jobSetupFile, localPath);
+                    super.fetchFile(context, this.fts, jobSetupFile, localPath);
 
                     writer.write("# Sourcing setup file specified in job request" + System.lineSeparator());
                     writer.write(
@@ -120,10 +120,14 @@ public class JobTask extends GenieBaseTask {
                         + JobConstants.FILE_PATH_DELIMITER
                         + dependentFile.substring(dependentFile.lastIndexOf(JobConstants.FILE_PATH_DELIMITER) + 1);
 
-                    fts.getFile(dependentFile, localPath);
+                    super.fetchFile(context, this.fts, dependentFile, localPath);
                 }
             }
 
+            // Download everything the workflow needs before the attachments so they aren't overwritten by a file with
+            // the same name
+            super.downloadFiles(context);
+
             // Copy down the attachments if any to the current working directory
             this.attachmentService.copy(
                 jobId,
@@ -22,6 +22,8 @@ import com.netflix.genie.common.dto.ApplicationStatus;
 import com.netflix.genie.common.exceptions.GenieException;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.Basic;
 import javax.persistence.CollectionTable;
@@ -67,6 +69,7 @@ public class ApplicationEntity extends SetupFileEntity {
     private String type;
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
     @CollectionTable(
         name = "application_configs",
         joinColumns = @JoinColumn(name = "application_id", referencedColumnName = "id")
@@ -75,6 +78,7 @@ public class ApplicationEntity extends SetupFileEntity {
     private Set<String> configs = new HashSet<>();
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
     @CollectionTable(
         name = "application_dependencies",
         joinColumns = @JoinColumn(name = "application_id", referencedColumnName = "id")
@@ -82,6 +86,14 @@ public class ApplicationEntity extends SetupFileEntity {
     @Column(name = "dependency", nullable = false, length = 2048)
     private Set<String> dependencies = new HashSet<>();
 
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(
+        name = "application_tags",
+        joinColumns = @JoinColumn(name = "application_id", referencedColumnName = "id")
+    )
+    @Column(name = "tag", nullable = false, length = 1024)
+    private Set<String> normalizedTags = new HashSet<>();
+
     @ManyToMany(mappedBy = "applications", fetch = FetchType.LAZY)
     private Set<CommandEntity> commands = new HashSet<>();
 
@@ -101,6 +113,7 @@ public class ApplicationEntity extends SetupFileEntity {
     @PreUpdate
     protected void onCreateOrUpdateApplication() throws GenieException {
         this.setTags(this.getFinalTags());
+        this.updateNormalizedTags(this.normalizedTags);
     }
 
     /**
@@ -24,6 +24,8 @@ import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 
 import javax.persistence.Basic;
 import javax.persistence.CollectionTable;
@@ -68,6 +70,7 @@ public class ClusterEntity extends SetupFileEntity {
     private ClusterStatus status;
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
     @CollectionTable(
         name = "cluster_configs",
         joinColumns = @JoinColumn(name = "cluster_id", referencedColumnName = "id")
@@ -76,6 +79,7 @@ public class ClusterEntity extends SetupFileEntity {
     private Set<String> configs = new HashSet<>();
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
     @CollectionTable(
         name = "cluster_dependencies",
         joinColumns = @JoinColumn(name = "cluster_id", referencedColumnName = "id")
@@ -83,6 +87,14 @@ public class ClusterEntity extends SetupFileEntity {
     @Column(name = "dependency", nullable = false, length = 2048)
     private Set<String> dependencies = new HashSet<>();
 
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(
+        name = "cluster_tags",
+        joinColumns = @JoinColumn(name = "cluster_id", referencedColumnName = "id")
+    )
+    @Column(name = "tag", nullable = false, length = 1024)
+    private Set<String> normalizedTags = new HashSet<>();
+
     // TODO: Make lazy?
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
@@ -113,6 +125,7 @@ public class ClusterEntity extends SetupFileEntity {
     @PreUpdate
     protected void onCreateOrUpdateCluster() throws GenieException {
         this.setTags(this.getFinalTags());
+        this.updateNormalizedTags(this.normalizedTags);
     }
 
     /**
@@ -23,6 +23,8 @@ import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import lombok.Getter;
 import lombok.Setter;
+import org.hibernate.annotations.Fetch;
+import org.hibernate.annotations.FetchMode;
 import org.hibernate.validator.constraints.Length;
 import org.hibernate.validator.constraints.NotBlank;
 
@@ -86,6 +88,7 @@ public class CommandEntity extends SetupFileEntity {
     private Integer memory;
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
     @CollectionTable(
         name = "command_configs",
         joinColumns = @JoinColumn(name = "command_id", referencedColumnName = "id")
@@ -111,6 +114,7 @@ public class CommandEntity extends SetupFileEntity {
     private Set<ClusterEntity> clusters = new HashSet<>();
 
     @ElementCollection(fetch = FetchType.EAGER)
+    @Fetch(FetchMode.SUBSELECT)
     @CollectionTable(
         name = "command_dependencies",
         joinColumns = @JoinColumn(name = "command_id", referencedColumnName = "id")
@@ -118,6 +122,14 @@ public class CommandEntity extends SetupFileEntity {
     @Column(name = "dependency", nullable = false, length = 2048)
     private Set<String> dependencies = new HashSet<>();
 
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(
+        name = "command_tags",
+        joinColumns = @JoinColumn(name = "command_id", referencedColumnName = "id")
+    )
+    @Column(name = "tag", nullable = false, length = 1024)
+    private Set<String> normalizedTags = new HashSet<>();
+
     /**
      * Default Constructor.
      */
@@ -134,6 +146,7 @@ public class CommandEntity extends SetupFileEntity {
     @PreUpdate
     protected void onCreateOrUpdateCommand() throws GenieException {
         this.setTags(this.getFinalTags());
+        this.updateNormalizedTags(this.normalizedTags);
     }
 
     /**
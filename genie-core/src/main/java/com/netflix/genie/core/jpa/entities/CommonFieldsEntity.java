@@ -19,6 +19,7 @@ package com.netflix.genie.core.jpa.entities;
 
 import com.google.common.collect.Sets;
 import com.netflix.genie.common.exceptions.GenieException;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.hibernate.validator.constraints.NotBlank;
@@ -28,8 +29,10 @@ import javax.persistence.Column;
 import javax.persistence.FetchType;
 import javax.persistence.Lob;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.Transient;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -85,6 +88,11 @@ public class CommonFieldsEntity extends BaseEntity {
     @Size(max = 10000, message = "Max length in database is 10000 characters")
     private String tags;
 
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean tagsChanged;
+
     /**
      * Default constructor.
      */
@@ -120,9 +128,9 @@ public class CommonFieldsEntity extends BaseEntity {
      * @param tags The tags to set
      */
     public void setTags(final Set<String> tags) {
-        this.tags = null;
+        String newTags = null;
         if (tags != null && !tags.isEmpty()) {
-            this.tags = TAG_DELIMITER
+            newTags = TAG_DELIMITER
                 + tags
                 .stream()
                 .sorted(String.CASE_INSENSITIVE_ORDER)
@@ -130,6 +138,25 @@ public class CommonFieldsEntity extends BaseEntity {
                 .orElse("")
                 + TAG_DELIMITER;
         }
+        if (!Objects.equals(this.tags, newTags)) {
+            this.tags = newTags;
+            this.tagsChanged = true;
+        }
+    }
+
+    /**
+     * Copy the tags into the normalized tag table collection of the concrete entity if they've changed since the last
+     * copy. The delimited tags column is still written so both stay readable while searches move to the tag tables.
+     *
+     * @param normalizedTags The normalized tag collection of the entity to update
+     */
+    protected void updateNormalizedTags(@NotNull final Set<String> normalizedTags) {
+        if (this.tagsChanged) {
+            final Set<String> currentTags = this.getTags();
+            normalizedTags.retainAll(currentTags);
+            normalizedTags.addAll(currentTags);
+            this.tagsChanged = false;
+        }
     }
 
     /**
@@ -25,7 +25,9 @@ import org.hibernate.validator.constraints.Length;
 
 import javax.annotation.Nullable;
 import javax.persistence.Basic;
+import javax.persistence.CollectionTable;
 import javax.persistence.Column;
+import javax.persistence.ElementCollection;
 import javax.persistence.Entity;
 import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
@@ -39,6 +41,8 @@ import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToOne;
 import javax.persistence.OrderColumn;
+import javax.persistence.PrePersist;
+import javax.persistence.PreUpdate;
 import javax.persistence.Table;
 import javax.persistence.Temporal;
 import javax.persistence.TemporalType;
@@ -46,8 +50,10 @@ import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * Representation of the state of a Genie 3.0 job.
@@ -143,6 +149,14 @@ public class JobEntity extends CommonFieldsEntity {
     @OrderColumn(name = "application_order", nullable = false)
     private List<ApplicationEntity> applications = new ArrayList<>();
 
+    @ElementCollection(fetch = FetchType.LAZY)
+    @CollectionTable(
+        name = "job_tags",
+        joinColumns = @JoinColumn(name = "job_id", referencedColumnName = "id")
+    )
+    @Column(name = "tag", nullable = false, length = 1024)
+    private Set<String> normalizedTags = new HashSet<>();
+
     /**
      * Default Constructor.
      */
@@ -151,6 +165,15 @@ public class JobEntity extends CommonFieldsEntity {
         this.setVersion(DEFAULT_VERSION);
     }
 
+    /**
+     * Keep the normalized tags in sync with the tags before the job is saved.
+     */
+    @PrePersist
+    @PreUpdate
+    protected void onCreateOrUpdateJob() {
+        this.updateNormalizedTags(this.normalizedTags);
+    }
+
     /**
      * Gets the name of the cluster on which this job was run.
      *
@@ -21,6 +21,7 @@ import com.netflix.genie.common.dto.JobExecution;
 import lombok.Getter;
 import lombok.Setter;
 
+import javax.annotation.Nullable;
 import javax.persistence.Basic;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -183,7 +184,17 @@ public class JobExecutionEntity extends BaseEntity {
      * @return The read-only DTO.
      */
     public JobExecution getDTO() {
-        return new JobExecution.Builder(this.hostName)
+        return this.getDTO(null);
+    }
+
+    /**
+     * Get a DTO representing this job execution including the resources the job used.
+     *
+     * @param metadata The metadata of the job holding the resources it used. Null if there isn't any.
+     * @return The read-only DTO.
+     */
+    public JobExecution getDTO(@Nullable final JobMetadataEntity metadata) {
+        final JobExecution.Builder builder = new JobExecution.Builder(this.hostName)
             .withProcessId(this.processId)
             .withCheckDelay(this.checkDelay)
             .withTimeout(this.timeout)
@@ -191,7 +202,12 @@ public class JobExecutionEntity extends BaseEntity {
             .withMemory(this.memory)
             .withId(this.getId())
             .withCreated(this.getCreated())
-            .withUpdated(this.getUpdated())
-            .build();
+            .withUpdated(this.getUpdated());
+        if (metadata != null) {
+            builder
+                .withCpuTime(metadata.getCpuTime().orElse(null))
+                .withPeakRss(metadata.getPeakRss().orElse(null));
+        }
+        return builder.build();
     }
 }
@@ -76,6 +76,16 @@ public class JobMetadataEntity extends BaseEntity {
     @Min(value = 0, message = "Can't have less than zero bytes for std err size")
     private Long stdErrSize;
 
+    @Basic
+    @Column(name = "cpu_time")
+    @Min(value = 0, message = "Can't have less than zero milliseconds of CPU time")
+    private Long cpuTime;
+
+    @Basic
+    @Column(name = "peak_rss")
+    @Min(value = 0, message = "Can't have less than zero bytes for peak resident set size")
+    private Long peakRss;
+
     @OneToOne(optional = false, fetch = FetchType.LAZY)
     @JoinColumn(name = "id")
     @MapsId
@@ -135,6 +145,24 @@ public class JobMetadataEntity extends BaseEntity {
         return Optional.ofNullable(this.stdErrSize);
     }
 
+    /**
+     * Get the CPU time used by the processes of this job.
+     *
+     * @return The CPU time (in milliseconds) used by the job as Optional
+     */
+    public Optional<Long> getCpuTime() {
+        return Optional.ofNullable(this.cpuTime);
+    }
+
+    /**
+     * Get the highest resident memory used by the processes of this job at once.
+     *
+     * @return The peak resident set size (in bytes) of the job as Optional
+     */
+    public Optional<Long> getPeakRss() {
+        return Optional.ofNullable(this.peakRss);
+    }
+
     /**
      * Get a DTO representation of this entity.
      *
@@ -152,6 +180,8 @@ public class JobMetadataEntity extends BaseEntity {
             .withTotalSizeOfAttachments(this.totalSizeOfAttachments)
             .withStdOutSize(this.stdOutSize)
             .withStdErrSize(this.stdErrSize)
+            .withCpuTime(this.cpuTime)
+            .withPeakRss(this.peakRss)
             .build();
     }
 }
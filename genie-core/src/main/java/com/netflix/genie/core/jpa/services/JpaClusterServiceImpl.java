@@ -22,6 +22,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.fge.jsonpatch.JsonPatch;
 import com.github.fge.jsonpatch.JsonPatchException;
 import com.google.common.collect.Sets;
+import com.netflix.genie.common.dto.Application;
 import com.netflix.genie.common.dto.Cluster;
 import com.netflix.genie.common.dto.ClusterCriteria;
 import com.netflix.genie.common.dto.ClusterStatus;
@@ -34,8 +35,11 @@ import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieNotFoundException;
 import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.jobs.ResolvedCommand;
+import com.netflix.genie.core.jpa.entities.ApplicationEntity;
 import com.netflix.genie.core.jpa.entities.ClusterEntity;
 import com.netflix.genie.core.jpa.entities.CommandEntity;
+import com.netflix.genie.core.jpa.repositories.JpaApplicationRepository;
 import com.netflix.genie.core.jpa.repositories.JpaClusterRepository;
 import com.netflix.genie.core.jpa.repositories.JpaCommandRepository;
 import com.netflix.genie.core.jpa.specifications.JpaClusterSpecs;
@@ -53,7 +57,9 @@ import javax.validation.constraints.NotNull;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -77,19 +83,27 @@ public class JpaClusterServiceImpl implements ClusterService {
     private final ObjectMapper mapper = new ObjectMapper();
     private final JpaClusterRepository clusterRepo;
     private final JpaCommandRepository commandRepo;
+    private final JpaApplicationRepository applicationRepo;
+    private final TagIndex tagIndex;
 
     /**
      * Default constructor - initialize all required dependencies.
      *
-     * @param clusterRepo The cluster repository to use.
-     * @param commandRepo The command repository to use.
+     * @param clusterRepo     The cluster repository to use.
+     * @param commandRepo     The command repository to use.
+     * @param applicationRepo The application repository to use.
+     * @param tagIndex        The in-memory tag index to find candidate clusters with.
      */
     public JpaClusterServiceImpl(
         final JpaClusterRepository clusterRepo,
-        final JpaCommandRepository commandRepo
+        final JpaCommandRepository commandRepo,
+        final JpaApplicationRepository applicationRepo,
+        final TagIndex tagIndex
     ) {
         this.clusterRepo = clusterRepo;
         this.commandRepo = commandRepo;
+        this.applicationRepo = applicationRepo;
+        this.tagIndex = tagIndex;
     }
 
     /**
@@ -164,13 +178,7 @@ public class JpaClusterServiceImpl implements ClusterService {
         final Set<String> commandCriteria = jobRequest.getCommandCriteria();
 
         for (final ClusterCriteria clusterCriteria : clusterCriterias) {
-            @SuppressWarnings("unchecked")
-            final List<ClusterEntity> clusterEntities = this.clusterRepo.findAll(
-                JpaClusterSpecs.findByClusterAndCommandCriteria(
-                    clusterCriteria,
-                    commandCriteria
-                )
-            );
+            final List<ClusterEntity> clusterEntities = this.findClusters(clusterCriteria, commandCriteria);
 
             if (!clusterEntities.isEmpty()) {
                 return clusterEntities
@@ -184,6 +192,66 @@ public class JpaClusterServiceImpl implements ClusterService {
         return new ArrayList<>();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public Map<Cluster, ResolvedCommand> resolveClustersAndCommandsForJobRequest(
+        @NotNull(message = "JobRequest object is null. Unable to continue.")
+        final JobRequest jobRequest
+    ) throws GenieException {
+        log.debug("Called");
+
+        final Set<String> commandCriteria = jobRequest.getCommandCriteria();
+        final List<String> requestedApplicationIds = jobRequest.getApplications();
+        final Map<Cluster, ResolvedCommand> resolved = new LinkedHashMap<>();
+        List<Application> requestedApplications = null;
+
+        for (final ClusterCriteria clusterCriteria : jobRequest.getClusterCriterias()) {
+            final List<ClusterEntity> clusterEntities = this.findClusters(clusterCriteria, commandCriteria);
+
+            // The commands and their applications are fetch joined with the clusters so walking them below doesn't
+            // issue a select per cluster or command. Tags are columns of the entity rows and come with them.
+            for (final ClusterEntity clusterEntity : clusterEntities) {
+                final Optional<CommandEntity> commandEntity = clusterEntity
+                    .getCommands()
+                    .stream()
+                    .filter(command -> command.getStatus() == CommandStatus.ACTIVE)
+                    .filter(command -> command.getTags().containsAll(commandCriteria))
+                    .findFirst();
+                if (commandEntity.isPresent()) {
+                    final List<Application> applications;
+                    if (requestedApplicationIds.isEmpty()) {
+                        applications = commandEntity
+                            .get()
+                            .getApplications()
+                            .stream()
+                            .map(ApplicationEntity::getDTO)
+                            .collect(Collectors.toList());
+                    } else {
+                        // Applications requested by the job override the command ones and are the same everywhere
+                        if (requestedApplications == null) {
+                            requestedApplications = this.findApplications(requestedApplicationIds);
+                        }
+                        applications = requestedApplications;
+                    }
+                    resolved.put(
+                        clusterEntity.getDTO(),
+                        new ResolvedCommand(commandEntity.get().getDTO(), applications)
+                    );
+                }
+            }
+
+            if (!resolved.isEmpty()) {
+                return resolved;
+            }
+        }
+
+        //if we've gotten to here no cluster/command combination was found so return empty map
+        return resolved;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -234,6 +302,7 @@ public class JpaClusterServiceImpl implements ClusterService {
     @Override
     public void deleteAllClusters() throws GenieException {
         log.debug("Called to delete all clusters");
+        this.tagIndex.invalidate();
         for (final ClusterEntity clusterEntity : this.clusterRepo.findAll()) {
             this.deleteCluster(clusterEntity.getId());
         }
@@ -260,6 +329,7 @@ public class JpaClusterServiceImpl implements ClusterService {
             }
         }
         this.clusterRepo.delete(clusterEntity);
+        this.tagIndex.invalidate();
     }
 
     /**
@@ -390,6 +460,7 @@ public class JpaClusterServiceImpl implements ClusterService {
         final Set<String> clusterTags = cluster.getTags();
         clusterTags.addAll(tags);
         cluster.setTags(clusterTags);
+        this.tagIndex.invalidate();
     }
 
     /**
@@ -415,6 +486,7 @@ public class JpaClusterServiceImpl implements ClusterService {
         final Set<String> tags
     ) throws GenieException {
         this.findCluster(id).setTags(tags);
+        this.tagIndex.invalidate();
     }
 
     /**
@@ -426,6 +498,7 @@ public class JpaClusterServiceImpl implements ClusterService {
         final String id
     ) throws GenieException {
         this.findCluster(id).setTags(Sets.newHashSet());
+        this.tagIndex.invalidate();
     }
 
     /**
@@ -442,6 +515,7 @@ public class JpaClusterServiceImpl implements ClusterService {
         final Set<String> tags = cluster.getTags();
         tags.remove(tag);
         cluster.setTags(tags);
+        this.tagIndex.invalidate();
     }
 
     /**
@@ -462,6 +536,7 @@ public class JpaClusterServiceImpl implements ClusterService {
         for (final String commandId : commandIds) {
             clusterEntity.addCommand(this.commandRepo.findOne(commandId));
         }
+        this.tagIndex.invalidate();
     }
 
     /**
@@ -504,6 +579,7 @@ public class JpaClusterServiceImpl implements ClusterService {
         commandIds.forEach(commandId -> commandEntities.add(this.commandRepo.findOne(commandId)));
 
         clusterEntity.setCommands(commandEntities);
+        this.tagIndex.invalidate();
     }
 
     /**
@@ -515,6 +591,7 @@ public class JpaClusterServiceImpl implements ClusterService {
         final String id
     ) throws GenieException {
         this.findCluster(id).removeAllCommands();
+        this.tagIndex.invalidate();
     }
 
     /**
@@ -531,6 +608,7 @@ public class JpaClusterServiceImpl implements ClusterService {
         final CommandEntity commandEntity = this.commandRepo.findOne(cmdId);
         if (commandEntity != null) {
             clusterEntity.removeCommand(commandEntity);
+            this.tagIndex.invalidate();
         } else {
             throw new GenieNotFoundException("No command with id " + cmdId + " exists.");
         }
@@ -552,6 +630,80 @@ public class JpaClusterServiceImpl implements ClusterService {
         }
     }
 
+    /**
+     * Helper to find the UP clusters matching the cluster criteria which have an ACTIVE command matching the command
+     * criteria. The tag index is consulted first and its candidates are verified against the loaded entities. If the
+     * index is unavailable, has no candidates or disagrees with the database the tag query is run instead.
+     *
+     * @param clusterCriteria The cluster criteria to match
+     * @param commandCriteria The command criteria to match
+     * @return The matching cluster entities
+     */
+    private List<ClusterEntity> findClusters(
+        final ClusterCriteria clusterCriteria,
+        final Set<String> commandCriteria
+    ) {
+        final Set<String> clusterTags = clusterCriteria.getTags();
+        final Optional<List<String>> candidateIds = this.tagIndex.findClusterIds(clusterTags, commandCriteria);
+        if (candidateIds.isPresent() && !candidateIds.get().isEmpty()) {
+            @SuppressWarnings("unchecked")
+            final List<ClusterEntity> candidates = this.clusterRepo.findAll(
+                JpaClusterSpecs.findByIdsWithCommandsAndApplications(candidateIds.get())
+            );
+            final boolean verified = candidates.size() == candidateIds.get().size()
+                && candidates
+                .stream()
+                .allMatch(
+                    cluster -> cluster.getStatus() == ClusterStatus.UP
+                        && cluster.getTags().containsAll(clusterTags)
+                        && cluster
+                        .getCommands()
+                        .stream()
+                        .anyMatch(
+                            command -> command.getStatus() == CommandStatus.ACTIVE
+                                && command.getTags().containsAll(commandCriteria)
+                        )
+                );
+            if (verified) {
+                return candidates;
+            }
+            log.debug("Tag index candidates {} didn't match the database. Falling back to query.", candidateIds.get());
+            this.tagIndex.invalidate();
+        }
+
+        @SuppressWarnings("unchecked")
+        final List<ClusterEntity> clusterEntities = this.clusterRepo.findAll(
+            JpaClusterSpecs.findByClusterAndCommandCriteria(
+                clusterCriteria,
+                commandCriteria
+            )
+        );
+        return clusterEntities;
+    }
+
+    /**
+     * Helper to load a set of applications by id in a single query.
+     *
+     * @param applicationIds The ids of the applications in the order they should be returned
+     * @return The applications in the same order as the ids
+     * @throws GenieNotFoundException If any of the applications doesn't exist
+     */
+    private List<Application> findApplications(final List<String> applicationIds) throws GenieNotFoundException {
+        final Map<String, ApplicationEntity> applicationEntities = this.applicationRepo
+            .findAll(applicationIds)
+            .stream()
+            .collect(Collectors.toMap(ApplicationEntity::getId, applicationEntity -> applicationEntity));
+        final List<Application> applications = new ArrayList<>();
+        for (final String applicationId : applicationIds) {
+            final ApplicationEntity applicationEntity = applicationEntities.get(applicationId);
+            if (applicationEntity == null) {
+                throw new GenieNotFoundException("No application with id " + applicationId + " exists.");
+            }
+            applications.add(applicationEntity.getDTO());
+        }
+        return applications;
+    }
+
     private void updateAndSaveClusterEntity(final ClusterEntity clusterEntity, final Cluster updateCluster) {
         clusterEntity.setName(updateCluster.getName());
         clusterEntity.setUser(updateCluster.getUser());
@@ -566,5 +718,6 @@ public class JpaClusterServiceImpl implements ClusterService {
         clusterEntity.setSetupFile(setupFile.orElse(null));
 
         this.clusterRepo.save(clusterEntity);
+        this.tagIndex.invalidate();
     }
 }
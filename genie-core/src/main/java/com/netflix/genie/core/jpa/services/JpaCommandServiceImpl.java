@@ -81,6 +81,7 @@ public class JpaCommandServiceImpl implements CommandService {
     private final JpaCommandRepository commandRepo;
     private final JpaApplicationRepository appRepo;
     private final JpaClusterRepository clusterRepo;
+    private final TagIndex tagIndex;
 
     /**
      * Default constructor.
@@ -88,15 +89,18 @@ public class JpaCommandServiceImpl implements CommandService {
      * @param commandRepo the command repository to use
      * @param appRepo     the application repository to use
      * @param clusterRepo the cluster repository to use
+     * @param tagIndex    the tag index to invalidate when commands change
      */
     public JpaCommandServiceImpl(
         final JpaCommandRepository commandRepo,
         final JpaApplicationRepository appRepo,
-        final JpaClusterRepository clusterRepo
+        final JpaClusterRepository clusterRepo,
+        final TagIndex tagIndex
     ) {
         this.commandRepo = commandRepo;
         this.appRepo = appRepo;
         this.clusterRepo = clusterRepo;
+        this.tagIndex = tagIndex;
     }
 
     /**
@@ -211,6 +215,7 @@ public class JpaCommandServiceImpl implements CommandService {
     @Override
     public void deleteAllCommands() throws GenieException {
         log.debug("Called to delete all commands");
+        this.tagIndex.invalidate();
         for (final CommandEntity commandEntity : this.commandRepo.findAll()) {
             this.deleteCommand(commandEntity.getId());
         }
@@ -240,6 +245,7 @@ public class JpaCommandServiceImpl implements CommandService {
             clusterEntities.forEach(clusterEntity -> clusterEntity.removeCommand(commandEntity));
         }
         this.commandRepo.delete(commandEntity);
+        this.tagIndex.invalidate();
     }
 
     /**
@@ -380,6 +386,7 @@ public class JpaCommandServiceImpl implements CommandService {
         final Set<String> commandTags = command.getTags();
         commandTags.addAll(tags);
         command.setTags(commandTags);
+        this.tagIndex.invalidate();
     }
 
     /**
@@ -405,6 +412,7 @@ public class JpaCommandServiceImpl implements CommandService {
         final Set<String> tags
     ) throws GenieException {
         this.findCommand(id).setTags(tags);
+        this.tagIndex.invalidate();
     }
 
     /**
@@ -416,6 +424,7 @@ public class JpaCommandServiceImpl implements CommandService {
         final String id
     ) throws GenieException {
         this.findCommand(id).setTags(Sets.newHashSet());
+        this.tagIndex.invalidate();
     }
 
     /**
@@ -432,6 +441,7 @@ public class JpaCommandServiceImpl implements CommandService {
         final Set<String> commandTags = command.getTags();
         commandTags.remove(tag);
         command.setTags(commandTags);
+        this.tagIndex.invalidate();
     }
 
     /**
@@ -583,5 +593,6 @@ public class JpaCommandServiceImpl implements CommandService {
         commandEntity.setMemory(memory.isPresent() ? memory.get() : null);
 
         this.commandRepo.save(commandEntity);
+        this.tagIndex.invalidate();
     }
 }
@@ -290,6 +290,26 @@ public class JpaJobPersistenceServiceImpl implements JobPersistenceService {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setJobResourceUsage(
+        @NotBlank(message = "No job id entered. Unable to update.") final String id,
+        @Min(value = 0, message = "CPU time can't be negative") final long cpuTime,
+        @Min(value = 0, message = "Peak resident set size can't be negative") final long peakRss
+    ) throws GenieException {
+        log.debug("Called with id: {}, cpu time: {}, peak rss: {}", id, cpuTime, peakRss);
+        final JobMetadataEntity jobMetadataEntity = this.jobMetadataRepository.findOne(id);
+        if (jobMetadataEntity == null) {
+            throw new GenieNotFoundException("No job metadata for job with id " + id + " exists");
+        }
+        jobMetadataEntity.setCpuTime(cpuTime);
+        if (peakRss > jobMetadataEntity.getPeakRss().orElse(0L)) {
+            jobMetadataEntity.setPeakRss(peakRss);
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -39,6 +39,7 @@ import com.netflix.genie.core.jpa.entities.JobRequestEntity;
 import com.netflix.genie.core.jpa.repositories.JpaClusterRepository;
 import com.netflix.genie.core.jpa.repositories.JpaCommandRepository;
 import com.netflix.genie.core.jpa.repositories.JpaJobExecutionRepository;
+import com.netflix.genie.core.jpa.repositories.JpaJobMetadataRepository;
 import com.netflix.genie.core.jpa.repositories.JpaJobRepository;
 import com.netflix.genie.core.jpa.repositories.JpaJobRequestRepository;
 import com.netflix.genie.core.jpa.specifications.JpaJobSpecs;
@@ -81,6 +82,7 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
     private final JpaJobRepository jobRepository;
     private final JpaJobRequestRepository jobRequestRepository;
     private final JpaJobExecutionRepository jobExecutionRepository;
+    private final JpaJobMetadataRepository jobMetadataRepository;
     private final JpaClusterRepository clusterRepository;
     private final JpaCommandRepository commandRepository;
 
@@ -93,6 +95,7 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
      * @param jobRepository          The repository to use for job entities
      * @param jobRequestRepository   The repository to use for job request entities
      * @param jobExecutionRepository The repository to use for job execution entities
+     * @param jobMetadataRepository  The repository to use for job metadata entities
      * @param clusterRepository      The repository to use for cluster entities
      * @param commandRepository      The repository to use for command entities
      */
@@ -100,12 +103,14 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
         final JpaJobRepository jobRepository,
         final JpaJobRequestRepository jobRequestRepository,
         final JpaJobExecutionRepository jobExecutionRepository,
+        final JpaJobMetadataRepository jobMetadataRepository,
         final JpaClusterRepository clusterRepository,
         final JpaCommandRepository commandRepository
     ) {
         this.jobRepository = jobRepository;
         this.jobRequestRepository = jobRequestRepository;
         this.jobExecutionRepository = jobExecutionRepository;
+        this.jobMetadataRepository = jobMetadataRepository;
         this.clusterRepository = clusterRepository;
         this.commandRepository = commandRepository;
     }
@@ -139,6 +144,7 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
         final Predicate whereClause = JpaJobSpecs
             .getFindPredicate(
                 root,
+                countQuery,
                 cb,
                 id,
                 jobName,
@@ -290,7 +296,7 @@ public class JpaJobSearchServiceImpl implements JobSearchService {
         log.debug("Called with id {}", id);
         final JobExecutionEntity jobExecutionEntity = this.jobExecutionRepository.findOne(id);
         if (jobExecutionEntity != null) {
-            return jobExecutionEntity.getDTO();
+            return jobExecutionEntity.getDTO(this.jobMetadataRepository.findOne(id));
         } else {
             throw new GenieNotFoundException("No job execution with id " + id);
         }
@@ -0,0 +1,251 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jpa.services;
+
+import com.netflix.genie.common.dto.ClusterStatus;
+import com.netflix.genie.common.dto.CommandStatus;
+import com.netflix.genie.core.jpa.entities.ClusterEntity;
+import com.netflix.genie.core.jpa.entities.CommandEntity;
+import com.netflix.genie.core.jpa.repositories.JpaClusterRepository;
+import com.netflix.genie.core.properties.TagIndexProperties;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.validation.constraints.NotNull;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * An in-memory inverted index from tags to the UP clusters and ACTIVE commands carrying them. Used to find the
+ * candidate clusters for a job with bitmap intersections instead of tag LIKE queries against the database.
+ * <p>
+ * The index is rebuilt periodically by calling {@link #refresh()}. Any write to clusters or commands should call
+ * {@link #invalidate()} so lookups go back to the database until the next rebuild. Results are only candidates,
+ * callers are expected to verify them against the loaded entities.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Slf4j
+public class TagIndex {
+
+    private final JpaClusterRepository clusterRepo;
+    private final TagIndexProperties properties;
+    private final AtomicLong version = new AtomicLong();
+    private volatile Snapshot snapshot;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter refreshFailureCounter;
+    private final Timer refreshTimer;
+
+    /**
+     * Constructor.
+     *
+     * @param clusterRepo The cluster repository to build the index from
+     * @param properties  The properties controlling the index
+     * @param registry    The metrics registry to use
+     */
+    public TagIndex(
+        @NotNull final JpaClusterRepository clusterRepo,
+        @NotNull final TagIndexProperties properties,
+        @NotNull final Registry registry
+    ) {
+        this.clusterRepo = clusterRepo;
+        this.properties = properties;
+
+        this.hitCounter = registry.counter("genie.tagIndex.hit.counter");
+        this.missCounter = registry.counter("genie.tagIndex.miss.counter");
+        this.refreshFailureCounter = registry.counter("genie.tagIndex.refresh.failure.counter");
+        this.refreshTimer = registry.timer("genie.tagIndex.refresh.timer");
+        registry.gauge(
+            "genie.tagIndex.staleness.gauge",
+            this,
+            (ToDoubleFunction<TagIndex>) TagIndex::getStaleness
+        );
+    }
+
+    /**
+     * Rebuild the index from the clusters currently in the database. If any write happens while the rebuild is in
+     * progress the result won't be used until the following rebuild.
+     */
+    public void refresh() {
+        final long start = System.nanoTime();
+        try {
+            final long buildVersion = this.version.get();
+            final Snapshot newSnapshot = new Snapshot(buildVersion, System.currentTimeMillis());
+            for (final ClusterEntity cluster : this.clusterRepo.findAll()) {
+                newSnapshot.addCluster(cluster);
+            }
+            this.snapshot = newSnapshot;
+            log.debug("Rebuilt tag index at version {}", buildVersion);
+        } catch (final RuntimeException re) {
+            this.refreshFailureCounter.increment();
+            log.error("Unable to rebuild tag index due to {}", re.getMessage(), re);
+        } finally {
+            this.refreshTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Mark the current index contents as out of date. If called within a transaction the index is invalidated again
+     * once the transaction completes so a rebuild which read the data before the commit is also discarded.
+     */
+    public void invalidate() {
+        this.version.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCompletion(final int status) {
+                        version.incrementAndGet();
+                    }
+                }
+            );
+        }
+    }
+
+    /**
+     * Find the ids of the UP clusters which have all the given cluster tags and at least one ACTIVE command with all
+     * the given command tags.
+     *
+     * @param clusterTags The tags the cluster must have. Null or empty matches all clusters.
+     * @param commandTags The tags the command must have. Null or empty matches all commands.
+     * @return The candidate cluster ids or empty if the index is disabled or out of date and the database should be
+     * queried instead
+     */
+    public Optional<List<String>> findClusterIds(final Set<String> clusterTags, final Set<String> commandTags) {
+        if (!this.properties.isEnabled()) {
+            return Optional.empty();
+        }
+
+        final Snapshot current = this.snapshot;
+        final boolean upToDate = current != null
+            && current.version == this.version.get()
+            && System.currentTimeMillis() - current.builtAt <= this.properties.getMaxStaleness();
+        if (!upToDate) {
+            this.missCounter.increment();
+            return Optional.empty();
+        }
+
+        this.hitCounter.increment();
+        return Optional.of(current.findClusterIds(clusterTags, commandTags));
+    }
+
+    /**
+     * Get how old the current index is in milliseconds.
+     *
+     * @return The age of the index or -1 if it hasn't been built yet
+     */
+    public long getStaleness() {
+        final Snapshot current = this.snapshot;
+        return current == null ? -1L : System.currentTimeMillis() - current.builtAt;
+    }
+
+    /**
+     * An immutable once published view of the clusters and commands keyed by tag.
+     */
+    private static final class Snapshot {
+        private final long version;
+        private final long builtAt;
+        private final List<String> clusterIds = new ArrayList<>();
+        private final BitSet allClusters = new BitSet();
+        private final Map<String, BitSet> clustersByTag = new HashMap<>();
+        private final Map<String, Integer> commandOrdinals = new HashMap<>();
+        private final List<BitSet> clustersByCommand = new ArrayList<>();
+        private final BitSet allCommands = new BitSet();
+        private final Map<String, BitSet> commandsByTag = new HashMap<>();
+
+        private Snapshot(final long version, final long builtAt) {
+            this.version = version;
+            this.builtAt = builtAt;
+        }
+
+        private void addCluster(final ClusterEntity cluster) {
+            if (cluster.getStatus() != ClusterStatus.UP) {
+                return;
+            }
+            final int clusterOrdinal = this.clusterIds.size();
+            this.clusterIds.add(cluster.getId());
+            this.allClusters.set(clusterOrdinal);
+            for (final String tag : cluster.getTags()) {
+                this.clustersByTag.computeIfAbsent(tag, key -> new BitSet()).set(clusterOrdinal);
+            }
+
+            for (final CommandEntity command : cluster.getCommands()) {
+                if (command.getStatus() != CommandStatus.ACTIVE) {
+                    continue;
+                }
+                Integer commandOrdinal = this.commandOrdinals.get(command.getId());
+                if (commandOrdinal == null) {
+                    commandOrdinal = this.clustersByCommand.size();
+                    this.commandOrdinals.put(command.getId(), commandOrdinal);
+                    this.clustersByCommand.add(new BitSet());
+                    this.allCommands.set(commandOrdinal);
+                    for (final String tag : command.getTags()) {
+                        this.commandsByTag.computeIfAbsent(tag, key -> new BitSet()).set(commandOrdinal);
+                    }
+                }
+                this.clustersByCommand.get(commandOrdinal).set(clusterOrdinal);
+            }
+        }
+
+        private List<String> findClusterIds(final Set<String> clusterTags, final Set<String> commandTags) {
+            final BitSet clusters = this.intersect(this.allClusters, this.clustersByTag, clusterTags);
+            final BitSet commands = this.intersect(this.allCommands, this.commandsByTag, commandTags);
+            if (clusters.isEmpty() || commands.isEmpty()) {
+                return Collections.emptyList();
+            }
+
+            final BitSet reachable = new BitSet();
+            commands.stream().forEach(commandOrdinal -> reachable.or(this.clustersByCommand.get(commandOrdinal)));
+            clusters.and(reachable);
+
+            final List<String> ids = new ArrayList<>(clusters.cardinality());
+            clusters.stream().forEach(clusterOrdinal -> ids.add(this.clusterIds.get(clusterOrdinal)));
+            return ids;
+        }
+
+        private BitSet intersect(final BitSet all, final Map<String, BitSet> byTag, final Set<String> tags) {
+            final BitSet result = (BitSet) all.clone();
+            if (tags != null) {
+                for (final String tag : tags) {
+                    final BitSet withTag = byTag.get(tag);
+                    if (withTag == null) {
+                        return new BitSet();
+                    }
+                    result.and(withTag);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -83,9 +83,13 @@ public final class JpaApplicationSpecs {
             }
             if (tags != null && !tags.isEmpty()) {
                 predicates.add(
-                    cb.like(
-                        root.get(ApplicationEntity_.tags),
-                        JpaSpecificationUtils.getTagLikeString(tags)
+                    JpaSpecificationUtils.getTagsPredicate(
+                        cb,
+                        cq,
+                        root,
+                        ApplicationEntity.class,
+                        ApplicationEntity_.normalizedTags,
+                        tags
                     )
                 );
             }
@@ -18,6 +18,7 @@ package com.netflix.genie.core.jpa.specifications;
 import com.netflix.genie.common.dto.ClusterCriteria;
 import com.netflix.genie.common.dto.ClusterStatus;
 import com.netflix.genie.common.dto.CommandStatus;
+import com.netflix.genie.core.jpa.entities.BaseEntity_;
 import com.netflix.genie.core.jpa.entities.ClusterEntity;
 import com.netflix.genie.core.jpa.entities.ClusterEntity_;
 import com.netflix.genie.core.jpa.entities.CommandEntity;
@@ -28,9 +29,11 @@ import org.springframework.data.jpa.domain.Specification;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Join;
+import javax.persistence.criteria.JoinType;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 import java.util.Set;
@@ -82,9 +85,13 @@ public final class JpaClusterSpecs {
             }
             if (tags != null && !tags.isEmpty()) {
                 predicates.add(
-                    cb.like(
-                        root.get(ClusterEntity_.tags),
-                        JpaSpecificationUtils.getTagLikeString(tags)
+                    JpaSpecificationUtils.getTagsPredicate(
+                        cb,
+                        cq,
+                        root,
+                        ClusterEntity.class,
+                        ClusterEntity_.normalizedTags,
+                        tags
                     )
                 );
             }
@@ -103,7 +110,8 @@ public final class JpaClusterSpecs {
     }
 
     /**
-     * Get all the clusters given the specified parameters.
+     * Get all the clusters given the specified parameters. The commands of the clusters and the applications of those
+     * commands are fetched in the same query.
      *
      * @param clusterCriteria The cluster criteria
      * @param commandCriteria The command Criteria
@@ -118,14 +126,19 @@ public final class JpaClusterSpecs {
             final Join<ClusterEntity, CommandEntity> commands = root.join(ClusterEntity_.commands);
 
             cq.distinct(true);
+            fetchCommandsAndApplications(root, cq);
 
             predicates.add(cb.equal(root.get(ClusterEntity_.status), ClusterStatus.UP));
 
             if (clusterCriteria != null && clusterCriteria.getTags() != null && !clusterCriteria.getTags().isEmpty()) {
                 predicates.add(
-                    cb.like(
-                        root.get(ClusterEntity_.tags),
-                        JpaSpecificationUtils.getTagLikeString(clusterCriteria.getTags())
+                    JpaSpecificationUtils.getTagsPredicate(
+                        cb,
+                        cq,
+                        root,
+                        ClusterEntity.class,
+                        ClusterEntity_.normalizedTags,
+                        clusterCriteria.getTags()
                     )
                 );
             }
@@ -134,9 +147,13 @@ public final class JpaClusterSpecs {
 
             if (commandCriteria != null && !commandCriteria.isEmpty()) {
                 predicates.add(
-                    cb.like(
-                        commands.get(CommandEntity_.tags),
-                        JpaSpecificationUtils.getTagLikeString(commandCriteria)
+                    JpaSpecificationUtils.getTagsPredicate(
+                        cb,
+                        cq,
+                        commands,
+                        CommandEntity.class,
+                        CommandEntity_.normalizedTags,
+                        commandCriteria
                     )
                 );
             }
@@ -145,6 +162,21 @@ public final class JpaClusterSpecs {
         };
     }
 
+    /**
+     * Get the clusters with the given ids. The commands of the clusters and the applications of those commands are
+     * fetched in the same query.
+     *
+     * @param ids The ids of the clusters to find
+     * @return The specification
+     */
+    public static Specification<ClusterEntity> findByIdsWithCommandsAndApplications(final Collection<String> ids) {
+        return (final Root<ClusterEntity> root, final CriteriaQuery<?> cq, final CriteriaBuilder cb) -> {
+            cq.distinct(true);
+            fetchCommandsAndApplications(root, cq);
+            return root.get(BaseEntity_.id).in(ids);
+        };
+    }
+
     /**
      * Get all the clusters given the specified parameters.
      *
@@ -173,4 +205,20 @@ public final class JpaClusterSpecs {
             return cb.and(predicates.toArray(new Predicate[predicates.size()]));
         };
     }
+
+    /**
+     * Fetch join the commands of the clusters and the applications of those commands so they're loaded with the
+     * clusters instead of with a select per cluster and per command. Count queries can't fetch so they're skipped.
+     *
+     * @param root The cluster root of the query
+     * @param cq   The query
+     */
+    private static void fetchCommandsAndApplications(final Root<ClusterEntity> root, final CriteriaQuery<?> cq) {
+        if (Long.class.equals(cq.getResultType())) {
+            return;
+        }
+        root
+            .fetch(ClusterEntity_.commands, JoinType.LEFT)
+            .fetch(CommandEntity_.applications, JoinType.LEFT);
+    }
 }
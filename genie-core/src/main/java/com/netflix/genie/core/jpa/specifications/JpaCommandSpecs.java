@@ -84,9 +84,13 @@ public final class JpaCommandSpecs {
             }
             if (tags != null && !tags.isEmpty()) {
                 predicates.add(
-                    cb.like(
-                        root.get(CommandEntity_.tags),
-                        JpaSpecificationUtils.getTagLikeString(tags)
+                    JpaSpecificationUtils.getTagsPredicate(
+                        cb,
+                        cq,
+                        root,
+                        CommandEntity.class,
+                        CommandEntity_.normalizedTags,
+                        tags
                     )
                 );
             }
@@ -23,6 +23,7 @@ import com.netflix.genie.core.jpa.entities.JobEntity_;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import java.util.ArrayList;
@@ -49,6 +50,7 @@ public final class JpaJobSpecs {
      * Generate a criteria query predicate for a where clause based on the given parameters.
      *
      * @param root        The root to use
+     * @param cq          The query the predicate is for
      * @param cb          The criteria builder to use
      * @param id          The job id
      * @param name        The job name
@@ -65,8 +67,10 @@ public final class JpaJobSpecs {
      * @param maxFinished The time which the job had to finish before in order to be returned (exclusive)
      * @return The specification
      */
+    @SuppressWarnings("checkstyle:parameternumber")
     public static Predicate getFindPredicate(
         final Root<JobEntity> root,
+        final CriteriaQuery<?> cq,
         final CriteriaBuilder cb,
         final String id,
         final String name,
@@ -101,7 +105,9 @@ public final class JpaJobSpecs {
             predicates.add(cb.or(orPredicates.toArray(new Predicate[orPredicates.size()])));
         }
         if (tags != null && !tags.isEmpty()) {
-            predicates.add(cb.like(root.get(JobEntity_.tags), JpaSpecificationUtils.getTagLikeString(tags)));
+            predicates.add(
+                JpaSpecificationUtils.getTagsPredicate(cb, cq, root, JobEntity.class, JobEntity_.normalizedTags, tags)
+            );
         }
         if (cluster != null) {
             predicates.add(cb.equal(root.get(JobEntity_.cluster), cluster));
@@ -17,14 +17,23 @@
  */
 package com.netflix.genie.core.jpa.specifications;
 
+import com.netflix.genie.core.jpa.entities.BaseEntity_;
 import com.netflix.genie.core.jpa.entities.CommonFieldsEntity;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.From;
+import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.SetJoin;
+import javax.persistence.criteria.Subquery;
+import javax.persistence.metamodel.SetAttribute;
 import javax.validation.constraints.NotNull;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Utility methods for the specification classes.
@@ -79,4 +88,43 @@ public final class JpaSpecificationUtils {
             );
         return builder.append(PERCENT).toString();
     }
+
+    /**
+     * Get a predicate which matches the entities having all the given tags. The tags are looked up in the normalized
+     * tag table of the entity, grouped by entity id and only ids with a row for every tag are kept. This uses the
+     * index on the tag table instead of scanning the delimited tags column with a leading wildcard LIKE.
+     *
+     * @param cb            The criteria builder to use for predicate creation
+     * @param cq            The query the predicate is for. Used to create the tag subquery.
+     * @param from          The root or join of the entities to restrict
+     * @param entityClass   The class of the entities to restrict
+     * @param tagsAttribute The normalized tags attribute of the entity class
+     * @param tags          The tags the entities must all have. Not null.
+     * @param <E>           The type of the entities to restrict
+     * @return The predicate restricting the entities to those which have all the tags
+     */
+    public static <E extends CommonFieldsEntity> Predicate getTagsPredicate(
+        @NotNull final CriteriaBuilder cb,
+        @NotNull final CriteriaQuery<?> cq,
+        @NotNull final From<?, E> from,
+        @NotNull final Class<E> entityClass,
+        @NotNull final SetAttribute<E, String> tagsAttribute,
+        @NotNull final Set<String> tags
+    ) {
+        final Set<String> searchTags = tags.stream().filter(StringUtils::isNotBlank).collect(Collectors.toSet());
+        if (searchTags.isEmpty()) {
+            return cb.conjunction();
+        }
+
+        final Subquery<String> subquery = cq.subquery(String.class);
+        final Root<E> tagged = subquery.from(entityClass);
+        final SetJoin<E, String> tag = tagged.join(tagsAttribute);
+        final Path<String> taggedId = tagged.get(BaseEntity_.id);
+        subquery
+            .select(taggedId)
+            .where(tag.in(searchTags))
+            .groupBy(taggedId)
+            .having(cb.equal(cb.countDistinct(tag), (long) searchTags.size()));
+        return from.get(BaseEntity_.id).in(subquery);
+    }
 }
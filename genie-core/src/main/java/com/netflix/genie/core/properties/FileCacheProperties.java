@@ -0,0 +1,96 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+
+/**
+ * Properties related to the local cache of files downloaded for jobs.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Getter
+@Setter
+public class FileCacheProperties {
+    /**
+     * Default value for how cached files are put into job directories.
+     */
+    public static final Materialization DEFAULT_MATERIALIZATION = Materialization.COPY;
+
+    /**
+     * Default value for the maximum number of bytes of cached files kept on disk. Zero means no limit.
+     */
+    public static final long DEFAULT_MAX_SIZE = 0L;
+
+    /**
+     * Default value for the fraction of the maximum size above which cached files start being evicted.
+     */
+    public static final double DEFAULT_HIGH_WATERMARK = 0.9;
+
+    /**
+     * Default value for the fraction of the maximum size cached files are evicted down to.
+     */
+    public static final double DEFAULT_LOW_WATERMARK = 0.75;
+
+    /**
+     * Default value for how many milliseconds a cached file is used before checking whether the remote file changed.
+     * Zero means it's checked every time it's used.
+     */
+    public static final long DEFAULT_REVALIDATION_INTERVAL = 0L;
+
+    @NotNull
+    private Materialization materialization = DEFAULT_MATERIALIZATION;
+    @Min(value = 0)
+    private long maxSize = DEFAULT_MAX_SIZE;
+    @DecimalMin(value = "0.0")
+    @DecimalMax(value = "1.0")
+    private double highWatermark = DEFAULT_HIGH_WATERMARK;
+    @DecimalMin(value = "0.0")
+    @DecimalMax(value = "1.0")
+    private double lowWatermark = DEFAULT_LOW_WATERMARK;
+    @Min(value = 0)
+    private long revalidationInterval = DEFAULT_REVALIDATION_INTERVAL;
+
+    /**
+     * The ways a cached file can be put into a job directory.
+     */
+    public enum Materialization {
+        /**
+         * Copy the bytes of the cached file into the job directory.
+         */
+        COPY,
+
+        /**
+         * Hard link the cached file, which is made read only, into the job directory. The job shares the file,
+         * including its owner, with the cache so files are copied instead when jobs run as the user who submitted them.
+         */
+        HARD_LINK,
+
+        /**
+         * Symbolically link the job directory to the cached file, which is made read only.
+         */
+        SYMBOLIC_LINK
+    }
+}
@@ -0,0 +1,56 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.Min;
+
+/**
+ * Properties related to admitting jobs on a node based on the memory their processes are observed to use rather than
+ * only on the memory they requested.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Getter
+@Setter
+public class JobsAdmissionProperties {
+    /**
+     * Default value for whether jobs are admitted based on the memory observed to be used.
+     */
+    public static final boolean DEFAULT_UTILIZATION_AWARE = false;
+
+    /**
+     * Default value for how many times the memory of the node the requested memory can add up to.
+     */
+    public static final double DEFAULT_OVERCOMMIT_RATIO = 1.5;
+
+    /**
+     * Default value for the memory, in MB, which has to stay available on the node once a job is admitted.
+     */
+    public static final int DEFAULT_HEADROOM = 2_048;
+
+    private boolean utilizationAware = DEFAULT_UTILIZATION_AWARE;
+    @DecimalMin(value = "1.0")
+    private double overcommitRatio = DEFAULT_OVERCOMMIT_RATIO;
+    @Min(value = 0)
+    private int headroom = DEFAULT_HEADROOM;
+}
@@ -0,0 +1,60 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+/**
+ * Properties related to compressing the directories of finished jobs into archives.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Getter
+@Setter
+public class JobsArchiveProperties {
+    /**
+     * Default gzip compression level, the same as the gzip command line default.
+     */
+    public static final int DEFAULT_COMPRESSION_LEVEL = 6;
+
+    /**
+     * Default number of threads to compress archives with. One compresses in the archiving thread as a single gzip
+     * member like {@code tar -z} does.
+     */
+    public static final int DEFAULT_COMPRESSION_THREADS = 1;
+
+    /**
+     * Default size in bytes of the blocks compressed in parallel when more than one thread is used.
+     */
+    public static final int DEFAULT_COMPRESSION_BLOCK_SIZE = 1024 * 1024;
+
+    @Min(value = 1)
+    @Max(value = 9)
+    private int compressionLevel = DEFAULT_COMPRESSION_LEVEL;
+
+    @Min(value = 1)
+    private int compressionThreads = DEFAULT_COMPRESSION_THREADS;
+
+    @Min(value = 64 * 1024)
+    private int compressionBlockSize = DEFAULT_COMPRESSION_BLOCK_SIZE;
+}
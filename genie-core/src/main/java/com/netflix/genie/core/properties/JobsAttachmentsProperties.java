@@ -0,0 +1,64 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Properties related to the attachments sent in with jobs.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Getter
+@Setter
+public class JobsAttachmentsProperties {
+    /**
+     * Default value for how saved attachments are put into job directories.
+     */
+    public static final Materialization DEFAULT_MATERIALIZATION = Materialization.COPY;
+
+    @NotNull
+    private Materialization materialization = DEFAULT_MATERIALIZATION;
+
+    /**
+     * The ways saved attachments can be put into a job directory. Attachments are deleted from where they were saved
+     * once they're in the job directory so moving or linking them avoids writing their bytes a second time.
+     */
+    public enum Materialization {
+        /**
+         * Copy the bytes of the attachments into the job directory.
+         */
+        COPY,
+
+        /**
+         * Rename the attachments into the job directory. Falls back to copying when the attachments and jobs
+         * directories aren't on the same filesystem.
+         */
+        MOVE,
+
+        /**
+         * Hard link the attachments into the job directory. Falls back to copying when the attachments and jobs
+         * directories aren't on the same filesystem.
+         */
+        HARD_LINK
+    }
+}
@@ -0,0 +1,41 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties related to downloading the files a job needs before it is launched.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Getter
+@Setter
+public class JobsDownloadsProperties {
+    /**
+     * Default value for the maximum number of files downloaded at once for a single job.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT = 4;
+
+    @Min(value = 1)
+    private int maxConcurrent = DEFAULT_MAX_CONCURRENT;
+}
@@ -0,0 +1,56 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties related to shipping the output of jobs to their archive location while they're still running.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Getter
+@Setter
+public class JobsLogShippingProperties {
+    /**
+     * Default for whether the output of running jobs is shipped.
+     */
+    public static final boolean DEFAULT_ENABLED = false;
+
+    /**
+     * Default number of milliseconds between shipping the new output of a job.
+     */
+    public static final long DEFAULT_INTERVAL = 30000L;
+
+    /**
+     * Default maximum number of bytes uploaded in a single segment.
+     */
+    public static final long DEFAULT_MAX_SEGMENT_SIZE = 64L * 1024L * 1024L;
+
+    private boolean enabled = DEFAULT_ENABLED;
+
+    @Min(value = 1000)
+    private long interval = DEFAULT_INTERVAL;
+
+    @Min(value = 1)
+    private long maxSegmentSize = DEFAULT_MAX_SEGMENT_SIZE;
+}
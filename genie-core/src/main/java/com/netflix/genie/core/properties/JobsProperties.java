@@ -31,21 +31,39 @@ import javax.validation.constraints.NotNull;
 @Getter
 @Setter
 public class JobsProperties {
+    @NotNull
+    private JobsAdmissionProperties admission = new JobsAdmissionProperties();
+
+    @NotNull
+    private JobsArchiveProperties archive = new JobsArchiveProperties();
+
+    @NotNull
+    private JobsAttachmentsProperties attachments = new JobsAttachmentsProperties();
+
     @NotNull
     private JobsCleanupProperties cleanup = new JobsCleanupProperties();
 
+    @NotNull
+    private JobsDownloadsProperties downloads = new JobsDownloadsProperties();
+
     @NotNull
     private JobsForwardingProperties forwarding = new JobsForwardingProperties();
 
     @NotNull
     private JobsLocationsProperties locations = new JobsLocationsProperties();
 
+    @NotNull
+    private JobsLogShippingProperties logShipping = new JobsLogShippingProperties();
+
     @NotNull
     private JobsMaxProperties max = new JobsMaxProperties();
 
     @NotNull
     private JobsMemoryProperties memory = new JobsMemoryProperties();
 
+    @NotNull
+    private JobsQueueProperties queue = new JobsQueueProperties();
+
     @NotNull
     private JobsUsersProperties users = new JobsUsersProperties();
 }
@@ -0,0 +1,54 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties related to queueing jobs on a node until there is enough memory free to run them.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Getter
+@Setter
+public class JobsQueueProperties {
+    /**
+     * Default value for whether the admission queue is enabled.
+     */
+    public static final boolean DEFAULT_ENABLED = false;
+
+    /**
+     * Default value for the maximum number of jobs waiting in the queue.
+     */
+    public static final int DEFAULT_MAX_DEPTH = 100;
+
+    /**
+     * Default value for how many milliseconds apart the queued jobs are retried when no job finishes.
+     */
+    public static final long DEFAULT_RETRY_INTERVAL = 10000L;
+
+    private boolean enabled = DEFAULT_ENABLED;
+    @Min(value = 1)
+    private int maxDepth = DEFAULT_MAX_DEPTH;
+    @Min(value = 1)
+    private long retryInterval = DEFAULT_RETRY_INTERVAL;
+}
@@ -0,0 +1,73 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.validation.constraints.Min;
+
+/**
+ * Properties controlling how files are transferred to and from S3.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Getter
+@Setter
+public class S3TransferProperties {
+    /**
+     * Default value for whether large objects are transferred in parts in parallel.
+     */
+    public static final boolean DEFAULT_PARALLEL_ENABLED = false;
+
+    /**
+     * Default value for the size in bytes above which objects are transferred in parts.
+     */
+    public static final long DEFAULT_THRESHOLD = 64L * 1024L * 1024L;
+
+    /**
+     * Default value for the size in bytes of each part.
+     */
+    public static final long DEFAULT_PART_SIZE = 16L * 1024L * 1024L;
+
+    /**
+     * Default value for the number of parts of a single object transferred at the same time.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT = 4;
+
+    /**
+     * Default value for the number of threads shared by all transfers to transfer parts.
+     */
+    public static final int DEFAULT_POOL_SIZE = 16;
+
+    /**
+     * The smallest part size S3 accepts for multipart uploads.
+     */
+    public static final long MIN_PART_SIZE = 5L * 1024L * 1024L;
+
+    private boolean parallelEnabled = DEFAULT_PARALLEL_ENABLED;
+    @Min(value = 0)
+    private long threshold = DEFAULT_THRESHOLD;
+    @Min(value = MIN_PART_SIZE)
+    private long partSize = DEFAULT_PART_SIZE;
+    @Min(value = 1)
+    private int maxConcurrent = DEFAULT_MAX_CONCURRENT;
+    @Min(value = 1)
+    private int poolSize = DEFAULT_POOL_SIZE;
+}
@@ -0,0 +1,47 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Properties related to the in-memory tag index used to find candidate clusters for a job.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Getter
+@Setter
+public class TagIndexProperties {
+    /**
+     * Whether cluster selection should consult the in-memory index before querying the database.
+     * Defaults to false.
+     */
+    private boolean enabled;
+
+    /**
+     * How often, in milliseconds, the index is rebuilt from the database. Defaults to 30000 ms.
+     */
+    private long refreshRate = 30000L;
+
+    /**
+     * The maximum age, in milliseconds, of the index before lookups fall back to the database. Defaults to 120000 ms.
+     */
+    private long maxStaleness = 120000L;
+}
@@ -44,7 +44,9 @@ public interface AttachmentService {
     void save(final String jobId, final String filename, final InputStream content) throws GenieException;
 
     /**
-     * Copy all the attachments for a job into the specified directory.
+     * Copy all the attachments for a job into the specified directory. Implementations may move the attachments
+     * instead, in which case they can only be put in a directory once, so callers should delete the attachments
+     * afterwards.
      *
      * @param jobId       The id of the job to get the attachments for.
      * @param destination The directory to copy the attachments into
@@ -24,6 +24,7 @@ import com.netflix.genie.common.dto.Command;
 import com.netflix.genie.common.dto.CommandStatus;
 import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.jobs.ResolvedCommand;
 import org.hibernate.validator.constraints.NotBlank;
 import org.hibernate.validator.constraints.NotEmpty;
 import org.springframework.data.domain.Page;
@@ -34,6 +35,7 @@ import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 /**
@@ -104,6 +106,21 @@ public interface ClusterService {
         final JobRequest jobRequest
     ) throws GenieException;
 
+    /**
+     * Resolve the clusters the job can run on and, for each of them, the command the job would run and the
+     * applications that command would use. All of this is done within a single query and transaction so the
+     * caller doesn't need further round trips to the database once it has picked a cluster.
+     *
+     * @param jobRequest The request to run the job. Not null.
+     * @return The candidate clusters, in query order, mapped to the command and applications to use on each. Empty if
+     * no cluster/command combination matches the request.
+     * @throws GenieException if there is an error
+     */
+    Map<Cluster, ResolvedCommand> resolveClustersAndCommandsForJobRequest(
+        @NotNull(message = "JobRequest object is null. Unable to continue.")
+        final JobRequest jobRequest
+    ) throws GenieException;
+
     /**
      * Update a cluster.
      *
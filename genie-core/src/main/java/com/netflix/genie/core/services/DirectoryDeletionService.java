@@ -0,0 +1,39 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services;
+
+import javax.validation.constraints.NotNull;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Deletes directories, e.g. old job directories or the dependencies of finished jobs, off the local disk.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+public interface DirectoryDeletionService {
+
+    /**
+     * Delete a directory and everything in it. Does nothing if the directory doesn't exist.
+     *
+     * @param directory The directory to delete. Must be within the jobs directory.
+     * @throws IOException if the directory isn't within the jobs directory or anything in it couldn't be deleted
+     */
+    void deleteDirectory(@NotNull final File directory) throws IOException;
+}
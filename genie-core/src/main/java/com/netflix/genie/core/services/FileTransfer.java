@@ -18,6 +18,12 @@
 package com.netflix.genie.core.services;
 
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
 
 /**
  * API to handle file transfer for genie jobs. There will be an implementation for different files systems
@@ -64,4 +70,76 @@ public interface FileTransfer {
      * @throws GenieException exception in case of IO error
      */
     long getLastModifiedTime(String path) throws GenieException;
+
+    /**
+     * Gets a file from a remote location only if it was modified after the given time. Implementations which can
+     * make the download conditional on the remote side should override this to save the extra metadata request.
+     *
+     * @param srcRemotePath    Source path of the file to copy
+     * @param dstLocalPath     Destination path of the file to copy to
+     * @param lastModifiedTime The time in milliseconds the file must have been modified after to be copied
+     * @return true if the file was modified and copied to the destination, false otherwise
+     * @throws GenieException exception in case of an error
+     * @since 3.1.0
+     */
+    default boolean getFileIfModified(
+        final String srcRemotePath,
+        final String dstLocalPath,
+        final long lastModifiedTime
+    ) throws GenieException {
+        if (this.getLastModifiedTime(srcRemotePath) <= lastModifiedTime) {
+            return false;
+        }
+        this.getFile(srcRemotePath, dstLocalPath);
+        return true;
+    }
+
+    /**
+     * Puts the data written by the given writer to a remote location without it having to be saved to a local file
+     * first. Implementations which can upload a stream as it's written should override this. The default saves the
+     * data to a temporary file and puts that. If the writer fails nothing is left at the remote location.
+     *
+     * @param writer        The writer of the data. The stream must not be closed by the writer.
+     * @param dstRemotePath The remote destination path where the data has to be put
+     * @throws GenieException exception in case of an error
+     * @since 3.1.0
+     */
+    default void putStream(final StreamWriter writer, final String dstRemotePath) throws GenieException {
+        final File tempFile;
+        try {
+            tempFile = File.createTempFile("genie", ".upload");
+        } catch (final IOException ioe) {
+            throw new GenieServerException("Unable to create temporary file to upload to " + dstRemotePath, ioe);
+        }
+        try {
+            try (OutputStream output = Files.newOutputStream(tempFile.toPath())) {
+                writer.write(output);
+            } catch (final IOException ioe) {
+                throw new GenieServerException("Unable to write data to upload to " + dstRemotePath, ioe);
+            }
+            this.putFile(tempFile.getAbsolutePath(), dstRemotePath);
+        } finally {
+            if (!tempFile.delete()) {
+                tempFile.deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * Writes the data to put to a remote location.
+     *
+     * @since 3.1.0
+     */
+    @FunctionalInterface
+    interface StreamWriter {
+
+        /**
+         * Write the data to the given stream.
+         *
+         * @param output The stream to write to
+         * @throws IOException    if the data can't be written
+         * @throws GenieException if the data can't be produced
+         */
+        void write(OutputStream output) throws IOException, GenieException;
+    }
 }
@@ -0,0 +1,38 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services;
+
+/**
+ * Decides whether a job can start on this node given the memory already reserved by the jobs running or about to run
+ * on it.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+public interface JobAdmissionPolicy {
+
+    /**
+     * Whether a job needing the given memory can start on this node now. Called while reserving the memory of the job
+     * so implementations should be quick and must not call back into the job state service.
+     *
+     * @param usedMemory The memory, in MB, already reserved on this node
+     * @param memory     The memory, in MB, the job needs on top of what it already reserved
+     * @return true if the job can start
+     */
+    boolean canAdmit(final int usedMemory, final int memory);
+}
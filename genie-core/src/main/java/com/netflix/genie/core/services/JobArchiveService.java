@@ -0,0 +1,47 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services;
+
+import com.netflix.genie.common.exceptions.GenieException;
+import org.hibernate.validator.constraints.NotBlank;
+import org.springframework.validation.annotation.Validated;
+
+import javax.validation.constraints.NotNull;
+import java.io.File;
+
+/**
+ * Interface for services to archive the directories of finished jobs.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Validated
+public interface JobArchiveService {
+
+    /**
+     * Archive the given job directory to the given location.
+     *
+     * @param directory       The job directory to archive
+     * @param archiveLocation The location to store the archive at
+     * @throws GenieException if the directory can't be archived
+     */
+    void archiveDirectory(
+        @NotNull(message = "No directory to archive entered") final File directory,
+        @NotBlank(message = "No archive location entered") final String archiveLocation
+    ) throws GenieException;
+}
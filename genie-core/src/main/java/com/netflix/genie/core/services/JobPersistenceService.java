@@ -125,6 +125,21 @@ public interface JobPersistenceService {
         @Nullable final Long stdErrSize
     ) throws GenieException;
 
+    /**
+     * Record the resources the processes of a job used. The peak resident set size is only updated if it's higher
+     * than the one already recorded.
+     *
+     * @param id      The id of the job to update the resource usage for
+     * @param cpuTime The CPU time (in milliseconds) used by the job so far
+     * @param peakRss The highest resident set size (in bytes) of the job so far
+     * @throws GenieException if there is an error
+     */
+    void setJobResourceUsage(
+        @NotBlank(message = "No job id entered. Unable to update.") final String id,
+        @Min(value = 0, message = "CPU time can't be negative") final long cpuTime,
+        @Min(value = 0, message = "Peak resident set size can't be negative") final long peakRss
+    ) throws GenieException;
+
     /**
      * This method will delete all jobs whose created time is less than date.
      *
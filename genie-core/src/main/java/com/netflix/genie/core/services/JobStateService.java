@@ -22,6 +22,7 @@ import com.netflix.genie.common.dto.Cluster;
 import com.netflix.genie.common.dto.Command;
 import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerUnavailableException;
 
 import java.util.List;
 
@@ -52,6 +53,49 @@ public interface JobStateService extends JobMetricsService {
     void schedule(final String jobId, final JobRequest jobRequest, final Cluster cluster, final Command command,
                   final List<Application> applications, final int memory);
 
+    /**
+     * Atomically reserve the memory the job needs on this node if it's free. The memory stays reserved until the job
+     * is done.
+     *
+     * @param jobId  job id
+     * @param memory job memory
+     * @return true if the memory was reserved, false if not enough memory is free or the job isn't known
+     */
+    boolean reserveMemory(final String jobId, final int memory);
+
+    /**
+     * Whether the memory a new job needs could currently be reserved on this node. The answer can change as soon as
+     * it's returned so it's only meant as a hint.
+     *
+     * @param memory job memory
+     * @return true if the admission policy of this node would let the job start now
+     */
+    boolean canReserveMemory(final int memory);
+
+    /**
+     * Schedules the job if the memory it needs is free on this node and no other job is waiting, otherwise puts it at
+     * the back of the queue of jobs waiting for memory. Queued jobs are scheduled in order as running jobs finish.
+     *
+     * @param jobId         job id
+     * @param jobRequest    job request
+     * @param cluster       cluster for the job request based on the tags specified
+     * @param command       command for the job request based on command tags and cluster chosen
+     * @param applications  applications to use based on the command that was selected
+     * @param memory        job memory
+     * @return true if the job was scheduled right away, false if it was queued
+     * @throws GenieServerUnavailableException if the job can't run now and the queue is full
+     */
+    boolean scheduleOrQueue(final String jobId, final JobRequest jobRequest, final Cluster cluster,
+                            final Command command, final List<Application> applications, final int memory)
+        throws GenieServerUnavailableException;
+
+    /**
+     * Get the number of jobs waiting on this node for memory to be free.
+     *
+     * @return The number of queued jobs
+     */
+    int getNumQueuedJobs();
+
     /**
      * Called when the job is done.
      * @param jobId job id
@@ -13,15 +13,22 @@
 
 package com.netflix.genie.core.services.impl;
 
-import com.google.common.cache.CacheBuilder;
-import com.google.common.cache.CacheLoader;
-import com.google.common.cache.LoadingCache;
+import com.google.common.cache.AbstractCache;
+import com.google.common.hash.Hashing;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.events.JobFinishedEvent;
+import com.netflix.genie.core.properties.FileCacheProperties;
 import com.netflix.genie.core.services.FileTransferFactory;
+import com.netflix.spectator.api.Counter;
 import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.validator.constraints.NotBlank;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
 
 import javax.validation.constraints.NotNull;
 import java.io.File;
@@ -30,29 +37,72 @@ import java.net.URI;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.ToDoubleFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Caches the downloaded file from the remote location.
+ * <p>
+ * The bytes of every cached file are accounted for. When a maximum size is configured and the cache grows past its
+ * high watermark the least recently used files are deleted until it's back under the low watermark. Files which are
+ * being put into a job directory at the time are never deleted. Neither are symbolically linked files, including old
+ * versions replaced by a revalidation, until the jobs linking them finish. Hard linked files which are deleted stay on
+ * disk, and aren't accounted for anymore, until the job directories linking them are deleted.
+ * <p>
+ * Cached files left behind by an earlier process are accounted for when the service is created and evicted before any
+ * file used since, unless a job needs them again first. Unfinished downloads and old versions replaced by a
+ * revalidation can't be used anymore so they're deleted. Which jobs linked a file isn't known across restarts.
+ * <p>
+ * Linked cached files are made read only. Hard links share the owner of the cached file with the job so when jobs run
+ * as their users, and their directories are given to them, hard links are replaced by copies.
  * Created by amajumdar on 7/22/16.
  */
 @Slf4j
 public class CacheGenieFileTransferService extends GenieFileTransferService {
+    private static final String DOWNLOAD_SUFFIX = ".download";
+    private static final Pattern CACHE_FILE_PATTERN
+        = Pattern.compile("^\\p{XDigit}{8}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{4}-\\p{XDigit}{12}(\\..*)?$");
+
     //File cache location
     private final String baseCacheLocation;
     //File transfer service to get/put files on a local system
     private final LocalFileTransferImpl localFileTransfer;
-    //File cache
-    private final LoadingCache<String, File> fileCache = CacheBuilder.newBuilder()
-        .recordStats()
-        .build(
-            new CacheLoader<String, File>() {
-                public File load(@NotNull final String path) throws GenieException {
-                    return loadFile(path);
-                }
-            }
-        );
+    //How cached files are put into job directories and how big the cache can get
+    private final FileCacheProperties fileCacheProperties;
+    //Whether job directories are given to the users running the jobs
+    private final boolean runAsUserEnabled;
+    //The directory the job directories are in
+    private final Path jobsDir;
+    private final Counter linkedCounter;
+    private final Counter linkFailedCounter;
+    private final Counter bytesSavedCounter;
+    private final Counter evictionCounter;
+    private final Counter revalidatedCounter;
+    private final Counter revalidationSkippedCounter;
+    private final Timer coalescedWaitTimer;
+    //File cache keyed by remote path in least recently used order. Guarded by itself.
+    private final Map<String, CacheEntry> fileCache = new LinkedHashMap<>(16, 0.75f, true);
+    //Sizes of the files an earlier process left in the cache which no entry claimed yet, oldest first. Guarded by
+    //the file cache.
+    private final Map<File, Long> unclaimedFiles = new LinkedHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final AbstractCache.SimpleStatsCounter stats = new AbstractCache.SimpleStatsCounter();
 
     /**
      * Constructor.
@@ -60,6 +110,9 @@ public class CacheGenieFileTransferService extends GenieFileTransferService {
      * @param fileTransferFactory file transfer implementation factory
      * @param baseCacheLocation   file cache location
      * @param localFileTransfer   Local file transfer service
+     * @param fileCacheProperties The properties of the file cache
+     * @param jobsDir             The directory the job directories are in
+     * @param runAsUserEnabled    Whether jobs run as their users so job directories are owned by them
      * @param registry            spectator registry
      * @throws GenieException If there is any problem
      */
@@ -67,17 +120,42 @@ public class CacheGenieFileTransferService extends GenieFileTransferService {
         @NotNull final FileTransferFactory fileTransferFactory,
         @NotNull final String baseCacheLocation,
         @NotNull final LocalFileTransferImpl localFileTransfer,
+        @NotNull final FileCacheProperties fileCacheProperties,
+        @NotNull final Resource jobsDir,
+        final boolean runAsUserEnabled,
         @NotNull final Registry registry
     ) throws GenieException {
         super(fileTransferFactory);
         this.baseCacheLocation = this.createDirectories(baseCacheLocation).toString();
         this.localFileTransfer = localFileTransfer;
-        registry.gauge("genie.jobs.file.cache.hitRate", fileCache,
-            (ToDoubleFunction<LoadingCache<String, File>>) value -> value.stats().hitRate());
-        registry.gauge("genie.jobs.file.cache.missRate", fileCache,
-            (ToDoubleFunction<LoadingCache<String, File>>) value -> value.stats().missRate());
-        registry.gauge("genie.jobs.file.cache.loadExceptionRate", fileCache,
-            (ToDoubleFunction<LoadingCache<String, File>>) value -> value.stats().loadExceptionRate());
+        this.fileCacheProperties = fileCacheProperties;
+        this.runAsUserEnabled = runAsUserEnabled;
+        try {
+            this.jobsDir = jobsDir.getFile().toPath().toAbsolutePath().normalize();
+        } catch (final IOException ioe) {
+            throw new GenieServerException("Unable to resolve the jobs directory " + jobsDir, ioe);
+        }
+        if (runAsUserEnabled
+            && fileCacheProperties.getMaterialization() == FileCacheProperties.Materialization.HARD_LINK) {
+            log.warn("Cached files can't be hard linked into directories of jobs running as users. Copying them.");
+        }
+        this.linkedCounter = registry.counter("genie.jobs.file.cache.linked.counter");
+        this.linkFailedCounter = registry.counter("genie.jobs.file.cache.linkFailed.counter");
+        this.bytesSavedCounter = registry.counter("genie.jobs.file.cache.bytesSaved.counter");
+        this.evictionCounter = registry.counter("genie.jobs.file.cache.evictions.counter");
+        this.revalidatedCounter = registry.counter("genie.jobs.file.cache.revalidated.counter");
+        this.revalidationSkippedCounter = registry.counter("genie.jobs.file.cache.revalidationSkipped.counter");
+        this.coalescedWaitTimer = registry.timer("genie.jobs.file.cache.coalescedWait.timer");
+        registry.gauge("genie.jobs.file.cache.hitRate", stats,
+            (ToDoubleFunction<AbstractCache.SimpleStatsCounter>) value -> value.snapshot().hitRate());
+        registry.gauge("genie.jobs.file.cache.missRate", stats,
+            (ToDoubleFunction<AbstractCache.SimpleStatsCounter>) value -> value.snapshot().missRate());
+        registry.gauge("genie.jobs.file.cache.loadExceptionRate", stats,
+            (ToDoubleFunction<AbstractCache.SimpleStatsCounter>) value -> value.snapshot().loadExceptionRate());
+        registry.gauge("genie.jobs.file.cache.bytes.gauge", this.usedBytes);
+        registry.mapSize("genie.jobs.file.cache.entries.gauge", this.fileCache);
+        this.scanCacheLocation();
+        this.evict();
     }
 
     /**
@@ -92,28 +170,403 @@ public class CacheGenieFileTransferService extends GenieFileTransferService {
         @NotBlank(message = "Destination local path cannot be empty") final String dstLocalPath
     ) throws GenieException {
         log.debug("Called with src path {} and destination path {}", srcRemotePath, dstLocalPath);
-        File cachedFile;
+        final long requested = System.currentTimeMillis();
+        final CacheEntry entry = this.acquire(srcRemotePath);
         try {
-            cachedFile = fileCache.get(srcRemotePath);
-            // Before using the cached file check if the real file has been modified after we have cached
-            final long lastModifiedTime = getFileTransfer(srcRemotePath).getLastModifiedTime(srcRemotePath);
-            if (lastModifiedTime > cachedFile.lastModified()) {
-                synchronized (this) {
-                    // Check the modification time again because threads that were waiting for a file might have
-                    // been refreshed by a previous thread.
-                    if (lastModifiedTime > cachedFile.lastModified()) {
-                        fileCache.invalidate(srcRemotePath);
-                        deleteFile(cachedFile);
-                        cachedFile = fileCache.get(srcRemotePath);
+            final File cachedFile;
+            try {
+                cachedFile = this.getCachedFile(entry, requested);
+            } catch (Exception e) {
+                final String message = String.format("Failed getting the file %s", srcRemotePath);
+                log.error(message);
+                throw new GenieServerException(message, e);
+            }
+            this.materialize(cachedFile, dstLocalPath);
+            this.pin(entry, cachedFile, dstLocalPath);
+        } finally {
+            this.release(entry);
+        }
+        this.evict();
+    }
+
+    /**
+     * Unpin the cached files symbolically linked into the directory of a finished job so they can be evicted.
+     *
+     * @param event The event of the job which finished
+     */
+    @EventListener
+    public void onJobFinished(@NotNull final JobFinishedEvent event) {
+        final String jobId = event.getId();
+        synchronized (this.fileCache) {
+            for (final CacheEntry entry : this.fileCache.values()) {
+                final Iterator<Set<String>> pins = entry.getPins().values().iterator();
+                while (pins.hasNext()) {
+                    final Set<String> jobIds = pins.next();
+                    if (jobIds.remove(jobId) && jobIds.isEmpty()) {
+                        pins.remove();
                     }
                 }
+                if (entry.getUsers() == 0) {
+                    this.deleteRetired(entry);
+                }
             }
+        }
+        this.evict();
+    }
+
+    /**
+     * Download the file into the cache, unless it's already cached and up to date, without putting it into a job
+     * directory. Used to warm up the cache before jobs need the file.
+     *
+     * @param srcRemotePath Path of the file in the remote location to be fetched
+     * @throws GenieException If there is any problem
+     */
+    public void prefetch(
+        @NotBlank(message = "Source file path cannot be empty.") final String srcRemotePath
+    ) throws GenieException {
+        log.debug("Called with src path {}", srcRemotePath);
+        final long requested = System.currentTimeMillis();
+        final CacheEntry entry = this.acquire(srcRemotePath);
+        try {
+            this.getCachedFile(entry, requested);
         } catch (Exception e) {
-            final String message = String.format("Failed getting the file %s", srcRemotePath);
+            final String message = String.format("Failed prefetching the file %s", srcRemotePath);
             log.error(message);
             throw new GenieServerException(message, e);
+        } finally {
+            this.release(entry);
+        }
+        this.evict();
+    }
+
+    /**
+     * Get the number of bytes of cached files on disk.
+     *
+     * @return The number of bytes
+     */
+    public long getUsedBytes() {
+        return this.usedBytes.get();
+    }
+
+    /**
+     * Account for the files an earlier process left in the cache location. Cached files are kept until an entry claims
+     * them or they're evicted. Anything else named after a cached file is a download which never finished or a version
+     * replaced by a revalidation. No entry can find those anymore so they're deleted.
+     */
+    private void scanCacheLocation() throws GenieException {
+        final File[] files = new File(this.baseCacheLocation).listFiles();
+        if (files == null) {
+            throw new GenieServerException("Unable to list the files in the cache location " + this.baseCacheLocation);
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        int deleted = 0;
+        for (final File file : files) {
+            final Matcher matcher = CACHE_FILE_PATTERN.matcher(file.getName());
+            if (!file.isFile() || !matcher.matches()) {
+                continue;
+            }
+            if (matcher.group(1) == null) {
+                this.unclaimedFiles.put(file, file.length());
+                this.usedBytes.addAndGet(file.length());
+                continue;
+            }
+            try {
+                this.deleteFile(file);
+                deleted++;
+            } catch (final IOException ioe) {
+                log.warn("Unable to delete leftover cache file {}", file, ioe);
+            }
+        }
+        log.info(
+            "Found {} cached files taking {} bytes and deleted {} leftover files in {}",
+            this.unclaimedFiles.size(),
+            this.usedBytes.get(),
+            deleted,
+            this.baseCacheLocation
+        );
+    }
+
+    private CacheEntry acquire(final String path) {
+        synchronized (this.fileCache) {
+            final CacheEntry entry = this.fileCache.computeIfAbsent(path, CacheEntry::new);
+            entry.setUsers(entry.getUsers() + 1);
+            return entry;
+        }
+    }
+
+    private void release(final CacheEntry entry) {
+        synchronized (this.fileCache) {
+            entry.setUsers(entry.getUsers() - 1);
+            if (entry.getUsers() == 0) {
+                this.deleteRetired(entry);
+            }
+        }
+    }
+
+    /**
+     * Pin the cached file to the job it was symbolically linked for, if it was, until the job finishes. The job reads
+     * the file through the link so it can't be deleted before then. Has to be called while the entry is in use.
+     */
+    private void pin(final CacheEntry entry, final File cachedFile, final String dstLocalPath) throws GenieException {
+        final Path dst = this.localFileTransfer.createFilePath(dstLocalPath).toAbsolutePath().normalize();
+        if (!Files.isSymbolicLink(dst)) {
+            return;
+        }
+        if (!dst.startsWith(this.jobsDir) || dst.getNameCount() <= this.jobsDir.getNameCount()) {
+            log.warn("{} isn't in a job directory. Unable to keep {} until it's no longer linked.", dst, cachedFile);
+            return;
+        }
+        final String jobId = dst.getName(this.jobsDir.getNameCount()).toString();
+        synchronized (this.fileCache) {
+            entry.getPins().computeIfAbsent(cachedFile, file -> new HashSet<>()).add(jobId);
+        }
+    }
+
+    /**
+     * Get the cached file, downloading it if it isn't cached and checking whether the remote file was modified if
+     * it's due. Only the entry of the file is locked so different files are downloaded in parallel while concurrent
+     * requests for the same file wait for the first one and then use its result.
+     */
+    private File getCachedFile(final CacheEntry entry, final long requested) throws GenieException, IOException {
+        final File loaded = entry.getFile();
+        if (loaded != null && !this.isRevalidationDue(entry, requested)) {
+            this.stats.recordHits(1);
+            this.revalidationSkippedCounter.increment();
+            return loaded;
+        }
+
+        this.lock(entry);
+        try {
+            this.load(entry);
+            // Before using the cached file check if the real file has been modified after we have cached it,
+            // at most once per revalidation interval. Threads that were waiting for the file might have been
+            // revalidated by a previous thread.
+            if (this.isRevalidationDue(entry, requested)) {
+                this.revalidatedCounter.increment();
+                this.revalidate(entry);
+            } else {
+                this.revalidationSkippedCounter.increment();
+            }
+            return entry.getFile();
+        } finally {
+            entry.getLock().unlock();
+        }
+    }
+
+    private void lock(final CacheEntry entry) {
+        if (entry.getLock().tryLock()) {
+            return;
+        }
+        final long start = System.nanoTime();
+        entry.getLock().lock();
+        this.coalescedWaitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    private File load(final CacheEntry entry) throws GenieException {
+        if (entry.getFile() != null) {
+            this.stats.recordHits(1);
+            return entry.getFile();
+        }
+        this.stats.recordMisses(1);
+        final long start = System.nanoTime();
+        final long validatedAt = System.currentTimeMillis();
+        try {
+            final File cacheFile = this.getCacheFile(entry.getPath());
+            final Long unclaimedSize;
+            synchronized (this.fileCache) {
+                unclaimedSize = this.unclaimedFiles.remove(cacheFile);
+            }
+            if (unclaimedSize != null) {
+                // Left by an earlier process and already accounted for
+                this.usedBytes.addAndGet(-unclaimedSize);
+            }
+            final boolean download = !cacheFile.exists();
+            final File file = this.loadFile(entry.getPath());
+            entry.setFile(file);
+            entry.setSize(file.length());
+            if (download) {
+                entry.setValidatedAt(validatedAt);
+            }
+            this.usedBytes.addAndGet(entry.getSize());
+            this.stats.recordLoadSuccess(System.nanoTime() - start);
+            return file;
+        } catch (final GenieException | RuntimeException e) {
+            this.stats.recordLoadException(System.nanoTime() - start);
+            throw e;
+        }
+    }
+
+    /**
+     * A revalidation is due unless one started after the file was requested or the last one was less than the
+     * revalidation interval ago.
+     */
+    private boolean isRevalidationDue(final CacheEntry entry, final long requested) {
+        final long validatedAt = entry.getValidatedAt();
+        if (validatedAt >= requested) {
+            return false;
+        }
+        final long revalidationInterval = this.fileCacheProperties.getRevalidationInterval();
+        return revalidationInterval <= 0L || System.currentTimeMillis() - validatedAt >= revalidationInterval;
+    }
+
+    /**
+     * Download the remote file next to the cached one if it was modified after the cached file was and point the entry
+     * to it under a name derived from its content. The cached file is never replaced in place so jobs which are
+     * copying or linking it at the same time, or linked it before, keep seeing the old version in full. The old
+     * version is retired and deleted once it's no longer used.
+     */
+    private void revalidate(final CacheEntry entry) throws GenieException, IOException {
+        final String path = entry.getPath();
+        final File cachedFile = entry.getFile();
+        final long validatedAt = System.currentTimeMillis();
+        final File download = new File(this.getCacheFile(path).getPath() + DOWNLOAD_SUFFIX);
+        try {
+            if (getFileTransfer(path).getFileIfModified(path, download.getPath(), cachedFile.lastModified())) {
+                final String version = com.google.common.io.Files
+                    .asByteSource(download)
+                    .hash(Hashing.sha256())
+                    .toString();
+                final File versionFile = this.getCacheFile(path, version);
+                if (!versionFile.equals(cachedFile)) {
+                    if (!versionFile.exists()) {
+                        Files.move(download.toPath(), versionFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+                        this.protect(versionFile);
+                        this.usedBytes.addAndGet(versionFile.length());
+                    } else if (!entry.getRetired().remove(versionFile)) {
+                        // The same content is already on disk but isn't accounted for yet
+                        this.usedBytes.addAndGet(versionFile.length());
+                    }
+                    entry.getRetired().add(cachedFile);
+                    entry.setFile(versionFile);
+                    entry.setSize(versionFile.length());
+                }
+            }
+            entry.setValidatedAt(validatedAt);
+        } finally {
+            Files.deleteIfExists(download.toPath());
+        }
+    }
+
+    /**
+     * Delete the old versions of the file of an entry which were replaced when it was revalidated and aren't linked
+     * by running jobs anymore. Has to be called while holding the cache lock once the entry isn't used.
+     */
+    private void deleteRetired(final CacheEntry entry) {
+        final Iterator<File> iterator = entry.getRetired().iterator();
+        while (iterator.hasNext()) {
+            final File retired = iterator.next();
+            if (entry.getPins().containsKey(retired)) {
+                continue;
+            }
+            iterator.remove();
+            this.usedBytes.addAndGet(-retired.length());
+            try {
+                this.deleteFile(retired);
+            } catch (final IOException ioe) {
+                log.warn("Unable to delete retired cache file {} for {}", retired, entry.getPath(), ioe);
+            }
+        }
+    }
+
+    private void unload(final CacheEntry entry) throws IOException {
+        entry.getLock().lock();
+        try {
+            this.deleteRetired(entry);
+            final File file = entry.getFile();
+            if (file != null) {
+                this.usedBytes.addAndGet(-entry.getSize());
+                entry.setFile(null);
+                entry.setSize(0L);
+                this.deleteFile(file);
+            }
+        } finally {
+            entry.getLock().unlock();
+        }
+    }
+
+    /**
+     * Delete the least recently used files which aren't in use or linked by running jobs until the cache is under its
+     * low watermark, if it went over its high watermark. Files left by an earlier process no entry claimed go first.
+     * The files are deleted while holding the cache lock so a new entry for the same path can't find a file which is
+     * about to be deleted.
+     */
+    private void evict() {
+        final long maxSize = this.fileCacheProperties.getMaxSize();
+        if (maxSize <= 0L || this.usedBytes.get() <= (long) (maxSize * this.fileCacheProperties.getHighWatermark())) {
+            return;
+        }
+        final long target = (long) (maxSize * this.fileCacheProperties.getLowWatermark());
+        synchronized (this.fileCache) {
+            final Iterator<Map.Entry<File, Long>> unclaimed = this.unclaimedFiles.entrySet().iterator();
+            while (this.usedBytes.get() > target && unclaimed.hasNext()) {
+                final Map.Entry<File, Long> file = unclaimed.next();
+                unclaimed.remove();
+                this.usedBytes.addAndGet(-file.getValue());
+                this.evictionCounter.increment();
+                try {
+                    this.deleteFile(file.getKey());
+                } catch (final IOException ioe) {
+                    log.warn("Unable to delete evicted cache file {}", file.getKey(), ioe);
+                }
+            }
+
+            final Iterator<CacheEntry> iterator = this.fileCache.values().iterator();
+            while (this.usedBytes.get() > target && iterator.hasNext()) {
+                final CacheEntry entry = iterator.next();
+                if (entry.getUsers() > 0 || !entry.getPins().isEmpty()) {
+                    continue;
+                }
+                iterator.remove();
+                this.evictionCounter.increment();
+                try {
+                    this.unload(entry);
+                } catch (final IOException ioe) {
+                    log.warn("Unable to delete evicted cache file for {}", entry.getPath(), ioe);
+                }
+            }
+        }
+    }
+
+    /**
+     * Put the cached file into the job directory the way the cache is configured to. Links fall back to a copy if
+     * they can't be created, for example when the cache and the job directory are on different file systems.
+     *
+     * @param cachedFile   The cached file
+     * @param dstLocalPath Local path where the file needs to be placed
+     * @throws GenieException If the file couldn't be put in place
+     */
+    protected void materialize(final File cachedFile, final String dstLocalPath) throws GenieException {
+        final FileCacheProperties.Materialization materialization = this.getMaterialization();
+        if (materialization == FileCacheProperties.Materialization.COPY) {
+            this.localFileTransfer.getFile(cachedFile.getPath(), dstLocalPath);
+            return;
+        }
+
+        final Path dst = this.localFileTransfer.createFilePath(dstLocalPath);
+        try {
+            final Path parent = dst.getParent();
+            if (parent != null && !Files.exists(parent)) {
+                Files.createDirectories(parent);
+            }
+            Files.deleteIfExists(dst);
+            if (materialization == FileCacheProperties.Materialization.HARD_LINK) {
+                Files.createLink(dst, cachedFile.toPath());
+            } else {
+                Files.createSymbolicLink(dst, cachedFile.toPath());
+            }
+            this.linkedCounter.increment();
+            this.bytesSavedCounter.increment(cachedFile.length());
+            return;
+        } catch (final IOException | UnsupportedOperationException e) {
+            log.debug("Unable to link {} to {}. Copying it instead.", cachedFile, dst, e);
+            this.linkFailedCounter.increment();
+        }
+
+        this.localFileTransfer.getFile(cachedFile.getPath(), dstLocalPath);
+        // The cached file may be read only but the copy belongs to the job
+        if (!dst.toFile().setWritable(true)) {
+            log.warn("Unable to make the copy of {} at {} writable", cachedFile, dst);
         }
-        localFileTransfer.getFile(cachedFile.getPath(), dstLocalPath);
     }
 
     protected void deleteFile(final File file) throws IOException {
@@ -135,20 +588,85 @@ public class CacheGenieFileTransferService extends GenieFileTransferService {
 
     /**
      * Loads the file given the path and stores it under the cache location with file name as UUID string created using
-     * the path.
+     * the path. The file is downloaded next to it and only moved in place once complete so a failed download is never
+     * mistaken for a cached file.
      *
      * @param path Path of the file to be loaded
      * @return loaded file
      * @throws GenieException Exception if the file does not load
      */
     protected File loadFile(final String path) throws GenieException {
-        final byte[] pathBytes = path.getBytes(Charset.forName("UTF-8"));
-        final String pathUUID = UUID.nameUUIDFromBytes(pathBytes).toString();
-        final String cacheFilePath = String.format("%s/%s", baseCacheLocation, pathUUID);
-        final File cacheFile = new File(cacheFilePath);
+        final File cacheFile = this.getCacheFile(path);
         if (!cacheFile.exists()) {
-            getFileTransfer(path).getFile(path, cacheFilePath);
+            final File download = new File(cacheFile.getPath() + DOWNLOAD_SUFFIX);
+            try {
+                getFileTransfer(path).getFile(path, download.getPath());
+                Files.move(download.toPath(), cacheFile.toPath(), StandardCopyOption.ATOMIC_MOVE);
+            } catch (final IOException ioe) {
+                throw new GenieServerException("Unable to move the download of " + path + " to " + cacheFile, ioe);
+            } finally {
+                try {
+                    Files.deleteIfExists(download.toPath());
+                } catch (final IOException ioe) {
+                    log.warn("Unable to delete the incomplete download {} of {}", download, path, ioe);
+                }
+            }
         }
+        this.protect(cacheFile);
         return cacheFile;
     }
+
+    private File getCacheFile(final String path) {
+        return new File(String.format("%s/%s", baseCacheLocation, this.getPathUUID(path)));
+    }
+
+    private File getCacheFile(final String path, final String version) {
+        return new File(String.format("%s/%s.%s", baseCacheLocation, this.getPathUUID(path), version));
+    }
+
+    private String getPathUUID(final String path) {
+        final byte[] pathBytes = path.getBytes(Charset.forName("UTF-8"));
+        return UUID.nameUUIDFromBytes(pathBytes).toString();
+    }
+
+    private void protect(final File cacheFile) {
+        // Jobs share linked files with the cache so make sure they can't change the cached copy
+        if (this.getMaterialization() != FileCacheProperties.Materialization.COPY && !cacheFile.setReadOnly()) {
+            log.warn("Unable to make cached file {} read only", cacheFile);
+        }
+    }
+
+    /**
+     * Get how cached files are put into job directories. Changing the owner of the directory of a job running as its
+     * user would change the owner of hard linked cached files too so they're copied instead.
+     */
+    private FileCacheProperties.Materialization getMaterialization() {
+        final FileCacheProperties.Materialization materialization = this.fileCacheProperties.getMaterialization();
+        if (materialization == FileCacheProperties.Materialization.HARD_LINK && this.runAsUserEnabled) {
+            return FileCacheProperties.Materialization.COPY;
+        }
+        return materialization;
+    }
+
+    /**
+     * A file in the cache. The file, its size and when it was last revalidated are guarded by the lock of the entry
+     * and the number of jobs using it and the ids of the running jobs which symbolically linked each version of the
+     * file by the cache. Old versions of the file waiting to be deleted can be retired concurrently.
+     */
+    @Getter
+    @Setter
+    private static final class CacheEntry {
+        private final String path;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Queue<File> retired = new ConcurrentLinkedQueue<>();
+        private final Map<File, Set<String>> pins = new HashMap<>();
+        private volatile File file;
+        private long size;
+        private int users;
+        private volatile long validatedAt;
+
+        private CacheEntry(final String path) {
+            this.path = path;
+        }
+    }
 }
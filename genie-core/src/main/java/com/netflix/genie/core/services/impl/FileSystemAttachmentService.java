@@ -20,19 +20,36 @@ package com.netflix.genie.core.services.impl;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.properties.JobsAttachmentsProperties;
 import com.netflix.genie.core.services.AttachmentService;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.io.FileUtils;
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileSystemException;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
 
 /**
  * Implementation of the AttachmentService interface which saves and retrieves attachments from the local filesystem.
+ * <p>
+ * Attachments are written to disk through NIO channels. When the upload was already spooled to a file, as the servlet
+ * container does for large multipart parts, the bytes are transferred file to file by the kernel. Depending on the
+ * configured materialization the saved attachments are then copied, moved or hard linked into the job directory.
  *
  * @author tgianos
  * @since 3.0.0
@@ -40,14 +57,31 @@ import java.nio.file.Files;
 @Slf4j
 public class FileSystemAttachmentService implements AttachmentService {
 
+    private static final long TRANSFER_SIZE = 8L * 1024 * 1024;
+
+    private final JobsAttachmentsProperties.Materialization materialization;
     private File attachmentDirectory;
 
     /**
-     * Constructor.
+     * Constructor. Attachments are copied into job directories.
      *
      * @param attachmentsDirectory The directory to use or null if want to default to system temp directory
      */
     public FileSystemAttachmentService(final String attachmentsDirectory) {
+        this(attachmentsDirectory, JobsAttachmentsProperties.Materialization.COPY);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param attachmentsDirectory The directory to use or null if want to default to system temp directory
+     * @param materialization      How attachments are put into job directories
+     */
+    public FileSystemAttachmentService(
+        final String attachmentsDirectory,
+        final JobsAttachmentsProperties.Materialization materialization
+    ) {
+        this.materialization = materialization;
         this.createAttachmentDirectory(attachmentsDirectory);
     }
 
@@ -62,7 +96,24 @@ public class FileSystemAttachmentService implements AttachmentService {
     ) throws GenieException {
         final File attachment = new File(attachmentDirectory, jobId + "/" + filename);
         try {
-            FileUtils.copyInputStreamToFile(content, attachment);
+            Files.createDirectories(attachment.getParentFile().toPath());
+            // Only close the channel of the target. The caller owns the content stream.
+            final ReadableByteChannel source = content instanceof FileInputStream
+                ? ((FileInputStream) content).getChannel()
+                : Channels.newChannel(content);
+            try (FileChannel target = FileChannel.open(
+                attachment.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE
+            )) {
+                long position = 0;
+                long transferred;
+                do {
+                    transferred = target.transferFrom(source, position, TRANSFER_SIZE);
+                    position += transferred;
+                } while (transferred > 0);
+            }
             log.info("Saved " + filename + " to " + attachment.getAbsolutePath());
         } catch (final IOException ioe) {
             throw new GenieServerException(ioe);
@@ -80,7 +131,11 @@ public class FileSystemAttachmentService implements AttachmentService {
         final File source = new File(attachmentDirectory, jobId);
         if (source.exists() && source.isDirectory()) {
             try {
-                FileUtils.copyDirectory(source, destination);
+                if (this.materialization == JobsAttachmentsProperties.Materialization.COPY) {
+                    FileUtils.copyDirectory(source, destination);
+                } else {
+                    this.relocate(source.toPath(), destination.toPath());
+                }
             } catch (final IOException ioe) {
                 throw new GenieServerException(ioe);
             }
@@ -102,6 +157,50 @@ public class FileSystemAttachmentService implements AttachmentService {
         }
     }
 
+    /**
+     * Move or hard link every file under the source directory to the same relative path under the destination
+     * directory replacing any file already there. Files are copied instead if that isn't possible.
+     */
+    private void relocate(final Path source, final Path destination) throws IOException {
+        Files.walkFileTree(
+            source,
+            new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(
+                    final Path dir,
+                    final BasicFileAttributes attrs
+                ) throws IOException {
+                    Files.createDirectories(destination.resolve(source.relativize(dir).toString()));
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                    relocateFile(file, destination.resolve(source.relativize(file).toString()));
+                    return FileVisitResult.CONTINUE;
+                }
+            }
+        );
+    }
+
+    private void relocateFile(final Path file, final Path target) throws IOException {
+        Files.deleteIfExists(target);
+        try {
+            if (this.materialization == JobsAttachmentsProperties.Materialization.MOVE) {
+                Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+            } else {
+                Files.createLink(target, file);
+            }
+            return;
+        } catch (final AtomicMoveNotSupportedException amnse) {
+            log.debug("Unable to move {} to {}. Copying instead.", file, target);
+        } catch (final FileSystemException fse) {
+            // Thrown for example when the two paths are on different devices
+            log.debug("Unable to link {} to {} due to {}. Copying instead.", file, target, fse.getMessage());
+        }
+        Files.copy(file, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES);
+    }
+
     private void createAttachmentDirectory(final String attachmentsDirectory) {
         String attachmentsDirectoryPath = attachmentsDirectory;
         if (!attachmentsDirectoryPath.endsWith(File.separator)) {
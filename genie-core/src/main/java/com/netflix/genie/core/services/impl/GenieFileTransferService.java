@@ -82,6 +82,22 @@ public class GenieFileTransferService {
         this.getFileTransfer(dstRemotePath).putFile(srcLocalPath, dstRemotePath);
     }
 
+    /**
+     * Put the data written by the given writer without saving it to a local file first.
+     *
+     * @param writer        The writer of the data which has to be transferred to the remote location
+     * @param dstRemotePath The remote destination path where the data has to be put
+     * @throws GenieException If there is any problem
+     */
+    public void putStream(
+        @NotNull final FileTransfer.StreamWriter writer,
+        @NotBlank(message = "Destination remote path cannot be empty") final String dstRemotePath
+    ) throws GenieException {
+        log.debug("Called with destination path {}", dstRemotePath);
+
+        this.getFileTransfer(dstRemotePath).putStream(writer, dstRemotePath);
+    }
+
     protected FileTransfer getFileTransfer(final String path) throws GenieNotFoundException {
         final FileTransfer result;
         try {
@@ -21,12 +21,12 @@ import com.google.common.collect.ImmutableList;
 import com.netflix.genie.common.dto.Application;
 import com.netflix.genie.common.dto.Cluster;
 import com.netflix.genie.common.dto.Command;
-import com.netflix.genie.common.dto.CommandStatus;
 import com.netflix.genie.common.dto.Job;
 import com.netflix.genie.common.dto.JobExecution;
 import com.netflix.genie.common.dto.JobMetadata;
 import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.dto.JobStatus;
+import com.netflix.genie.common.dto.JobStatusMessages;
 import com.netflix.genie.common.exceptions.GenieConflictException;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GeniePreconditionException;
@@ -34,12 +34,11 @@ import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.common.exceptions.GenieServerUnavailableException;
 import com.netflix.genie.common.exceptions.GenieUserLimitExceededException;
 import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.core.jobs.ResolvedCommand;
 import com.netflix.genie.core.properties.JobsProperties;
 import com.netflix.genie.core.properties.JobsUsersActiveLimitProperties;
-import com.netflix.genie.core.services.ApplicationService;
 import com.netflix.genie.core.services.ClusterLoadBalancer;
 import com.netflix.genie.core.services.ClusterService;
-import com.netflix.genie.core.services.CommandService;
 import com.netflix.genie.core.services.JobCoordinatorService;
 import com.netflix.genie.core.services.JobKillService;
 import com.netflix.genie.core.services.JobPersistenceService;
@@ -53,14 +52,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.hibernate.validator.constraints.NotBlank;
 import org.hibernate.validator.constraints.NotEmpty;
 import org.springframework.aop.TargetClassAware;
+import org.springframework.core.task.TaskRejectedException;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
-import java.util.ArrayList;
-import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -86,20 +84,16 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
     private final JobPersistenceService jobPersistenceService;
     private final JobKillService jobKillService;
     private final JobStateService jobStateService;
-    private final ApplicationService applicationService;
     private final JobSearchService jobSearchService;
     private final ClusterService clusterService;
-    private final CommandService commandService;
     private final List<ClusterLoadBalancer> clusterLoadBalancers;
     private final JobsProperties jobsProperties;
     private final String hostName;
 
-    // For reuse in queries
-    private final Set<CommandStatus> commandStatuses;
-
     // Metrics
     private final Registry registry;
     private final Timer coordinationTimer;
+    private final Timer resolveClustersAndCommandsTimer;
     private final Timer selectClusterTimer;
     private final Timer selectCommandTimer;
     private final Timer selectApplicationsTimer;
@@ -115,10 +109,8 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
      * @param jobStateService       The service where we report the job state and keep track of various metrics about
      *                              jobs currently running
      * @param jobsProperties        The jobs properties to use
-     * @param applicationService    Implementation of application service interface
      * @param jobSearchService      Implementation of job search service
      * @param clusterService        Implementation of cluster service interface
-     * @param commandService        Implementation of command service interface
      * @param clusterLoadBalancers  Implementations of the cluster load balancer interface in invocation order
      * @param registry              The registry
      * @param hostName              The name of the host this Genie instance is running on
@@ -128,10 +120,8 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
         @NotNull final JobKillService jobKillService,
         @NotNull final JobStateService jobStateService,
         @NotNull final JobsProperties jobsProperties,
-        @NotNull final ApplicationService applicationService,
         @NotNull final JobSearchService jobSearchService,
         @NotNull final ClusterService clusterService,
-        @NotNull final CommandService commandService,
         @NotNull @NotEmpty final List<ClusterLoadBalancer> clusterLoadBalancers,
         @NotNull final Registry registry,
         @NotBlank final String hostName
@@ -139,21 +129,17 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
         this.jobPersistenceService = jobPersistenceService;
         this.jobKillService = jobKillService;
         this.jobStateService = jobStateService;
-        this.applicationService = applicationService;
         this.jobSearchService = jobSearchService;
         this.clusterService = clusterService;
-        this.commandService = commandService;
         this.clusterLoadBalancers = clusterLoadBalancers;
         this.jobsProperties = jobsProperties;
         this.hostName = hostName;
 
-        // We'll only care about active statuses
-        this.commandStatuses = EnumSet.noneOf(CommandStatus.class);
-        this.commandStatuses.add(CommandStatus.ACTIVE);
-
         // Metrics
         this.registry = registry;
         this.coordinationTimer = registry.timer("genie.jobs.coordination.timer");
+        this.resolveClustersAndCommandsTimer
+            = registry.timer("genie.jobs.submit.localRunner.resolveClustersAndCommands.timer");
         this.selectClusterTimer = registry.timer("genie.jobs.submit.localRunner.selectCluster.timer");
         this.selectCommandTimer = registry.timer("genie.jobs.submit.localRunner.selectCommand.timer");
         this.selectApplicationsTimer = registry.timer("genie.jobs.submit.localRunner.selectApplications.timer");
@@ -208,13 +194,15 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
             // Log all the job initial job information
             this.jobPersistenceService.createJob(jobRequest, jobMetadata, jobBuilder.build(), jobExecution);
             jobStateService.init(jobId);
-            //TODO: Combine the cluster and command selection into a single method/database query for efficiency
-            // Resolve the cluster for the job request based on the tags specified
-            final Cluster cluster = this.getCluster(jobRequest);
-            // Resolve the command for the job request based on command tags and cluster chosen
-            final Command command = this.getCommand(jobRequest, cluster);
-            // Resolve the applications to use based on the command that was selected
-            final List<Application> applications = this.getApplications(jobRequest, command);
+            // Resolve every candidate cluster along with the command and applications to use on it in one query
+            final Map<Cluster, ResolvedCommand> candidates = this.resolveClustersAndCommands(jobRequest);
+            // Select the cluster for the job request from the candidates based on the tags specified
+            final Cluster cluster = this.getCluster(jobRequest, ImmutableList.copyOf(candidates.keySet()));
+            final ResolvedCommand resolvedCommand = candidates.get(cluster);
+            // Get the command for the job request based on command tags and cluster chosen
+            final Command command = this.getCommand(jobRequest, cluster, resolvedCommand);
+            // Get the applications to use based on the command that was selected
+            final List<Application> applications = this.getApplications(jobRequest, resolvedCommand);
             // Now that we have command how much memory should the job use?
             final int memory = jobRequest.getMemory()
                 .orElse(command.getMemory().orElse(this.jobsProperties.getMemory().getDefaultJobMemory()));
@@ -247,35 +235,34 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
                 }
             }
 
-            synchronized (this) {
-                log.info("Checking if can run job {} on this node", jobRequest.getId());
-                final int maxSystemMemory = this.jobsProperties.getMemory().getMaxSystemMemory();
-                final int usedMemory = this.jobStateService.getUsedMemory();
-                if (usedMemory + memory <= maxSystemMemory) {
-                    log.info(
-                        "Job {} can run on this node as only {}/{} MB are used and requested {} MB",
-                        jobId,
-                        usedMemory,
-                        maxSystemMemory,
-                        memory
-                    );
-                    // Tell the system a new job has been scheduled so any actions can be taken
-                    log.info("Publishing job scheduled event for job {}", jobId);
+            if (this.jobsProperties.getQueue().isEnabled()) {
+                return this.scheduleOrQueue(jobId, jobRequest, cluster, command, applications, memory);
+            }
+
+            log.info("Checking if can run job {} on this node", jobRequest.getId());
+            final int maxSystemMemory = this.jobsProperties.getMemory().getMaxSystemMemory();
+            if (this.jobStateService.reserveMemory(jobId, memory)) {
+                log.info("Reserved {} of the {} MB on this node for job {}", memory, maxSystemMemory, jobId);
+                // Tell the system a new job has been scheduled so any actions can be taken
+                log.info("Publishing job scheduled event for job {}", jobId);
+                try {
                     jobStateService.schedule(jobId, jobRequest, cluster, command, applications, memory);
-                    return jobId;
-                } else {
-                    throw new GenieServerUnavailableException(
-                        "Job "
-                            + jobId
-                            + " can't run on this node "
-                            + usedMemory
-                            + "/"
-                            + maxSystemMemory
-                            + " MB are used and requested "
-                            + memory
-                            + " MB"
-                    );
+                } catch (final TaskRejectedException tre) {
+                    throw this.createLaunchRejectedException(jobId, tre);
                 }
+                return jobId;
+            } else {
+                throw new GenieServerUnavailableException(
+                    "Job "
+                        + jobId
+                        + " can't run on this node "
+                        + this.jobStateService.getUsedMemory()
+                        + "/"
+                        + maxSystemMemory
+                        + " MB are used and requested "
+                        + memory
+                        + " MB"
+                );
             }
         } catch (GenieConflictException e) {
             // Job has not been initiated so we don't have to call JobStateService.done()
@@ -313,6 +300,51 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
         this.jobKillService.killJob(jobId, reason);
     }
 
+    private String scheduleOrQueue(
+        final String jobId,
+        final JobRequest jobRequest,
+        final Cluster cluster,
+        final Command command,
+        final List<Application> applications,
+        final int memory
+    ) throws GenieException {
+        log.info("Checking if can run job {} on this node or has to queue", jobId);
+        if (this.jobStateService.getNumQueuedJobs() > 0 || !this.jobStateService.canReserveMemory(memory)) {
+            // Set before queueing as the job could be launched as soon as it's in the queue
+            this.jobPersistenceService.updateJobStatus(
+                jobId,
+                JobStatus.INIT,
+                JobStatusMessages.JOB_QUEUED_WAITING_FOR_MEMORY
+            );
+        }
+        final boolean scheduled;
+        try {
+            scheduled = this.jobStateService.scheduleOrQueue(jobId, jobRequest, cluster, command, applications, memory);
+        } catch (final TaskRejectedException tre) {
+            throw this.createLaunchRejectedException(jobId, tre);
+        }
+        if (scheduled) {
+            log.info("Scheduled job {} on this node", jobId);
+        } else {
+            log.info("Queued job {} on this node until {} MB are free", jobId, memory);
+        }
+        return jobId;
+    }
+
+    /**
+     * The launch executor is bounded so a node which is launching as many jobs as it can is as unavailable as one
+     * without the memory for them. The reservation of the job is released when the job is marked done.
+     */
+    private GenieServerUnavailableException createLaunchRejectedException(
+        final String jobId,
+        final TaskRejectedException tre
+    ) {
+        return new GenieServerUnavailableException(
+            "Job " + jobId + " can't be launched on this node as it's already launching as many jobs as it can",
+            tre
+        );
+    }
+
     private void setRuntimeEnvironment(
         final String jobId,
         final Cluster cluster,
@@ -345,13 +377,22 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
         }
     }
 
-    private Cluster getCluster(final JobRequest jobRequest) throws GenieException {
+    private Map<Cluster, ResolvedCommand> resolveClustersAndCommands(
+        final JobRequest jobRequest
+    ) throws GenieException {
+        final long start = System.nanoTime();
+        try {
+            log.info("Resolving candidate clusters and commands for job {}", jobRequest.getId().orElse(NO_ID_FOUND));
+            return this.clusterService.resolveClustersAndCommandsForJobRequest(jobRequest);
+        } finally {
+            this.resolveClustersAndCommandsTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Cluster getCluster(final JobRequest jobRequest, final List<Cluster> clusters) throws GenieException {
         final long start = System.nanoTime();
         try {
             log.info("Selecting cluster for job {}", jobRequest.getId().orElse(NO_ID_FOUND));
-            final List<Cluster> clusters = ImmutableList.copyOf(
-                this.clusterService.chooseClusterForJobRequest(jobRequest)
-            );
             Cluster cluster = null;
             if (clusters.isEmpty()) {
                 throw new GeniePreconditionException(
@@ -459,29 +500,27 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
         }
     }
 
-    private Command getCommand(final JobRequest jobRequest, final Cluster cluster) throws GenieException {
+    private Command getCommand(
+        final JobRequest jobRequest,
+        final Cluster cluster,
+        final ResolvedCommand resolvedCommand
+    ) throws GenieException {
         final long start = System.nanoTime();
         try {
             final String clusterId = cluster.getId().orElseThrow(() -> new GenieServerException("No cluster id."));
             final String jobId = jobRequest.getId().orElseThrow(() -> new GenieServerException("No job id"));
             log.info("Selecting command attached to cluster {} for job {} ", clusterId, jobId);
-            final Set<String> commandCriteria = jobRequest.getCommandCriteria();
-            // TODO: what happens if the get method throws an error we don't mark the job failed here
-            for (
-                final Command command : this.clusterService.getCommandsForCluster(clusterId, this.commandStatuses)
-                ) {
-                if (command.getTags().containsAll(jobRequest.getCommandCriteria())) {
-                    log.info("Selected command {} for job {} ", command.getId(), jobRequest.getId());
-                    return command;
-                }
+            if (resolvedCommand == null) {
+                throw new GeniePreconditionException(
+                    "No command found matching all command criteria ["
+                        + jobRequest.getCommandCriteria()
+                        + "] attached to cluster with id: "
+                        + clusterId
+                );
             }
-
-            throw new GeniePreconditionException(
-                "No command found matching all command criteria ["
-                    + commandCriteria
-                    + "] attached to cluster with id: "
-                    + cluster.getId().orElse(NO_ID_FOUND)
-            );
+            final Command command = resolvedCommand.getCommand();
+            log.info("Selected command {} for job {} ", command.getId(), jobRequest.getId());
+            return command;
         } finally {
             this.selectCommandTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
@@ -489,22 +528,18 @@ public class JobCoordinatorServiceImpl implements JobCoordinatorService {
 
     private List<Application> getApplications(
         final JobRequest jobRequest,
-        final Command command
+        final ResolvedCommand resolvedCommand
     ) throws GenieException {
         final long start = System.nanoTime();
         try {
             final String jobId = jobRequest.getId().orElseThrow(() -> new GenieServerException("No job Id"));
-            final String commandId = command.getId().orElseThrow(() -> new GenieServerException("No command Id"));
+            final String commandId = resolvedCommand
+                .getCommand()
+                .getId()
+                .orElseThrow(() -> new GenieServerException("No command Id"));
             log.info("Selecting applications for job {} and command {}", jobId, commandId);
             // TODO: What do we do about application status? Should probably check here
-            final List<Application> applications = new ArrayList<>();
-            if (jobRequest.getApplications().isEmpty()) {
-                applications.addAll(this.commandService.getApplicationsForCommand(commandId));
-            } else {
-                for (final String applicationId : jobRequest.getApplications()) {
-                    applications.add(this.applicationService.getApplication(applicationId));
-                }
-            }
+            final List<Application> applications = resolvedCommand.getApplications();
             log.info(
                 "Selected applications {} for job {}",
                 applications
@@ -21,25 +21,37 @@ import com.netflix.genie.common.dto.Application;
 import com.netflix.genie.common.dto.Cluster;
 import com.netflix.genie.common.dto.Command;
 import com.netflix.genie.common.dto.JobRequest;
+import com.netflix.genie.common.dto.JobStatusMessages;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerUnavailableException;
+import com.netflix.genie.core.events.JobFinishedEvent;
+import com.netflix.genie.core.events.JobFinishedReason;
 import com.netflix.genie.core.events.JobScheduledEvent;
 import com.netflix.genie.core.jobs.JobLauncher;
+import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.services.JobAdmissionPolicy;
 import com.netflix.genie.core.services.JobStateService;
 import com.netflix.genie.core.services.JobSubmitterService;
 import com.netflix.spectator.api.Counter;
 import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
-import org.joda.time.Instant;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.TaskScheduler;
 
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Deque;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Supplier;
 
 /**
@@ -51,32 +63,94 @@ import java.util.function.Supplier;
 @Slf4j
 public class JobStateServiceImpl implements JobStateService {
     protected final TaskScheduler scheduler;
+    protected final AsyncTaskExecutor launchExecutor;
     protected final Registry registry;
     protected final ApplicationEventPublisher publisher;
-    private final Map<String, JobInfo> jobs = Collections.synchronizedMap(new HashMap<>());
+    private final Map<String, JobInfo> jobs = new ConcurrentHashMap<>();
+    private final AtomicInteger usedMemory = new AtomicInteger();
+    private final AtomicInteger activeJobs = new AtomicInteger();
+    private final Deque<QueuedJob> queue = new ArrayDeque<>();
     private final JobSubmitterService jobSubmitterService;
+    private final JobsProperties jobsProperties;
+    private final JobAdmissionPolicy admissionPolicy;
     private final Counter unableToCancel;
+    private final Counter queueRejected;
+    private final Counter admitted;
+    private final Counter notAdmitted;
+    private final Timer queueWait;
+    private final Timer launchWait;
+
+    /**
+     * Constructor. Jobs are admitted on the memory they requested.
+     * @param jobSubmitterService implementation of the job submitter service
+     * @param scheduler           The task scheduler to use to register scheduling of job checkers
+     * @param launchExecutor      The bounded executor to run the job launchers on
+     * @param publisher           The application event publisher to use to publish synchronous events
+     * @param registry            The metrics registry
+     * @param jobsProperties      The jobs properties with the memory and queue limits of this node
+     */
+    public JobStateServiceImpl(final JobSubmitterService jobSubmitterService,
+                               final TaskScheduler scheduler,
+                               final AsyncTaskExecutor launchExecutor,
+                               final ApplicationEventPublisher publisher,
+                               final Registry registry,
+                               final JobsProperties jobsProperties) {
+        this(
+            jobSubmitterService,
+            scheduler,
+            launchExecutor,
+            publisher,
+            registry,
+            jobsProperties,
+            new RequestedMemoryAdmissionPolicy(jobsProperties)
+        );
+    }
 
     /**
      * Constructor.
      * @param jobSubmitterService implementation of the job submitter service
      * @param scheduler           The task scheduler to use to register scheduling of job checkers
+     * @param launchExecutor      The bounded executor to run the job launchers on
      * @param publisher           The application event publisher to use to publish synchronous events
      * @param registry            The metrics registry
+     * @param jobsProperties      The jobs properties with the memory and queue limits of this node
+     * @param admissionPolicy     The policy deciding whether the memory of a job can be reserved
      */
     public JobStateServiceImpl(final JobSubmitterService jobSubmitterService,
                                final TaskScheduler scheduler,
+                               final AsyncTaskExecutor launchExecutor,
                                final ApplicationEventPublisher publisher,
-                               final Registry registry) {
+                               final Registry registry,
+                               final JobsProperties jobsProperties,
+                               final JobAdmissionPolicy admissionPolicy) {
         this.jobSubmitterService = jobSubmitterService;
         this.scheduler = scheduler;
+        this.launchExecutor = launchExecutor;
         this.registry = registry;
         this.publisher = publisher;
+        this.jobsProperties = jobsProperties;
+        this.admissionPolicy = admissionPolicy;
 
         this.registry.mapSize("genie.jobs.running.gauge", this.jobs);
         this.registry.methodValue("genie.jobs.active.gauge", this, "getNumActiveJobs");
         this.registry.methodValue("genie.jobs.memory.used.gauge", this, "getUsedMemory");
+        this.registry.methodValue("genie.jobs.queue.depth.gauge", this, "getNumQueuedJobs");
         this.unableToCancel = registry.counter("genie.jobs.unableToCancel.rate");
+        this.queueRejected = registry.counter("genie.jobs.queue.rejected.counter");
+        this.queueWait = registry.timer("genie.jobs.queue.wait.timer");
+        this.launchWait = registry.timer("genie.jobs.launch.wait.timer");
+        this.admitted = registry.counter("genie.jobs.admission.admitted.counter");
+        this.notAdmitted = registry.counter("genie.jobs.admission.rejected.counter");
+
+        // Jobs finishing free memory but admission can also depend on usage dropping so retry the queue periodically
+        if (jobsProperties.getQueue().isEnabled()) {
+            final long retryInterval = jobsProperties.getQueue().getRetryInterval();
+            this.scheduler.scheduleWithFixedDelay(
+                this::retryQueuedJobs,
+                new Date(System.currentTimeMillis() + retryInterval),
+                retryInterval
+            );
+        }
     }
 
     /**
@@ -94,7 +168,7 @@ public class JobStateServiceImpl implements JobStateService {
                          final Command command, final List<Application> applications, final int memory) {
         handle(jobId, () -> {
             final JobInfo jobInfo = jobs.get(jobId);
-            jobInfo.setMemory(memory);
+            this.setMemory(jobInfo, memory);
             final JobLauncher jobLauncher = new JobLauncher(this.jobSubmitterService,
                 jobRequest,
                 cluster,
@@ -103,9 +177,15 @@ public class JobStateServiceImpl implements JobStateService {
                 memory,
                 registry
             );
-            final Future<?> task = scheduler.schedule(jobLauncher, Instant.now().toDate());
+            final long submittedAt = System.nanoTime();
+            final Future<?> task = this.launchExecutor.submit(
+                () -> {
+                    this.launchWait.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                    jobLauncher.run();
+                }
+            );
             jobInfo.setRunningTask(task);
-            jobInfo.setActive(true);
+            this.activate(jobInfo);
             //
             // This event is fired when a job is scheduled to run on this Genie node. We'll track the future here in
             // case it needs to be killed while still in INIT state. Once it's running the onJobStarted event will
@@ -116,6 +196,93 @@ public class JobStateServiceImpl implements JobStateService {
         });
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean scheduleOrQueue(final String jobId, final JobRequest jobRequest, final Cluster cluster,
+                                   final Command command, final List<Application> applications, final int memory)
+        throws GenieServerUnavailableException {
+        synchronized (this.queue) {
+            if (this.queue.isEmpty() && this.reserveMemory(jobId, memory)) {
+                this.schedule(jobId, jobRequest, cluster, command, applications, memory);
+                return true;
+            }
+
+            final int maxDepth = this.jobsProperties.getQueue().getMaxDepth();
+            if (this.queue.size() >= maxDepth) {
+                this.queueRejected.increment();
+                throw new GenieServerUnavailableException(
+                    "Job "
+                        + jobId
+                        + " can't run on this node "
+                        + this.getUsedMemory()
+                        + "/"
+                        + this.jobsProperties.getMemory().getMaxSystemMemory()
+                        + " MB are used and requested "
+                        + memory
+                        + " MB and "
+                        + maxDepth
+                        + " jobs are already queued"
+                );
+            }
+
+            log.info("Queueing job {} until {} MB are free on this node", jobId, memory);
+            this.queue.addLast(
+                new QueuedJob(jobId, jobRequest, cluster, command, applications, memory, System.nanoTime())
+            );
+            return false;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean reserveMemory(final String jobId, final int memory) {
+        final JobInfo jobInfo = this.jobs.get(jobId);
+        if (jobInfo == null) {
+            return false;
+        }
+        synchronized (jobInfo) {
+            if (this.jobs.get(jobId) != jobInfo) {
+                return false;
+            }
+            final int delta = memory - jobInfo.getMemory();
+            int current;
+            do {
+                current = this.usedMemory.get();
+                if (delta > 0 && !this.admissionPolicy.canAdmit(current, delta)) {
+                    this.notAdmitted.increment();
+                    return false;
+                }
+            } while (!this.usedMemory.compareAndSet(current, current + delta));
+            jobInfo.setMemory(memory);
+            if (delta > 0) {
+                this.admitted.increment();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean canReserveMemory(final int memory) {
+        return this.admissionPolicy.canAdmit(this.usedMemory.get(), memory);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getNumQueuedJobs() {
+        synchronized (this.queue) {
+            return this.queue.size();
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -132,17 +299,71 @@ public class JobStateServiceImpl implements JobStateService {
                     this.unableToCancel.increment();
                 }
             }
-            jobs.remove(jobId);
+            this.release(jobs.remove(jobId));
             return null;
         });
+        this.scheduleQueuedJobs();
+    }
+
+    private void retryQueuedJobs() {
+        try {
+            this.scheduleQueuedJobs();
+        } catch (final RuntimeException re) {
+            log.error("Unable to schedule queued jobs", re);
+        }
+    }
+
+    /**
+     * Schedule the jobs at the head of the queue for as long as the memory they need is free. Jobs which were
+     * finished, for example killed, while waiting are dropped. Jobs which couldn't be handed to the launch executor
+     * are failed once the queue is released.
+     */
+    private void scheduleQueuedJobs() {
+        final List<String> failedJobIds = new ArrayList<>();
+        synchronized (this.queue) {
+            QueuedJob queuedJob = this.queue.peekFirst();
+            while (queuedJob != null) {
+                if (!this.jobExists(queuedJob.getJobId())) {
+                    this.queue.removeFirst();
+                } else if (this.reserveMemory(queuedJob.getJobId(), queuedJob.getMemory())) {
+                    this.queue.removeFirst();
+                    this.queueWait.record(System.nanoTime() - queuedJob.getQueuedAt(), TimeUnit.NANOSECONDS);
+                    log.info("Scheduling queued job {} now that {} MB are free", queuedJob.getJobId(),
+                        queuedJob.getMemory());
+                    try {
+                        this.schedule(
+                            queuedJob.getJobId(),
+                            queuedJob.getJobRequest(),
+                            queuedJob.getCluster(),
+                            queuedJob.getCommand(),
+                            queuedJob.getApplications(),
+                            queuedJob.getMemory()
+                        );
+                    } catch (final RuntimeException re) {
+                        log.error("Unable to launch queued job {}", queuedJob.getJobId(), re);
+                        failedJobIds.add(queuedJob.getJobId());
+                    }
+                } else {
+                    break;
+                }
+                queuedJob = this.queue.peekFirst();
+            }
+        }
+        for (final String jobId : failedJobIds) {
+            this.publisher.publishEvent(
+                new JobFinishedEvent(
+                    jobId, JobFinishedReason.FAILED_TO_INIT, JobStatusMessages.SUBMIT_INIT_FAILURE, this
+                )
+            );
+        }
     }
 
     private void handle(final String jobId, final Supplier<Void> supplier) {
-        JobInfo jobInfo = jobs.get(jobId);
+        final JobInfo jobInfo = jobs.get(jobId);
         if (jobInfo != null) {
             synchronized (jobInfo) {
-                jobInfo = jobs.get(jobId);
-                if (jobInfo != null) {
+                // Make sure the job wasn't removed, or removed and initialized again, while waiting for the lock
+                if (jobs.get(jobId) == jobInfo) {
                     supplier.get();
                 }
             }
@@ -160,9 +381,9 @@ public class JobStateServiceImpl implements JobStateService {
     protected void setMemoryAndTask(final String jobId, final int memory, final Future<?> task) {
         handle(jobId, () -> {
             final JobInfo jobInfo = jobs.get(jobId);
-            jobInfo.setMemory(memory);
+            this.setMemory(jobInfo, memory);
             jobInfo.setRunningTask(task);
-            jobInfo.setActive(true);
+            this.activate(jobInfo);
             return null;
         });
     }
@@ -172,20 +393,65 @@ public class JobStateServiceImpl implements JobStateService {
      */
     @Override
     public int getNumActiveJobs() {
-        // Synchronized to avoid concurrent modification exception
-        synchronized (this.jobs) {
-            return (int) this.jobs.values().stream().filter(JobInfo::isActive).count();
-        }
+        return this.activeJobs.get();
     }
     /**
      * {@inheritDoc}
      */
     @Override
     public int getUsedMemory() {
-        // Synchronized to avoid concurrent modification exception
-        synchronized (this.jobs) {
-            return this.jobs.values().stream().map(JobInfo::getMemory)
-                .reduce((a, b) -> a + b).orElse(0);
+        return this.usedMemory.get();
+    }
+
+    // The memory and active flag of a job are only changed while holding its monitor so the totals stay consistent
+    private void setMemory(final JobInfo jobInfo, final int memory) {
+        this.usedMemory.addAndGet(memory - jobInfo.getMemory());
+        jobInfo.setMemory(memory);
+    }
+
+    private void activate(final JobInfo jobInfo) {
+        if (!jobInfo.isActive()) {
+            jobInfo.setActive(true);
+            this.activeJobs.incrementAndGet();
+        }
+    }
+
+    private void release(final JobInfo jobInfo) {
+        if (jobInfo != null) {
+            this.setMemory(jobInfo, 0);
+            if (jobInfo.isActive()) {
+                jobInfo.setActive(false);
+                this.activeJobs.decrementAndGet();
+            }
+        }
+    }
+
+    @Getter
+    private static class QueuedJob {
+        private final String jobId;
+        private final JobRequest jobRequest;
+        private final Cluster cluster;
+        private final Command command;
+        private final List<Application> applications;
+        private final int memory;
+        private final long queuedAt;
+
+        QueuedJob(
+            final String jobId,
+            final JobRequest jobRequest,
+            final Cluster cluster,
+            final Command command,
+            final List<Application> applications,
+            final int memory,
+            final long queuedAt
+        ) {
+            this.jobId = jobId;
+            this.jobRequest = jobRequest;
+            this.cluster = cluster;
+            this.command = command;
+            this.applications = applications;
+            this.memory = memory;
+            this.queuedAt = queuedAt;
         }
     }
 
@@ -193,7 +459,7 @@ public class JobStateServiceImpl implements JobStateService {
     @Setter
     private static class JobInfo {
         private Future<?> runningTask;
-        private Integer memory = 0;
+        private int memory;
         private boolean active;
     }
 }
@@ -25,6 +25,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.hibernate.validator.constraints.NotBlank;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
@@ -80,6 +81,41 @@ public class LocalFileTransferImpl implements FileTransfer {
         this.copy(srcLocalPath, dstRemotePath);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Writes to a temporary file next to the destination which is moved into place once the writer is done.
+     */
+    @Override
+    public void putStream(
+        final StreamWriter writer,
+        @NotBlank(message = "Destination remote path cannot be empty") final String dstRemotePath
+    ) throws GenieException {
+        log.debug("Called to put a stream to {}", dstRemotePath);
+        final Path dest = this.createFilePath(dstRemotePath);
+        final Path temp = dest.resolveSibling(dest.getFileName() + ".tmp");
+        try {
+            final Path parent = dest.getParent();
+            if (parent != null && !Files.exists(parent)) {
+                Files.createDirectories(parent);
+            }
+            try (OutputStream output = Files.newOutputStream(temp)) {
+                writer.write(output);
+            }
+            Files.move(temp, dest, StandardCopyOption.REPLACE_EXISTING);
+        } catch (final IOException ioe) {
+            final String message = String.format("Failed writing stream to %s", dstRemotePath);
+            log.error(message, ioe);
+            throw new GenieServerException(message, ioe);
+        } finally {
+            try {
+                Files.deleteIfExists(temp);
+            } catch (final IOException ioe) {
+                log.error("Unable to delete {}", temp, ioe);
+            }
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -115,7 +151,7 @@ public class LocalFileTransferImpl implements FileTransfer {
         }
     }
 
-    private Path createFilePath(final String path) throws GenieServerException {
+    Path createFilePath(final String path) throws GenieServerException {
         log.debug("Normalizing path from {}", path);
         final String finalPath;
         if (StringUtils.beginsWithIgnoreCase(path, ENTIRE_FILE_SCHEME)) {
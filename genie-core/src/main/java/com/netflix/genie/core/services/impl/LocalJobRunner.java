@@ -29,6 +29,7 @@ import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.core.events.JobFinishedEvent;
 import com.netflix.genie.core.events.JobFinishedReason;
 import com.netflix.genie.core.events.JobStartedEvent;
+import com.netflix.genie.core.jobs.DownloadPlan;
 import com.netflix.genie.core.jobs.JobConstants;
 import com.netflix.genie.core.jobs.JobExecutionEnvironment;
 import com.netflix.genie.core.jobs.workflow.WorkflowTask;
@@ -41,6 +42,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.ApplicationEventMulticaster;
 import org.springframework.core.io.Resource;
+import org.springframework.core.task.AsyncTaskExecutor;
 
 import javax.validation.Valid;
 import javax.validation.constraints.Min;
@@ -72,6 +74,8 @@ public class LocalJobRunner implements JobSubmitterService {
     private final Resource baseWorkingDirPath;
     private final ApplicationEventPublisher eventPublisher;
     private final ApplicationEventMulticaster eventMulticaster;
+    private final AsyncTaskExecutor downloadExecutor;
+    private final int maxConcurrentDownloads;
 
     private final Timer overallSubmitTimer;
     private final Timer createJobDirTimer;
@@ -80,16 +84,19 @@ public class LocalJobRunner implements JobSubmitterService {
     private final Timer saveJobExecutionTimer;
     private final Timer publishJobStartedEventTimer;
     private final Timer createInitFailureDetailsFileTimer;
+    private final Timer downloadFilesTimer;
 
     /**
      * Constructor create the object.
      *
-     * @param jobPersistenceService Implementation of the job persistence service
-     * @param eventPublisher        The synchronous event publisher to use
-     * @param eventMulticaster      Instance of the asynchronous event publisher to use
-     * @param workflowTasks         List of all the workflow tasks to be executed
-     * @param genieWorkingDir       Working directory for genie where it creates jobs directories
-     * @param registry              The metrics registry to use
+     * @param jobPersistenceService  Implementation of the job persistence service
+     * @param eventPublisher         The synchronous event publisher to use
+     * @param eventMulticaster       Instance of the asynchronous event publisher to use
+     * @param workflowTasks          List of all the workflow tasks to be executed
+     * @param genieWorkingDir        Working directory for genie where it creates jobs directories
+     * @param downloadExecutor       The executor shared by all jobs to download the files they need on
+     * @param maxConcurrentDownloads The maximum number of files to download at the same time for a single job
+     * @param registry               The metrics registry to use
      */
     public LocalJobRunner(
         @NotNull final JobPersistenceService jobPersistenceService,
@@ -97,6 +104,8 @@ public class LocalJobRunner implements JobSubmitterService {
         @NotNull final ApplicationEventMulticaster eventMulticaster,
         @NotNull final List<WorkflowTask> workflowTasks,
         @NotNull final Resource genieWorkingDir,
+        @NotNull final AsyncTaskExecutor downloadExecutor,
+        @Min(1) final int maxConcurrentDownloads,
         @NotNull final Registry registry
     ) {
         this.jobPersistenceService = jobPersistenceService;
@@ -104,6 +113,8 @@ public class LocalJobRunner implements JobSubmitterService {
         this.baseWorkingDirPath = genieWorkingDir;
         this.eventPublisher = eventPublisher;
         this.eventMulticaster = eventMulticaster;
+        this.downloadExecutor = downloadExecutor;
+        this.maxConcurrentDownloads = maxConcurrentDownloads;
 
         // Metrics
         this.overallSubmitTimer = registry.timer("genie.jobs.submit.localRunner.overall.timer");
@@ -115,6 +126,7 @@ public class LocalJobRunner implements JobSubmitterService {
         this.createInitFailureDetailsFileTimer = registry.timer(
             "genie.jobs.submit.localRunner.createInitFailureDetailsFile.timer"
         );
+        this.downloadFilesTimer = registry.timer("genie.jobs.submit.localRunner.downloadFiles.timer");
     }
 
     /**
@@ -313,6 +325,10 @@ public class LocalJobRunner implements JobSubmitterService {
         final Map<String, Object> context = new HashMap<>();
 
         context.put(JobConstants.JOB_EXECUTION_ENV_KEY, jee);
+        context.put(
+            JobConstants.DOWNLOAD_PLAN_KEY,
+            new DownloadPlan(this.downloadExecutor, this.maxConcurrentDownloads, this.downloadFilesTimer)
+        );
 
         return context;
     }
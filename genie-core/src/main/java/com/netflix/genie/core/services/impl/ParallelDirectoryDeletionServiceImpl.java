@@ -0,0 +1,311 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.netflix.genie.core.services.DirectoryDeletionService;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.DistributionSummary;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+
+import javax.validation.constraints.NotNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A directory deletion service which walks the directory once and deletes its files in batches on a shared, bounded
+ * executor, so directories with many small files don't take minutes to delete and don't tie up the calling thread
+ * more than it takes to walk them. The directories themselves are deleted, deepest first, once their files are gone.
+ * <p>
+ * When jobs run as their users Genie might not be allowed to delete their files itself. Each directory is then deleted
+ * with {@code sudo rm -rf --} followed by its canonical path, so the Genie user only needs to be allowed to run that
+ * one command on the jobs directory rather than an unrestricted root shell, e.g. with the sudoers entry
+ * {@code genie ALL=(root) NOPASSWD: /bin/rm -rf -- /mnt/genie/jobs/*}. Directories are deleted concurrently, each by
+ * its own process.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Slf4j
+public class ParallelDirectoryDeletionServiceImpl implements DirectoryDeletionService {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final String MODE_TAG = "mode";
+    private static final String STATUS_TAG = "status";
+
+    private final Path jobsDir;
+    private final Executor deletionExecutor;
+    private final boolean runAsUserEnabled;
+    private final List<String> sudoDeleteCommand;
+
+    private final Registry registry;
+    private final Id deletionTimerId;
+    private final Counter deletedFilesCounter;
+    private final Counter deletedBytesCounter;
+    private final Counter failureCounter;
+    private final DistributionSummary throughput;
+
+    /**
+     * Constructor.
+     *
+     * @param jobsDir          The jobs directory. Only directories within it are deleted.
+     * @param deletionExecutor The executor shared by all deletions to delete files on
+     * @param runAsUserEnabled Whether jobs run as their users so directories should be deleted with sudo
+     * @param registry         The metrics registry to use
+     * @throws IOException if the jobs directory can't be resolved
+     */
+    public ParallelDirectoryDeletionServiceImpl(
+        @NotNull final Resource jobsDir,
+        @NotNull final Executor deletionExecutor,
+        final boolean runAsUserEnabled,
+        @NotNull final Registry registry
+    ) throws IOException {
+        this(
+            jobsDir,
+            deletionExecutor,
+            runAsUserEnabled,
+            ImmutableList.of("sudo", "rm", "-rf", "--"),
+            registry
+        );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param jobsDir           The jobs directory. Only directories within it are deleted.
+     * @param deletionExecutor  The executor shared by all deletions to delete files on
+     * @param runAsUserEnabled  Whether jobs run as their users so directories should be deleted with sudo
+     * @param sudoDeleteCommand The command deleting a directory with sudo. The path of the directory is appended.
+     * @param registry          The metrics registry to use
+     * @throws IOException if the jobs directory can't be resolved
+     */
+    ParallelDirectoryDeletionServiceImpl(
+        @NotNull final Resource jobsDir,
+        @NotNull final Executor deletionExecutor,
+        final boolean runAsUserEnabled,
+        @NotNull final List<String> sudoDeleteCommand,
+        @NotNull final Registry registry
+    ) throws IOException {
+        this.jobsDir = jobsDir.getFile().getCanonicalFile().toPath();
+        this.deletionExecutor = deletionExecutor;
+        this.runAsUserEnabled = runAsUserEnabled;
+        this.sudoDeleteCommand = sudoDeleteCommand;
+
+        this.registry = registry;
+        this.deletionTimerId = registry.createId("genie.directoryDeletion.timer");
+        this.deletedFilesCounter = registry.counter("genie.directoryDeletion.files.counter");
+        this.deletedBytesCounter = registry.counter("genie.directoryDeletion.bytes.counter");
+        this.failureCounter = registry.counter("genie.directoryDeletion.failure.counter");
+        this.throughput = registry.distributionSummary("genie.directoryDeletion.throughput");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void deleteDirectory(@NotNull final File directory) throws IOException {
+        if (!directory.exists()) {
+            return;
+        }
+        final Path path = directory.getCanonicalFile().toPath();
+        if (!path.startsWith(this.jobsDir) || path.equals(this.jobsDir)) {
+            throw new IOException("Won't delete " + directory + " as it isn't within " + this.jobsDir);
+        }
+
+        log.debug("Deleting directory {}", path);
+        final long start = System.nanoTime();
+        boolean success = false;
+        try {
+            if (this.runAsUserEnabled) {
+                this.deleteWithSudo(path);
+            } else {
+                final long files = this.deleteInParallel(path);
+                final long duration = System.nanoTime() - start;
+                if (duration > 0) {
+                    this.throughput.record(files * TimeUnit.SECONDS.toNanos(1) / duration);
+                }
+            }
+            success = true;
+        } finally {
+            this.registry
+                .timer(
+                    this.deletionTimerId
+                        .withTag(MODE_TAG, this.runAsUserEnabled ? "sudo" : "parallel")
+                        .withTag(STATUS_TAG, success ? "success" : "failure")
+                )
+                .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private long deleteInParallel(final Path directory) throws IOException {
+        final List<Path> directories = new ArrayList<>();
+        final List<CompletableFuture<Void>> batches = new ArrayList<>();
+        final AtomicLong deletedFiles = new AtomicLong();
+        final AtomicLong failures = new AtomicLong();
+        final AtomicReference<IOException> firstFailure = new AtomicReference<>();
+
+        Files.walkFileTree(
+            directory,
+            new SimpleFileVisitor<Path>() {
+                private Map<Path, Long> batch = new LinkedHashMap<>();
+
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+                    // Symbolic links are visited as files so only the link is deleted, never what it points to
+                    this.batch.put(file, attrs.size());
+                    if (this.batch.size() >= BATCH_SIZE) {
+                        this.submit();
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFileFailed(final Path file, final IOException exc) {
+                    if (!(exc instanceof NoSuchFileException)) {
+                        fail(file, exc, failures, firstFailure);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult postVisitDirectory(final Path dir, final IOException exc) {
+                    if (exc != null) {
+                        fail(dir, exc, failures, firstFailure);
+                    }
+                    // Walked depth first so every directory is listed after the ones within it
+                    this.submit();
+                    directories.add(dir);
+                    return FileVisitResult.CONTINUE;
+                }
+
+                private void submit() {
+                    if (this.batch.isEmpty()) {
+                        return;
+                    }
+                    final Map<Path, Long> files = this.batch;
+                    this.batch = new LinkedHashMap<>();
+                    final Runnable deletion = () -> deleteFiles(files, deletedFiles, failures, firstFailure);
+                    try {
+                        batches.add(CompletableFuture.runAsync(deletion, deletionExecutor));
+                    } catch (final RejectedExecutionException ree) {
+                        log.debug("Directory deletion executor is full. Deleting batch on the calling thread.");
+                        deletion.run();
+                    }
+                }
+            }
+        );
+
+        try {
+            CompletableFuture.allOf(batches.toArray(new CompletableFuture[batches.size()])).join();
+        } catch (final CompletionException ce) {
+            throw new IOException("Unable to delete the files in " + directory, ce.getCause());
+        }
+
+        for (final Path dir : directories) {
+            try {
+                Files.deleteIfExists(dir);
+            } catch (final IOException ioe) {
+                fail(dir, ioe, failures, firstFailure);
+            }
+        }
+
+        if (failures.get() > 0) {
+            throw new IOException(
+                "Unable to delete " + failures.get() + " entries in " + directory,
+                firstFailure.get()
+            );
+        }
+        return deletedFiles.get();
+    }
+
+    private void deleteFiles(
+        final Map<Path, Long> files,
+        final AtomicLong deletedFiles,
+        final AtomicLong failures,
+        final AtomicReference<IOException> firstFailure
+    ) {
+        long deletedBytes = 0L;
+        long deleted = 0L;
+        for (final Map.Entry<Path, Long> file : files.entrySet()) {
+            try {
+                if (Files.deleteIfExists(file.getKey())) {
+                    deleted++;
+                    deletedBytes += file.getValue();
+                }
+            } catch (final IOException ioe) {
+                this.fail(file.getKey(), ioe, failures, firstFailure);
+            }
+        }
+        deletedFiles.addAndGet(deleted);
+        this.deletedFilesCounter.increment(deleted);
+        this.deletedBytesCounter.increment(deletedBytes);
+    }
+
+    private void fail(
+        final Path path,
+        final IOException ioe,
+        final AtomicLong failures,
+        final AtomicReference<IOException> firstFailure
+    ) {
+        log.debug("Unable to delete {}", path, ioe);
+        failures.incrementAndGet();
+        firstFailure.compareAndSet(null, ioe);
+        this.failureCounter.increment();
+    }
+
+    private void deleteWithSudo(final Path directory) throws IOException {
+        final List<String> command = new ArrayList<>(this.sudoDeleteCommand);
+        command.add(directory.toString());
+        final Process process = new ProcessBuilder(command)
+            .redirectOutput(ProcessBuilder.Redirect.INHERIT)
+            .redirectError(ProcessBuilder.Redirect.INHERIT)
+            .start();
+        final int exitCode;
+        try {
+            exitCode = process.waitFor();
+        } catch (final InterruptedException ie) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while deleting " + directory, ie);
+        }
+        if (exitCode != 0) {
+            this.failureCounter.increment();
+            throw new IOException("Deleting " + directory + " failed with exit code " + exitCode);
+        }
+    }
+}
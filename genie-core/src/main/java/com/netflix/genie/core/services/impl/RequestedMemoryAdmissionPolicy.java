@@ -0,0 +1,51 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services.impl;
+
+import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.services.JobAdmissionPolicy;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Admits jobs for as long as the sum of the memory they requested fits in the memory the node can use for jobs.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+public class RequestedMemoryAdmissionPolicy implements JobAdmissionPolicy {
+
+    private final JobsProperties jobsProperties;
+
+    /**
+     * Constructor.
+     *
+     * @param jobsProperties The jobs properties with the memory limit of this node
+     */
+    public RequestedMemoryAdmissionPolicy(@NotNull final JobsProperties jobsProperties) {
+        this.jobsProperties = jobsProperties;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean canAdmit(final int usedMemory, final int memory) {
+        return usedMemory + memory <= this.jobsProperties.getMemory().getMaxSystemMemory();
+    }
+}
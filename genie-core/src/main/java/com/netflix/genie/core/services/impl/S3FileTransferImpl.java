@@ -18,26 +18,65 @@
 package com.netflix.genie.core.services.impl;
 
 import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.google.common.hash.Hashing;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.properties.S3TransferProperties;
 import com.netflix.genie.core.services.FileTransfer;
+import com.netflix.spectator.api.DistributionSummary;
 import com.netflix.spectator.api.Registry;
 import com.netflix.spectator.api.Timer;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.validator.constraints.NotBlank;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 
 import javax.validation.constraints.NotNull;
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * An implementation of the FileTransferService interface in which the remote locations are on Amazon S3.
+ * <p>
+ * When parallel transfers are enabled objects larger than the threshold are downloaded with ranged GETs and uploaded
+ * with multipart uploads, transferring several parts at the same time so large files aren't limited to the
+ * throughput of a single connection.
  *
  * @author amsharma
  * @since 3.0.0
@@ -45,24 +84,56 @@ import java.util.regex.Pattern;
 @Slf4j
 public class S3FileTransferImpl implements FileTransfer {
 
+    // S3 doesn't allow more parts than this in a multipart upload
+    private static final int MAX_PARTS = 10000;
+
+    private static final String PART_FILE_SUFFIX = ".part";
+    private static final Pattern MD5_ETAG_PATTERN = Pattern.compile("^[0-9a-fA-F]{32}$");
+
     private final Pattern s3FilePattern = Pattern.compile("^(s3[n]?://)(.*?)/(.*/.*)");
     private final Pattern s3PrefixPattern = Pattern.compile("^s3[n]?://.*$");
     private AmazonS3 s3Client;
+    private S3TransferProperties transferProperties;
+    private AsyncTaskExecutor partExecutor;
     private Timer downloadTimer;
     private Timer uploadTimer;
     private Timer getTimer;
+    private DistributionSummary downloadThroughput;
+    private DistributionSummary uploadThroughput;
 
     /**
-     * Constructor.
+     * Constructor which transfers every object as a single request.
      *
      * @param amazonS3Client An amazon s3 client object
      * @param registry       The metrics registry to use
      */
     public S3FileTransferImpl(@NotNull final AmazonS3 amazonS3Client, @NotNull final Registry registry) {
+        this(amazonS3Client, new S3TransferProperties(), new TaskExecutorAdapter(Runnable::run), registry);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param amazonS3Client     An amazon s3 client object
+     * @param transferProperties The properties controlling parallel transfers
+     * @param partExecutor       The executor shared by all transfers to transfer parts of objects on
+     * @param registry           The metrics registry to use
+     * @since 3.1.0
+     */
+    public S3FileTransferImpl(
+        @NotNull final AmazonS3 amazonS3Client,
+        @NotNull final S3TransferProperties transferProperties,
+        @NotNull final AsyncTaskExecutor partExecutor,
+        @NotNull final Registry registry
+    ) {
         this.s3Client = amazonS3Client;
+        this.transferProperties = transferProperties;
+        this.partExecutor = partExecutor;
         this.downloadTimer = registry.timer("genie.files.s3.download.timer");
         this.uploadTimer = registry.timer("genie.files.s3.upload.timer");
         this.getTimer = registry.timer("genie.files.s3.getObjectMetadata.timer");
+        this.downloadThroughput = registry.distributionSummary("genie.files.s3.download.throughput");
+        this.uploadThroughput = registry.distributionSummary("genie.files.s3.upload.throughput");
     }
 
     /**
@@ -90,15 +161,75 @@ public class S3FileTransferImpl implements FileTransfer {
             log.debug("Called with src path {} and destination path {}", srcRemotePath, dstLocalPath);
 
             final S3Key s3Key = new S3Key(srcRemotePath);
+            final File dstFile = new File(dstLocalPath);
             try {
-                this.s3Client.getObject(
-                    new GetObjectRequest(s3Key.getBucket(), s3Key.getKey()),
-                    new File(dstLocalPath)
-                );
+                if (this.transferProperties.isParallelEnabled()) {
+                    this.getObjectInParts(
+                        s3Key,
+                        this.s3Client.getObjectMetadata(s3Key.getBucket(), s3Key.getKey()),
+                        dstFile
+                    );
+                } else {
+                    this.s3Client.getObject(new GetObjectRequest(s3Key.getBucket(), s3Key.getKey()), dstFile);
+                }
+            } catch (AmazonS3Exception ase) {
+                log.error("Error fetching file {} from s3 due to exception {}", srcRemotePath, ase);
+                throw new GenieServerException("Error downloading file from s3. Filename: " + srcRemotePath);
+            }
+            this.recordThroughput(this.downloadThroughput, dstFile.length(), start);
+        } finally {
+            this.downloadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Uses a modified since constraint on the GET request so S3 only returns the object if it changed. When parallel
+     * transfers are enabled the metadata is checked first instead as it's needed to split the object into parts.
+     */
+    @Override
+    public boolean getFileIfModified(
+        @NotBlank(message = "Source file path cannot be empty.")
+        final String srcRemotePath,
+        @NotBlank(message = "Destination local path cannot be empty")
+        final String dstLocalPath,
+        final long lastModifiedTime
+    ) throws GenieException {
+        final long start = System.nanoTime();
+        try {
+            log.debug(
+                "Called with src path {}, destination path {} and last modified time {}",
+                srcRemotePath,
+                dstLocalPath,
+                lastModifiedTime
+            );
+
+            final S3Key s3Key = new S3Key(srcRemotePath);
+            final File dstFile = new File(dstLocalPath);
+            try {
+                if (this.transferProperties.isParallelEnabled()) {
+                    final ObjectMetadata metadata
+                        = this.s3Client.getObjectMetadata(s3Key.getBucket(), s3Key.getKey());
+                    if (metadata.getLastModified().getTime() <= lastModifiedTime) {
+                        return false;
+                    }
+                    this.getObjectInParts(s3Key, metadata, dstFile);
+                } else if (
+                    this.s3Client.getObject(
+                        new GetObjectRequest(s3Key.getBucket(), s3Key.getKey())
+                            .withModifiedSinceConstraint(new Date(lastModifiedTime)),
+                        dstFile
+                    ) == null
+                ) {
+                    return false;
+                }
             } catch (AmazonS3Exception ase) {
                 log.error("Error fetching file {} from s3 due to exception {}", srcRemotePath, ase);
                 throw new GenieServerException("Error downloading file from s3. Filename: " + srcRemotePath);
             }
+            this.recordThroughput(this.downloadThroughput, dstFile.length(), start);
+            return true;
         } finally {
             this.downloadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
@@ -119,12 +250,53 @@ public class S3FileTransferImpl implements FileTransfer {
             log.debug("Called with src path {} and destination path {}", srcLocalPath, dstRemotePath);
 
             final S3Key s3Key = new S3Key(dstRemotePath);
+            final File srcFile = new File(srcLocalPath);
             try {
-                this.s3Client.putObject(s3Key.getBucket(), s3Key.getKey(), new File(srcLocalPath));
+                if (this.transferProperties.isParallelEnabled()
+                    && srcFile.length() > this.transferProperties.getThreshold()) {
+                    this.putObjectInParts(s3Key, srcFile);
+                } else {
+                    this.s3Client.putObject(s3Key.getBucket(), s3Key.getKey(), srcFile);
+                }
             } catch (AmazonS3Exception ase) {
                 log.error("Error posting file {} to s3 due to exception {}", dstRemotePath, ase);
                 throw new GenieServerException("Error uploading file to s3. Filename: " + dstRemotePath);
             }
+            this.recordThroughput(this.uploadThroughput, srcFile.length(), start);
+        } finally {
+            this.uploadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The data is buffered in memory one part at a time and uploaded as a multipart upload while it's being written.
+     * Data smaller than a single part is uploaded with a single request once the writer is done.
+     */
+    @Override
+    public void putStream(
+        @NotNull final StreamWriter writer,
+        @NotBlank(message = "Destination remote path cannot be empty")
+        final String dstRemotePath
+    ) throws GenieException {
+        final long start = System.nanoTime();
+        try {
+            log.debug("Called with destination path {}", dstRemotePath);
+
+            final MultipartOutputStream output = new MultipartOutputStream(new S3Key(dstRemotePath));
+            try {
+                writer.write(output);
+                output.complete();
+            } catch (final IOException | RuntimeException e) {
+                output.abort();
+                log.error("Error posting stream to {}", dstRemotePath, e);
+                throw new GenieServerException("Error uploading stream to s3. Filename: " + dstRemotePath, e);
+            } catch (final GenieException ge) {
+                output.abort();
+                throw ge;
+            }
+            this.recordThroughput(this.uploadThroughput, output.getSize(), start);
         } finally {
             this.uploadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
@@ -151,6 +323,426 @@ public class S3FileTransferImpl implements FileTransfer {
         }
     }
 
+    /**
+     * Download the object with ranged GETs, writing each part straight to its place in a temporary file next to the
+     * destination. Every part must match the ETag of the given metadata so an object replaced half way through the
+     * download fails instead of producing a mix of both versions. Small objects are downloaded with a single GET.
+     * <p>
+     * The temporary file is only moved to the destination once its length and, when the ETag is the MD5 of the
+     * object, its MD5 match so a failed download never leaves a partial file behind to be mistaken for the object.
+     */
+    private void getObjectInParts(
+        final S3Key s3Key,
+        final ObjectMetadata metadata,
+        final File dstFile
+    ) throws GenieException {
+        final File download;
+        try {
+            download = File.createTempFile(
+                dstFile.getName() + ".",
+                PART_FILE_SUFFIX,
+                dstFile.getAbsoluteFile().getParentFile()
+            );
+        } catch (final IOException ioe) {
+            throw new GenieServerException("Unable to create a temporary file for " + dstFile, ioe);
+        }
+        boolean downloaded = false;
+        try {
+            final long size = metadata.getContentLength();
+            if (size <= this.transferProperties.getThreshold()) {
+                // The SDK checks the MD5 of single GETs itself
+                if (
+                    this.s3Client.getObject(
+                        new GetObjectRequest(s3Key.getBucket(), s3Key.getKey())
+                            .withMatchingETagConstraint(metadata.getETag()),
+                        download
+                    ) == null
+                ) {
+                    throw new GenieServerException("Object changed while downloading it from " + s3Key);
+                }
+            } else {
+                this.getParts(s3Key, metadata, download);
+                this.verifyMd5(s3Key, metadata, download);
+            }
+            if (download.length() != size) {
+                throw new GenieServerException(
+                    "Downloaded " + download.length() + " bytes of " + s3Key + " instead of " + size
+                );
+            }
+            Files.move(
+                download.toPath(),
+                dstFile.toPath(),
+                StandardCopyOption.ATOMIC_MOVE,
+                StandardCopyOption.REPLACE_EXISTING
+            );
+            downloaded = true;
+        } catch (final IOException ioe) {
+            throw new GenieServerException("Unable to move the download of " + s3Key + " to " + dstFile, ioe);
+        } finally {
+            if (!downloaded && download.exists() && !download.delete()) {
+                log.warn("Unable to delete the incomplete download {} of {}", download, s3Key);
+            }
+        }
+    }
+
+    private void getParts(final S3Key s3Key, final ObjectMetadata metadata, final File download)
+        throws GenieException {
+        final long size = metadata.getContentLength();
+        try (RandomAccessFile file = new RandomAccessFile(download, "rw")) {
+            file.setLength(size);
+        } catch (final IOException ioe) {
+            throw new GenieServerException("Unable to create " + download, ioe);
+        }
+        this.transferParts(
+            size,
+            part -> {
+                final S3Object object = this.s3Client.getObject(
+                    new GetObjectRequest(s3Key.getBucket(), s3Key.getKey())
+                        .withRange(part.getOffset(), part.getOffset() + part.getSize() - 1)
+                        .withMatchingETagConstraint(metadata.getETag())
+                );
+                if (object == null) {
+                    throw new GenieServerException("Object changed while downloading it from " + s3Key);
+                }
+                try (
+                    InputStream input = object.getObjectContent();
+                    ReadableByteChannel source = Channels.newChannel(input);
+                    FileChannel destination = FileChannel.open(download.toPath(), StandardOpenOption.WRITE)
+                ) {
+                    long written = 0;
+                    while (written < part.getSize()) {
+                        final long count = destination.transferFrom(
+                            source,
+                            part.getOffset() + written,
+                            part.getSize() - written
+                        );
+                        if (count <= 0) {
+                            throw new GenieServerException(
+                                "Unexpected end of part " + part.getNumber() + " of " + s3Key
+                            );
+                        }
+                        written += count;
+                    }
+                } catch (final IOException ioe) {
+                    throw new GenieServerException("Unable to download part " + part.getNumber() + " of " + s3Key, ioe);
+                }
+            }
+        );
+    }
+
+    /**
+     * Ranged GETs lose the MD5 check the SDK does for whole objects so do it here. The ETag is only the MD5 of the
+     * object when it wasn't uploaded in parts or encrypted with KMS or a customer key.
+     */
+    private void verifyMd5(final S3Key s3Key, final ObjectMetadata metadata, final File download)
+        throws GenieException, IOException {
+        final String eTag = metadata.getETag();
+        if (
+            eTag == null
+                || !MD5_ETAG_PATTERN.matcher(eTag).matches()
+                || metadata.getSSEAwsKmsKeyId() != null
+                || metadata.getSSECustomerAlgorithm() != null
+        ) {
+            return;
+        }
+        final String md5 = com.google.common.io.Files.asByteSource(download).hash(Hashing.md5()).toString();
+        if (!md5.equalsIgnoreCase(eTag)) {
+            throw new GenieServerException("MD5 " + md5 + " of the download of " + s3Key + " doesn't match " + eTag);
+        }
+    }
+
+    /**
+     * Upload the file as a multipart upload, uploading several parts at the same time. The upload is aborted if any
+     * part fails so S3 doesn't keep the parts around.
+     */
+    private void putObjectInParts(final S3Key s3Key, final File srcFile) throws GenieException {
+        final long size = srcFile.length();
+        final String uploadId = this.s3Client
+            .initiateMultipartUpload(new InitiateMultipartUploadRequest(s3Key.getBucket(), s3Key.getKey()))
+            .getUploadId();
+        try {
+            final PartETag[] eTags = new PartETag[this.getNumberOfParts(size)];
+            this.transferParts(
+                size,
+                part -> eTags[part.getNumber() - 1] = this.s3Client
+                    .uploadPart(
+                        new UploadPartRequest()
+                            .withBucketName(s3Key.getBucket())
+                            .withKey(s3Key.getKey())
+                            .withUploadId(uploadId)
+                            .withPartNumber(part.getNumber())
+                            .withFile(srcFile)
+                            .withFileOffset(part.getOffset())
+                            .withPartSize(part.getSize())
+                    )
+                    .getPartETag()
+            );
+            this.s3Client.completeMultipartUpload(
+                new CompleteMultipartUploadRequest(s3Key.getBucket(), s3Key.getKey(), uploadId, Arrays.asList(eTags))
+            );
+        } catch (final GenieException | RuntimeException e) {
+            try {
+                this.s3Client.abortMultipartUpload(
+                    new AbortMultipartUploadRequest(s3Key.getBucket(), s3Key.getKey(), uploadId)
+                );
+            } catch (final RuntimeException re) {
+                log.error("Unable to abort multipart upload {} to {}", uploadId, s3Key, re);
+            }
+            throw e;
+        }
+    }
+
+    private long getPartSize(final long size) {
+        // Grow the parts if needed so the object fits in the maximum number of parts
+        return Math.max(this.transferProperties.getPartSize(), (size + MAX_PARTS - 1) / MAX_PARTS);
+    }
+
+    private int getNumberOfParts(final long size) {
+        final long partSize = this.getPartSize(size);
+        return (int) ((size + partSize - 1) / partSize);
+    }
+
+    /**
+     * Split an object of the given size into parts and transfer them with the calling thread and up to the maximum
+     * concurrency minus one threads from the part executor. Parts are handed out from a shared queue so the calling
+     * thread alone finishes the transfer if the executor is busy.
+     */
+    private void transferParts(final long size, final PartTransfer transfer) throws GenieException {
+        final long partSize = this.getPartSize(size);
+        final Queue<Part> pending = new ConcurrentLinkedQueue<>();
+        for (long offset = 0; offset < size; offset += partSize) {
+            pending.add(new Part(pending.size() + 1, offset, Math.min(partSize, size - offset)));
+        }
+
+        final AtomicReference<GenieException> failure = new AtomicReference<>();
+        final Runnable worker = () -> {
+            while (failure.get() == null && !Thread.currentThread().isInterrupted()) {
+                final Part part = pending.poll();
+                if (part == null) {
+                    return;
+                }
+                try {
+                    transfer.transfer(part);
+                } catch (final GenieException ge) {
+                    failure.compareAndSet(null, ge);
+                } catch (final RuntimeException re) {
+                    failure.compareAndSet(
+                        null,
+                        new GenieServerException("Unable to transfer part " + part.getNumber(), re)
+                    );
+                }
+            }
+        };
+
+        final int helpers = Math.min(this.transferProperties.getMaxConcurrent(), pending.size()) - 1;
+        final List<Future<?>> futures = new ArrayList<>(helpers);
+        try {
+            for (int i = 0; i < helpers; i++) {
+                try {
+                    futures.add(this.partExecutor.submit(worker));
+                } catch (final TaskRejectedException tre) {
+                    log.warn("S3 part executor is full. Continuing with {} threads", futures.size() + 1);
+                    break;
+                }
+            }
+            worker.run();
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } catch (final InterruptedException ie) {
+            pending.clear();
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new GenieServerException("Interrupted while transferring parts", ie);
+        } catch (final ExecutionException ee) {
+            // The workers handle anything the transfers throw so this shouldn't happen
+            throw new GenieServerException("Unable to transfer parts", ee.getCause());
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new GenieServerException("Interrupted while transferring parts");
+        }
+    }
+
+    private void recordThroughput(final DistributionSummary summary, final long bytes, final long start) {
+        final long nanos = System.nanoTime() - start;
+        if (nanos > 0) {
+            summary.record(bytes * TimeUnit.SECONDS.toNanos(1) / nanos);
+        }
+    }
+
+    /**
+     * An output stream which uploads the data written to it as the parts of a multipart upload. The upload is only
+     * started once more than a part has been written. When parallel transfers are enabled parts are uploaded on the
+     * part executor while the next ones are written, with at most the maximum concurrency of parts buffered.
+     */
+    private final class MultipartOutputStream extends OutputStream {
+
+        // The largest part which can be buffered in a byte array
+        private static final long MAX_BUFFER_SIZE = 1024L * 1024L * 1024L;
+
+        private final S3Key s3Key;
+        private final List<Future<PartETag>> uploads = new ArrayList<>();
+        private byte[] buffer;
+        private int count;
+        private long size;
+        private String uploadId;
+
+        private MultipartOutputStream(final S3Key s3Key) {
+            this.s3Key = s3Key;
+            this.buffer = new byte[(int) Math.min(transferProperties.getPartSize(), MAX_BUFFER_SIZE)];
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            if (this.count == this.buffer.length) {
+                this.uploadPart();
+            }
+            this.buffer[this.count++] = (byte) b;
+            this.size++;
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            int written = 0;
+            while (written < len) {
+                if (this.count == this.buffer.length) {
+                    this.uploadPart();
+                }
+                final int chunk = Math.min(len - written, this.buffer.length - this.count);
+                System.arraycopy(b, off + written, this.buffer, this.count, chunk);
+                this.count += chunk;
+                this.size += chunk;
+                written += chunk;
+            }
+        }
+
+        private long getSize() {
+            return this.size;
+        }
+
+        private void complete() throws IOException {
+            if (this.uploadId == null) {
+                final ObjectMetadata metadata = new ObjectMetadata();
+                metadata.setContentLength(this.count);
+                s3Client.putObject(
+                    s3Key.getBucket(),
+                    s3Key.getKey(),
+                    new ByteArrayInputStream(this.buffer, 0, this.count),
+                    metadata
+                );
+                return;
+            }
+            if (this.count > 0) {
+                this.uploadPart();
+            }
+            final List<PartETag> eTags = new ArrayList<>(this.uploads.size());
+            for (final Future<PartETag> upload : this.uploads) {
+                eTags.add(this.waitFor(upload));
+            }
+            s3Client.completeMultipartUpload(
+                new CompleteMultipartUploadRequest(s3Key.getBucket(), s3Key.getKey(), this.uploadId, eTags)
+            );
+        }
+
+        private void abort() {
+            this.uploads.forEach(upload -> upload.cancel(true));
+            if (this.uploadId != null) {
+                try {
+                    s3Client.abortMultipartUpload(
+                        new AbortMultipartUploadRequest(s3Key.getBucket(), s3Key.getKey(), this.uploadId)
+                    );
+                } catch (final RuntimeException re) {
+                    log.error("Unable to abort multipart upload {} to {}", this.uploadId, s3Key, re);
+                }
+            }
+        }
+
+        private void uploadPart() throws IOException {
+            if (this.uploads.size() == MAX_PARTS) {
+                throw new IOException("Stream to " + s3Key + " is larger than the maximum number of parts");
+            }
+            if (this.uploadId == null) {
+                this.uploadId = s3Client
+                    .initiateMultipartUpload(new InitiateMultipartUploadRequest(s3Key.getBucket(), s3Key.getKey()))
+                    .getUploadId();
+            }
+
+            final UploadPartRequest request = new UploadPartRequest()
+                .withBucketName(s3Key.getBucket())
+                .withKey(s3Key.getKey())
+                .withUploadId(this.uploadId)
+                .withPartNumber(this.uploads.size() + 1)
+                .withInputStream(new ByteArrayInputStream(this.buffer, 0, this.count))
+                .withPartSize(this.count);
+            final Callable<PartETag> upload = () -> s3Client.uploadPart(request).getPartETag();
+
+            // Keep no more parts in memory than can be uploaded at the same time. Every older part was already waited
+            // on by a previous call so only the oldest one which may still be in flight needs to finish.
+            final int maxInFlight = transferProperties.isParallelEnabled() ? transferProperties.getMaxConcurrent() : 1;
+            if (this.uploads.size() >= maxInFlight) {
+                this.waitFor(this.uploads.get(this.uploads.size() - maxInFlight));
+            }
+            Future<PartETag> future = null;
+            if (maxInFlight > 1) {
+                try {
+                    future = partExecutor.submit(upload);
+                } catch (final TaskRejectedException tre) {
+                    log.debug("S3 part executor is full. Uploading part in the calling thread");
+                }
+            }
+            if (future == null) {
+                final FutureTask<PartETag> task = new FutureTask<>(upload);
+                task.run();
+                future = task;
+            }
+            this.uploads.add(future);
+
+            // Grow the parts as the stream gets longer so large streams fit in the maximum number of parts
+            final long partSize = transferProperties.getPartSize() << (this.uploads.size() / (MAX_PARTS / 10));
+            this.buffer = new byte[(int) Math.min(partSize, MAX_BUFFER_SIZE)];
+            this.count = 0;
+        }
+
+        private PartETag waitFor(final Future<PartETag> upload) throws IOException {
+            try {
+                return upload.get();
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while uploading parts to " + s3Key);
+            } catch (final ExecutionException ee) {
+                throw new IOException("Unable to upload part to " + s3Key, ee.getCause());
+            }
+        }
+    }
+
+    /**
+     * Transfers a single part of an object.
+     */
+    @FunctionalInterface
+    private interface PartTransfer {
+        void transfer(Part part) throws GenieException;
+    }
+
+    /**
+     * A range of bytes of an object. Part numbers start at one.
+     */
+    @Getter
+    private static final class Part {
+        private final int number;
+        private final long offset;
+        private final long size;
+
+        private Part(final int number, final long offset, final long size) {
+            this.number = number;
+            this.offset = offset;
+            this.size = size;
+        }
+    }
+
     @Getter
     private class S3Key {
         private final String bucket;
@@ -165,5 +757,10 @@ public class S3FileTransferImpl implements FileTransfer {
                 throw new GenieServerException(String.format("Invalid path for s3 file %s", path));
             }
         }
+
+        @Override
+        public String toString() {
+            return "s3://" + this.bucket + "/" + this.key;
+        }
     }
 }
@@ -0,0 +1,298 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services.impl;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.properties.JobsArchiveProperties;
+import com.netflix.genie.core.services.JobArchiveService;
+import com.netflix.genie.core.util.ParallelGzipOutputStream;
+import com.netflix.spectator.api.DistributionSummary;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
+import org.apache.commons.exec.CommandLine;
+import org.apache.commons.exec.DefaultExecutor;
+import org.apache.commons.exec.PumpStreamHandler;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.hibernate.validator.constraints.NotBlank;
+
+import javax.validation.constraints.NotNull;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A job archive service which streams the job directory as a gzipped tar archive straight to the archive location,
+ * without saving the archive to local disk first.
+ * <p>
+ * The tar is written in process unless jobs run as their users, in which case the job directory might not be
+ * readable by Genie and {@code sudo tar} is used to write the tar to the stream instead. Either way Genie compresses
+ * it, using several threads when configured to so large job directories don't take minutes to archive.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Slf4j
+public class TarGzJobArchiveServiceImpl implements JobArchiveService {
+
+    private static final String ROOT_ENTRY_NAME = "./";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int DIRECTORY_TYPE = 040000;
+    private static final int FILE_TYPE = 0100000;
+    private static final int SYMBOLIC_LINK_MODE = 0120777;
+    private static final String STATUS_TAG = "status";
+
+    private final GenieFileTransferService fileTransferService;
+    private final JobsArchiveProperties archiveProperties;
+    private final Executor compressionExecutor;
+    private final boolean runAsUserEnabled;
+    private final Registry registry;
+    private final Id archiveTimerId;
+    private final DistributionSummary archiveSize;
+    private final DistributionSummary archiveThroughput;
+
+    /**
+     * Constructor.
+     *
+     * @param fileTransferService The file transfer service to upload archives with
+     * @param archiveProperties   The properties controlling how archives are compressed
+     * @param compressionExecutor The executor shared by all archives to compress blocks on when more than one
+     *                            compression thread is configured
+     * @param runAsUserEnabled    Whether jobs run as their users so the archive should be created with sudo
+     * @param registry            The metrics registry to use
+     */
+    public TarGzJobArchiveServiceImpl(
+        @NotNull final GenieFileTransferService fileTransferService,
+        @NotNull final JobsArchiveProperties archiveProperties,
+        @NotNull final Executor compressionExecutor,
+        final boolean runAsUserEnabled,
+        @NotNull final Registry registry
+    ) {
+        this.fileTransferService = fileTransferService;
+        this.archiveProperties = archiveProperties;
+        this.compressionExecutor = compressionExecutor;
+        this.runAsUserEnabled = runAsUserEnabled;
+        this.registry = registry;
+        this.archiveTimerId = registry.createId("genie.jobs.archive.timer");
+        this.archiveSize = registry.distributionSummary("genie.jobs.archive.size");
+        this.archiveThroughput = registry.distributionSummary("genie.jobs.archive.throughput");
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void archiveDirectory(
+        @NotNull(message = "No directory to archive entered") final File directory,
+        @NotBlank(message = "No archive location entered") final String archiveLocation
+    ) throws GenieException {
+        log.debug("Archiving {} to {}", directory, archiveLocation);
+        final long start = System.nanoTime();
+        final long[] bytes = new long[1];
+        boolean success = false;
+        try {
+            this.fileTransferService.putStream(
+                output -> {
+                    final CountingOutputStream countingOutput = new CountingOutputStream(output);
+                    // Closing the compressed stream finishes it but mustn't close the file transfer's stream
+                    try (OutputStream compressedOutput = this.compress(new CloseShieldOutputStream(countingOutput))) {
+                        if (this.runAsUserEnabled) {
+                            this.writeArchiveWithSudo(directory, compressedOutput);
+                        } else {
+                            this.writeArchive(directory.toPath(), compressedOutput);
+                        }
+                    }
+                    bytes[0] = countingOutput.getCount();
+                },
+                archiveLocation
+            );
+            success = true;
+        } finally {
+            final long duration = System.nanoTime() - start;
+            this.registry
+                .timer(this.archiveTimerId.withTag(STATUS_TAG, success ? "success" : "failure"))
+                .record(duration, TimeUnit.NANOSECONDS);
+            if (success) {
+                this.archiveSize.record(bytes[0]);
+                if (duration > 0) {
+                    this.archiveThroughput.record(bytes[0] * TimeUnit.SECONDS.toNanos(1) / duration);
+                }
+            }
+        }
+    }
+
+    /**
+     * Wrap the output in a gzip stream using the configured level and threads.
+     */
+    private OutputStream compress(final OutputStream output) throws IOException {
+        final int threads = this.archiveProperties.getCompressionThreads();
+        final int level = this.archiveProperties.getCompressionLevel();
+        if (threads > 1) {
+            return new ParallelGzipOutputStream(
+                output,
+                this.compressionExecutor,
+                threads,
+                level,
+                this.archiveProperties.getCompressionBlockSize()
+            );
+        } else {
+            return new LeveledGzipOutputStream(output, level);
+        }
+    }
+
+    /**
+     * Write the directory as a tar to the output. Entries are named relative to the directory like
+     * {@code tar -c ./} would name them, keep the file modes and store symbolic links as links.
+     */
+    private void writeArchive(final Path directory, final OutputStream output) throws IOException {
+        final TarArchiveOutputStream tarOutput = new TarArchiveOutputStream(output);
+        tarOutput.setLongFileMode(TarArchiveOutputStream.LONGFILE_POSIX);
+        tarOutput.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_POSIX);
+
+        Files.walkFileTree(
+            directory,
+            new SimpleFileVisitor<Path>() {
+                @Override
+                public FileVisitResult preVisitDirectory(
+                    final Path dir,
+                    final BasicFileAttributes attrs
+                ) throws IOException {
+                    final TarArchiveEntry entry = new TarArchiveEntry(getEntryName(directory, dir) + "/");
+                    setAttributes(dir, attrs, DIRECTORY_TYPE, entry);
+                    tarOutput.putArchiveEntry(entry);
+                    tarOutput.closeArchiveEntry();
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
+                    final String name = getEntryName(directory, file);
+                    if (attrs.isSymbolicLink()) {
+                        final TarArchiveEntry entry = new TarArchiveEntry(name, TarConstants.LF_SYMLINK);
+                        entry.setLinkName(Files.readSymbolicLink(file).toString());
+                        entry.setModTime(attrs.lastModifiedTime().toMillis());
+                        entry.setMode(SYMBOLIC_LINK_MODE);
+                        tarOutput.putArchiveEntry(entry);
+                        tarOutput.closeArchiveEntry();
+                    } else if (attrs.isRegularFile()) {
+                        final TarArchiveEntry entry = new TarArchiveEntry(name);
+                        setAttributes(file, attrs, FILE_TYPE, entry);
+                        entry.setSize(attrs.size());
+                        tarOutput.putArchiveEntry(entry);
+                        try (InputStream input = Files.newInputStream(file)) {
+                            ByteStreams.copy(ByteStreams.limit(input, attrs.size()), tarOutput);
+                        }
+                        tarOutput.closeArchiveEntry();
+                    } else {
+                        log.debug("Skipping {} as it isn't a regular file, directory or symbolic link", file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            }
+        );
+
+        // Finish the archive without closing the stream so the caller can finish compressing it
+        tarOutput.finish();
+    }
+
+    /**
+     * Write the directory as a tar to the output by running {@code sudo tar}.
+     */
+    private void writeArchiveWithSudo(final File directory, final OutputStream output) throws IOException {
+        final CommandLine commandLine = new CommandLine("sudo");
+        commandLine.addArgument("tar");
+        commandLine.addArgument("-c");
+        commandLine.addArgument("-f");
+        commandLine.addArgument("-");
+        commandLine.addArgument(ROOT_ENTRY_NAME);
+
+        final ByteArrayOutputStream errorOutput = new ByteArrayOutputStream();
+        final DefaultExecutor executor = new DefaultExecutor();
+        executor.setWorkingDirectory(directory);
+        executor.setStreamHandler(new PumpStreamHandler(output, errorOutput));
+
+        log.debug("Archive command : {}", commandLine);
+        try {
+            executor.execute(commandLine);
+        } catch (final IOException ioe) {
+            log.error(
+                "Archive command failed with error output {}",
+                new String(errorOutput.toByteArray(), StandardCharsets.UTF_8)
+            );
+            throw ioe;
+        }
+    }
+
+    private static String getEntryName(final Path directory, final Path path) {
+        final String relativePath = directory.relativize(path).toString().replace(File.separatorChar, '/');
+        return relativePath.isEmpty() ? "." : ROOT_ENTRY_NAME + relativePath;
+    }
+
+    private static void setAttributes(
+        final Path path,
+        final BasicFileAttributes attrs,
+        final int type,
+        final TarArchiveEntry entry
+    ) throws IOException {
+        entry.setModTime(attrs.lastModifiedTime().toMillis());
+        final PosixFileAttributes posixAttrs;
+        if (attrs instanceof PosixFileAttributes) {
+            posixAttrs = (PosixFileAttributes) attrs;
+        } else if (Files.getFileStore(path).supportsFileAttributeView("posix")) {
+            posixAttrs = Files.readAttributes(path, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+        } else {
+            return;
+        }
+        int mode = type;
+        for (final PosixFilePermission permission : posixAttrs.permissions()) {
+            mode |= 1 << (PosixFilePermission.OTHERS_EXECUTE.ordinal() - permission.ordinal());
+        }
+        entry.setMode(mode);
+        entry.setUserName(posixAttrs.owner().getName());
+        entry.setGroupName(posixAttrs.group().getName());
+    }
+
+    /**
+     * A gzip output stream using the given compression level instead of the default one.
+     */
+    private static final class LeveledGzipOutputStream extends GZIPOutputStream {
+        private LeveledGzipOutputStream(final OutputStream output, final int level) throws IOException {
+            super(output, BUFFER_SIZE);
+            this.def.setLevel(level);
+        }
+    }
+}
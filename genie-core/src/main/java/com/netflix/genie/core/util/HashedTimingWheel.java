@@ -0,0 +1,152 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.util;
+
+import javax.validation.constraints.Min;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A hashed timing wheel. Items are put in one of a fixed number of buckets according to the tick their deadline falls
+ * in, so scheduling, cancelling and expiring items costs the same no matter how many are pending. Items scheduled more
+ * than a revolution ahead share buckets with nearer ones and stay there until the wheel reaches their tick.
+ * <p>
+ * The wheel doesn't keep time itself. The owner calls {@link #advance(long)} with the current time to collect the
+ * items whose deadline passed. Items never expire early but may expire up to a tick late. All methods are thread safe.
+ *
+ * @param <T> The type of the items scheduled on the wheel
+ * @author tgianos
+ * @since 3.1.0
+ */
+public class HashedTimingWheel<T> {
+
+    private final long tickDuration;
+    private final List<List<Timeout<T>>> buckets;
+    private long currentTick;
+    private int size;
+
+    /**
+     * Constructor.
+     *
+     * @param tickDuration The number of milliseconds covered by each tick
+     * @param wheelSize    The number of buckets in the wheel
+     * @param now          The current time in epoch milliseconds
+     */
+    public HashedTimingWheel(@Min(1) final long tickDuration, @Min(1) final int wheelSize, final long now) {
+        if (tickDuration < 1 || wheelSize < 1) {
+            throw new IllegalArgumentException("Tick duration and wheel size must be at least 1");
+        }
+        this.tickDuration = tickDuration;
+        this.buckets = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            this.buckets.add(new LinkedList<>());
+        }
+        this.currentTick = now / tickDuration;
+    }
+
+    /**
+     * Schedule an item to expire at the given time. Items whose deadline already passed expire on the next advance.
+     *
+     * @param item     The item
+     * @param deadline The time the item expires in epoch milliseconds
+     * @return The handle to cancel the item with
+     */
+    public synchronized Timeout<T> schedule(final T item, final long deadline) {
+        // Round up so an item never expires before its deadline
+        final long deadlineTick = deadline / this.tickDuration + (deadline % this.tickDuration == 0 ? 0 : 1);
+        final Timeout<T> timeout = new Timeout<>(this, item, Math.max(deadlineTick, this.currentTick + 1));
+        this.getBucket(timeout.tick).add(timeout);
+        this.size++;
+        return timeout;
+    }
+
+    /**
+     * Move the wheel forward to the given time and remove the items which expired on the way.
+     *
+     * @param now The current time in epoch milliseconds
+     * @return The expired items in no particular order
+     */
+    public synchronized List<T> advance(final long now) {
+        final long targetTick = now / this.tickDuration;
+        final List<T> expired = new ArrayList<>();
+        // Each bucket only needs to be visited once however far the wheel moves
+        final long firstTick = Math.max(this.currentTick + 1, targetTick - this.buckets.size() + 1);
+        for (long tick = firstTick; tick <= targetTick; tick++) {
+            final Iterator<Timeout<T>> iterator = this.getBucket(tick).iterator();
+            while (iterator.hasNext()) {
+                final Timeout<T> timeout = iterator.next();
+                if (timeout.tick <= targetTick) {
+                    iterator.remove();
+                    this.size--;
+                    expired.add(timeout.item);
+                }
+            }
+        }
+        this.currentTick = Math.max(this.currentTick, targetTick);
+        return expired;
+    }
+
+    /**
+     * Get the number of items waiting to expire.
+     *
+     * @return The number of pending items
+     */
+    public synchronized int size() {
+        return this.size;
+    }
+
+    private synchronized boolean cancel(final Timeout<T> timeout) {
+        if (this.getBucket(timeout.tick).remove(timeout)) {
+            this.size--;
+            return true;
+        }
+        return false;
+    }
+
+    private List<Timeout<T>> getBucket(final long tick) {
+        return this.buckets.get((int) (tick % this.buckets.size()));
+    }
+
+    /**
+     * The handle of an item scheduled on the wheel.
+     *
+     * @param <T> The type of the item
+     */
+    public static final class Timeout<T> {
+        private final HashedTimingWheel<T> wheel;
+        private final T item;
+        private final long tick;
+
+        private Timeout(final HashedTimingWheel<T> wheel, final T item, final long tick) {
+            this.wheel = wheel;
+            this.item = item;
+            this.tick = tick;
+        }
+
+        /**
+         * Remove the item from the wheel so it doesn't expire.
+         *
+         * @return true if the item was pending and won't expire, false if it already expired or was cancelled
+         */
+        public boolean cancel() {
+            return this.wheel.cancel(this);
+        }
+    }
+}
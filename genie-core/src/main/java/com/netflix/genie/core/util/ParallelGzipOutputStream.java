@@ -0,0 +1,240 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.util;
+
+import javax.validation.constraints.NotNull;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An output stream which gzips the data written to it using several threads, the way pigz does.
+ * <p>
+ * The data is split into blocks which are compressed in parallel on the given executor. Each block is written as a
+ * complete gzip member, in order, so the output is a multi-member gzip file which gzip, tar and
+ * {@link java.util.zip.GZIPInputStream} all read as a single stream. Blocks don't share a dictionary so the output is
+ * slightly larger than that of a single threaded gzip at the same level.
+ * <p>
+ * Not thread safe. Closing the stream finishes the compressed data and closes the underlying stream.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    private static final byte[] HEADER = {
+        (byte) 0x1f, (byte) 0x8b, // Magic number
+        Deflater.DEFLATED, // Compression method
+        0, // Flags
+        0, 0, 0, 0, // Modification time
+        0, // Extra flags
+        (byte) 0xff, // Unknown operating system
+    };
+    private static final int TRAILER_SIZE = 8;
+    private static final int DEFLATE_BUFFER_SIZE = 64 * 1024;
+
+    private final OutputStream output;
+    private final Executor executor;
+    private final int maxPendingBlocks;
+    private final int level;
+    private final int blockSize;
+    private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+    private byte[] block;
+    private int count;
+    private boolean anyBlocks;
+    private boolean finished;
+
+    /**
+     * Constructor.
+     *
+     * @param output    The stream to write the compressed data to
+     * @param executor  The executor to compress blocks on
+     * @param threads   The maximum number of blocks compressed at the same time by this stream
+     * @param level     The compression level from 1 to 9
+     * @param blockSize The number of bytes of data compressed in each block
+     */
+    public ParallelGzipOutputStream(
+        @NotNull final OutputStream output,
+        @NotNull final Executor executor,
+        final int threads,
+        final int level,
+        final int blockSize
+    ) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Need at least one thread to compress with");
+        }
+        if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Invalid compression level " + level);
+        }
+        if (blockSize < 1) {
+            throw new IllegalArgumentException("Invalid block size " + blockSize);
+        }
+        this.output = output;
+        this.executor = executor;
+        this.maxPendingBlocks = threads;
+        this.level = level;
+        this.blockSize = blockSize;
+        this.block = new byte[blockSize];
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final int b) throws IOException {
+        this.checkNotFinished();
+        if (this.count == this.block.length) {
+            this.submitBlock();
+        }
+        this.block[this.count++] = (byte) b;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+        this.checkNotFinished();
+        int written = 0;
+        while (written < len) {
+            if (this.count == this.block.length) {
+                this.submitBlock();
+            }
+            final int chunk = Math.min(len - written, this.block.length - this.count);
+            System.arraycopy(b, off + written, this.block, this.count, chunk);
+            this.count += chunk;
+            written += chunk;
+        }
+    }
+
+    /**
+     * Compress the remaining data and write all the compressed data to the underlying stream without closing it.
+     *
+     * @throws IOException if the data can't be compressed or written
+     */
+    public void finish() throws IOException {
+        if (this.finished) {
+            return;
+        }
+        // Always write at least one member so empty input is still a valid gzip file
+        if (this.count > 0 || !this.anyBlocks) {
+            this.submitBlock();
+        }
+        while (!this.pendingBlocks.isEmpty()) {
+            this.writeNextBlock();
+        }
+        this.output.flush();
+        this.finished = true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void flush() throws IOException {
+        this.output.flush();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            this.finish();
+        } finally {
+            this.pendingBlocks.forEach(pendingBlock -> pendingBlock.cancel(true));
+            this.output.close();
+        }
+    }
+
+    private void checkNotFinished() throws IOException {
+        if (this.finished) {
+            throw new IOException("Stream is already finished");
+        }
+    }
+
+    private void submitBlock() throws IOException {
+        final byte[] data = this.block;
+        final int length = this.count;
+        final FutureTask<byte[]> task = new FutureTask<>(() -> compress(data, length, this.level));
+        this.executor.execute(task);
+        this.pendingBlocks.add(task);
+        this.anyBlocks = true;
+        this.block = new byte[this.blockSize];
+        this.count = 0;
+
+        // Write whatever is done so far and wait if too many blocks are in memory
+        while (
+            !this.pendingBlocks.isEmpty()
+                && (this.pendingBlocks.size() > this.maxPendingBlocks || this.pendingBlocks.peek().isDone())
+            ) {
+            this.writeNextBlock();
+        }
+    }
+
+    private void writeNextBlock() throws IOException {
+        final Future<byte[]> next = this.pendingBlocks.peek();
+        try {
+            this.output.write(next.get());
+            this.pendingBlocks.remove();
+        } catch (final InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing");
+        } catch (final ExecutionException ee) {
+            throw new IOException("Unable to compress block", ee.getCause());
+        }
+    }
+
+    private static byte[] compress(final byte[] data, final int length, final int level) {
+        final Deflater deflater = new Deflater(level, true);
+        try {
+            deflater.setInput(data, 0, length);
+            deflater.finish();
+            final ByteArrayOutputStream member = new ByteArrayOutputStream(length / 2 + HEADER.length + TRAILER_SIZE);
+            member.write(HEADER, 0, HEADER.length);
+            final byte[] buffer = new byte[DEFLATE_BUFFER_SIZE];
+            while (!deflater.finished()) {
+                member.write(buffer, 0, deflater.deflate(buffer));
+            }
+            final CRC32 crc = new CRC32();
+            crc.update(data, 0, length);
+            writeIntLittleEndian(member, (int) crc.getValue());
+            writeIntLittleEndian(member, length);
+            return member.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static void writeIntLittleEndian(final ByteArrayOutputStream member, final int value) {
+        member.write(value);
+        member.write(value >>> 8);
+        member.write(value >>> 16);
+        member.write(value >>> 24);
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.util;
+
+import com.netflix.genie.common.exceptions.GenieTimeoutException;
+import org.apache.commons.exec.ExecuteException;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+
+/**
+ * Implementation of ProcessChecker for systems with a proc filesystem, like Linux. Reads the state of the process
+ * from {@code /proc/<pid>/stat} instead of forking a {@code ps} process for every check.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+public class ProcFsProcessChecker implements ProcessChecker {
+
+    private static final String STAT_FILE = "stat";
+    private static final char ZOMBIE = 'Z';
+    private static final char DEAD = 'X';
+
+    private final int pid;
+    private final Path stat;
+    private final Date timeout;
+    private final SimpleDateFormat dateFormatter;
+
+    /**
+     * Constructor.
+     *
+     * @param pid           The process id to check.
+     * @param procDirectory The directory the proc filesystem is mounted on
+     * @param timeout       The time which after this job should be killed due to timeout
+     */
+    public ProcFsProcessChecker(
+        @Min(1) final int pid,
+        @NotNull final File procDirectory,
+        @NotNull final Date timeout
+    ) {
+        this.pid = pid;
+        this.stat = new File(new File(procDirectory, Integer.toString(pid)), STAT_FILE).toPath();
+        this.timeout = new Date(timeout.getTime());
+        this.dateFormatter = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZ");
+    }
+
+    /**
+     * Whether processes can be checked through the given directory on this system.
+     *
+     * @param procDirectory The directory the proc filesystem should be mounted on
+     * @return true if the directory contains the state of processes
+     */
+    public static boolean isSupported(@NotNull final File procDirectory) {
+        return new File(new File(procDirectory, "self"), STAT_FILE).isFile();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void checkProcess() throws GenieTimeoutException, ExecuteException, IOException {
+        final String contents;
+        try {
+            contents = new String(Files.readAllBytes(this.stat), StandardCharsets.UTF_8);
+        } catch (final NoSuchFileException nsfe) {
+            throw new ExecuteException("Process " + this.pid + " is no longer running", 1, nsfe);
+        }
+
+        // The state follows the command name which is in parentheses and can itself contain spaces and parentheses
+        final int commandEnd = contents.lastIndexOf(')');
+        if (commandEnd < 0 || commandEnd + 2 >= contents.length()) {
+            throw new IOException("Unable to parse the state of process " + this.pid + " from " + contents);
+        }
+        final char state = contents.charAt(commandEnd + 2);
+        if (state == ZOMBIE || state == DEAD) {
+            throw new ExecuteException("Process " + this.pid + " is no longer running", 1);
+        }
+
+        // If we get here the process is still running. Check if it should be killed due to timeout.
+        if (new Date().getTime() > this.timeout.getTime()) {
+            throw new GenieTimeoutException(
+                "Job has exceeded its timeout time of " + this.dateFormatter.format(this.timeout)
+            );
+        }
+    }
+}
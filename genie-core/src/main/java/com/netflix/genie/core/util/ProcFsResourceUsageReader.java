@@ -0,0 +1,180 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.util;
+
+import lombok.Getter;
+
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reads the resources used by whole process trees from a proc filesystem, like Linux's. A tree is every process in
+ * the session started by a process, which is how jobs are launched through {@code setsid}.
+ * <p>
+ * All the trees are read in a single pass over the proc filesystem no matter how many are asked for.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+public class ProcFsResourceUsageReader {
+
+    private static final String STAT_FILE = "stat";
+    private static final String MEMINFO_FILE = "meminfo";
+    private static final String MEM_AVAILABLE = "MemAvailable:";
+    // Positions of the fields of the stat file counted from the state which follows the command name
+    private static final int SESSION_FIELD = 3;
+    private static final int UTIME_FIELD = 11;
+    private static final int CSTIME_FIELD = 14;
+    private static final int RSS_FIELD = 21;
+
+    private final File procDirectory;
+    private final long clockTicksPerSecond;
+    private final long pageSize;
+
+    /**
+     * Constructor.
+     *
+     * @param procDirectory       The directory the proc filesystem is mounted on
+     * @param clockTicksPerSecond The number of clock ticks per second CPU times are reported in
+     * @param pageSize            The size (in bytes) of the pages resident set sizes are reported in
+     */
+    public ProcFsResourceUsageReader(
+        @NotNull final File procDirectory,
+        @Min(1) final long clockTicksPerSecond,
+        @Min(1) final long pageSize
+    ) {
+        this.procDirectory = procDirectory;
+        this.clockTicksPerSecond = clockTicksPerSecond;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Read the resources currently used by the sessions led by the given processes.
+     *
+     * @param sessionIds The ids of the processes which lead the sessions to read
+     * @return The resources used by each session which still has processes keyed by the id of its leader
+     * @throws IOException When the proc filesystem can't be listed
+     */
+    public Map<Integer, Usage> read(@NotNull final Set<Integer> sessionIds) throws IOException {
+        final Map<Integer, Usage> usages = new HashMap<>();
+        if (sessionIds.isEmpty()) {
+            return usages;
+        }
+
+        final String[] entries = this.procDirectory.list();
+        if (entries == null) {
+            throw new IOException("Unable to list the processes in " + this.procDirectory);
+        }
+        for (final String entry : entries) {
+            if (!isPid(entry)) {
+                continue;
+            }
+            final String[] fields = this.readStatFields(entry);
+            if (fields == null) {
+                continue;
+            }
+            final int sessionId = Integer.parseInt(fields[SESSION_FIELD]);
+            if (!sessionIds.contains(sessionId)) {
+                continue;
+            }
+
+            // The times of children include those of every descendant already waited for so nothing is counted twice
+            long ticks = 0L;
+            for (int i = UTIME_FIELD; i <= CSTIME_FIELD; i++) {
+                ticks += Long.parseLong(fields[i]);
+            }
+            final Usage usage = usages.computeIfAbsent(sessionId, key -> new Usage());
+            usage.processes++;
+            usage.cpuTime += ticks * 1000L / this.clockTicksPerSecond;
+            usage.rss += Long.parseLong(fields[RSS_FIELD]) * this.pageSize;
+        }
+        return usages;
+    }
+
+    /**
+     * Read how much memory is available on the system for new processes without it having to swap. That includes the
+     * caches which can be reclaimed.
+     *
+     * @return The available memory in bytes
+     * @throws IOException When the memory information can't be read or doesn't report the available memory, like on
+     *                     kernels older than 3.14
+     */
+    public long readAvailableMemory() throws IOException {
+        final File memInfo = new File(this.procDirectory, MEMINFO_FILE);
+        for (final String line : Files.readAllLines(memInfo.toPath(), StandardCharsets.UTF_8)) {
+            if (line.startsWith(MEM_AVAILABLE)) {
+                // The value is always reported in kB
+                final String[] fields = line.substring(MEM_AVAILABLE.length()).trim().split("\\s+");
+                try {
+                    return Long.parseLong(fields[0]) * 1024L;
+                } catch (final NumberFormatException nfe) {
+                    throw new IOException("Unable to parse " + line + " from " + memInfo, nfe);
+                }
+            }
+        }
+        throw new IOException(memInfo + " doesn't report the available memory");
+    }
+
+    private String[] readStatFields(final String pid) {
+        final String contents;
+        try {
+            contents = new String(
+                Files.readAllBytes(new File(new File(this.procDirectory, pid), STAT_FILE).toPath()),
+                StandardCharsets.UTF_8
+            );
+        } catch (final IOException ioe) {
+            // The process ended since the directory was listed
+            return null;
+        }
+
+        // The command name is in parentheses and can itself contain spaces and parentheses
+        final int commandEnd = contents.lastIndexOf(')');
+        if (commandEnd < 0 || commandEnd + 2 >= contents.length()) {
+            return null;
+        }
+        final String[] fields = contents.substring(commandEnd + 2).trim().split(" ");
+        return fields.length > RSS_FIELD ? fields : null;
+    }
+
+    private static boolean isPid(final String entry) {
+        for (int i = 0; i < entry.length(); i++) {
+            if (!Character.isDigit(entry.charAt(i))) {
+                return false;
+            }
+        }
+        return !entry.isEmpty();
+    }
+
+    /**
+     * The resources used by the processes of a session at the time it was read. The CPU time is in milliseconds and
+     * includes the children the processes already waited for. The resident set size is in bytes.
+     */
+    @Getter
+    public static final class Usage {
+        private int processes;
+        private long cpuTime;
+        private long rss;
+    }
+}
@@ -32,7 +32,9 @@ import com.netflix.genie.core.jpa.services.JpaClusterServiceImpl;
 import com.netflix.genie.core.jpa.services.JpaCommandServiceImpl;
 import com.netflix.genie.core.jpa.services.JpaJobPersistenceServiceImpl;
 import com.netflix.genie.core.jpa.services.JpaJobSearchServiceImpl;
+import com.netflix.genie.core.jpa.services.TagIndex;
 import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.properties.TagIndexProperties;
 import com.netflix.genie.core.services.ApplicationService;
 import com.netflix.genie.core.services.AttachmentService;
 import com.netflix.genie.core.services.ClusterLoadBalancer;
@@ -99,19 +101,40 @@ public class ServicesConfigTest {
         return new JpaApplicationServiceImpl(applicationRepo, commandRepo);
     }
 
+    /**
+     * Get the in-memory tag index used to find candidate clusters for jobs.
+     *
+     * @param clusterRepo        The cluster repository to build the index from.
+     * @param tagIndexProperties The properties controlling the index.
+     * @param registry           The metrics registry to use.
+     * @return The tag index instance.
+     */
+    @Bean
+    public TagIndex tagIndex(
+        final JpaClusterRepository clusterRepo,
+        final TagIndexProperties tagIndexProperties,
+        final Registry registry
+    ) {
+        return new TagIndex(clusterRepo, tagIndexProperties, registry);
+    }
+
     /**
      * Get JPA based implementation of the ClusterService.
      *
      * @param clusterRepo The cluster repository to use.
      * @param commandRepo The command repository to use.
+     * @param appRepo     The application repository to use.
+     * @param tagIndex    The tag index to find candidate clusters with.
      * @return A cluster service instance.
      */
     @Bean
     public ClusterService clusterService(
         final JpaClusterRepository clusterRepo,
-        final JpaCommandRepository commandRepo
+        final JpaCommandRepository commandRepo,
+        final JpaApplicationRepository appRepo,
+        final TagIndex tagIndex
     ) {
-        return new JpaClusterServiceImpl(clusterRepo, commandRepo);
+        return new JpaClusterServiceImpl(clusterRepo, commandRepo, appRepo, tagIndex);
     }
 
     /**
@@ -120,15 +143,17 @@ public class ServicesConfigTest {
      * @param commandRepo the command repository to use
      * @param appRepo     the application repository to use
      * @param clusterRepo the cluster repository to use
+     * @param tagIndex    the tag index to invalidate when commands change
      * @return A command service instance.
      */
     @Bean
     public CommandService commandService(
         final JpaCommandRepository commandRepo,
         final JpaApplicationRepository appRepo,
-        final JpaClusterRepository clusterRepo
+        final JpaClusterRepository clusterRepo,
+        final TagIndex tagIndex
     ) {
-        return new JpaCommandServiceImpl(commandRepo, appRepo, clusterRepo);
+        return new JpaCommandServiceImpl(commandRepo, appRepo, clusterRepo, tagIndex);
     }
 
     /**
@@ -137,6 +162,7 @@ public class ServicesConfigTest {
      * @param jobRepository          The repository to use for job entities
      * @param jobRequestRepository   The repository to use for job request entities
      * @param jobExecutionRepository The repository to use for job execution entities
+     * @param jobMetadataRepository  The repository to use for job metadata entities
      * @param clusterRepository      The repository to use for cluster entities
      * @param commandRepository      The repository to use for command entities
      * @return A job search service instance.
@@ -146,6 +172,7 @@ public class ServicesConfigTest {
         final JpaJobRepository jobRepository,
         final JpaJobRequestRepository jobRequestRepository,
         final JpaJobExecutionRepository jobExecutionRepository,
+        final JpaJobMetadataRepository jobMetadataRepository,
         final JpaClusterRepository clusterRepository,
         final JpaCommandRepository commandRepository
     ) {
@@ -153,6 +180,7 @@ public class ServicesConfigTest {
             jobRepository,
             jobRequestRepository,
             jobExecutionRepository,
+            jobMetadataRepository,
             clusterRepository,
             commandRepository
         );
@@ -254,6 +282,8 @@ public class ServicesConfigTest {
      * @param eventMulticaster      Instance of the asynchronous event publisher.
      * @param workflowTasks         List of all the workflow tasks to be executed.
      * @param genieWorkingDir       Working directory for genie where it creates jobs directories.
+     * @param taskExecutor          The executor shared by all jobs to download the files they need on
+     * @param jobsProperties        The jobs properties to use
      * @param registry              The metrics registry to use
      * @return An instance of the JobSubmitterService.
      */
@@ -264,6 +294,8 @@ public class ServicesConfigTest {
         final ApplicationEventMulticaster eventMulticaster,
         final List<WorkflowTask> workflowTasks,
         @Qualifier("jobsDir") final Resource genieWorkingDir,
+        final AsyncTaskExecutor taskExecutor,
+        final JobsProperties jobsProperties,
         final Registry registry
     ) {
         return new LocalJobRunner(
@@ -272,6 +304,8 @@ public class ServicesConfigTest {
             eventMulticaster,
             workflowTasks,
             genieWorkingDir,
+            taskExecutor,
+            jobsProperties.getDownloads().getMaxConcurrent(),
             registry
         );
     }
@@ -303,16 +337,22 @@ public class ServicesConfigTest {
      *
      * @param jobSubmitterService The job submitter implementation to use
      * @param taskScheduler       The task scheduler to use to register scheduling of job checkers
+     * @param taskExecutor        The executor to run job launchers on
      * @param eventPublisher      The application event publisher to use to publish synchronous events
      * @param registry            The metrics registry
+     * @param jobsProperties      The jobs properties to use
      * @return The job state service bean
      */
     @Bean
     public JobStateService jobStateService(final JobSubmitterService jobSubmitterService,
                                            final TaskScheduler taskScheduler,
+                                           final AsyncTaskExecutor taskExecutor,
                                            final ApplicationEventPublisher eventPublisher,
-                                           final Registry registry) {
-        return new JobStateServiceImpl(jobSubmitterService, taskScheduler, eventPublisher, registry);
+                                           final Registry registry,
+                                           final JobsProperties jobsProperties) {
+        return new JobStateServiceImpl(
+            jobSubmitterService, taskScheduler, taskExecutor, eventPublisher, registry, jobsProperties
+        );
     }
 
     /**
@@ -356,9 +396,7 @@ public class ServicesConfigTest {
      * @param jobStateService       implementation of job state service interface
      * @param jobSearchService      implementation of job search service interface
      * @param jobsProperties        The jobs properties to use
-     * @param applicationService    Implementation of application service interface
      * @param clusterService        Implementation of cluster service interface
-     * @param commandService        Implementation of command service interface
      * @param clusterLoadBalancers  Implementations of the cluster load balancer interface
      * @param registry              The registry to use
      * @param hostName              The host name to use
@@ -371,9 +409,7 @@ public class ServicesConfigTest {
         final JobStateService jobStateService,
         final JobSearchService jobSearchService,
         final JobsProperties jobsProperties,
-        final ApplicationService applicationService,
         final ClusterService clusterService,
-        final CommandService commandService,
         final List<ClusterLoadBalancer> clusterLoadBalancers,
         final Registry registry,
         final String hostName
@@ -386,10 +422,8 @@ public class ServicesConfigTest {
             jobKillService,
             jobStateService,
             jobsProperties,
-            applicationService,
             jobSearchService,
             clusterService,
-            commandService,
             clusterLoadBalancers,
             registry,
             hostName
@@ -404,7 +438,10 @@ public class ServicesConfigTest {
      */
     @Bean
     public AttachmentService attachmentService(final JobsProperties jobsProperties) {
-        return new FileSystemAttachmentService(jobsProperties.getLocations().getAttachments());
+        return new FileSystemAttachmentService(
+            jobsProperties.getLocations().getAttachments(),
+            jobsProperties.getAttachments().getMaterialization()
+        );
     }
 
     /**
@@ -430,4 +467,15 @@ public class ServicesConfigTest {
         return new JobsProperties();
     }
 
+    /**
+     * The tag index properties to use.
+     *
+     * @return The tag index properties to use
+     */
+    @Bean
+    @ConfigurationProperties("genie.tagIndex")
+    public TagIndexProperties tagIndexProperties() {
+        return new TagIndexProperties();
+    }
+
 }
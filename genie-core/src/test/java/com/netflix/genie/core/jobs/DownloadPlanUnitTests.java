@@ -0,0 +1,213 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jobs;
+
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.services.impl.GenieFileTransferService;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.Timer;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for the DownloadPlan class.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class DownloadPlanUnitTests {
+
+    private ThreadPoolTaskExecutor executor;
+    private GenieFileTransferService fts;
+    private Timer timer;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.executor = new ThreadPoolTaskExecutor();
+        this.executor.setCorePoolSize(8);
+        this.executor.initialize();
+        this.fts = Mockito.mock(GenieFileTransferService.class);
+        this.timer = Mockito.mock(Timer.class);
+    }
+
+    /**
+     * Clean up after the tests.
+     */
+    @After
+    public void cleanup() {
+        this.executor.shutdown();
+    }
+
+    /**
+     * Make sure all the files are downloaded and never more than the maximum at the same time.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canDownloadFilesInParallel() throws GenieException {
+        final int maxConcurrent = 3;
+        final AtomicInteger inProgress = new AtomicInteger();
+        final AtomicInteger maxInProgress = new AtomicInteger();
+        final Set<String> downloaded = ConcurrentHashMap.newKeySet();
+        Mockito
+            .doAnswer(
+                invocation -> {
+                    maxInProgress.accumulateAndGet(inProgress.incrementAndGet(), Math::max);
+                    Thread.sleep(10);
+                    downloaded.add((String) invocation.getArguments()[1]);
+                    inProgress.decrementAndGet();
+                    return null;
+                }
+            )
+            .when(this.fts)
+            .getFile(Mockito.anyString(), Mockito.anyString());
+
+        final DownloadPlan downloadPlan = new DownloadPlan(this.executor, maxConcurrent, this.timer);
+        for (int i = 0; i < 20; i++) {
+            downloadPlan.add(this.fts, "s3://bucket/file" + i, "/tmp/file" + i);
+        }
+        Assert.assertThat(downloadPlan.size(), Matchers.is(20));
+
+        downloadPlan.execute();
+        Assert.assertThat(downloaded.size(), Matchers.is(20));
+        Assert.assertThat(maxInProgress.get(), Matchers.lessThanOrEqualTo(maxConcurrent));
+        Assert.assertThat(downloadPlan.size(), Matchers.is(0));
+        Mockito.verify(this.timer, Mockito.times(1)).record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Make sure the plan doesn't wait for helpers queued behind the downloads of other jobs once the calling thread
+     * downloaded all the files itself.
+     *
+     * @throws Exception on error
+     */
+    @Test(timeout = 10000)
+    public void wontWaitForQueuedHelpers() throws Exception {
+        final ThreadPoolTaskExecutor busyExecutor = new ThreadPoolTaskExecutor();
+        busyExecutor.setCorePoolSize(1);
+        busyExecutor.setMaxPoolSize(1);
+        busyExecutor.initialize();
+        final CountDownLatch otherJob = new CountDownLatch(1);
+        try {
+            busyExecutor.execute(() -> {
+                try {
+                    otherJob.await();
+                } catch (final InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            final DownloadPlan downloadPlan = new DownloadPlan(busyExecutor, 3, this.timer);
+            for (int i = 0; i < 5; i++) {
+                downloadPlan.add(this.fts, "s3://bucket/file" + i, "/tmp/file" + i);
+            }
+            downloadPlan.execute();
+            Assert.assertThat(otherJob.getCount(), Matchers.is(1L));
+            Mockito.verify(this.fts, Mockito.times(5)).getFile(Mockito.anyString(), Mockito.anyString());
+        } finally {
+            otherJob.countDown();
+            busyExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Make sure the files are all downloaded on the calling thread when only one download at a time is allowed.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canDownloadOnCallingThreadOnly() throws GenieException {
+        final AsyncTaskExecutor mockExecutor = Mockito.mock(AsyncTaskExecutor.class);
+        final DownloadPlan downloadPlan = new DownloadPlan(mockExecutor, 1, this.timer);
+        downloadPlan.add(this.fts, "s3://bucket/file1", "/tmp/file1");
+        downloadPlan.add(this.fts, "s3://bucket/file2", "/tmp/file2");
+
+        downloadPlan.execute();
+        Mockito.verify(this.fts, Mockito.times(1)).getFile("s3://bucket/file1", "/tmp/file1");
+        Mockito.verify(this.fts, Mockito.times(1)).getFile("s3://bucket/file2", "/tmp/file2");
+        Mockito.verify(mockExecutor, Mockito.never()).submit(Mockito.any(Runnable.class));
+    }
+
+    /**
+     * Make sure the last file added for a destination is the one downloaded as it would be if downloaded serially.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void lastFileForDestinationWins() throws GenieException {
+        final DownloadPlan downloadPlan = new DownloadPlan(this.executor, 4, this.timer);
+        downloadPlan.add(this.fts, "s3://bucket/first/file", "/tmp/file");
+        downloadPlan.add(this.fts, "s3://bucket/second/file", "/tmp/file");
+        Assert.assertThat(downloadPlan.size(), Matchers.is(1));
+
+        downloadPlan.execute();
+        Mockito.verify(this.fts, Mockito.never()).getFile("s3://bucket/first/file", "/tmp/file");
+        Mockito.verify(this.fts, Mockito.times(1)).getFile("s3://bucket/second/file", "/tmp/file");
+    }
+
+    /**
+     * Make sure a failed download fails the whole plan.
+     *
+     * @throws GenieException on error
+     */
+    @Test(expected = GenieServerException.class)
+    public void cantExecuteIfDownloadFails() throws GenieException {
+        final String badFile = "s3://bucket/" + UUID.randomUUID().toString();
+        Mockito
+            .doThrow(new GenieServerException("bad file"))
+            .when(this.fts)
+            .getFile(Mockito.eq(badFile), Mockito.anyString());
+
+        final DownloadPlan downloadPlan = new DownloadPlan(this.executor, 4, this.timer);
+        for (int i = 0; i < 10; i++) {
+            downloadPlan.add(this.fts, "s3://bucket/file" + i, "/tmp/file" + i);
+        }
+        downloadPlan.add(this.fts, badFile, "/tmp/bad");
+        downloadPlan.execute();
+    }
+
+    /**
+     * Make sure nothing happens when there is nothing to download.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canExecuteEmptyPlan() throws GenieException {
+        new DownloadPlan(this.executor, 4, this.timer).execute();
+        Mockito.verify(this.timer, Mockito.never()).record(Mockito.anyLong(), Mockito.any(TimeUnit.class));
+    }
+}
@@ -19,7 +19,10 @@ package com.netflix.genie.core.jobs.workflow.impl;
 
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.core.jobs.AdminResources;
+import com.netflix.genie.core.jobs.DownloadPlan;
 import com.netflix.genie.core.jobs.FileType;
+import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.core.services.impl.GenieFileTransferService;
 import com.netflix.genie.test.categories.UnitTest;
 import org.junit.Assert;
 import org.junit.Before;
@@ -27,6 +30,9 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.mockito.Mockito;
 
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Tests for GenieBaseTask.
  *
@@ -208,4 +214,39 @@ public class GenieBaseTaskUnitTest {
 
         Assert.assertEquals("dirpath/genie/cluster/id/dependencies/filename", localPath);
     }
+
+    /**
+     * Make sure files are added to the download plan of the job when it has one.
+     *
+     * @throws GenieException if there is a problem.
+     */
+    @Test
+    public void canFetchFileIntoDownloadPlan() throws GenieException {
+        final GenieFileTransferService fts = Mockito.mock(GenieFileTransferService.class);
+        final DownloadPlan downloadPlan = Mockito.mock(DownloadPlan.class);
+        final Map<String, Object> context = new HashMap<>();
+        context.put(JobConstants.DOWNLOAD_PLAN_KEY, downloadPlan);
+
+        this.genieBaseTask.fetchFile(context, fts, "s3://bucket/file", "/tmp/file");
+        Mockito.verify(downloadPlan, Mockito.times(1)).add(fts, "s3://bucket/file", "/tmp/file");
+        Mockito.verify(fts, Mockito.never()).getFile(Mockito.anyString(), Mockito.anyString());
+
+        this.genieBaseTask.downloadFiles(context);
+        Mockito.verify(downloadPlan, Mockito.times(1)).execute();
+    }
+
+    /**
+     * Make sure files are downloaded right away when the job has no download plan.
+     *
+     * @throws GenieException if there is a problem.
+     */
+    @Test
+    public void canFetchFileWithoutDownloadPlan() throws GenieException {
+        final GenieFileTransferService fts = Mockito.mock(GenieFileTransferService.class);
+        final Map<String, Object> context = new HashMap<>();
+
+        this.genieBaseTask.fetchFile(context, fts, "s3://bucket/file", "/tmp/file");
+        Mockito.verify(fts, Mockito.times(1)).getFile("s3://bucket/file", "/tmp/file");
+        this.genieBaseTask.downloadFiles(context);
+    }
 }
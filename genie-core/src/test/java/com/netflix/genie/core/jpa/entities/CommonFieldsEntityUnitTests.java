@@ -195,4 +195,27 @@ public class CommonFieldsEntityUnitTests extends EntityTestsBase {
         this.c.setName(NAME);
         Assert.assertThat(this.c.getFinalTags().size(), Matchers.is(2));
     }
+
+    /**
+     * Make sure the normalized tags are only updated when the tags have changed.
+     */
+    @Test
+    public void canUpdateNormalizedTags() {
+        final Set<String> normalizedTags = Sets.newHashSet("stale");
+        this.c.updateNormalizedTags(normalizedTags);
+        Assert.assertThat(normalizedTags, Matchers.contains("stale"));
+
+        this.c.setTags(Sets.newHashSet("one", "two"));
+        this.c.updateNormalizedTags(normalizedTags);
+        Assert.assertThat(normalizedTags, Matchers.containsInAnyOrder("one", "two"));
+
+        normalizedTags.add("three");
+        this.c.setTags(Sets.newHashSet("two", "one"));
+        this.c.updateNormalizedTags(normalizedTags);
+        Assert.assertThat(normalizedTags, Matchers.containsInAnyOrder("one", "two", "three"));
+
+        this.c.setTags(null);
+        this.c.updateNormalizedTags(normalizedTags);
+        Assert.assertThat(normalizedTags, Matchers.empty());
+    }
 }
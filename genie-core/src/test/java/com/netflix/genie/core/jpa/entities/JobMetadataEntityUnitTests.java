@@ -142,6 +142,28 @@ public class JobMetadataEntityUnitTests {
         );
     }
 
+    /**
+     * Make sure we can set and get the CPU time.
+     */
+    @Test
+    public void canSetCpuTime() {
+        Assert.assertFalse(this.entity.getCpuTime().isPresent());
+        final long cpuTime = 283482L;
+        this.entity.setCpuTime(cpuTime);
+        Assert.assertThat(this.entity.getCpuTime().orElseGet(RandomSuppliers.LONG), Matchers.is(cpuTime));
+    }
+
+    /**
+     * Make sure we can set and get the peak resident set size.
+     */
+    @Test
+    public void canSetPeakRss() {
+        Assert.assertFalse(this.entity.getPeakRss().isPresent());
+        final long peakRss = 2147483648L;
+        this.entity.setPeakRss(peakRss);
+        Assert.assertThat(this.entity.getPeakRss().orElseGet(RandomSuppliers.LONG), Matchers.is(peakRss));
+    }
+
     /**
      * Make sure we can set and get the job request entity.
      */
@@ -175,6 +197,10 @@ public class JobMetadataEntityUnitTests {
         requestEntity.setStdOutSize(stdOutSize);
         final long stdErrSize = 898088234L;
         requestEntity.setStdErrSize(stdErrSize);
+        final long cpuTime = 3480L;
+        requestEntity.setCpuTime(cpuTime);
+        final long peakRss = 8023823L;
+        requestEntity.setPeakRss(peakRss);
 
         final JobMetadata metadata = requestEntity.getDTO();
 
@@ -188,5 +214,7 @@ public class JobMetadataEntityUnitTests {
         );
         Assert.assertThat(metadata.getStdOutSize().orElseGet(RandomSuppliers.LONG), Matchers.is(stdOutSize));
         Assert.assertThat(metadata.getStdErrSize().orElseGet(RandomSuppliers.LONG), Matchers.is(stdErrSize));
+        Assert.assertThat(metadata.getCpuTime().orElseGet(RandomSuppliers.LONG), Matchers.is(cpuTime));
+        Assert.assertThat(metadata.getPeakRss().orElseGet(RandomSuppliers.LONG), Matchers.is(peakRss));
     }
 }
@@ -30,10 +30,15 @@ import com.netflix.genie.common.dto.Command;
 import com.netflix.genie.common.dto.CommandStatus;
 import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.core.jobs.ResolvedCommand;
+import com.netflix.genie.core.properties.TagIndexProperties;
 import com.netflix.genie.core.services.ClusterService;
 import com.netflix.genie.core.services.CommandService;
 import com.netflix.genie.test.categories.IntegrationTest;
 import org.hamcrest.Matchers;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -45,6 +50,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.mapping.PropertyReferenceException;
 
+import javax.persistence.EntityManagerFactory;
 import javax.validation.ConstraintViolationException;
 import java.io.IOException;
 import java.net.HttpURLConnection;
@@ -53,6 +59,7 @@ import java.util.Calendar;
 import java.util.Date;
 import java.util.EnumSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
 
@@ -91,6 +98,15 @@ public class JpaClusterServiceImplIntegrationTests extends DBUnitTestBase {
     @Autowired
     private CommandService commandService;
 
+    @Autowired
+    private TagIndex tagIndex;
+
+    @Autowired
+    private TagIndexProperties tagIndexProperties;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     /**
      * Test the get cluster method.
      *
@@ -356,6 +372,163 @@ public class JpaClusterServiceImplIntegrationTests extends DBUnitTestBase {
         Assert.assertThat(this.service.chooseClusterForJobRequest(five).size(), Matchers.is(2));
     }
 
+    /**
+     * Test the chooseClusterForJobRequest function when the tag index is enabled.
+     *
+     * @throws GenieException For any problem
+     */
+    @Test
+    public void canChooseClusterForJobWithTagIndex() throws GenieException {
+        final JobRequest one = new JobRequest.Builder(
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            Lists.newArrayList(new ClusterCriteria(Sets.newHashSet("genie.id:cluster1"))),
+            Sets.newHashSet("pig")
+        ).build();
+        final JobRequest two = new JobRequest.Builder(
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            Lists.newArrayList(new ClusterCriteria(Sets.newHashSet("pig", "hive"))),
+            Sets.newHashSet("pig")
+        ).build();
+
+        this.tagIndexProperties.setEnabled(true);
+        try {
+            this.tagIndex.refresh();
+            final List<Cluster> clustersOne = this.service.chooseClusterForJobRequest(one);
+            Assert.assertThat(clustersOne.size(), Matchers.is(1));
+            Assert.assertThat(
+                clustersOne.get(0).getId().orElseThrow(IllegalArgumentException::new),
+                Matchers.is(CLUSTER_1_ID)
+            );
+            Assert.assertThat(this.service.chooseClusterForJobRequest(two).size(), Matchers.is(2));
+
+            // Writes invalidate the index so the database is used until the next refresh
+            this.service.removeTagForCluster(CLUSTER_2_ID, "hive");
+            Assert.assertFalse(
+                this.tagIndex.findClusterIds(Sets.newHashSet("pig"), Sets.newHashSet("pig")).isPresent()
+            );
+            Assert.assertThat(this.service.chooseClusterForJobRequest(two).size(), Matchers.is(1));
+        } finally {
+            this.tagIndexProperties.setEnabled(false);
+        }
+    }
+
+    /**
+     * Test the resolveClustersAndCommandsForJobRequest function.
+     *
+     * @throws GenieException For any problem
+     */
+    @Test
+    public void canResolveClustersAndCommandsForJob() throws GenieException {
+        final JobRequest one = new JobRequest.Builder(
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            Lists.newArrayList(new ClusterCriteria(Sets.newHashSet("genie.id:cluster1"))),
+            Sets.newHashSet("pig")
+        ).build();
+        final JobRequest two = new JobRequest.Builder(
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            Lists.newArrayList(
+                new ClusterCriteria(Sets.newHashSet("genie.id:cluster")),
+                new ClusterCriteria(Sets.newHashSet("pig", "hive"))
+            ),
+            Sets.newHashSet("pig")
+        ).build();
+        final JobRequest three = new JobRequest.Builder(
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            Lists.newArrayList(new ClusterCriteria(Sets.newHashSet("genie.id:cluster1"))),
+            Sets.newHashSet("pi")
+        ).build();
+
+        final Map<Cluster, ResolvedCommand> resolvedOne = this.service.resolveClustersAndCommandsForJobRequest(one);
+        Assert.assertThat(resolvedOne.size(), Matchers.is(1));
+        final Cluster cluster1 = resolvedOne.keySet().iterator().next();
+        Assert.assertThat(cluster1.getId().orElseThrow(IllegalArgumentException::new), Matchers.is(CLUSTER_1_ID));
+        Assert.assertThat(
+            resolvedOne.get(cluster1).getCommand().getId().orElseThrow(IllegalArgumentException::new),
+            Matchers.is(COMMAND_1_ID)
+        );
+        Assert.assertTrue(resolvedOne.get(cluster1).getApplications().isEmpty());
+
+        final Map<Cluster, ResolvedCommand> resolvedTwo = this.service.resolveClustersAndCommandsForJobRequest(two);
+        Assert.assertThat(resolvedTwo.size(), Matchers.is(2));
+        resolvedTwo.values().forEach(
+            resolvedCommand -> Assert.assertThat(
+                resolvedCommand.getCommand().getId().orElseThrow(IllegalArgumentException::new),
+                Matchers.is(COMMAND_1_ID)
+            )
+        );
+
+        Assert.assertTrue(this.service.resolveClustersAndCommandsForJobRequest(three).isEmpty());
+    }
+
+    /**
+     * Make sure the commands and applications of the matched clusters are loaded with the clusters rather than with a
+     * select per cluster and per command.
+     *
+     * @throws GenieException For any problem
+     */
+    @Test
+    public void canResolveClustersAndCommandsForJobWithoutSelectPerEntity() throws GenieException {
+        final JobRequest jobRequest = new JobRequest.Builder(
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            Lists.newArrayList(new ClusterCriteria(Sets.newHashSet("pig", "hive"))),
+            Sets.newHashSet("pig")
+        ).build();
+
+        final Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        final boolean statisticsEnabled = statistics.isStatisticsEnabled();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        try {
+            final Map<Cluster, ResolvedCommand> resolved
+                = this.service.resolveClustersAndCommandsForJobRequest(jobRequest);
+            Assert.assertThat(resolved.size(), Matchers.is(2));
+            // The cluster query plus at most one select per eagerly loaded configs or dependencies collection role
+            Assert.assertThat(statistics.getPrepareStatementCount(), Matchers.lessThanOrEqualTo(7L));
+            Assert.assertThat(statistics.getEntityFetchCount(), Matchers.is(0L));
+        } finally {
+            statistics.setStatisticsEnabled(statisticsEnabled);
+        }
+    }
+
+    /**
+     * Make sure resolving fails if the job requests applications that don't exist.
+     *
+     * @throws GenieException For any problem
+     */
+    @Test(expected = GenieNotFoundException.class)
+    public void cantResolveClustersAndCommandsForJobIfApplicationDoesNotExist() throws GenieException {
+        final JobRequest jobRequest = new JobRequest.Builder(
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            Lists.newArrayList(new ClusterCriteria(Sets.newHashSet("genie.id:cluster1"))),
+            Sets.newHashSet("pig")
+        )
+            .withApplications(Lists.newArrayList(UUID.randomUUID().toString()))
+            .build();
+
+        this.service.resolveClustersAndCommandsForJobRequest(jobRequest);
+    }
+
     // TODO Add tests where jobRequest object is
 
     /**
@@ -28,6 +28,7 @@ import com.netflix.genie.common.exceptions.GenieNotFoundException;
 import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import com.netflix.genie.core.jpa.entities.ClusterEntity;
 import com.netflix.genie.core.jpa.entities.CommandEntity;
+import com.netflix.genie.core.jpa.repositories.JpaApplicationRepository;
 import com.netflix.genie.core.jpa.repositories.JpaClusterRepository;
 import com.netflix.genie.core.jpa.repositories.JpaCommandRepository;
 import com.netflix.genie.test.categories.UnitTest;
@@ -67,7 +68,12 @@ public class JpaClusterServiceImplUnitTests {
     public void setup() {
         this.jpaClusterRepository = Mockito.mock(JpaClusterRepository.class);
         this.jpaCommandRepository = Mockito.mock(JpaCommandRepository.class);
-        this.service = new JpaClusterServiceImpl(this.jpaClusterRepository, this.jpaCommandRepository);
+        this.service = new JpaClusterServiceImpl(
+            this.jpaClusterRepository,
+            this.jpaCommandRepository,
+            Mockito.mock(JpaApplicationRepository.class),
+            Mockito.mock(TagIndex.class)
+        );
     }
 
     /**
@@ -74,7 +74,8 @@ public class JpaCommandServiceImplUnitTests {
         this.service = new JpaCommandServiceImpl(
             this.jpaCommandRepository,
             this.jpaApplicationRepository,
-            jpaClusterRepository
+            jpaClusterRepository,
+            Mockito.mock(TagIndex.class)
         );
     }
 
@@ -543,4 +543,34 @@ public class JpaJobPersistenceServiceImplUnitTests {
         this.jobPersistenceService.setJobCompletionInformation(JOB_1_ID, 0, JobStatus.FAILED, "k", null, 100L);
         Mockito.verify(this.jobMetadataRepository, Mockito.times(1)).findOne(JOB_1_ID);
     }
+
+    /**
+     * Test the setJobResourceUsage method.
+     *
+     * @throws GenieException For any problem
+     */
+    @Test(expected = GenieNotFoundException.class)
+    public void cantSetJobResourceUsageIfNoMetadata() throws GenieException {
+        Mockito.when(this.jobMetadataRepository.findOne(JOB_1_ID)).thenReturn(null);
+        this.jobPersistenceService.setJobResourceUsage(JOB_1_ID, 100L, 1024L);
+    }
+
+    /**
+     * Test the setJobResourceUsage method only ever raises the peak resident set size.
+     *
+     * @throws GenieException For any problem
+     */
+    @Test
+    public void canSetJobResourceUsage() throws GenieException {
+        final JobMetadataEntity jobMetadataEntity = new JobMetadataEntity();
+        Mockito.when(this.jobMetadataRepository.findOne(JOB_1_ID)).thenReturn(jobMetadataEntity);
+
+        this.jobPersistenceService.setJobResourceUsage(JOB_1_ID, 100L, 2048L);
+        Assert.assertThat(jobMetadataEntity.getCpuTime().orElse(null), Matchers.is(100L));
+        Assert.assertThat(jobMetadataEntity.getPeakRss().orElse(null), Matchers.is(2048L));
+
+        this.jobPersistenceService.setJobResourceUsage(JOB_1_ID, 200L, 1024L);
+        Assert.assertThat(jobMetadataEntity.getCpuTime().orElse(null), Matchers.is(200L));
+        Assert.assertThat(jobMetadataEntity.getPeakRss().orElse(null), Matchers.is(2048L));
+    }
 }
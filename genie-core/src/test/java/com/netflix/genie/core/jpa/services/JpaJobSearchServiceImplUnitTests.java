@@ -19,13 +19,16 @@ package com.netflix.genie.core.jpa.services;
 
 import com.google.common.collect.Lists;
 import com.netflix.genie.common.dto.Job;
+import com.netflix.genie.common.dto.JobExecution;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieNotFoundException;
 import com.netflix.genie.core.jpa.entities.JobEntity;
 import com.netflix.genie.core.jpa.entities.JobExecutionEntity;
+import com.netflix.genie.core.jpa.entities.JobMetadataEntity;
 import com.netflix.genie.core.jpa.repositories.JpaClusterRepository;
 import com.netflix.genie.core.jpa.repositories.JpaCommandRepository;
 import com.netflix.genie.core.jpa.repositories.JpaJobExecutionRepository;
+import com.netflix.genie.core.jpa.repositories.JpaJobMetadataRepository;
 import com.netflix.genie.core.jpa.repositories.JpaJobRepository;
 import com.netflix.genie.core.jpa.repositories.JpaJobRequestRepository;
 import com.netflix.genie.test.categories.UnitTest;
@@ -50,6 +53,7 @@ public class JpaJobSearchServiceImplUnitTests {
     private JpaJobRepository jobRepository;
     private JpaJobRequestRepository jobRequestRepository;
     private JpaJobExecutionRepository jobExecutionRepository;
+    private JpaJobMetadataRepository jobMetadataRepository;
     private JpaJobSearchServiceImpl service;
 
     /**
@@ -60,10 +64,12 @@ public class JpaJobSearchServiceImplUnitTests {
         this.jobRepository = Mockito.mock(JpaJobRepository.class);
         this.jobRequestRepository = Mockito.mock(JpaJobRequestRepository.class);
         this.jobExecutionRepository = Mockito.mock(JpaJobExecutionRepository.class);
+        this.jobMetadataRepository = Mockito.mock(JpaJobMetadataRepository.class);
         this.service = new JpaJobSearchServiceImpl(
             this.jobRepository,
             this.jobRequestRepository,
             this.jobExecutionRepository,
+            this.jobMetadataRepository,
             Mockito.mock(JpaClusterRepository.class),
             Mockito.mock(JpaCommandRepository.class)
         );
@@ -122,6 +128,29 @@ public class JpaJobSearchServiceImplUnitTests {
         this.service.getJobExecution(id);
     }
 
+    /**
+     * Make sure the resources used by the job are included in its execution.
+     *
+     * @throws GenieException For any problem
+     */
+    @Test
+    public void canGetJobExecutionWithResourceUsage() throws GenieException {
+        final String id = UUID.randomUUID().toString();
+        final JobExecutionEntity executionEntity = new JobExecutionEntity();
+        executionEntity.setId(id);
+        executionEntity.setHostName(UUID.randomUUID().toString());
+        Mockito.when(this.jobExecutionRepository.findOne(id)).thenReturn(executionEntity);
+        Assert.assertFalse(this.service.getJobExecution(id).getCpuTime().isPresent());
+
+        final JobMetadataEntity metadataEntity = new JobMetadataEntity();
+        metadataEntity.setCpuTime(2380L);
+        metadataEntity.setPeakRss(1048576L);
+        Mockito.when(this.jobMetadataRepository.findOne(id)).thenReturn(metadataEntity);
+        final JobExecution execution = this.service.getJobExecution(id);
+        Assert.assertThat(execution.getCpuTime().orElseThrow(IllegalArgumentException::new), Matchers.is(2380L));
+        Assert.assertThat(execution.getPeakRss().orElseThrow(IllegalArgumentException::new), Matchers.is(1048576L));
+    }
+
     /**
      * Test the getJobCluster method.
      *
@@ -0,0 +1,222 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.jpa.services;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.netflix.genie.common.dto.ClusterStatus;
+import com.netflix.genie.common.dto.CommandStatus;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.jpa.entities.ClusterEntity;
+import com.netflix.genie.core.jpa.entities.CommandEntity;
+import com.netflix.genie.core.jpa.repositories.JpaClusterRepository;
+import com.netflix.genie.core.properties.TagIndexProperties;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Unit tests for the TagIndex class.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class TagIndexUnitTests {
+
+    private JpaClusterRepository clusterRepo;
+    private TagIndexProperties properties;
+    private Registry registry;
+    private TagIndex tagIndex;
+
+    /**
+     * Setup for the tests.
+     *
+     * @throws GenieException on error building the entities
+     */
+    @Before
+    public void setup() throws GenieException {
+        this.clusterRepo = Mockito.mock(JpaClusterRepository.class);
+        this.properties = new TagIndexProperties();
+        this.properties.setEnabled(true);
+        this.registry = new DefaultRegistry();
+        this.tagIndex = new TagIndex(this.clusterRepo, this.properties, this.registry);
+
+        final CommandEntity pig = this.createCommand("pig", CommandStatus.ACTIVE, "type:pig", "ver:1");
+        final CommandEntity hive = this.createCommand("hive", CommandStatus.ACTIVE, "type:hive");
+        final CommandEntity oldPig = this.createCommand("oldPig", CommandStatus.DEPRECATED, "type:pig", "ver:0");
+
+        final ClusterEntity prod = this.createCluster("prod", ClusterStatus.UP, "sched:sla", "type:yarn");
+        prod.setCommands(Lists.newArrayList(pig, hive));
+        final ClusterEntity test = this.createCluster("test", ClusterStatus.UP, "sched:adhoc", "type:yarn");
+        test.setCommands(Lists.newArrayList(hive, oldPig));
+        final ClusterEntity down = this.createCluster("down", ClusterStatus.OUT_OF_SERVICE, "sched:sla", "type:yarn");
+        down.setCommands(Lists.newArrayList(pig));
+
+        Mockito.when(this.clusterRepo.findAll()).thenReturn(Lists.newArrayList(prod, test, down));
+    }
+
+    /**
+     * Make sure lookups are answered from the index once it's built.
+     */
+    @Test
+    public void canFindClusterIds() {
+        this.tagIndex.refresh();
+
+        Assert.assertThat(
+            this.find(Sets.newHashSet("type:yarn"), Sets.newHashSet("type:hive")).orElse(null),
+            Matchers.contains("prod", "test")
+        );
+        Assert.assertThat(
+            this.find(Sets.newHashSet("type:yarn"), Sets.newHashSet("type:pig")).orElse(null),
+            Matchers.contains("prod")
+        );
+        Assert.assertThat(
+            this.find(Sets.newHashSet("sched:sla"), Sets.newHashSet("type:pig", "ver:1")).orElse(null),
+            Matchers.contains("prod")
+        );
+        Assert.assertThat(
+            this.find(null, Sets.newHashSet("type:hive")).orElse(null),
+            Matchers.contains("prod", "test")
+        );
+        Assert.assertThat(
+            this.find(Sets.newHashSet("sched:adhoc"), Sets.newHashSet("type:pig")).orElse(null),
+            Matchers.empty()
+        );
+        Assert.assertThat(
+            this.find(Sets.newHashSet("type:yarn"), Sets.newHashSet("type:pig", "ver:0")).orElse(null),
+            Matchers.empty()
+        );
+        Assert.assertThat(
+            this.find(Sets.newHashSet("type:mesos"), Sets.newHashSet("type:hive")).orElse(null),
+            Matchers.empty()
+        );
+        Assert.assertThat(this.registry.counter("genie.tagIndex.hit.counter").count(), Matchers.is(7L));
+        Assert.assertThat(this.registry.counter("genie.tagIndex.miss.counter").count(), Matchers.is(0L));
+        Assert.assertThat(this.tagIndex.getStaleness(), Matchers.greaterThanOrEqualTo(0L));
+    }
+
+    /**
+     * Make sure nothing is returned when the index is disabled.
+     */
+    @Test
+    public void wontFindClusterIdsWhenDisabled() {
+        this.tagIndex.refresh();
+        this.properties.setEnabled(false);
+        Assert.assertFalse(this.find(Sets.newHashSet("type:yarn"), Sets.newHashSet("type:hive")).isPresent());
+        Assert.assertThat(this.registry.counter("genie.tagIndex.miss.counter").count(), Matchers.is(0L));
+    }
+
+    /**
+     * Make sure nothing is returned when the index hasn't been built, is too old or has been invalidated.
+     */
+    @Test
+    public void wontFindClusterIdsWhenStale() {
+        Assert.assertThat(this.tagIndex.getStaleness(), Matchers.is(-1L));
+        Assert.assertFalse(this.find(Sets.newHashSet("type:yarn"), Sets.newHashSet("type:hive")).isPresent());
+
+        this.tagIndex.refresh();
+        this.tagIndex.invalidate();
+        Assert.assertFalse(this.find(Sets.newHashSet("type:yarn"), Sets.newHashSet("type:hive")).isPresent());
+
+        this.tagIndex.refresh();
+        Assert.assertTrue(this.find(Sets.newHashSet("type:yarn"), Sets.newHashSet("type:hive")).isPresent());
+
+        this.properties.setMaxStaleness(-1L);
+        Assert.assertFalse(this.find(Sets.newHashSet("type:yarn"), Sets.newHashSet("type:hive")).isPresent());
+        Assert.assertThat(this.registry.counter("genie.tagIndex.miss.counter").count(), Matchers.is(3L));
+        Assert.assertThat(this.registry.counter("genie.tagIndex.hit.counter").count(), Matchers.is(1L));
+    }
+
+    /**
+     * Make sure a rebuild done before a transaction completes isn't used after the transaction completes.
+     */
+    @Test
+    public void willInvalidateAgainWhenTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            this.tagIndex.invalidate();
+            this.tagIndex.refresh();
+            Assert.assertTrue(this.find(Sets.newHashSet("type:yarn"), Sets.newHashSet("type:hive")).isPresent());
+
+            final List<TransactionSynchronization> synchronizations
+                = TransactionSynchronizationManager.getSynchronizations();
+            Assert.assertThat(synchronizations.size(), Matchers.is(1));
+            synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+            Assert.assertFalse(this.find(Sets.newHashSet("type:yarn"), Sets.newHashSet("type:hive")).isPresent());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    /**
+     * Make sure a failed rebuild keeps the previous index and is counted.
+     */
+    @Test
+    public void canHandleRefreshFailure() {
+        this.tagIndex.refresh();
+        Mockito.when(this.clusterRepo.findAll()).thenThrow(new IllegalStateException("db down"));
+        this.tagIndex.refresh();
+
+        Assert.assertThat(
+            this.find(Sets.newHashSet("type:yarn"), Sets.newHashSet("type:hive")).orElse(null),
+            Matchers.contains("prod", "test")
+        );
+        Assert.assertThat(this.registry.counter("genie.tagIndex.refresh.failure.counter").count(), Matchers.is(1L));
+    }
+
+    private Optional<List<String>> find(final Set<String> clusterTags, final Set<String> commandTags) {
+        return this.tagIndex.findClusterIds(clusterTags, commandTags);
+    }
+
+    private ClusterEntity createCluster(
+        final String id,
+        final ClusterStatus status,
+        final String... tags
+    ) throws GenieException {
+        final ClusterEntity cluster = new ClusterEntity();
+        cluster.setId(id);
+        cluster.setStatus(status);
+        cluster.setTags(Sets.newHashSet(tags));
+        return cluster;
+    }
+
+    private CommandEntity createCommand(
+        final String id,
+        final CommandStatus status,
+        final String... tags
+    ) throws GenieException {
+        final CommandEntity command = new CommandEntity();
+        command.setId(id);
+        command.setStatus(status);
+        command.setTags(Sets.newHashSet(tags));
+        return command;
+    }
+}
@@ -32,6 +32,7 @@ import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 import java.util.Set;
 import java.util.UUID;
 
@@ -55,7 +56,7 @@ public class JpaApplicationSpecsUnitTests {
     private Root<ApplicationEntity> root;
     private CriteriaQuery<?> cq;
     private CriteriaBuilder cb;
-    private String tagLikeStatement;
+    private Subquery<String> tagSubquery;
 
     /**
      * Setup some variables.
@@ -96,13 +97,8 @@ public class JpaApplicationSpecsUnitTests {
         Mockito.when(this.cb.equal(Mockito.eq(statusPath), Mockito.any(ApplicationStatus.class)))
             .thenReturn(equalStatusPredicate);
 
-        final Path<String> tagPath = (Path<String>) Mockito.mock(Path.class);
-        final Predicate likeTagPredicate = Mockito.mock(Predicate.class);
-        Mockito.when(this.root.get(ApplicationEntity_.tags)).thenReturn(tagPath);
-        Mockito.when(this.cb.like(Mockito.eq(tagPath), Mockito.any(String.class)))
-            .thenReturn(likeTagPredicate);
-
-        this.tagLikeStatement = JpaSpecificationUtils.getTagLikeString(TAGS);
+        this.tagSubquery = (Subquery<String>) Mockito.mock(Subquery.class, Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(this.cq.subquery(String.class)).thenReturn(this.tagSubquery);
 
         final Path<String> typePath = (Path<String>) Mockito.mock(Path.class);
         final Predicate equalTypePredicate = Mockito.mock(Predicate.class);
@@ -125,7 +121,8 @@ public class JpaApplicationSpecsUnitTests {
         for (final ApplicationStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(ApplicationEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(ApplicationEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ApplicationEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(ApplicationEntity_.type), TYPE);
     }
 
@@ -146,7 +143,8 @@ public class JpaApplicationSpecsUnitTests {
         for (final ApplicationStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(ApplicationEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(ApplicationEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ApplicationEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(ApplicationEntity_.type), newType);
     }
 
@@ -163,7 +161,8 @@ public class JpaApplicationSpecsUnitTests {
         for (final ApplicationStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(ApplicationEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(ApplicationEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ApplicationEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(ApplicationEntity_.type), TYPE);
     }
 
@@ -180,7 +179,8 @@ public class JpaApplicationSpecsUnitTests {
         for (final ApplicationStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(ApplicationEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(ApplicationEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ApplicationEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(ApplicationEntity_.type), TYPE);
     }
 
@@ -197,7 +197,8 @@ public class JpaApplicationSpecsUnitTests {
         for (final ApplicationStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.never()).equal(this.root.get(ApplicationEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(ApplicationEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ApplicationEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(ApplicationEntity_.type), TYPE);
     }
 
@@ -215,7 +216,8 @@ public class JpaApplicationSpecsUnitTests {
         for (final ApplicationStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.never()).equal(this.root.get(ApplicationEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(ApplicationEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ApplicationEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(ApplicationEntity_.type), TYPE);
     }
 
@@ -232,7 +234,7 @@ public class JpaApplicationSpecsUnitTests {
         for (final ApplicationStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(ApplicationEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.never()).like(this.root.get(ApplicationEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.never()).subquery(String.class);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(ApplicationEntity_.type), TYPE);
     }
 
@@ -250,7 +252,8 @@ public class JpaApplicationSpecsUnitTests {
         for (final ApplicationStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(ApplicationEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(ApplicationEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ApplicationEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(ApplicationEntity_.type), TYPE);
     }
 
@@ -267,7 +270,8 @@ public class JpaApplicationSpecsUnitTests {
         for (final ApplicationStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(ApplicationEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(ApplicationEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ApplicationEntity.class);
         Mockito.verify(this.cb, Mockito.never()).equal(this.root.get(ApplicationEntity_.type), TYPE);
     }
 
@@ -15,11 +15,13 @@
  */
 package com.netflix.genie.core.jpa.specifications;
 
+import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
 import com.netflix.genie.common.dto.ClusterCriteria;
 import com.netflix.genie.common.dto.ClusterStatus;
 import com.netflix.genie.common.dto.CommandStatus;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.jpa.entities.BaseEntity_;
 import com.netflix.genie.core.jpa.entities.ClusterEntity;
 import com.netflix.genie.core.jpa.entities.ClusterEntity_;
 import com.netflix.genie.core.jpa.entities.CommandEntity;
@@ -36,12 +38,16 @@ import org.springframework.data.jpa.domain.Specification;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Fetch;
+import javax.persistence.criteria.JoinType;
 import javax.persistence.criteria.ListJoin;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 import java.util.Date;
 import java.util.EnumSet;
+import java.util.List;
 import java.util.Set;
 
 /**
@@ -71,8 +77,8 @@ public class JpaClusterSpecsUnitTests {
     private CriteriaQuery<?> cq;
     private CriteriaBuilder cb;
     private ListJoin<ClusterEntity, CommandEntity> commands;
-    private String tagLikeStatement;
-    private String commandLikeStatement;
+    private Subquery<String> tagSubquery;
+    private Fetch<ClusterEntity, CommandEntity> commandsFetch;
 
     /**
      * Setup test wide variables.
@@ -130,19 +136,16 @@ public class JpaClusterSpecsUnitTests {
         Mockito.when(this.cb.equal(Mockito.eq(statusPath), Mockito.any(ClusterStatus.class)))
             .thenReturn(equalStatusPredicate);
 
-        final Path<String> tagPath = (Path<String>) Mockito.mock(Path.class);
-        final Predicate likeTagPredicate = Mockito.mock(Predicate.class);
-        Mockito.when(this.root.get(ClusterEntity_.tags)).thenReturn(tagPath);
-        Mockito.when(this.cb.like(Mockito.eq(tagPath), Mockito.any(String.class))).thenReturn(likeTagPredicate);
+        this.tagSubquery = (Subquery<String>) Mockito.mock(Subquery.class, Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(this.cq.subquery(String.class)).thenReturn(this.tagSubquery);
 
-        this.tagLikeStatement = JpaSpecificationUtils.getTagLikeString(TAGS);
-
-        this.commandLikeStatement = JpaSpecificationUtils.getTagLikeString(
-            Sets.newHashSet(COMMAND_CRITERIA_TAG_1, COMMAND_CRITERIA_TAG_2)
-        );
 
         // Setup for findByClusterAndCommandCriteria
         Mockito.when(this.root.join(ClusterEntity_.commands)).thenReturn(this.commands);
+        final Path<CommandStatus> commandStatusPath = (Path<CommandStatus>) Mockito.mock(Path.class);
+        Mockito.when(this.commands.get(CommandEntity_.status)).thenReturn(commandStatusPath);
+        this.commandsFetch = (Fetch<ClusterEntity, CommandEntity>) Mockito.mock(Fetch.class);
+        Mockito.when(this.root.fetch(ClusterEntity_.commands, JoinType.LEFT)).thenReturn(this.commandsFetch);
     }
 
     /**
@@ -165,8 +168,8 @@ public class JpaClusterSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1))
             .greaterThanOrEqualTo(this.root.get(ClusterEntity_.updated), MIN_UPDATE_TIME);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(ClusterEntity_.updated), MAX_UPDATE_TIME);
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(this.root.get(ClusterEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ClusterEntity.class);
         for (final ClusterStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.times(1))
                 .equal(this.root.get(ClusterEntity_.status), status);
@@ -194,8 +197,8 @@ public class JpaClusterSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1))
             .greaterThanOrEqualTo(this.root.get(ClusterEntity_.updated), MIN_UPDATE_TIME);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(ClusterEntity_.updated), MAX_UPDATE_TIME);
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(this.root.get(ClusterEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ClusterEntity.class);
         for (final ClusterStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.times(1))
                 .equal(this.root.get(ClusterEntity_.status), status);
@@ -224,8 +227,8 @@ public class JpaClusterSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1))
             .greaterThanOrEqualTo(this.root.get(ClusterEntity_.updated), MIN_UPDATE_TIME);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(ClusterEntity_.updated), MAX_UPDATE_TIME);
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(this.root.get(ClusterEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ClusterEntity.class);
         for (final ClusterStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.times(1))
                 .equal(this.root.get(ClusterEntity_.status), status);
@@ -253,8 +256,8 @@ public class JpaClusterSpecsUnitTests {
             .greaterThanOrEqualTo(this.root.get(ClusterEntity_.updated), MIN_UPDATE_TIME);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(
             this.root.get(ClusterEntity_.updated), MAX_UPDATE_TIME);
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(this.root.get(ClusterEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ClusterEntity.class);
         for (final ClusterStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.never())
                 .equal(this.root.get(ClusterEntity_.status), status);
@@ -282,8 +285,8 @@ public class JpaClusterSpecsUnitTests {
             .greaterThanOrEqualTo(this.root.get(ClusterEntity_.updated), MIN_UPDATE_TIME);
         Mockito.verify(this.cb, Mockito.times(1))
             .lessThan(this.root.get(ClusterEntity_.updated), MAX_UPDATE_TIME);
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(this.root.get(ClusterEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ClusterEntity.class);
         for (final ClusterStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.never())
                 .equal(this.root.get(ClusterEntity_.status), status);
@@ -311,8 +314,7 @@ public class JpaClusterSpecsUnitTests {
             .greaterThanOrEqualTo(this.root.get(ClusterEntity_.updated), MIN_UPDATE_TIME);
         Mockito.verify(this.cb, Mockito.times(1))
             .lessThan(this.root.get(ClusterEntity_.updated), MAX_UPDATE_TIME);
-        Mockito.verify(this.cb, Mockito.never())
-            .like(this.root.get(ClusterEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.never()).subquery(String.class);
         for (final ClusterStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.times(1))
                 .equal(this.root.get(ClusterEntity_.status), status);
@@ -340,8 +342,8 @@ public class JpaClusterSpecsUnitTests {
             .greaterThanOrEqualTo(this.root.get(ClusterEntity_.updated), MIN_UPDATE_TIME);
         Mockito.verify(this.cb, Mockito.times(1))
             .lessThan(this.root.get(ClusterEntity_.updated), MAX_UPDATE_TIME);
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(this.root.get(ClusterEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ClusterEntity.class);
         for (final ClusterStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.times(1))
                 .equal(this.root.get(ClusterEntity_.status), status);
@@ -369,8 +371,8 @@ public class JpaClusterSpecsUnitTests {
             .greaterThanOrEqualTo(this.root.get(ClusterEntity_.updated), MIN_UPDATE_TIME);
         Mockito.verify(this.cb, Mockito.never())
             .lessThan(this.root.get(ClusterEntity_.updated), MAX_UPDATE_TIME);
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(this.root.get(ClusterEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ClusterEntity.class);
         for (final ClusterStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.times(1))
                 .equal(this.root.get(ClusterEntity_.status), status);
@@ -399,8 +401,8 @@ public class JpaClusterSpecsUnitTests {
             .greaterThanOrEqualTo(this.root.get(ClusterEntity_.updated), MIN_UPDATE_TIME);
         Mockito.verify(this.cb, Mockito.never())
             .lessThan(this.root.get(ClusterEntity_.updated), MAX_UPDATE_TIME);
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(this.root.get(ClusterEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ClusterEntity.class);
         for (final ClusterStatus status : STATUSES) {
             Mockito.verify(this.cb, Mockito.times(1))
                 .equal(this.root.get(ClusterEntity_.status), status);
@@ -422,6 +424,8 @@ public class JpaClusterSpecsUnitTests {
         Mockito.verify(this.root, Mockito.times(1)).get(ClusterEntity_.status);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(ClusterEntity_.status), ClusterStatus.UP);
         Mockito.verify(this.cb, Mockito.never()).isMember(Mockito.any(String.class), Mockito.any(Expression.class));
+        Mockito.verify(this.root, Mockito.times(1)).fetch(ClusterEntity_.commands, JoinType.LEFT);
+        Mockito.verify(this.commandsFetch, Mockito.times(1)).fetch(CommandEntity_.applications, JoinType.LEFT);
     }
 
     /**
@@ -441,10 +445,41 @@ public class JpaClusterSpecsUnitTests {
             .equal(Mockito.eq(this.commands.get(CommandEntity_.status)), Mockito.eq(CommandStatus.ACTIVE));
         Mockito.verify(this.cb, Mockito.times(1))
             .equal(Mockito.eq(this.root.get(ClusterEntity_.status)), Mockito.eq(ClusterStatus.UP));
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(Mockito.eq(this.root.get(ClusterEntity_.tags)), Mockito.eq(this.tagLikeStatement));
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(Mockito.eq(this.commands.get(CommandEntity_.tags)), Mockito.eq(this.commandLikeStatement));
+        Mockito.verify(this.cq, Mockito.times(2)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(ClusterEntity.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(CommandEntity.class);
+        Mockito.verify(this.root, Mockito.times(1)).fetch(ClusterEntity_.commands, JoinType.LEFT);
+        Mockito.verify(this.commandsFetch, Mockito.times(1)).fetch(CommandEntity_.applications, JoinType.LEFT);
+    }
+
+    /**
+     * Make sure the commands and applications aren't fetched for count queries.
+     */
+    @Test
+    public void testFindByClusterAndCommandCriteriaCount() {
+        Mockito.doReturn(Long.class).when(this.cq).getResultType();
+        final Specification<ClusterEntity> spec = JpaClusterSpecs.findByClusterAndCommandCriteria(null, null);
+
+        spec.toPredicate(this.root, this.cq, this.cb);
+        Mockito.verify(this.root, Mockito.never()).fetch(ClusterEntity_.commands, JoinType.LEFT);
+    }
+
+    /**
+     * Make sure clusters can be found by id with their commands and applications.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testFindByIdsWithCommandsAndApplications() {
+        final List<String> ids = Lists.newArrayList("cluster1", "cluster2");
+        final Path<String> idPath = (Path<String>) Mockito.mock(Path.class);
+        Mockito.when(this.root.get(BaseEntity_.id)).thenReturn(idPath);
+        final Specification<ClusterEntity> spec = JpaClusterSpecs.findByIdsWithCommandsAndApplications(ids);
+
+        spec.toPredicate(this.root, this.cq, this.cb);
+        Mockito.verify(this.cq, Mockito.times(1)).distinct(true);
+        Mockito.verify(idPath, Mockito.times(1)).in(ids);
+        Mockito.verify(this.root, Mockito.times(1)).fetch(ClusterEntity_.commands, JoinType.LEFT);
+        Mockito.verify(this.commandsFetch, Mockito.times(1)).fetch(CommandEntity_.applications, JoinType.LEFT);
     }
 
     /**
@@ -32,6 +32,7 @@ import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 import java.util.Set;
 
 /**
@@ -53,7 +54,7 @@ public class JpaCommandSpecsUnitTests {
     private Root<CommandEntity> root;
     private CriteriaQuery<?> cq;
     private CriteriaBuilder cb;
-    private String tagLikeStatement;
+    private Subquery<String> tagSubquery;
 
     /**
      * Setup some variables.
@@ -94,12 +95,8 @@ public class JpaCommandSpecsUnitTests {
         Mockito.when(this.cb.equal(Mockito.eq(statusPath), Mockito.any(CommandStatus.class)))
             .thenReturn(equalStatusPredicate);
 
-        final Path<String> tagPath = (Path<String>) Mockito.mock(Path.class);
-        final Predicate likeTagPredicate = Mockito.mock(Predicate.class);
-        Mockito.when(this.root.get(CommandEntity_.tags)).thenReturn(tagPath);
-        Mockito.when(this.cb.like(Mockito.eq(tagPath), Mockito.any(String.class))).thenReturn(likeTagPredicate);
-
-        this.tagLikeStatement = JpaSpecificationUtils.getTagLikeString(TAGS);
+        this.tagSubquery = (Subquery<String>) Mockito.mock(Subquery.class, Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(this.cq.subquery(String.class)).thenReturn(this.tagSubquery);
     }
 
     /**
@@ -120,8 +117,8 @@ public class JpaCommandSpecsUnitTests {
             Mockito.verify(this.cb, Mockito.times(1))
                 .equal(this.root.get(CommandEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(this.root.get(CommandEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(CommandEntity.class);
     }
 
     /**
@@ -144,8 +141,8 @@ public class JpaCommandSpecsUnitTests {
             Mockito.verify(this.cb, Mockito.times(1))
                 .equal(this.root.get(CommandEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(this.root.get(CommandEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(CommandEntity.class);
     }
 
     /**
@@ -166,8 +163,8 @@ public class JpaCommandSpecsUnitTests {
             Mockito.verify(this.cb, Mockito.times(1))
                 .equal(this.root.get(CommandEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(this.root.get(CommandEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(CommandEntity.class);
     }
 
     /**
@@ -188,8 +185,8 @@ public class JpaCommandSpecsUnitTests {
             Mockito.verify(this.cb, Mockito.times(1))
                 .equal(this.root.get(CommandEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(this.root.get(CommandEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(CommandEntity.class);
     }
 
     /**
@@ -210,8 +207,7 @@ public class JpaCommandSpecsUnitTests {
             Mockito.verify(this.cb, Mockito.times(1))
                 .equal(this.root.get(CommandEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.never())
-            .like(this.root.get(CommandEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.never()).subquery(String.class);
     }
 
     /**
@@ -233,8 +229,8 @@ public class JpaCommandSpecsUnitTests {
             Mockito.verify(this.cb, Mockito.times(1))
                 .equal(this.root.get(CommandEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(this.root.get(CommandEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(CommandEntity.class);
     }
 
     /**
@@ -254,8 +250,8 @@ public class JpaCommandSpecsUnitTests {
             Mockito.verify(this.cb, Mockito.never())
                 .equal(this.root.get(CommandEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(this.root.get(CommandEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(CommandEntity.class);
     }
 
     /**
@@ -275,8 +271,8 @@ public class JpaCommandSpecsUnitTests {
             Mockito.verify(this.cb, Mockito.never())
                 .equal(this.root.get(CommandEntity_.status), status);
         }
-        Mockito.verify(this.cb, Mockito.times(1))
-            .like(this.root.get(CommandEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(CommandEntity.class);
     }
 
     /**
@@ -29,9 +29,11 @@ import org.junit.experimental.categories.Category;
 import org.mockito.Mockito;
 
 import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Path;
 import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Subquery;
 import java.util.Date;
 import java.util.Set;
 import java.util.UUID;
@@ -60,8 +62,9 @@ public class JpaJobSpecsUnitTests {
     private static final Date MAX_FINISHED = new Date(MIN_FINISHED.getTime() + 10);
 
     private Root<JobEntity> root;
+    private CriteriaQuery<?> cq;
     private CriteriaBuilder cb;
-    private String tagLikeStatement;
+    private Subquery<String> tagSubquery;
 
     /**
      * Setup the mocks.
@@ -77,6 +80,7 @@ public class JpaJobSpecsUnitTests {
         STATUSES.add(JobStatus.FAILED);
 
         this.root = (Root<JobEntity>) Mockito.mock(Root.class);
+        this.cq = Mockito.mock(CriteriaQuery.class);
         this.cb = Mockito.mock(CriteriaBuilder.class);
 
         final Path<String> idPath = (Path<String>) Mockito.mock(Path.class);
@@ -124,12 +128,8 @@ public class JpaJobSpecsUnitTests {
         Mockito.when(this.root.get(JobEntity_.command)).thenReturn(commandIdPath);
         Mockito.when(this.cb.equal(clusterIdPath, COMMAND)).thenReturn(equalCommandIdPredicate);
 
-        final Path<String> tagPath = (Path<String>) Mockito.mock(Path.class);
-        final Predicate likeTagPredicate = Mockito.mock(Predicate.class);
-        Mockito.when(this.root.get(JobEntity_.tags)).thenReturn(tagPath);
-        Mockito.when(this.cb.like(Mockito.eq(tagPath), Mockito.any(String.class))).thenReturn(likeTagPredicate);
-
-        this.tagLikeStatement = JpaSpecificationUtils.getTagLikeString(TAGS);
+        this.tagSubquery = (Subquery<String>) Mockito.mock(Subquery.class, Mockito.RETURNS_DEEP_STUBS);
+        Mockito.when(this.cq.subquery(String.class)).thenReturn(this.tagSubquery);
 
         final Path<Date> startedPath = (Path<Date>) Mockito.mock(Path.class);
         final Predicate minStartedPredicate = Mockito.mock(Predicate.class);
@@ -163,6 +163,7 @@ public class JpaJobSpecsUnitTests {
     public void testFindWithAll() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -189,7 +190,8 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(JobEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -210,6 +212,7 @@ public class JpaJobSpecsUnitTests {
         final String newCommandName = COMMAND_NAME + "%";
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             newId,
             newName,
@@ -236,7 +239,8 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.commandName), newCommandName);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(JobEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -252,6 +256,7 @@ public class JpaJobSpecsUnitTests {
     public void testFindWithOutId() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             null,
             JOB_NAME,
@@ -279,7 +284,8 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(JobEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -295,6 +301,7 @@ public class JpaJobSpecsUnitTests {
     public void testFindWithOutJobName() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             null,
@@ -322,7 +329,8 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(JobEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -338,6 +346,7 @@ public class JpaJobSpecsUnitTests {
     public void testFindWithOutUserName() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -365,7 +374,8 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(JobEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -381,6 +391,7 @@ public class JpaJobSpecsUnitTests {
     public void testFindWithOutStatus() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -407,7 +418,8 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(JobEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -423,6 +435,7 @@ public class JpaJobSpecsUnitTests {
     public void testFindWithEmptyStatus() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -449,7 +462,8 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(JobEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -465,6 +479,7 @@ public class JpaJobSpecsUnitTests {
     public void testFindWithOutClusterName() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -492,7 +507,8 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(JobEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -508,6 +524,7 @@ public class JpaJobSpecsUnitTests {
     public void testFindWithOutClusterId() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -534,7 +551,8 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.never()).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(JobEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -550,6 +568,7 @@ public class JpaJobSpecsUnitTests {
     public void testFindWithOutCommandName() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -577,7 +596,8 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.never()).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.never()).like(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(JobEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -593,6 +613,7 @@ public class JpaJobSpecsUnitTests {
     public void testFindWithOutCommandId() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -619,7 +640,8 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.never()).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(JobEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -635,6 +657,7 @@ public class JpaJobSpecsUnitTests {
     public void testFindWithOutTags() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -661,7 +684,7 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.never()).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.never()).subquery(String.class);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -677,6 +700,7 @@ public class JpaJobSpecsUnitTests {
     public void testFindWithOutMinStarted() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -703,7 +727,8 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(JobEntity.class);
         Mockito.verify(this.cb, Mockito.never()).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -719,6 +744,7 @@ public class JpaJobSpecsUnitTests {
     public void testFindWithOutMaxStarted() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -745,7 +771,8 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(JobEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.never()).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -761,6 +788,7 @@ public class JpaJobSpecsUnitTests {
     public void testFindWithOutMinFinished() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -787,7 +815,8 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(JobEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -803,6 +832,7 @@ public class JpaJobSpecsUnitTests {
     public void testFindWithOutMaxFinished() {
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -829,7 +859,8 @@ public class JpaJobSpecsUnitTests {
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.commandName), COMMAND_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.command), COMMAND);
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(JobEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -846,6 +877,7 @@ public class JpaJobSpecsUnitTests {
         TAGS.add("");
         JpaJobSpecs.getFindPredicate(
             this.root,
+            this.cq,
             this.cb,
             ID,
             JOB_NAME,
@@ -870,7 +902,8 @@ public class JpaJobSpecsUnitTests {
         }
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.clusterName), CLUSTER_NAME);
         Mockito.verify(this.cb, Mockito.times(1)).equal(this.root.get(JobEntity_.cluster), CLUSTER);
-        Mockito.verify(this.cb, Mockito.times(1)).like(this.root.get(JobEntity_.tags), this.tagLikeStatement);
+        Mockito.verify(this.cq, Mockito.times(1)).subquery(String.class);
+        Mockito.verify(this.tagSubquery, Mockito.times(1)).from(JobEntity.class);
         Mockito.verify(this.cb, Mockito.times(1)).greaterThanOrEqualTo(this.root.get(JobEntity_.started), MIN_STARTED);
         Mockito.verify(this.cb, Mockito.times(1)).lessThan(this.root.get(JobEntity_.started), MAX_STARTED);
         Mockito
@@ -0,0 +1,89 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.properties;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Unit tests for FileCacheProperties.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class FileCachePropertiesUnitTests {
+    private FileCacheProperties properties;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.properties = new FileCacheProperties();
+    }
+
+    /**
+     * Make sure the constructor sets defaults.
+     */
+    @Test
+    public void canConstruct() {
+        Assert.assertEquals(FileCacheProperties.DEFAULT_MATERIALIZATION, this.properties.getMaterialization());
+        Assert.assertEquals(FileCacheProperties.DEFAULT_MAX_SIZE, this.properties.getMaxSize());
+        Assert.assertEquals(FileCacheProperties.DEFAULT_HIGH_WATERMARK, this.properties.getHighWatermark(), 0.0);
+        Assert.assertEquals(FileCacheProperties.DEFAULT_LOW_WATERMARK, this.properties.getLowWatermark(), 0.0);
+        Assert.assertEquals(
+            FileCacheProperties.DEFAULT_REVALIDATION_INTERVAL,
+            this.properties.getRevalidationInterval()
+        );
+    }
+
+    /**
+     * Make sure we can set the materialization field.
+     */
+    @Test
+    public void canSetMaterialization() {
+        this.properties.setMaterialization(FileCacheProperties.Materialization.HARD_LINK);
+        Assert.assertEquals(FileCacheProperties.Materialization.HARD_LINK, this.properties.getMaterialization());
+    }
+
+    /**
+     * Make sure we can set the size limits.
+     */
+    @Test
+    public void canSetSizeLimits() {
+        this.properties.setMaxSize(1024L);
+        this.properties.setHighWatermark(0.5);
+        this.properties.setLowWatermark(0.25);
+        Assert.assertEquals(1024L, this.properties.getMaxSize());
+        Assert.assertEquals(0.5, this.properties.getHighWatermark(), 0.0);
+        Assert.assertEquals(0.25, this.properties.getLowWatermark(), 0.0);
+    }
+
+    /**
+     * Make sure we can set the revalidation interval.
+     */
+    @Test
+    public void canSetRevalidationInterval() {
+        this.properties.setRevalidationInterval(60000L);
+        Assert.assertEquals(60000L, this.properties.getRevalidationInterval());
+    }
+}
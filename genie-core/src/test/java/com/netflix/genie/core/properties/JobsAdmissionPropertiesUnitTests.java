@@ -0,0 +1,87 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.properties;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Unit tests for JobsAdmissionProperties.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class JobsAdmissionPropertiesUnitTests {
+    private JobsAdmissionProperties properties;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.properties = new JobsAdmissionProperties();
+    }
+
+    /**
+     * Make sure the constructor sets defaults.
+     */
+    @Test
+    public void canConstruct() {
+        Assert.assertEquals(JobsAdmissionProperties.DEFAULT_UTILIZATION_AWARE, this.properties.isUtilizationAware());
+        Assert.assertEquals(
+            JobsAdmissionProperties.DEFAULT_OVERCOMMIT_RATIO,
+            this.properties.getOvercommitRatio(),
+            0.0
+        );
+        Assert.assertEquals(JobsAdmissionProperties.DEFAULT_HEADROOM, this.properties.getHeadroom());
+    }
+
+    /**
+     * Make sure we can set the utilization aware field.
+     */
+    @Test
+    public void canSetUtilizationAware() {
+        final boolean newUtilizationAware = !this.properties.isUtilizationAware();
+        this.properties.setUtilizationAware(newUtilizationAware);
+        Assert.assertEquals(newUtilizationAware, this.properties.isUtilizationAware());
+    }
+
+    /**
+     * Make sure we can set the overcommit ratio field.
+     */
+    @Test
+    public void canSetOvercommitRatio() {
+        final double newOvercommitRatio = 2 * this.properties.getOvercommitRatio();
+        this.properties.setOvercommitRatio(newOvercommitRatio);
+        Assert.assertEquals(newOvercommitRatio, this.properties.getOvercommitRatio(), 0.0);
+    }
+
+    /**
+     * Make sure we can set the headroom field.
+     */
+    @Test
+    public void canSetHeadroom() {
+        final int newHeadroom = 2 * this.properties.getHeadroom();
+        this.properties.setHeadroom(newHeadroom);
+        Assert.assertEquals(newHeadroom, this.properties.getHeadroom());
+    }
+}
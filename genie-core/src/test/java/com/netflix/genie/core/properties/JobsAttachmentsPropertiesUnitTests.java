@@ -0,0 +1,60 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.properties;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Unit tests for JobsAttachmentsProperties.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class JobsAttachmentsPropertiesUnitTests {
+    private JobsAttachmentsProperties properties;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.properties = new JobsAttachmentsProperties();
+    }
+
+    /**
+     * Make sure the constructor sets defaults.
+     */
+    @Test
+    public void canConstruct() {
+        Assert.assertEquals(JobsAttachmentsProperties.DEFAULT_MATERIALIZATION, this.properties.getMaterialization());
+    }
+
+    /**
+     * Make sure we can set the materialization field.
+     */
+    @Test
+    public void canSetMaterialization() {
+        this.properties.setMaterialization(JobsAttachmentsProperties.Materialization.MOVE);
+        Assert.assertEquals(JobsAttachmentsProperties.Materialization.MOVE, this.properties.getMaterialization());
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.properties;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Unit tests for JobsLogShippingProperties.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class JobsLogShippingPropertiesUnitTests {
+    private JobsLogShippingProperties properties;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.properties = new JobsLogShippingProperties();
+    }
+
+    /**
+     * Make sure the constructor sets defaults.
+     */
+    @Test
+    public void canConstruct() {
+        Assert.assertEquals(JobsLogShippingProperties.DEFAULT_ENABLED, this.properties.isEnabled());
+        Assert.assertEquals(JobsLogShippingProperties.DEFAULT_INTERVAL, this.properties.getInterval());
+        Assert.assertEquals(JobsLogShippingProperties.DEFAULT_MAX_SEGMENT_SIZE, this.properties.getMaxSegmentSize());
+    }
+
+    /**
+     * Make sure we can set the fields.
+     */
+    @Test
+    public void canSet() {
+        this.properties.setEnabled(true);
+        this.properties.setInterval(5000L);
+        this.properties.setMaxSegmentSize(1024L);
+        Assert.assertTrue(this.properties.isEnabled());
+        Assert.assertEquals(5000L, this.properties.getInterval());
+        Assert.assertEquals(1024L, this.properties.getMaxSegmentSize());
+    }
+}
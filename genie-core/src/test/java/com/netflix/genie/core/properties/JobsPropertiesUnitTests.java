@@ -48,10 +48,16 @@ public class JobsPropertiesUnitTests {
      */
     @Test
     public void canConstruct() {
+        Assert.assertNotNull(this.properties.getAdmission());
+        Assert.assertNotNull(this.properties.getArchive());
+        Assert.assertNotNull(this.properties.getAttachments());
         Assert.assertNotNull(this.properties.getMemory());
+        Assert.assertNotNull(this.properties.getDownloads());
         Assert.assertNotNull(this.properties.getForwarding());
         Assert.assertNotNull(this.properties.getLocations());
+        Assert.assertNotNull(this.properties.getLogShipping());
         Assert.assertNotNull(this.properties.getMax());
+        Assert.assertNotNull(this.properties.getQueue());
         Assert.assertNotNull(this.properties.getUsers());
     }
 
@@ -60,16 +66,28 @@ public class JobsPropertiesUnitTests {
      */
     @Test
     public void canSet() {
+        final JobsAdmissionProperties admission = Mockito.mock(JobsAdmissionProperties.class);
+        final JobsArchiveProperties archive = Mockito.mock(JobsArchiveProperties.class);
+        final JobsAttachmentsProperties attachments = Mockito.mock(JobsAttachmentsProperties.class);
         final JobsMemoryProperties memory = Mockito.mock(JobsMemoryProperties.class);
+        final JobsDownloadsProperties downloads = Mockito.mock(JobsDownloadsProperties.class);
         final JobsForwardingProperties forwarding = Mockito.mock(JobsForwardingProperties.class);
         final JobsLocationsProperties locations = Mockito.mock(JobsLocationsProperties.class);
+        final JobsLogShippingProperties logShipping = Mockito.mock(JobsLogShippingProperties.class);
         final JobsMaxProperties max = Mockito.mock(JobsMaxProperties.class);
+        final JobsQueueProperties queue = Mockito.mock(JobsQueueProperties.class);
         final JobsUsersProperties users = Mockito.mock(JobsUsersProperties.class);
 
+        this.properties.setAdmission(admission);
+        this.properties.setArchive(archive);
+        this.properties.setAttachments(attachments);
+        this.properties.setDownloads(downloads);
         this.properties.setForwarding(forwarding);
         this.properties.setLocations(locations);
+        this.properties.setLogShipping(logShipping);
         this.properties.setMax(max);
         this.properties.setMemory(memory);
+        this.properties.setQueue(queue);
         this.properties.setUsers(users);
     }
 }
@@ -0,0 +1,83 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.properties;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Unit tests for JobsQueueProperties.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class JobsQueuePropertiesUnitTests {
+    private JobsQueueProperties properties;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.properties = new JobsQueueProperties();
+    }
+
+    /**
+     * Make sure the constructor sets defaults.
+     */
+    @Test
+    public void canConstruct() {
+        Assert.assertEquals(JobsQueueProperties.DEFAULT_ENABLED, this.properties.isEnabled());
+        Assert.assertEquals(JobsQueueProperties.DEFAULT_MAX_DEPTH, this.properties.getMaxDepth());
+        Assert.assertEquals(JobsQueueProperties.DEFAULT_RETRY_INTERVAL, this.properties.getRetryInterval());
+    }
+
+    /**
+     * Make sure we can set the enabled field.
+     */
+    @Test
+    public void canSetEnabled() {
+        final boolean newEnabledValue = !this.properties.isEnabled();
+        this.properties.setEnabled(newEnabledValue);
+        Assert.assertEquals(newEnabledValue, this.properties.isEnabled());
+    }
+
+    /**
+     * Make sure we can set the max depth field.
+     */
+    @Test
+    public void canSetMaxDepth() {
+        final int newMaxDepth = 2 * this.properties.getMaxDepth();
+        this.properties.setMaxDepth(newMaxDepth);
+        Assert.assertEquals(newMaxDepth, this.properties.getMaxDepth());
+    }
+
+    /**
+     * Make sure we can set the retry interval field.
+     */
+    @Test
+    public void canSetRetryInterval() {
+        final long newRetryInterval = 2 * this.properties.getRetryInterval();
+        this.properties.setRetryInterval(newRetryInterval);
+        Assert.assertEquals(newRetryInterval, this.properties.getRetryInterval());
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.properties;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Unit tests for S3TransferProperties.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class S3TransferPropertiesUnitTests {
+    private S3TransferProperties properties;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.properties = new S3TransferProperties();
+    }
+
+    /**
+     * Make sure the constructor sets defaults.
+     */
+    @Test
+    public void canConstruct() {
+        Assert.assertEquals(S3TransferProperties.DEFAULT_PARALLEL_ENABLED, this.properties.isParallelEnabled());
+        Assert.assertEquals(S3TransferProperties.DEFAULT_THRESHOLD, this.properties.getThreshold());
+        Assert.assertEquals(S3TransferProperties.DEFAULT_PART_SIZE, this.properties.getPartSize());
+        Assert.assertEquals(S3TransferProperties.DEFAULT_MAX_CONCURRENT, this.properties.getMaxConcurrent());
+        Assert.assertEquals(S3TransferProperties.DEFAULT_POOL_SIZE, this.properties.getPoolSize());
+    }
+
+    /**
+     * Make sure we can enable parallel transfers.
+     */
+    @Test
+    public void canSetParallelEnabled() {
+        this.properties.setParallelEnabled(true);
+        Assert.assertTrue(this.properties.isParallelEnabled());
+    }
+
+    /**
+     * Make sure we can set the part sizes.
+     */
+    @Test
+    public void canSetSizes() {
+        this.properties.setThreshold(1024L);
+        this.properties.setPartSize(S3TransferProperties.MIN_PART_SIZE);
+        Assert.assertEquals(1024L, this.properties.getThreshold());
+        Assert.assertEquals(S3TransferProperties.MIN_PART_SIZE, this.properties.getPartSize());
+    }
+
+    /**
+     * Make sure we can set the concurrency limits.
+     */
+    @Test
+    public void canSetConcurrency() {
+        this.properties.setMaxConcurrent(8);
+        this.properties.setPoolSize(32);
+        Assert.assertEquals(8, this.properties.getMaxConcurrent());
+        Assert.assertEquals(32, this.properties.getPoolSize());
+    }
+}
@@ -0,0 +1,591 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services.impl;
+
+import com.google.common.hash.Hashing;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.events.JobFinishedEvent;
+import com.netflix.genie.core.events.JobFinishedReason;
+import com.netflix.genie.core.properties.FileCacheProperties;
+import com.netflix.genie.core.services.FileTransfer;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Unit tests for the CacheGenieFileTransferService class.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class CacheGenieFileTransferServiceUnitTests {
+
+    private static final String REMOTE_FILE = "s3://bucket/dependencies/app.tar.gz";
+    private static final String OTHER_FILE = "s3://bucket/dependencies/other.tar.gz";
+    private static final String THIRD_FILE = "s3://bucket/dependencies/third.tar.gz";
+    private static final String CONTENTS = "some dependency";
+
+    /**
+     * Temporary folder for the cache and the job directories.
+     */
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileTransfer s3FileTransfer;
+    private FileCacheProperties fileCacheProperties;
+    private Registry registry;
+    private Counter linkedCounter;
+    private Counter linkFailedCounter;
+    private Counter bytesSavedCounter;
+    private Counter evictionCounter;
+    private Counter revalidatedCounter;
+    private Counter revalidationSkippedCounter;
+    private Timer coalescedWaitTimer;
+    private LocalFileTransferImpl localFileTransfer;
+    private CacheGenieFileTransferService cacheService;
+    private File jobDir;
+    private File cacheDir;
+
+    /**
+     * Setup for the tests.
+     *
+     * @throws Exception on error
+     */
+    @Before
+    public void setup() throws Exception {
+        this.s3FileTransfer = Mockito.mock(FileTransfer.class);
+        Mockito
+            .doAnswer(
+                invocation -> {
+                    Files.write(
+                        Paths.get((String) invocation.getArguments()[1]),
+                        CONTENTS.getBytes(StandardCharsets.UTF_8)
+                    );
+                    return null;
+                }
+            )
+            .when(this.s3FileTransfer)
+            .getFile(Mockito.anyString(), Mockito.anyString());
+        Mockito.when(this.s3FileTransfer.getLastModifiedTime(Mockito.anyString())).thenReturn(0L);
+
+        final Registry metrics = Mockito.mock(Registry.class);
+        this.registry = metrics;
+        this.linkedCounter = Mockito.mock(Counter.class);
+        this.linkFailedCounter = Mockito.mock(Counter.class);
+        this.bytesSavedCounter = Mockito.mock(Counter.class);
+        this.evictionCounter = Mockito.mock(Counter.class);
+        this.revalidatedCounter = Mockito.mock(Counter.class);
+        this.revalidationSkippedCounter = Mockito.mock(Counter.class);
+        this.coalescedWaitTimer = Mockito.mock(Timer.class);
+        Mockito.when(metrics.counter(Mockito.anyString())).thenReturn(Mockito.mock(Counter.class));
+        Mockito.when(metrics.counter("genie.jobs.file.cache.linked.counter")).thenReturn(this.linkedCounter);
+        Mockito.when(metrics.counter("genie.jobs.file.cache.linkFailed.counter")).thenReturn(this.linkFailedCounter);
+        Mockito.when(metrics.counter("genie.jobs.file.cache.bytesSaved.counter")).thenReturn(this.bytesSavedCounter);
+        Mockito.when(metrics.counter("genie.jobs.file.cache.evictions.counter")).thenReturn(this.evictionCounter);
+        Mockito.when(metrics.counter("genie.jobs.file.cache.revalidated.counter")).thenReturn(this.revalidatedCounter);
+        Mockito
+            .when(metrics.counter("genie.jobs.file.cache.revalidationSkipped.counter"))
+            .thenReturn(this.revalidationSkippedCounter);
+        Mockito.when(metrics.timer("genie.jobs.file.cache.coalescedWait.timer")).thenReturn(this.coalescedWaitTimer);
+
+        this.fileCacheProperties = new FileCacheProperties();
+        this.jobDir = this.folder.newFolder();
+        this.cacheDir = this.folder.newFolder();
+        this.localFileTransfer = Mockito.spy(new LocalFileTransferImpl());
+        this.cacheService = this.createService();
+    }
+
+    /**
+     * Make sure the cached file is copied into the job directory by default and only downloaded once.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canCopyCachedFile() throws GenieException, IOException {
+        final Path first = this.getFile("first");
+        final Path second = this.getFile("second");
+
+        Assert.assertFalse(Files.isSymbolicLink(first));
+        Assert.assertFalse(Files.isSameFile(first, second));
+        Assert.assertThat(this.read(first), Matchers.is(CONTENTS));
+        Assert.assertThat(this.read(second), Matchers.is(CONTENTS));
+        Mockito.verify(this.s3FileTransfer, Mockito.times(1)).getFile(Mockito.eq(REMOTE_FILE), Mockito.anyString());
+        Mockito.verify(this.linkedCounter, Mockito.never()).increment();
+    }
+
+    /**
+     * Make sure the cached file can be hard linked into the job directories.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canHardLinkCachedFile() throws GenieException, IOException {
+        this.fileCacheProperties.setMaterialization(FileCacheProperties.Materialization.HARD_LINK);
+        final Path first = this.getFile("first");
+        final Path second = this.getFile("second");
+
+        Assert.assertFalse(Files.isSymbolicLink(first));
+        Assert.assertTrue(Files.isSameFile(first, second));
+        Assert.assertThat(
+            Files.getPosixFilePermissions(first),
+            Matchers.not(Matchers.hasItem(PosixFilePermission.OWNER_WRITE))
+        );
+        Assert.assertThat(this.read(second), Matchers.is(CONTENTS));
+        Mockito.verify(this.linkedCounter, Mockito.times(2)).increment();
+        Mockito.verify(this.bytesSavedCounter, Mockito.times(2)).increment(CONTENTS.length());
+        Mockito.verify(this.linkFailedCounter, Mockito.never()).increment();
+    }
+
+    /**
+     * Make sure the cached file is copied instead of hard linked when jobs run as their users.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void cantHardLinkCachedFileWhenRunningAsUser() throws GenieException, IOException {
+        this.fileCacheProperties.setMaterialization(FileCacheProperties.Materialization.HARD_LINK);
+        this.cacheService = new CacheGenieFileTransferService(
+            name -> "file.system.s3".equals(name) ? this.s3FileTransfer : null,
+            this.folder.newFolder().toURI().toString(),
+            this.localFileTransfer,
+            this.fileCacheProperties,
+            new FileSystemResource(this.jobDir),
+            true,
+            this.registry
+        );
+        final Path first = this.getFile("first");
+        final Path second = this.getFile("second");
+
+        Assert.assertFalse(Files.isSameFile(first, second));
+        Assert.assertThat(Files.getPosixFilePermissions(first), Matchers.hasItem(PosixFilePermission.OWNER_WRITE));
+        Assert.assertThat(this.read(second), Matchers.is(CONTENTS));
+        Mockito.verify(this.linkedCounter, Mockito.never()).increment();
+        Mockito.verify(this.linkFailedCounter, Mockito.never()).increment();
+    }
+
+    /**
+     * Make sure the cached file can be symbolically linked into the job directories and is made read only.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canSymbolicallyLinkCachedFile() throws GenieException, IOException {
+        this.fileCacheProperties.setMaterialization(FileCacheProperties.Materialization.SYMBOLIC_LINK);
+        final Path linked = this.getFile("first");
+
+        Assert.assertTrue(Files.isSymbolicLink(linked));
+        Assert.assertThat(
+            Files.getPosixFilePermissions(Files.readSymbolicLink(linked)),
+            Matchers.not(Matchers.hasItem(PosixFilePermission.OWNER_WRITE))
+        );
+        Assert.assertThat(this.read(linked), Matchers.is(CONTENTS));
+        Mockito.verify(this.linkedCounter, Mockito.times(1)).increment();
+        Mockito.verify(this.bytesSavedCounter, Mockito.times(1)).increment(CONTENTS.length());
+    }
+
+    /**
+     * Make sure a file already in the job directory is replaced by the link.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canReplaceExistingFileWithLink() throws GenieException, IOException {
+        this.fileCacheProperties.setMaterialization(FileCacheProperties.Materialization.HARD_LINK);
+        final Path existing = this.jobDir.toPath().resolve("first").resolve("app.tar.gz");
+        Files.createDirectories(existing.getParent());
+        Files.write(existing, "old".getBytes(StandardCharsets.UTF_8));
+
+        Assert.assertThat(this.read(this.getFile("first")), Matchers.is(CONTENTS));
+    }
+
+    /**
+     * Make sure the least recently used files are evicted once the cache goes over its high watermark.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canEvictLeastRecentlyUsedFiles() throws GenieException, IOException {
+        this.fileCacheProperties.setMaxSize(40L);
+        this.getFile(REMOTE_FILE, "first");
+        this.getFile(OTHER_FILE, "first");
+        this.getFile(REMOTE_FILE, "second");
+        Assert.assertThat(this.cacheService.getUsedBytes(), Matchers.is(30L));
+        Mockito.verify(this.evictionCounter, Mockito.never()).increment();
+
+        this.getFile(THIRD_FILE, "second");
+        Assert.assertThat(this.cacheService.getUsedBytes(), Matchers.is(30L));
+        Mockito.verify(this.evictionCounter, Mockito.times(1)).increment();
+
+        this.getFile(REMOTE_FILE, "third");
+        this.getFile(OTHER_FILE, "third");
+        Mockito.verify(this.s3FileTransfer, Mockito.times(1)).getFile(Mockito.eq(REMOTE_FILE), Mockito.anyString());
+        Mockito.verify(this.s3FileTransfer, Mockito.times(2)).getFile(Mockito.eq(OTHER_FILE), Mockito.anyString());
+    }
+
+    /**
+     * Make sure a file which is being put into a job directory isn't evicted by another job.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void cantEvictFilesInUse() throws GenieException, IOException {
+        this.fileCacheProperties.setMaxSize(20L);
+        final Path otherDst = this.jobDir.toPath().resolve("second").resolve("app.tar.gz");
+        Mockito
+            .doAnswer(
+                invocation -> {
+                    this.cacheService.getFile(OTHER_FILE, otherDst.toString());
+                    return invocation.callRealMethod();
+                }
+            )
+            .when(this.localFileTransfer)
+            .getFile(Mockito.anyString(), Mockito.endsWith("first" + File.separator + "app.tar.gz"));
+
+        Assert.assertThat(this.read(this.getFile(REMOTE_FILE, "first")), Matchers.is(CONTENTS));
+        Assert.assertThat(this.read(otherDst), Matchers.is(CONTENTS));
+        Assert.assertThat(this.cacheService.getUsedBytes(), Matchers.is(15L));
+        Mockito.verify(this.evictionCounter, Mockito.times(1)).increment();
+
+        this.getFile(REMOTE_FILE, "third");
+        Mockito.verify(this.s3FileTransfer, Mockito.times(1)).getFile(Mockito.eq(REMOTE_FILE), Mockito.anyString());
+    }
+
+    /**
+     * Make sure symbolically linked files aren't evicted until the jobs linking them finish.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void cantEvictLinkedFilesUntilJobFinishes() throws GenieException, IOException {
+        this.fileCacheProperties.setMaterialization(FileCacheProperties.Materialization.SYMBOLIC_LINK);
+        this.fileCacheProperties.setMaxSize(20L);
+        final Path first = this.getFile(REMOTE_FILE, "first");
+        final Path second = this.getFile(OTHER_FILE, "second");
+        Assert.assertThat(this.cacheService.getUsedBytes(), Matchers.is(30L));
+        Assert.assertThat(this.read(first), Matchers.is(CONTENTS));
+        Mockito.verify(this.evictionCounter, Mockito.never()).increment();
+
+        this.cacheService.onJobFinished(this.createJobFinishedEvent("first"));
+        Assert.assertThat(this.cacheService.getUsedBytes(), Matchers.is(15L));
+        Assert.assertFalse(Files.exists(first));
+        Assert.assertThat(this.read(second), Matchers.is(CONTENTS));
+        Mockito.verify(this.evictionCounter, Mockito.times(1)).increment();
+    }
+
+    /**
+     * Make sure a freshly downloaded file isn't revalidated again within the revalidation interval.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canSkipRevalidationWithinInterval() throws GenieException {
+        this.fileCacheProperties.setRevalidationInterval(60000L);
+        this.getFile("first");
+        this.getFile("second");
+        this.getFile("third");
+
+        Mockito
+            .verify(this.s3FileTransfer, Mockito.never())
+            .getFileIfModified(Mockito.eq(REMOTE_FILE), Mockito.anyString(), Mockito.anyLong());
+        Mockito.verify(this.revalidatedCounter, Mockito.never()).increment();
+        Mockito.verify(this.revalidationSkippedCounter, Mockito.times(3)).increment();
+    }
+
+    /**
+     * Make sure a cached file is revalidated on every later use by default and replaced when the remote file changed.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canReplaceModifiedFile() throws Exception {
+        Assert.assertThat(this.read(this.getFile("first")), Matchers.is(CONTENTS));
+        // Make sure the next request comes after the download which counts as a revalidation
+        Thread.sleep(5L);
+        final String newContents = "a newer dependency";
+        Mockito
+            .doAnswer(
+                invocation -> {
+                    Files.write(
+                        Paths.get((String) invocation.getArguments()[1]),
+                        newContents.getBytes(StandardCharsets.UTF_8)
+                    );
+                    return true;
+                }
+            )
+            .when(this.s3FileTransfer)
+            .getFileIfModified(Mockito.eq(REMOTE_FILE), Mockito.anyString(), Mockito.anyLong());
+
+        Assert.assertThat(this.read(this.getFile("second")), Matchers.is(newContents));
+        Assert.assertThat(this.cacheService.getUsedBytes(), Matchers.is((long) newContents.length()));
+        Mockito
+            .verify(this.s3FileTransfer, Mockito.times(1))
+            .getFileIfModified(Mockito.eq(REMOTE_FILE), Mockito.anyString(), Mockito.anyLong());
+        Mockito.verify(this.s3FileTransfer, Mockito.times(1)).getFile(Mockito.eq(REMOTE_FILE), Mockito.anyString());
+        Mockito.verify(this.revalidatedCounter, Mockito.times(1)).increment();
+    }
+
+    /**
+     * Make sure a modified file doesn't replace the cached file jobs are already linked to.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void cantReplaceLinkedFileWhenModified() throws Exception {
+        this.fileCacheProperties.setMaterialization(FileCacheProperties.Materialization.SYMBOLIC_LINK);
+        final Path first = this.getFile("first");
+        Thread.sleep(5L);
+        final String newContents = "a newer dependency";
+        Mockito
+            .doAnswer(
+                invocation -> {
+                    Files.write(
+                        Paths.get((String) invocation.getArguments()[1]),
+                        newContents.getBytes(StandardCharsets.UTF_8)
+                    );
+                    return true;
+                }
+            )
+            .when(this.s3FileTransfer)
+            .getFileIfModified(Mockito.eq(REMOTE_FILE), Mockito.anyString(), Mockito.anyLong());
+
+        final Path second = this.getFile("second");
+        Assert.assertThat(this.read(first), Matchers.is(CONTENTS));
+        Assert.assertThat(this.read(second), Matchers.is(newContents));
+        Assert.assertNotEquals(Files.readSymbolicLink(first), Files.readSymbolicLink(second));
+        Assert.assertThat(
+            this.cacheService.getUsedBytes(),
+            Matchers.is((long) (CONTENTS.length() + newContents.length()))
+        );
+
+        // The old version is deleted once the job linking it finishes
+        this.cacheService.onJobFinished(this.createJobFinishedEvent("first"));
+        Assert.assertFalse(Files.exists(Files.readSymbolicLink(first)));
+        Assert.assertThat(this.read(second), Matchers.is(newContents));
+        Assert.assertThat(this.cacheService.getUsedBytes(), Matchers.is((long) newContents.length()));
+    }
+
+    /**
+     * Make sure concurrent requests for the same file wait for a single download.
+     *
+     * @throws Exception on error
+     */
+    @Test(timeout = 10000L)
+    public void canCoalesceConcurrentRequests() throws Exception {
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        final Thread second = new Thread(
+            () -> {
+                try {
+                    this.getFile("second");
+                } catch (final GenieException ge) {
+                    failure.set(ge);
+                }
+            }
+        );
+        Mockito
+            .doAnswer(
+                invocation -> {
+                    second.start();
+                    while (second.getState() != Thread.State.WAITING) {
+                        Thread.sleep(10L);
+                    }
+                    Files.write(
+                        Paths.get((String) invocation.getArguments()[1]),
+                        CONTENTS.getBytes(StandardCharsets.UTF_8)
+                    );
+                    return null;
+                }
+            )
+            .when(this.s3FileTransfer)
+            .getFile(Mockito.eq(REMOTE_FILE), Mockito.anyString());
+
+        this.getFile("first");
+        second.join();
+
+        Assert.assertNull(failure.get());
+        Assert.assertThat(
+            this.read(this.jobDir.toPath().resolve("second").resolve("app.tar.gz")),
+            Matchers.is(CONTENTS)
+        );
+        Mockito.verify(this.s3FileTransfer, Mockito.times(1)).getFile(Mockito.eq(REMOTE_FILE), Mockito.anyString());
+        Mockito
+            .verify(this.coalescedWaitTimer, Mockito.times(1))
+            .record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Make sure a slow revalidation of one file doesn't block other files from being revalidated.
+     *
+     * @throws Exception on error
+     */
+    @Test(timeout = 10000L)
+    public void canRevalidateDifferentFilesInParallel() throws Exception {
+        this.getFile(REMOTE_FILE, "first");
+        this.getFile(OTHER_FILE, "first");
+        Thread.sleep(5L);
+        final AtomicBoolean otherFinished = new AtomicBoolean();
+        Mockito
+            .doAnswer(
+                invocation -> {
+                    final Thread other = new Thread(
+                        () -> {
+                            try {
+                                this.getFile(OTHER_FILE, "second");
+                            } catch (final GenieException ge) {
+                                throw new RuntimeException(ge);
+                            }
+                        }
+                    );
+                    other.start();
+                    other.join(5000L);
+                    otherFinished.set(!other.isAlive());
+                    return false;
+                }
+            )
+            .when(this.s3FileTransfer)
+            .getFileIfModified(Mockito.eq(REMOTE_FILE), Mockito.anyString(), Mockito.anyLong());
+
+        this.getFile(REMOTE_FILE, "second");
+
+        Assert.assertTrue(otherFinished.get());
+        Mockito
+            .verify(this.s3FileTransfer, Mockito.times(1))
+            .getFileIfModified(Mockito.eq(OTHER_FILE), Mockito.anyString(), Mockito.anyLong());
+        Mockito.verify(this.coalescedWaitTimer, Mockito.never()).record(Mockito.anyLong(), Mockito.any());
+    }
+
+    /**
+     * Make sure a file can be put into the cache before any job needs it.
+     *
+     * @throws GenieException on error
+     * @throws IOException    on error
+     */
+    @Test
+    public void canPrefetch() throws GenieException, IOException {
+        this.cacheService.prefetch(REMOTE_FILE);
+        Assert.assertThat(this.cacheService.getUsedBytes(), Matchers.is((long) CONTENTS.length()));
+        Assert.assertThat(this.jobDir.list().length, Matchers.is(0));
+
+        Assert.assertThat(this.read(this.getFile("first")), Matchers.is(CONTENTS));
+        Mockito.verify(this.s3FileTransfer, Mockito.times(1)).getFile(Mockito.eq(REMOTE_FILE), Mockito.anyString());
+    }
+
+    /**
+     * Make sure the files left in the cache by an earlier process are accounted for and evicted when they aren't
+     * needed again while leftover downloads and old versions are deleted.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canAccountForFilesLeftBeforeRestart() throws Exception {
+        this.getFile(REMOTE_FILE, "first");
+        this.getFile(OTHER_FILE, "first");
+        final File[] cachedFiles = this.cacheDir.listFiles();
+        Assert.assertNotNull(cachedFiles);
+        Assert.assertThat(cachedFiles.length, Matchers.is(2));
+        final File download = new File(cachedFiles[0].getPath() + ".download");
+        final String oldVersion = Hashing.sha256().hashString("old", StandardCharsets.UTF_8).toString();
+        final File version = new File(cachedFiles[0].getPath() + "." + oldVersion);
+        final File unrelated = new File(this.cacheDir, "README");
+        for (final File file : new File[]{download, version, unrelated}) {
+            Files.write(file.toPath(), CONTENTS.getBytes(StandardCharsets.UTF_8));
+        }
+
+        this.fileCacheProperties.setMaxSize(40L);
+        final CacheGenieFileTransferService restarted = this.createService();
+        Assert.assertFalse(download.exists());
+        Assert.assertFalse(version.exists());
+        Assert.assertTrue(unrelated.exists());
+        Assert.assertThat(restarted.getUsedBytes(), Matchers.is(2L * CONTENTS.length()));
+
+        // Claiming a file left behind doesn't download it again or count it twice
+        this.cacheService = restarted;
+        this.getFile(REMOTE_FILE, "second");
+        Mockito.verify(this.s3FileTransfer, Mockito.times(1)).getFile(Mockito.eq(REMOTE_FILE), Mockito.anyString());
+        Assert.assertThat(restarted.getUsedBytes(), Matchers.is(2L * CONTENTS.length()));
+        Mockito.verify(this.evictionCounter, Mockito.never()).increment();
+
+        // The file nobody claimed is evicted first
+        this.getFile(THIRD_FILE, "second");
+        Assert.assertThat(restarted.getUsedBytes(), Matchers.is(2L * CONTENTS.length()));
+        Mockito.verify(this.evictionCounter, Mockito.times(1)).increment();
+        this.getFile(REMOTE_FILE, "third");
+        this.getFile(OTHER_FILE, "third");
+        Mockito.verify(this.s3FileTransfer, Mockito.times(1)).getFile(Mockito.eq(REMOTE_FILE), Mockito.anyString());
+        Mockito.verify(this.s3FileTransfer, Mockito.times(2)).getFile(Mockito.eq(OTHER_FILE), Mockito.anyString());
+    }
+
+    private Path getFile(final String job) throws GenieException {
+        return this.getFile(REMOTE_FILE, job);
+    }
+
+    private Path getFile(final String remoteFile, final String job) throws GenieException {
+        final Path dst = this.jobDir.toPath().resolve(job).resolve(Paths.get(remoteFile).getFileName());
+        this.cacheService.getFile(remoteFile, dst.toString());
+        return dst;
+    }
+
+    private CacheGenieFileTransferService createService() throws GenieException {
+        return new CacheGenieFileTransferService(
+            name -> "file.system.s3".equals(name) ? this.s3FileTransfer : null,
+            this.cacheDir.toURI().toString(),
+            this.localFileTransfer,
+            this.fileCacheProperties,
+            new FileSystemResource(this.jobDir),
+            false,
+            this.registry
+        );
+    }
+
+    private JobFinishedEvent createJobFinishedEvent(final String job) {
+        return new JobFinishedEvent(job, JobFinishedReason.PROCESS_COMPLETED, "Process completed", this);
+    }
+
+    private String read(final Path path) throws IOException {
+        return new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+    }
+}
@@ -20,6 +20,7 @@ package com.netflix.genie.core.services.impl;
 import com.google.common.collect.Sets;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GeniePreconditionException;
+import com.netflix.genie.core.properties.JobsAttachmentsProperties;
 import com.netflix.genie.test.categories.UnitTest;
 import org.apache.commons.io.FileUtils;
 import org.junit.Assert;
@@ -30,10 +31,14 @@ import org.junit.experimental.categories.Category;
 import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.Set;
 import java.util.UUID;
 
@@ -81,6 +86,25 @@ public class FileSystemAttachmentServiceUnitTests {
         Assert.assertTrue(saved.exists());
     }
 
+    /**
+     * Make sure an attachment which isn't read from a file is saved completely.
+     *
+     * @throws GenieException on error
+     * @throws IOException    if the attachment file can't be read
+     */
+    @Test
+    public void canSaveAttachmentFromStream() throws GenieException, IOException {
+        final String jobId = UUID.randomUUID().toString();
+        final String content = UUID.randomUUID().toString();
+        this.service.save(
+            jobId,
+            "script.sh",
+            new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8))
+        );
+        final File saved = new File(this.folder.getRoot(), jobId + "/script.sh");
+        Assert.assertEquals(content, FileUtils.readFileToString(saved, StandardCharsets.UTF_8));
+    }
+
     /**
      * Make sure it can't copy if the destination isn't a directory.
      *
@@ -120,6 +144,71 @@ public class FileSystemAttachmentServiceUnitTests {
         }
     }
 
+    /**
+     * Make sure attachments are renamed into the destination when moving, replacing existing files.
+     *
+     * @throws GenieException on error
+     * @throws IOException    if the attachment file can't be located
+     */
+    @Test
+    public void canMoveAttachments() throws GenieException, IOException {
+        this.service = new FileSystemAttachmentService(
+            "file://" + this.folder.getRoot().getAbsolutePath(),
+            JobsAttachmentsProperties.Materialization.MOVE
+        );
+        final String jobId = UUID.randomUUID().toString();
+        final Set<File> originals = this.saveAttachments(jobId);
+        final File finalDir = this.folder.newFolder(UUID.randomUUID().toString());
+        final File existing = originals.iterator().next();
+        FileUtils.write(new File(finalDir, existing.getName()), "overwritten", StandardCharsets.UTF_8);
+        final Set<Object> fileKeys = Sets.newHashSet();
+        for (final File file : originals) {
+            fileKeys.add(Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey());
+        }
+
+        this.service.copy(jobId, finalDir);
+        for (final File file : originals) {
+            Assert.assertFalse(file.exists());
+            final File finalFile = new File(finalDir, file.getName());
+            Assert.assertTrue(finalFile.exists());
+            Assert.assertTrue(
+                fileKeys.contains(Files.readAttributes(finalFile.toPath(), BasicFileAttributes.class).fileKey())
+            );
+        }
+
+        this.service.delete(jobId);
+        Assert.assertFalse(new File(this.folder.getRoot(), jobId).exists());
+    }
+
+    /**
+     * Make sure attachments are hard linked into the destination and survive deleting the originals.
+     *
+     * @throws GenieException on error
+     * @throws IOException    if the attachment file can't be located
+     */
+    @Test
+    public void canLinkAttachments() throws GenieException, IOException {
+        this.service = new FileSystemAttachmentService(
+            "file://" + this.folder.getRoot().getAbsolutePath(),
+            JobsAttachmentsProperties.Materialization.HARD_LINK
+        );
+        final String jobId = UUID.randomUUID().toString();
+        final Set<File> originals = this.saveAttachments(jobId);
+        final File finalDir = new File(this.folder.getRoot(), UUID.randomUUID().toString());
+
+        this.service.copy(jobId, finalDir);
+        for (final File file : originals) {
+            final File finalFile = new File(finalDir, file.getName());
+            Assert.assertTrue(Files.isSameFile(file.toPath(), finalFile.toPath()));
+        }
+
+        this.service.delete(jobId);
+        for (final File file : originals) {
+            Assert.assertFalse(file.exists());
+            Assert.assertTrue(new File(finalDir, file.getName()).exists());
+        }
+    }
+
     /**
      * Test whether we can successfully delete an attachment from the filesystem.
      *
@@ -142,4 +142,18 @@ public class GenieFileTransferServiceUnitTests {
         Mockito.verify(this.s3FileTransfer, Mockito.times(1)).putFile(LOCAL_FILE_PATH, S3_FILE_PATH);
         Mockito.verify(this.localFileTransfer, Mockito.times(0)).putFile(LOCAL_FILE_PATH, S3_FILE_PATH);
     }
+
+    /**
+     * Test the putStream method delegates to the implementation for the destination.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void canPutStream() throws GenieException {
+        final FileTransfer.StreamWriter writer = Mockito.mock(FileTransfer.StreamWriter.class);
+
+        this.genieFileTransferService.putStream(writer, S3_FILE_PATH);
+        Mockito.verify(this.s3FileTransfer, Mockito.times(1)).putStream(writer, S3_FILE_PATH);
+        Mockito.verify(this.localFileTransfer, Mockito.never()).putStream(writer, S3_FILE_PATH);
+    }
 }
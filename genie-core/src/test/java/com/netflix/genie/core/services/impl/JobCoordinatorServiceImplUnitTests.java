@@ -18,27 +18,27 @@
 package com.netflix.genie.core.services.impl;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.netflix.genie.common.dto.Application;
 import com.netflix.genie.common.dto.Cluster;
 import com.netflix.genie.common.dto.Command;
-import com.netflix.genie.common.dto.CommandStatus;
 import com.netflix.genie.common.dto.Job;
 import com.netflix.genie.common.dto.JobExecution;
 import com.netflix.genie.common.dto.JobMetadata;
 import com.netflix.genie.common.dto.JobRequest;
 import com.netflix.genie.common.dto.JobStatus;
+import com.netflix.genie.common.dto.JobStatusMessages;
 import com.netflix.genie.common.exceptions.GenieConflictException;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GeniePreconditionException;
 import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.common.exceptions.GenieServerUnavailableException;
 import com.netflix.genie.common.exceptions.GenieUserLimitExceededException;
+import com.netflix.genie.core.jobs.ResolvedCommand;
 import com.netflix.genie.core.properties.JobsProperties;
-import com.netflix.genie.core.services.ApplicationService;
 import com.netflix.genie.core.services.ClusterLoadBalancer;
 import com.netflix.genie.core.services.ClusterService;
-import com.netflix.genie.core.services.CommandService;
 import com.netflix.genie.core.services.JobKillService;
 import com.netflix.genie.core.services.JobPersistenceService;
 import com.netflix.genie.core.services.JobSearchService;
@@ -48,12 +48,16 @@ import com.netflix.spectator.api.Counter;
 import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Registry;
 import com.netflix.spectator.api.Timer;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
 import org.mockito.Mockito;
+import org.springframework.core.task.TaskRejectedException;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
@@ -82,9 +86,7 @@ public class JobCoordinatorServiceImplUnitTests {
     private JobKillService jobKillService;
     private JobStateService jobStateService;
     private JobSearchService jobSearchService;
-    private ApplicationService applicationService;
     private ClusterService clusterService;
-    private CommandService commandService;
     private ClusterLoadBalancer clusterLoadBalancer1;
     private ClusterLoadBalancer clusterLoadBalancer2;
     private ClusterLoadBalancer clusterLoadBalancer3;
@@ -104,9 +106,7 @@ public class JobCoordinatorServiceImplUnitTests {
         this.jobsProperties.getLocations().setArchives(BASE_ARCHIVE_LOCATION);
         this.jobsProperties.getMemory().setDefaultJobMemory(MEMORY);
         this.jobsProperties.getUsers().getActiveLimit().setEnabled(ACTIVE_JOBS_LIMIT_ENABLED);
-        this.applicationService = Mockito.mock(ApplicationService.class);
         this.clusterService = Mockito.mock(ClusterService.class);
-        this.commandService = Mockito.mock(CommandService.class);
         this.clusterLoadBalancer1 = Mockito.mock(ClusterLoadBalancer.class);
         this.clusterLoadBalancer2 = Mockito.mock(ClusterLoadBalancer.class);
         this.clusterLoadBalancer3 = Mockito.mock(ClusterLoadBalancer.class);
@@ -124,10 +124,8 @@ public class JobCoordinatorServiceImplUnitTests {
             this.jobKillService,
             this.jobStateService,
             jobsProperties,
-            this.applicationService,
             this.jobSearchService,
             this.clusterService,
-            this.commandService,
             Lists.newArrayList(
                 this.clusterLoadBalancer1,
                 this.clusterLoadBalancer2,
@@ -156,8 +154,8 @@ public class JobCoordinatorServiceImplUnitTests {
         final JobMetadata jobMetadata = this.getJobMetadata();
 
         Mockito
-            .when(this.clusterService.chooseClusterForJobRequest(jobRequest))
-            .thenReturn(Lists.newArrayList());
+            .when(this.clusterService.resolveClustersAndCommandsForJobRequest(jobRequest))
+            .thenReturn(Maps.newLinkedHashMap());
 
         this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
     }
@@ -183,10 +181,6 @@ public class JobCoordinatorServiceImplUnitTests {
         final List<Cluster> clusters = Lists.newArrayList(cluster);
         Mockito.when(cluster.getId()).thenReturn(Optional.of(clusterId));
 
-        Mockito
-            .when(this.clusterService.chooseClusterForJobRequest(jobRequest))
-            .thenReturn(clusters);
-
         final String commandId = UUID.randomUUID().toString();
         final Command command = Mockito.mock(Command.class);
         Mockito.when(command.getId()).thenReturn(Optional.of(commandId));
@@ -195,20 +189,13 @@ public class JobCoordinatorServiceImplUnitTests {
         commandTags.addAll(commandCriteria);
         Mockito.when(command.getTags()).thenReturn(commandTags);
 
-        Mockito
-            .when(
-                this.clusterService.getCommandsForCluster(Mockito.eq(clusterId), Mockito.anySetOf(CommandStatus.class))
-            )
-            .thenReturn(Lists.newArrayList(command));
-
         final String applicationId = UUID.randomUUID().toString();
         final Application application = Mockito.mock(Application.class);
         Mockito.when(application.getId()).thenReturn(Optional.of(applicationId));
         final List<Application> applications = Lists.newArrayList(application);
 
-        Mockito.when(this.commandService.getApplicationsForCommand(commandId)).thenReturn(applications);
-
-        Mockito.when(this.jobStateService.getUsedMemory()).thenReturn(0);
+        Mockito.when(this.jobStateService.reserveMemory(Mockito.eq(JOB_1_ID), Mockito.anyInt())).thenReturn(true);
+        this.mockResolution(jobRequest, clusters, command, applications);
 
         this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
 
@@ -258,10 +245,6 @@ public class JobCoordinatorServiceImplUnitTests {
         final List<Cluster> clusters = Lists.newArrayList(cluster1, cluster2);
         Mockito.when(cluster1.getId()).thenReturn(Optional.of(clusterId));
 
-        Mockito
-            .when(this.clusterService.chooseClusterForJobRequest(jobRequest))
-            .thenReturn(clusters);
-
         Mockito.when(this.clusterLoadBalancer1.selectCluster(clusters, jobRequest)).thenReturn(null);
         Mockito.when(this.clusterLoadBalancer2.selectCluster(clusters, jobRequest)).thenThrow(new RuntimeException());
         Mockito.when(this.clusterLoadBalancer3.selectCluster(clusters, jobRequest)).thenReturn(cluster1);
@@ -274,20 +257,13 @@ public class JobCoordinatorServiceImplUnitTests {
         commandTags.addAll(commandCriteria);
         Mockito.when(command.getTags()).thenReturn(commandTags);
 
-        Mockito
-            .when(
-                this.clusterService.getCommandsForCluster(Mockito.eq(clusterId), Mockito.anySetOf(CommandStatus.class))
-            )
-            .thenReturn(Lists.newArrayList(command));
-
         final String applicationId = UUID.randomUUID().toString();
         final Application application = Mockito.mock(Application.class);
         Mockito.when(application.getId()).thenReturn(Optional.of(applicationId));
         final List<Application> applications = Lists.newArrayList(application);
 
-        Mockito.when(this.commandService.getApplicationsForCommand(commandId)).thenReturn(applications);
-
-        Mockito.when(this.jobStateService.getUsedMemory()).thenReturn(0);
+        Mockito.when(this.jobStateService.reserveMemory(Mockito.eq(JOB_1_ID), Mockito.anyInt())).thenReturn(true);
+        this.mockResolution(jobRequest, clusters, command, applications);
 
         this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
 
@@ -334,10 +310,6 @@ public class JobCoordinatorServiceImplUnitTests {
         final List<Cluster> clusters = Lists.newArrayList(cluster);
         Mockito.when(cluster.getId()).thenReturn(Optional.of(clusterId));
 
-        Mockito
-            .when(this.clusterService.chooseClusterForJobRequest(jobRequest))
-            .thenReturn(clusters);
-
         Mockito.when(this.clusterLoadBalancer1.selectCluster(clusters, jobRequest)).thenReturn(cluster);
 
         final String commandId = UUID.randomUUID().toString();
@@ -348,18 +320,13 @@ public class JobCoordinatorServiceImplUnitTests {
         commandTags.addAll(commandCriteria);
         Mockito.when(command.getTags()).thenReturn(commandTags);
 
-        Mockito
-            .when(
-                this.clusterService.getCommandsForCluster(Mockito.eq(clusterId), Mockito.anySetOf(CommandStatus.class))
-            )
-            .thenReturn(Lists.newArrayList(command));
-
         final Application application = Mockito.mock(Application.class);
         Mockito.when(application.getId()).thenReturn(Optional.of(applicationId));
 
-        Mockito.when(this.applicationService.getApplication(applicationId)).thenReturn(application);
+        final List<Application> applications = Lists.newArrayList(application);
 
-        Mockito.when(this.jobStateService.getUsedMemory()).thenReturn(0);
+        Mockito.when(this.jobStateService.reserveMemory(Mockito.eq(JOB_1_ID), Mockito.anyInt())).thenReturn(true);
+        this.mockResolution(jobRequest, clusters, command, applications);
 
         this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
 
@@ -400,10 +367,6 @@ public class JobCoordinatorServiceImplUnitTests {
         final List<Cluster> clusters = Lists.newArrayList(cluster);
         Mockito.when(cluster.getId()).thenReturn(Optional.of(clusterId));
 
-        Mockito
-            .when(this.clusterService.chooseClusterForJobRequest(jobRequest))
-            .thenReturn(clusters);
-
         Mockito.when(this.clusterLoadBalancer1.selectCluster(clusters, jobRequest)).thenReturn(cluster);
 
         final String commandId = UUID.randomUUID().toString();
@@ -414,22 +377,15 @@ public class JobCoordinatorServiceImplUnitTests {
         commandTags.addAll(commandCriteria);
         Mockito.when(command.getTags()).thenReturn(commandTags);
 
-        Mockito
-            .when(
-                this.clusterService.getCommandsForCluster(Mockito.eq(clusterId), Mockito.anySetOf(CommandStatus.class))
-            )
-            .thenReturn(Lists.newArrayList(command));
-
         final String applicationId = UUID.randomUUID().toString();
         final Application application = Mockito.mock(Application.class);
         Mockito.when(application.getId()).thenReturn(Optional.of(applicationId));
         final List<Application> applications = Lists.newArrayList(application);
-
-        Mockito.when(this.commandService.getApplicationsForCommand(commandId)).thenReturn(applications);
+        this.mockResolution(jobRequest, clusters, command, applications);
 
         this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
 
-        Mockito.verify(this.jobStateService, Mockito.never()).getUsedMemory();
+        Mockito.verify(this.jobStateService, Mockito.never()).reserveMemory(Mockito.anyString(), Mockito.anyInt());
     }
 
     /**
@@ -453,10 +409,6 @@ public class JobCoordinatorServiceImplUnitTests {
         final List<Cluster> clusters = Lists.newArrayList(cluster);
         Mockito.when(cluster.getId()).thenReturn(Optional.of(clusterId));
 
-        Mockito
-            .when(this.clusterService.chooseClusterForJobRequest(jobRequest))
-            .thenReturn(clusters);
-
         Mockito.when(this.clusterLoadBalancer1.selectCluster(clusters, jobRequest)).thenReturn(cluster);
 
         final String commandId = UUID.randomUUID().toString();
@@ -467,31 +419,125 @@ public class JobCoordinatorServiceImplUnitTests {
         commandTags.addAll(commandCriteria);
         Mockito.when(command.getTags()).thenReturn(commandTags);
 
-        Mockito
-            .when(
-                this.clusterService.getCommandsForCluster(Mockito.eq(clusterId), Mockito.anySetOf(CommandStatus.class))
-            )
-            .thenReturn(Lists.newArrayList(command));
-
         final String applicationId = UUID.randomUUID().toString();
         final Application application = Mockito.mock(Application.class);
         Mockito.when(application.getId()).thenReturn(Optional.of(applicationId));
         final List<Application> applications = Lists.newArrayList(application);
 
-        Mockito.when(this.commandService.getApplicationsForCommand(commandId)).thenReturn(applications);
-
         Mockito
             .when(this.jobStateService.getUsedMemory())
             .thenReturn(this.jobsProperties.getMemory().getMaxSystemMemory());
+        this.mockResolution(jobRequest, clusters, command, applications);
 
         this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
 
-        Mockito.verify(this.jobStateService, Mockito.times(1)).getUsedMemory();
+        Mockito.verify(this.jobStateService, Mockito.times(1)).reserveMemory(JOB_1_ID, 1);
         Mockito
             .verify(this.jobPersistenceService, Mockito.times(1))
             .updateJobStatus(Mockito.eq(JOB_1_ID), Mockito.eq(JobStatus.FAILED), Mockito.anyString());
     }
 
+    /**
+     * Test the coordinate job method queues the job when the admission queue is enabled and there isn't enough memory.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void canQueueJobIfNotEnoughMemoryAvailable() throws GenieException {
+        this.jobsProperties.getQueue().setEnabled(true);
+        final Set<String> commandCriteria = Sets.newHashSet(
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString(),
+            UUID.randomUUID().toString()
+        );
+
+        final JobRequest jobRequest = this.getJobRequest(false, commandCriteria, null, null);
+        final JobMetadata jobMetadata = this.getJobMetadata();
+
+        final String clusterId = UUID.randomUUID().toString();
+        final Cluster cluster = Mockito.mock(Cluster.class);
+        final List<Cluster> clusters = Lists.newArrayList(cluster);
+        Mockito.when(cluster.getId()).thenReturn(Optional.of(clusterId));
+
+        final String commandId = UUID.randomUUID().toString();
+        final Command command = Mockito.mock(Command.class);
+        Mockito.when(command.getId()).thenReturn(Optional.of(commandId));
+        Mockito.when(command.getMemory()).thenReturn(Optional.of(1));
+        final Set<String> commandTags = Sets.newHashSet(UUID.randomUUID().toString());
+        commandTags.addAll(commandCriteria);
+        Mockito.when(command.getTags()).thenReturn(commandTags);
+
+        final List<Application> applications = Lists.newArrayList();
+
+        Mockito.when(this.jobStateService.canReserveMemory(1)).thenReturn(false);
+        Mockito
+            .when(this.jobStateService.scheduleOrQueue(JOB_1_ID, jobRequest, cluster, command, applications, 1))
+            .thenReturn(false);
+        this.mockResolution(jobRequest, clusters, command, applications);
+
+        Assert.assertThat(this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata), Matchers.is(JOB_1_ID));
+
+        Mockito
+            .verify(this.jobPersistenceService, Mockito.times(1))
+            .updateJobStatus(JOB_1_ID, JobStatus.INIT, JobStatusMessages.JOB_QUEUED_WAITING_FOR_MEMORY);
+        Mockito
+            .verify(this.jobStateService, Mockito.times(1))
+            .scheduleOrQueue(JOB_1_ID, jobRequest, cluster, command, applications, 1);
+        Mockito
+            .verify(this.jobStateService, Mockito.never())
+            .schedule(
+                Mockito.anyString(),
+                Mockito.any(JobRequest.class),
+                Mockito.any(Cluster.class),
+                Mockito.any(Command.class),
+                Mockito.anyListOf(Application.class),
+                Mockito.anyInt()
+            );
+    }
+
+    /**
+     * Test the coordinate job method fails the job when the admission queue is full.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test(expected = GenieServerUnavailableException.class)
+    public void cantQueueJobIfQueueIsFull() throws GenieException {
+        this.jobsProperties.getQueue().setEnabled(true);
+        final Set<String> commandCriteria = Sets.newHashSet(UUID.randomUUID().toString());
+        final JobRequest jobRequest = this.getJobRequest(false, commandCriteria, null, null);
+        final JobMetadata jobMetadata = this.getJobMetadata();
+
+        final Cluster cluster = Mockito.mock(Cluster.class);
+        Mockito.when(cluster.getId()).thenReturn(Optional.of(UUID.randomUUID().toString()));
+        final Command command = Mockito.mock(Command.class);
+        Mockito.when(command.getId()).thenReturn(Optional.of(UUID.randomUUID().toString()));
+        Mockito.when(command.getMemory()).thenReturn(Optional.of(1));
+        Mockito.when(command.getTags()).thenReturn(commandCriteria);
+
+        Mockito.when(this.jobStateService.getNumQueuedJobs()).thenReturn(1);
+        Mockito.when(this.jobStateService.jobExists(JOB_1_ID)).thenReturn(true);
+        Mockito
+            .when(this.jobStateService.scheduleOrQueue(
+                Mockito.eq(JOB_1_ID),
+                Mockito.eq(jobRequest),
+                Mockito.eq(cluster),
+                Mockito.eq(command),
+                Mockito.anyListOf(Application.class),
+                Mockito.eq(1)
+            ))
+            .thenThrow(new GenieServerUnavailableException("full"));
+        this.mockResolution(jobRequest, Lists.newArrayList(cluster), command, Lists.newArrayList());
+
+        try {
+            this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
+        } finally {
+            Mockito.verify(this.jobStateService, Mockito.times(1)).done(JOB_1_ID);
+            Mockito
+                .verify(this.jobPersistenceService, Mockito.times(1))
+                .updateJobStatus(JOB_1_ID, JobStatus.FAILED, "full");
+        }
+    }
+
     /**
      * Test the coordinate job method allows a job through if the job user limit is exceeded but the limit itself is
      * disabled.
@@ -518,10 +564,6 @@ public class JobCoordinatorServiceImplUnitTests {
         final List<Cluster> clusters = Lists.newArrayList(cluster);
         Mockito.when(cluster.getId()).thenReturn(Optional.of(clusterId));
 
-        Mockito
-            .when(this.clusterService.chooseClusterForJobRequest(jobRequest))
-            .thenReturn(clusters);
-
         Mockito.when(this.clusterLoadBalancer1.selectCluster(clusters, jobRequest)).thenReturn(cluster);
 
         final String commandId = UUID.randomUUID().toString();
@@ -532,22 +574,16 @@ public class JobCoordinatorServiceImplUnitTests {
         commandTags.addAll(commandCriteria);
         Mockito.when(command.getTags()).thenReturn(commandTags);
 
-        Mockito
-            .when(
-                this.clusterService.getCommandsForCluster(Mockito.eq(clusterId), Mockito.anySetOf(CommandStatus.class))
-            )
-            .thenReturn(Lists.newArrayList(command));
-
         final String applicationId = UUID.randomUUID().toString();
         final Application application = Mockito.mock(Application.class);
         Mockito.when(application.getId()).thenReturn(Optional.of(applicationId));
         final List<Application> applications = Lists.newArrayList(application);
 
-        Mockito.when(this.commandService.getApplicationsForCommand(commandId)).thenReturn(applications);
-
         Mockito
             .when(this.jobSearchService.getActiveJobCountForUser(Mockito.any(String.class)))
             .thenReturn(Long.valueOf(userActiveJobsLimit));
+        Mockito.when(this.jobStateService.reserveMemory(Mockito.eq(JOB_1_ID), Mockito.anyInt())).thenReturn(true);
+        this.mockResolution(jobRequest, clusters, command, applications);
 
         this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
     }
@@ -577,10 +613,6 @@ public class JobCoordinatorServiceImplUnitTests {
         final List<Cluster> clusters = Lists.newArrayList(cluster);
         Mockito.when(cluster.getId()).thenReturn(Optional.of(clusterId));
 
-        Mockito
-            .when(this.clusterService.chooseClusterForJobRequest(jobRequest))
-            .thenReturn(clusters);
-
         Mockito.when(this.clusterLoadBalancer1.selectCluster(clusters, jobRequest)).thenReturn(cluster);
 
         final String commandId = UUID.randomUUID().toString();
@@ -591,22 +623,15 @@ public class JobCoordinatorServiceImplUnitTests {
         commandTags.addAll(commandCriteria);
         Mockito.when(command.getTags()).thenReturn(commandTags);
 
-        Mockito
-            .when(
-                this.clusterService.getCommandsForCluster(Mockito.eq(clusterId), Mockito.anySetOf(CommandStatus.class))
-            )
-            .thenReturn(Lists.newArrayList(command));
-
         final String applicationId = UUID.randomUUID().toString();
         final Application application = Mockito.mock(Application.class);
         Mockito.when(application.getId()).thenReturn(Optional.of(applicationId));
         final List<Application> applications = Lists.newArrayList(application);
 
-        Mockito.when(this.commandService.getApplicationsForCommand(commandId)).thenReturn(applications);
-
         Mockito
             .when(this.jobSearchService.getActiveJobCountForUser(Mockito.any(String.class)))
             .thenReturn(Long.valueOf(userActiveJobsLimit));
+        this.mockResolution(jobRequest, clusters, command, applications);
 
         this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
     }
@@ -632,10 +657,6 @@ public class JobCoordinatorServiceImplUnitTests {
         final List<Cluster> clusters = Lists.newArrayList(cluster);
         Mockito.when(cluster.getId()).thenReturn(Optional.of(clusterId));
 
-        Mockito
-            .when(this.clusterService.chooseClusterForJobRequest(jobRequest))
-            .thenReturn(clusters);
-
         Mockito.when(this.clusterLoadBalancer1.selectCluster(clusters, jobRequest)).thenReturn(cluster);
 
         final String commandId = UUID.randomUUID().toString();
@@ -646,32 +667,66 @@ public class JobCoordinatorServiceImplUnitTests {
         commandTags.addAll(commandCriteria);
         Mockito.when(command.getTags()).thenReturn(commandTags);
 
-        Mockito
-            .when(
-                this.clusterService.getCommandsForCluster(Mockito.eq(clusterId), Mockito.anySetOf(CommandStatus.class))
-            )
-            .thenReturn(Lists.newArrayList(command));
-
         final String applicationId = UUID.randomUUID().toString();
         final Application application = Mockito.mock(Application.class);
         Mockito.when(application.getId()).thenReturn(Optional.of(applicationId));
         final List<Application> applications = Lists.newArrayList(application);
 
-        Mockito.when(this.commandService.getApplicationsForCommand(commandId)).thenReturn(applications);
         Mockito.doThrow(new RuntimeException()).when(jobStateService).schedule(JOB_1_ID, jobRequest, cluster,
             command, applications, 1);
         Mockito
-            .when(this.jobStateService.getUsedMemory())
-            .thenReturn(0);
+            .when(this.jobStateService.reserveMemory(JOB_1_ID, 1))
+            .thenReturn(true);
+        this.mockResolution(jobRequest, clusters, command, applications);
 
         this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
 
-        Mockito.verify(this.jobStateService, Mockito.times(1)).getUsedMemory();
+        Mockito.verify(this.jobStateService, Mockito.times(1)).reserveMemory(JOB_1_ID, 1);
         Mockito
             .verify(this.jobPersistenceService, Mockito.times(1))
             .updateJobStatus(Mockito.eq(JOB_1_ID), Mockito.eq(JobStatus.FAILED), Mockito.anyString());
     }
 
+    /**
+     * Make sure a job which can't be launched because the launch executor is full is rejected as unavailable and its
+     * memory is released.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test(expected = GenieServerUnavailableException.class)
+    public void cantCoordinateJobIfLaunchIsRejected() throws GenieException {
+        final Set<String> commandCriteria = Sets.newHashSet(UUID.randomUUID().toString());
+        final JobRequest jobRequest = this.getJobRequest(false, commandCriteria, null, null);
+        final JobMetadata jobMetadata = this.getJobMetadata();
+
+        final Cluster cluster = Mockito.mock(Cluster.class);
+        final List<Cluster> clusters = Lists.newArrayList(cluster);
+        Mockito.when(cluster.getId()).thenReturn(Optional.of(UUID.randomUUID().toString()));
+        Mockito.when(this.clusterLoadBalancer1.selectCluster(clusters, jobRequest)).thenReturn(cluster);
+        final Command command = Mockito.mock(Command.class);
+        Mockito.when(command.getId()).thenReturn(Optional.of(UUID.randomUUID().toString()));
+        Mockito.when(command.getMemory()).thenReturn(Optional.of(1));
+        Mockito.when(command.getTags()).thenReturn(commandCriteria);
+        final List<Application> applications = Lists.newArrayList();
+
+        Mockito.when(this.jobStateService.reserveMemory(JOB_1_ID, 1)).thenReturn(true);
+        Mockito.when(this.jobStateService.jobExists(JOB_1_ID)).thenReturn(true);
+        Mockito
+            .doThrow(new TaskRejectedException("full"))
+            .when(this.jobStateService)
+            .schedule(JOB_1_ID, jobRequest, cluster, command, applications, 1);
+        this.mockResolution(jobRequest, clusters, command, applications);
+
+        try {
+            this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
+        } finally {
+            Mockito.verify(this.jobStateService, Mockito.times(1)).done(JOB_1_ID);
+            Mockito
+                .verify(this.jobPersistenceService, Mockito.times(1))
+                .updateJobStatus(Mockito.eq(JOB_1_ID), Mockito.eq(JobStatus.FAILED), Mockito.anyString());
+        }
+    }
+
     /**
      * Test the coordinate job method.
      *
@@ -688,31 +743,14 @@ public class JobCoordinatorServiceImplUnitTests {
         final JobRequest jobRequest = this.getJobRequest(false, commandCriteria, null, null);
         final JobMetadata jobMetadata = this.getJobMetadata();
 
-        final String clusterId = UUID.randomUUID().toString();
-        final Cluster cluster = Mockito.mock(Cluster.class);
-        final List<Cluster> clusters = Lists.newArrayList(cluster);
-        Mockito.when(cluster.getId()).thenReturn(Optional.of(clusterId));
-
+        // Clusters without a command matching the criteria are never returned as candidates
         Mockito
-            .when(this.clusterService.chooseClusterForJobRequest(jobRequest))
-            .thenReturn(clusters);
-
-        Mockito.when(this.clusterLoadBalancer1.selectCluster(clusters, jobRequest)).thenReturn(cluster);
-
-        final String commandId = UUID.randomUUID().toString();
-        final Command command = Mockito.mock(Command.class);
-        Mockito.when(command.getId()).thenReturn(Optional.of(commandId));
-        Mockito.when(command.getMemory()).thenReturn(Optional.of(1));
-        final Set<String> commandTags = Sets.newHashSet(UUID.randomUUID().toString());
-        Mockito.when(command.getTags()).thenReturn(commandTags);
-
-        Mockito
-            .when(
-                this.clusterService.getCommandsForCluster(Mockito.eq(clusterId), Mockito.anySetOf(CommandStatus.class))
-            )
-            .thenReturn(Lists.newArrayList(command));
+            .when(this.clusterService.resolveClustersAndCommandsForJobRequest(jobRequest))
+            .thenReturn(Maps.newLinkedHashMap());
 
         this.jobCoordinatorService.coordinateJob(jobRequest, jobMetadata);
+
+        Mockito.verify(this.clusterLoadBalancer1, Mockito.never()).selectCluster(Mockito.any(), Mockito.any());
     }
 
     /**
@@ -767,6 +805,19 @@ public class JobCoordinatorServiceImplUnitTests {
         this.jobCoordinatorService.killJob(id, KILL_REASON);
     }
 
+    private void mockResolution(
+        final JobRequest jobRequest,
+        final List<Cluster> clusters,
+        final Command command,
+        final List<Application> applications
+    ) throws GenieException {
+        final Map<Cluster, ResolvedCommand> candidates = Maps.newLinkedHashMap();
+        clusters.forEach(cluster -> candidates.put(cluster, new ResolvedCommand(command, applications)));
+        Mockito
+            .when(this.clusterService.resolveClustersAndCommandsForJobRequest(jobRequest))
+            .thenReturn(candidates);
+    }
+
     private JobRequest getJobRequest(
         final boolean disableLogArchival,
         final Set<String> commandCriteria,
@@ -0,0 +1,404 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services.impl;
+
+import com.google.common.collect.Lists;
+import com.netflix.genie.common.dto.Cluster;
+import com.netflix.genie.common.dto.Command;
+import com.netflix.genie.common.dto.JobRequest;
+import com.netflix.genie.common.dto.JobStatusMessages;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerUnavailableException;
+import com.netflix.genie.core.events.JobFinishedEvent;
+import com.netflix.genie.core.events.JobFinishedReason;
+import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.services.JobAdmissionPolicy;
+import com.netflix.genie.core.services.JobSubmitterService;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Unit tests for the JobStateServiceImpl class.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class JobStateServiceImplUnitTests {
+
+    private static final int MAX_SYSTEM_MEMORY = 10;
+
+    private AsyncTaskExecutor launchExecutor;
+    private ApplicationEventPublisher publisher;
+    private JobsProperties jobsProperties;
+    private Counter queueRejected;
+    private Timer queueWait;
+    private Timer launchWait;
+    private Counter admitted;
+    private Counter notAdmitted;
+    private Registry registry;
+    private JobStateServiceImpl jobStateService;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.launchExecutor = Mockito.mock(AsyncTaskExecutor.class);
+        final ScheduledFuture<?> task = Mockito.mock(ScheduledFuture.class);
+        Mockito.when(task.isDone()).thenReturn(true);
+        Mockito.when(this.launchExecutor.submit(Mockito.any(Runnable.class))).then(invocation -> task);
+        this.publisher = Mockito.mock(ApplicationEventPublisher.class);
+        this.registry = Mockito.mock(Registry.class);
+        this.queueRejected = Mockito.mock(Counter.class);
+        this.admitted = Mockito.mock(Counter.class);
+        this.notAdmitted = Mockito.mock(Counter.class);
+        this.queueWait = Mockito.mock(Timer.class);
+        this.launchWait = Mockito.mock(Timer.class);
+        Mockito.when(this.registry.counter(Mockito.anyString())).thenReturn(Mockito.mock(Counter.class));
+        Mockito.when(this.registry.counter("genie.jobs.queue.rejected.counter")).thenReturn(this.queueRejected);
+        Mockito.when(this.registry.counter("genie.jobs.admission.admitted.counter")).thenReturn(this.admitted);
+        Mockito.when(this.registry.counter("genie.jobs.admission.rejected.counter")).thenReturn(this.notAdmitted);
+        Mockito.when(this.registry.timer(Mockito.anyString())).thenReturn(Mockito.mock(Timer.class));
+        Mockito.when(this.registry.timer("genie.jobs.queue.wait.timer")).thenReturn(this.queueWait);
+        Mockito.when(this.registry.timer("genie.jobs.launch.wait.timer")).thenReturn(this.launchWait);
+
+        this.jobsProperties = new JobsProperties();
+        this.jobsProperties.getMemory().setMaxSystemMemory(MAX_SYSTEM_MEMORY);
+        this.jobsProperties.getQueue().setEnabled(true);
+        this.jobsProperties.getQueue().setMaxDepth(2);
+
+        this.jobStateService = new JobStateServiceImpl(
+            Mockito.mock(JobSubmitterService.class),
+            Mockito.mock(TaskScheduler.class),
+            this.launchExecutor,
+            this.publisher,
+            this.registry,
+            this.jobsProperties
+        );
+    }
+
+    /**
+     * Make sure a job is scheduled right away when there is enough memory and nothing is queued.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canScheduleWhenMemoryIsFree() throws GenieException {
+        Assert.assertTrue(this.scheduleOrQueue(this.init(), MAX_SYSTEM_MEMORY));
+        Assert.assertThat(this.jobStateService.getUsedMemory(), Matchers.is(MAX_SYSTEM_MEMORY));
+        Assert.assertThat(this.jobStateService.getNumQueuedJobs(), Matchers.is(0));
+        Mockito
+            .verify(this.launchExecutor, Mockito.times(1))
+            .submit(Mockito.any(Runnable.class));
+    }
+
+    /**
+     * Make sure queued jobs are scheduled in order as memory frees up.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canScheduleQueuedJobsInOrderWhenJobsFinish() throws GenieException {
+        final String runningJob = this.init();
+        Assert.assertTrue(this.scheduleOrQueue(runningJob, 8));
+
+        final String firstQueuedJob = this.init();
+        final String secondQueuedJob = this.init();
+        Assert.assertFalse(this.scheduleOrQueue(firstQueuedJob, 6));
+        // Would fit but mustn't jump ahead of the job already waiting
+        Assert.assertFalse(this.scheduleOrQueue(secondQueuedJob, 2));
+        Assert.assertThat(this.jobStateService.getNumQueuedJobs(), Matchers.is(2));
+
+        this.jobStateService.done(runningJob);
+        Assert.assertThat(this.jobStateService.getNumQueuedJobs(), Matchers.is(0));
+        Assert.assertThat(this.jobStateService.getUsedMemory(), Matchers.is(8));
+        Assert.assertThat(this.jobStateService.getNumActiveJobs(), Matchers.is(2));
+        Mockito
+            .verify(this.launchExecutor, Mockito.times(3))
+            .submit(Mockito.any(Runnable.class));
+        Mockito.verify(this.queueWait, Mockito.times(2)).record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Make sure jobs which are finished while queued are never scheduled.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canDropQueuedJobWhenItIsDone() throws GenieException {
+        final String runningJob = this.init();
+        Assert.assertTrue(this.scheduleOrQueue(runningJob, MAX_SYSTEM_MEMORY));
+        final String queuedJob = this.init();
+        Assert.assertFalse(this.scheduleOrQueue(queuedJob, 1));
+
+        this.jobStateService.done(queuedJob);
+        Assert.assertThat(this.jobStateService.getNumQueuedJobs(), Matchers.is(0));
+
+        this.jobStateService.done(runningJob);
+        Assert.assertThat(this.jobStateService.getUsedMemory(), Matchers.is(0));
+        Mockito
+            .verify(this.launchExecutor, Mockito.times(1))
+            .submit(Mockito.any(Runnable.class));
+    }
+
+    /**
+     * Make sure the time a job waited for a launch thread is recorded once its launcher runs.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canRecordLaunchWaitTime() throws GenieException {
+        Assert.assertTrue(this.scheduleOrQueue(this.init(), 1));
+        final ArgumentCaptor<Runnable> launchCaptor = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(this.launchExecutor, Mockito.times(1)).submit(launchCaptor.capture());
+        Mockito.verify(this.launchWait, Mockito.never()).record(Mockito.anyLong(), Mockito.any(TimeUnit.class));
+
+        launchCaptor.getValue().run();
+        Mockito.verify(this.launchWait, Mockito.times(1)).record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Make sure a queued job which the launch executor rejects is failed instead of left waiting forever.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canFailQueuedJobWhenLaunchIsRejected() throws GenieException {
+        final String runningJob = this.init();
+        Assert.assertTrue(this.scheduleOrQueue(runningJob, MAX_SYSTEM_MEMORY));
+        final String queuedJob = this.init();
+        Assert.assertFalse(this.scheduleOrQueue(queuedJob, 1));
+
+        Mockito
+            .when(this.launchExecutor.submit(Mockito.any(Runnable.class)))
+            .thenThrow(new TaskRejectedException("full"));
+        this.jobStateService.done(runningJob);
+
+        Assert.assertThat(this.jobStateService.getNumQueuedJobs(), Matchers.is(0));
+        // The first event is the one announcing the running job was scheduled
+        final ArgumentCaptor<ApplicationEvent> eventCaptor = ArgumentCaptor.forClass(ApplicationEvent.class);
+        Mockito.verify(this.publisher, Mockito.times(2)).publishEvent(eventCaptor.capture());
+        Assert.assertThat(eventCaptor.getValue(), Matchers.instanceOf(JobFinishedEvent.class));
+        final JobFinishedEvent event = (JobFinishedEvent) eventCaptor.getValue();
+        Assert.assertThat(event.getId(), Matchers.is(queuedJob));
+        Assert.assertThat(event.getReason(), Matchers.is(JobFinishedReason.FAILED_TO_INIT));
+        Assert.assertThat(event.getMessage(), Matchers.is(JobStatusMessages.SUBMIT_INIT_FAILURE));
+    }
+
+    /**
+     * Make sure jobs are rejected once the queue is full.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void cantQueueWhenQueueIsFull() throws GenieException {
+        Assert.assertTrue(this.scheduleOrQueue(this.init(), MAX_SYSTEM_MEMORY));
+        Assert.assertFalse(this.scheduleOrQueue(this.init(), 1));
+        Assert.assertFalse(this.scheduleOrQueue(this.init(), 1));
+        try {
+            this.scheduleOrQueue(this.init(), 1);
+            Assert.fail();
+        } catch (final GenieServerUnavailableException gsue) {
+            Mockito.verify(this.queueRejected, Mockito.times(1)).increment();
+            Assert.assertThat(this.jobStateService.getNumQueuedJobs(), Matchers.is(2));
+        }
+    }
+
+    /**
+     * Hammer the service with concurrent reservations and completions and make sure the memory of the node is never
+     * over committed and the totals go back to zero once every job is done.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void cantOverCommitMemoryUnderConcurrentReservations() throws Exception {
+        final int threads = 8;
+        final int jobsPerThread = 500;
+        final AtomicInteger reserved = new AtomicInteger();
+        final AtomicInteger maxObserved = new AtomicInteger();
+        final AtomicInteger overCommits = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = Lists.newArrayList();
+            for (int i = 0; i < threads; i++) {
+                futures.add(
+                    executor.submit(
+                        () -> {
+                            start.await();
+                            final Random random = new Random();
+                            for (int j = 0; j < jobsPerThread; j++) {
+                                final String jobId = this.init();
+                                final int memory = random.nextInt(MAX_SYSTEM_MEMORY / 2) + 1;
+                                if (this.jobStateService.reserveMemory(jobId, memory)) {
+                                    this.jobStateService.schedule(
+                                        jobId,
+                                        Mockito.mock(JobRequest.class),
+                                        Mockito.mock(Cluster.class),
+                                        Mockito.mock(Command.class),
+                                        Lists.newArrayList(),
+                                        memory
+                                    );
+                                    final int total = reserved.addAndGet(memory);
+                                    maxObserved.accumulateAndGet(total, Math::max);
+                                    if (total > MAX_SYSTEM_MEMORY
+                                        || this.jobStateService.getUsedMemory() > MAX_SYSTEM_MEMORY) {
+                                        overCommits.incrementAndGet();
+                                    }
+                                    reserved.addAndGet(-memory);
+                                }
+                                this.jobStateService.done(jobId);
+                            }
+                            return null;
+                        }
+                    )
+                );
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get(1, TimeUnit.MINUTES);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertThat(overCommits.get(), Matchers.is(0));
+        Assert.assertThat(maxObserved.get(), Matchers.lessThanOrEqualTo(MAX_SYSTEM_MEMORY));
+        Assert.assertThat(this.jobStateService.getUsedMemory(), Matchers.is(0));
+        Assert.assertThat(this.jobStateService.getNumActiveJobs(), Matchers.is(0));
+    }
+
+    /**
+     * Make sure the memory of jobs is only reserved when the admission policy admits them and the decisions are
+     * counted.
+     */
+    @Test
+    public void canReserveMemoryOnlyWhenAdmitted() {
+        final JobAdmissionPolicy admissionPolicy = Mockito.mock(JobAdmissionPolicy.class);
+        this.jobStateService = new JobStateServiceImpl(
+            Mockito.mock(JobSubmitterService.class),
+            Mockito.mock(TaskScheduler.class),
+            this.launchExecutor,
+            this.publisher,
+            this.registry,
+            this.jobsProperties,
+            admissionPolicy
+        );
+        // More than the node has as the policy decides
+        final int memory = 2 * MAX_SYSTEM_MEMORY;
+        Mockito.when(admissionPolicy.canAdmit(0, memory)).thenReturn(true);
+        Mockito.when(admissionPolicy.canAdmit(memory, 1)).thenReturn(false);
+
+        Assert.assertTrue(this.jobStateService.canReserveMemory(memory));
+        Assert.assertTrue(this.jobStateService.reserveMemory(this.init(), memory));
+        Assert.assertThat(this.jobStateService.getUsedMemory(), Matchers.is(memory));
+        Mockito.verify(this.admitted, Mockito.times(1)).increment();
+
+        Assert.assertFalse(this.jobStateService.canReserveMemory(1));
+        Assert.assertFalse(this.jobStateService.reserveMemory(this.init(), 1));
+        Assert.assertThat(this.jobStateService.getUsedMemory(), Matchers.is(memory));
+        Mockito.verify(this.notAdmitted, Mockito.times(1)).increment();
+    }
+
+    /**
+     * Make sure queued jobs are retried periodically so they're launched once they're admitted even if no job
+     * finishes.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canScheduleQueuedJobsPeriodically() throws GenieException {
+        final JobAdmissionPolicy admissionPolicy = Mockito.mock(JobAdmissionPolicy.class);
+        final TaskScheduler scheduler = Mockito.mock(TaskScheduler.class);
+        this.jobStateService = new JobStateServiceImpl(
+            Mockito.mock(JobSubmitterService.class),
+            scheduler,
+            this.launchExecutor,
+            this.publisher,
+            this.registry,
+            this.jobsProperties,
+            admissionPolicy
+        );
+        final ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+        Mockito
+            .verify(scheduler, Mockito.times(1))
+            .scheduleWithFixedDelay(
+                retry.capture(),
+                Mockito.any(Date.class),
+                Mockito.eq(this.jobsProperties.getQueue().getRetryInterval())
+            );
+
+        // Nothing runs on the node but the observed usage is too high
+        Mockito.when(admissionPolicy.canAdmit(0, 2)).thenReturn(false);
+        final String queuedJob = this.init();
+        Assert.assertFalse(this.scheduleOrQueue(queuedJob, 2));
+        retry.getValue().run();
+        Assert.assertThat(this.jobStateService.getNumQueuedJobs(), Matchers.is(1));
+        Mockito.verify(this.launchExecutor, Mockito.never()).submit(Mockito.any(Runnable.class));
+
+        Mockito.when(admissionPolicy.canAdmit(0, 2)).thenReturn(true);
+        retry.getValue().run();
+        Assert.assertThat(this.jobStateService.getNumQueuedJobs(), Matchers.is(0));
+        Assert.assertThat(this.jobStateService.getUsedMemory(), Matchers.is(2));
+        Mockito.verify(this.launchExecutor, Mockito.times(1)).submit(Mockito.any(Runnable.class));
+    }
+
+    private String init() {
+        final String jobId = UUID.randomUUID().toString();
+        this.jobStateService.init(jobId);
+        return jobId;
+    }
+
+    private boolean scheduleOrQueue(final String jobId, final int memory) throws GenieException {
+        return this.jobStateService.scheduleOrQueue(
+            jobId,
+            Mockito.mock(JobRequest.class),
+            Mockito.mock(Cluster.class),
+            Mockito.mock(Command.class),
+            Lists.newArrayList(),
+            memory
+        );
+    }
+}
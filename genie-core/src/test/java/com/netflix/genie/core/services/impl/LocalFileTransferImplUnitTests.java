@@ -18,6 +18,7 @@
 package com.netflix.genie.core.services.impl;
 
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.test.categories.UnitTest;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
@@ -29,6 +30,8 @@ import org.junit.rules.TemporaryFolder;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.UUID;
 
 /**
@@ -146,6 +149,51 @@ public class LocalFileTransferImplUnitTests {
         Assert.assertTrue(dstFile3.exists());
     }
 
+    /**
+     * Make sure a stream can be put to a new directory.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void canPutStream() throws GenieException, IOException {
+        final File dstFile = new File(
+            new File(this.temporaryFolder.getRoot(), UUID.randomUUID().toString()),
+            UUID.randomUUID().toString()
+        );
+
+        this.localFileTransfer.putStream(
+            output -> output.write("data".getBytes(StandardCharsets.UTF_8)),
+            dstFile.getAbsolutePath()
+        );
+        Assert.assertEquals("data", new String(Files.readAllBytes(dstFile.toPath()), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Make sure nothing is left at the destination if the writer fails.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void cantPutStreamIfWriterFails() throws GenieException {
+        final File folder = this.temporaryFolder.getRoot();
+        final File dstFile = new File(folder, UUID.randomUUID().toString());
+
+        try {
+            this.localFileTransfer.putStream(
+                output -> {
+                    output.write("data".getBytes(StandardCharsets.UTF_8));
+                    throw new IOException("writer failed");
+                },
+                dstFile.getAbsolutePath()
+            );
+            Assert.fail();
+        } catch (final GenieServerException gse) {
+            Assert.assertFalse(dstFile.exists());
+            Assert.assertThat(folder.list(), Matchers.emptyArray());
+        }
+    }
+
     /**
      * Make sure the last modified time is accurate.
      *
@@ -29,6 +29,7 @@ import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.core.jobs.JobConstants;
 import com.netflix.genie.core.jobs.workflow.WorkflowTask;
+import com.netflix.genie.core.properties.JobsDownloadsProperties;
 import com.netflix.genie.core.services.JobPersistenceService;
 import com.netflix.genie.core.services.JobSubmitterService;
 import com.netflix.genie.test.categories.UnitTest;
@@ -44,6 +45,7 @@ import org.mockito.Mockito;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.ApplicationEventMulticaster;
 import org.springframework.core.io.Resource;
+import org.springframework.core.task.AsyncTaskExecutor;
 
 import java.io.File;
 import java.io.IOException;
@@ -112,6 +114,8 @@ public class LocalJobRunnerUnitTests {
             eventMulticaster,
             jobWorkflowTasks,
             baseWorkingDirResource,
+            Mockito.mock(AsyncTaskExecutor.class),
+            JobsDownloadsProperties.DEFAULT_MAX_CONCURRENT,
             registry
         );
     }
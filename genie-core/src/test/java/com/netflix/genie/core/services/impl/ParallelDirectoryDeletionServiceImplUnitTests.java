@@ -0,0 +1,290 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services.impl;
+
+import com.google.common.collect.ImmutableList;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.SystemUtils;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Unit tests for the ParallelDirectoryDeletionServiceImpl class.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class ParallelDirectoryDeletionServiceImplUnitTests {
+
+    /**
+     * Temporary folder standing in for the jobs directory.
+     */
+    @Rule
+    public final TemporaryFolder jobsDir = new TemporaryFolder();
+
+    /**
+     * Temporary folder outside the jobs directory.
+     */
+    @Rule
+    public final TemporaryFolder otherDir = new TemporaryFolder();
+
+    private Registry registry;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.registry = new DefaultRegistry();
+    }
+
+    /**
+     * Make sure a directory with more files than fit in one batch is deleted on the executor, without following
+     * symbolic links out of it.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canDeleteDirectoryInParallel() throws IOException {
+        Assume.assumeTrue(SystemUtils.IS_OS_UNIX);
+        final File directory = this.jobsDir.newFolder("job", "genie", "applications");
+        final int files = this.createTree(directory, 3, 900);
+        final File outside = this.otherDir.newFile("outside");
+        Files.createSymbolicLink(new File(directory, "link").toPath(), outside.toPath());
+
+        final ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            this.createService(executor, false).deleteDirectory(directory);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        Assert.assertFalse(directory.exists());
+        Assert.assertTrue(new File(this.jobsDir.getRoot(), "job/genie").exists());
+        Assert.assertTrue(outside.exists());
+        Assert.assertThat(
+            this.registry.counter("genie.directoryDeletion.files.counter").count(),
+            Matchers.is(files + 1L)
+        );
+        Assert.assertThat(this.registry.counter("genie.directoryDeletion.failure.counter").count(), Matchers.is(0L));
+        Assert.assertThat(
+            this.registry
+                .timer(
+                    this.registry
+                        .createId("genie.directoryDeletion.timer")
+                        .withTag("mode", "parallel")
+                        .withTag("status", "success")
+                )
+                .count(),
+            Matchers.is(1L)
+        );
+    }
+
+    /**
+     * Make sure files are deleted on the calling thread when the executor is full.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canDeleteOnCallingThreadWhenExecutorIsFull() throws IOException {
+        final File directory = this.jobsDir.newFolder("job");
+        final int files = this.createTree(directory, 2, 10);
+
+        this.createService(
+            task -> {
+                throw new RejectedExecutionException("full");
+            },
+            false
+        ).deleteDirectory(directory);
+
+        Assert.assertFalse(directory.exists());
+        Assert.assertThat(
+            this.registry.counter("genie.directoryDeletion.files.counter").count(),
+            Matchers.is((long) files)
+        );
+    }
+
+    /**
+     * Make sure nothing outside the jobs directory, or the jobs directory itself, is deleted.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void wontDeleteOutsideJobsDir() throws IOException {
+        final ParallelDirectoryDeletionServiceImpl service = this.createService(Runnable::run, false);
+        final File outside = this.otherDir.newFolder("job");
+        try {
+            service.deleteDirectory(outside);
+            Assert.fail();
+        } catch (final IOException ioe) {
+            Assert.assertTrue(outside.exists());
+        }
+        try {
+            service.deleteDirectory(new File(this.jobsDir.newFolder("job"), ".."));
+            Assert.fail();
+        } catch (final IOException ioe) {
+            Assert.assertTrue(this.jobsDir.getRoot().exists());
+        }
+    }
+
+    /**
+     * Make sure deleting a directory which doesn't exist does nothing.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canIgnoreMissingDirectory() throws IOException {
+        this.createService(Runnable::run, false).deleteDirectory(new File(this.jobsDir.getRoot(), "missing"));
+        Assert.assertThat(
+            this.registry.timer(this.registry.createId("genie.directoryDeletion.timer")).count(),
+            Matchers.is(0L)
+        );
+    }
+
+    /**
+     * Make sure directories are deleted with a sudo process each when jobs run as their users, more than one at once.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canDeleteWithSudoConcurrently() throws Exception {
+        Assume.assumeTrue(SystemUtils.IS_OS_UNIX);
+        final File directory1 = this.jobsDir.newFolder("job1");
+        final File directory2 = this.jobsDir.newFolder("job 2");
+        this.createTree(directory1, 2, 5);
+        this.createTree(directory2, 2, 5);
+
+        // Each deletion waits for the other one to start so they'd time out if they were run one at a time
+        final String started = new File(this.otherDir.getRoot(), "started").getAbsolutePath();
+        final ParallelDirectoryDeletionServiceImpl service = new ParallelDirectoryDeletionServiceImpl(
+            new FileSystemResource(this.jobsDir.getRoot()),
+            Runnable::run,
+            true,
+            ImmutableList.of(
+                "bash",
+                "-c",
+                "echo \"$1\" >> \"$0\"; for i in $(seq 500); do "
+                    + "[ $(wc -l < \"$0\") -ge 2 ] && exec rm -rf -- \"$1\"; sleep 0.01; done; exit 1",
+                started
+            ),
+            this.registry
+        );
+        final ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            final Future<?> deletion1 = callers.submit(() -> {
+                service.deleteDirectory(directory1);
+                return null;
+            });
+            final Future<?> deletion2 = callers.submit(() -> {
+                service.deleteDirectory(directory2);
+                return null;
+            });
+            deletion1.get();
+            deletion2.get();
+        } finally {
+            callers.shutdownNow();
+        }
+
+        Assert.assertFalse(directory1.exists());
+        Assert.assertFalse(directory2.exists());
+        Assert.assertThat(
+            this.registry
+                .timer(
+                    this.registry
+                        .createId("genie.directoryDeletion.timer")
+                        .withTag("mode", "sudo")
+                        .withTag("status", "success")
+                )
+                .count(),
+            Matchers.is(2L)
+        );
+    }
+
+    /**
+     * Make sure a failure of the sudo process is surfaced.
+     *
+     * @throws IOException on error
+     */
+    @Test(expected = IOException.class)
+    public void canFailWhenSudoFails() throws IOException {
+        Assume.assumeTrue(SystemUtils.IS_OS_UNIX);
+        final File directory = this.jobsDir.newFolder("job");
+        final ParallelDirectoryDeletionServiceImpl service = new ParallelDirectoryDeletionServiceImpl(
+            new FileSystemResource(this.jobsDir.getRoot()),
+            Runnable::run,
+            true,
+            ImmutableList.of("false"),
+            this.registry
+        );
+        try {
+            service.deleteDirectory(directory);
+        } finally {
+            Assert.assertTrue(directory.exists());
+            Assert.assertThat(
+                this.registry.counter("genie.directoryDeletion.failure.counter").count(),
+                Matchers.is(1L)
+            );
+        }
+    }
+
+    private ParallelDirectoryDeletionServiceImpl createService(
+        final Executor executor,
+        final boolean runAsUserEnabled
+    ) throws IOException {
+        return new ParallelDirectoryDeletionServiceImpl(
+            new FileSystemResource(this.jobsDir.getRoot()),
+            executor,
+            runAsUserEnabled,
+            this.registry
+        );
+    }
+
+    private int createTree(final File directory, final int subdirectories, final int filesPerDirectory)
+        throws IOException {
+        int files = 0;
+        for (int i = 0; i < subdirectories; i++) {
+            final File subdirectory = new File(directory, "dependencies" + i + "/lib");
+            for (int j = 0; j < filesPerDirectory; j++) {
+                FileUtils.writeStringToFile(new File(subdirectory, "file" + j), "contents", StandardCharsets.UTF_8);
+                files++;
+            }
+        }
+        return files;
+    }
+}
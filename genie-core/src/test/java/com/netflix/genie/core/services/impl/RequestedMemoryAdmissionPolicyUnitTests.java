@@ -0,0 +1,71 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services.impl;
+
+import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.test.categories.UnitTest;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Unit tests for the RequestedMemoryAdmissionPolicy class.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class RequestedMemoryAdmissionPolicyUnitTests {
+
+    private static final int MAX_SYSTEM_MEMORY = 10;
+
+    private JobsProperties jobsProperties;
+    private RequestedMemoryAdmissionPolicy admissionPolicy;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.jobsProperties = new JobsProperties();
+        this.jobsProperties.getMemory().setMaxSystemMemory(MAX_SYSTEM_MEMORY);
+        this.admissionPolicy = new RequestedMemoryAdmissionPolicy(this.jobsProperties);
+    }
+
+    /**
+     * Make sure jobs are admitted for as long as the requested memory fits in the memory of the node.
+     */
+    @Test
+    public void canAdmitWhileRequestedMemoryFits() {
+        Assert.assertTrue(this.admissionPolicy.canAdmit(0, MAX_SYSTEM_MEMORY));
+        Assert.assertTrue(this.admissionPolicy.canAdmit(MAX_SYSTEM_MEMORY - 1, 1));
+        Assert.assertFalse(this.admissionPolicy.canAdmit(MAX_SYSTEM_MEMORY, 1));
+        Assert.assertFalse(this.admissionPolicy.canAdmit(0, MAX_SYSTEM_MEMORY + 1));
+    }
+
+    /**
+     * Make sure changes to the memory of the node are picked up.
+     */
+    @Test
+    public void canPickUpMemoryChanges() {
+        Assert.assertFalse(this.admissionPolicy.canAdmit(MAX_SYSTEM_MEMORY, 1));
+        this.jobsProperties.getMemory().setMaxSystemMemory(MAX_SYSTEM_MEMORY + 1);
+        Assert.assertTrue(this.admissionPolicy.canAdmit(MAX_SYSTEM_MEMORY, 1));
+    }
+}
@@ -18,24 +18,47 @@
 package com.netflix.genie.core.services.impl;
 
 import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
 import com.amazonaws.services.s3.model.GetObjectRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.PutObjectResult;
+import com.amazonaws.services.s3.model.S3Object;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.google.common.hash.Hashing;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.properties.S3TransferProperties;
 import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DistributionSummary;
 import com.netflix.spectator.api.Registry;
 import com.netflix.spectator.api.Timer;
 import org.junit.Assert;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Class to test the S3FileTransferImpl class.
@@ -51,11 +74,24 @@ public class S3FileTransferImplUnitTests {
     private static final String S3_KEY = "key";
     private static final String S3_PATH = S3_PREFIX + S3_BUCKET + "/" + S3_KEY;
     private static final String LOCAL_PATH = "local";
+    private static final String PARTS_KEY = "dir/" + S3_KEY;
+    private static final String PARTS_PATH = S3_PREFIX + S3_BUCKET + "/" + PARTS_KEY;
+    private static final String CONTENT = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final long PART_SIZE = 8L;
+
+    /**
+     * Temporary folder for the transferred files.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
     private S3FileTransferImpl s3FileTransfer;
     private AmazonS3Client s3Client;
     private Timer downloadTimer;
     private Timer uploadTimer;
+    private DistributionSummary downloadThroughput;
+    private DistributionSummary uploadThroughput;
+    private S3FileTransferImpl parallelS3FileTransfer;
 
     /**
      * Setup the tests.
@@ -69,8 +105,28 @@ public class S3FileTransferImplUnitTests {
         Mockito.when(registry.timer("genie.files.s3.download.timer")).thenReturn(this.downloadTimer);
         this.uploadTimer = Mockito.mock(Timer.class);
         Mockito.when(registry.timer("genie.files.s3.upload.timer")).thenReturn(this.uploadTimer);
+        this.downloadThroughput = Mockito.mock(DistributionSummary.class);
+        Mockito
+            .when(registry.distributionSummary("genie.files.s3.download.throughput"))
+            .thenReturn(this.downloadThroughput);
+        this.uploadThroughput = Mockito.mock(DistributionSummary.class);
+        Mockito
+            .when(registry.distributionSummary("genie.files.s3.upload.throughput"))
+            .thenReturn(this.uploadThroughput);
         this.s3Client = Mockito.mock(AmazonS3Client.class);
         this.s3FileTransfer = new S3FileTransferImpl(this.s3Client, registry);
+
+        final S3TransferProperties transferProperties = new S3TransferProperties();
+        transferProperties.setParallelEnabled(true);
+        transferProperties.setThreshold(PART_SIZE);
+        transferProperties.setPartSize(PART_SIZE);
+        transferProperties.setMaxConcurrent(3);
+        this.parallelS3FileTransfer = new S3FileTransferImpl(
+            this.s3Client,
+            transferProperties,
+            new SimpleAsyncTaskExecutor(),
+            registry
+        );
     }
 
     /**
@@ -154,6 +210,32 @@ public class S3FileTransferImplUnitTests {
             .record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
     }
 
+    /**
+     * Test the getFileIfModified method sends the modified since constraint and reports whether it downloaded.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void testGetFileIfModifiedMethod() throws GenieException {
+        final long lastModified = 1500000000000L;
+        final String key = "dir/" + S3_KEY;
+        final String path = S3_PREFIX + S3_BUCKET + "/" + key;
+        Mockito.when(this.s3Client.getObject(Mockito.any(GetObjectRequest.class), Mockito.any(File.class)))
+            .thenReturn(Mockito.mock(ObjectMetadata.class))
+            .thenReturn(null);
+        final ArgumentCaptor<GetObjectRequest> argument = ArgumentCaptor.forClass(GetObjectRequest.class);
+
+        Assert.assertTrue(s3FileTransfer.getFileIfModified(path, LOCAL_PATH, lastModified));
+        Assert.assertFalse(s3FileTransfer.getFileIfModified(path, LOCAL_PATH, lastModified));
+        Mockito.verify(this.s3Client, Mockito.times(2)).getObject(argument.capture(), Mockito.any(File.class));
+        Assert.assertEquals(S3_BUCKET, argument.getValue().getBucketName());
+        Assert.assertEquals(key, argument.getValue().getKey());
+        Assert.assertEquals(lastModified, argument.getValue().getModifiedSinceConstraint().getTime());
+        Mockito
+            .verify(this.downloadTimer, Mockito.times(2))
+            .record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
+    }
+
     /**
      * Test the putFile method for invalid s3 path.
      *
@@ -202,4 +284,378 @@ public class S3FileTransferImplUnitTests {
         s3FileTransfer.getFile(LOCAL_PATH, S3_PATH);
         Mockito.verify(this.uploadTimer, Mockito.times(1)).record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
     }
+
+    /**
+     * Make sure large objects are downloaded with ranged GETs which are written to the right place in the file.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void canGetFileInParts() throws GenieException, IOException {
+        final byte[] content = CONTENT.getBytes(StandardCharsets.UTF_8);
+        final ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(content.length);
+        metadata.setHeader("ETag", "etag");
+        Mockito.when(this.s3Client.getObjectMetadata(S3_BUCKET, PARTS_KEY)).thenReturn(metadata);
+        Mockito.when(this.s3Client.getObject(Mockito.any(GetObjectRequest.class))).thenAnswer(
+            invocation -> {
+                final GetObjectRequest request = (GetObjectRequest) invocation.getArguments()[0];
+                Assert.assertEquals(Collections.singletonList("etag"), request.getMatchingETagConstraints());
+                final long[] range = request.getRange();
+                final S3Object object = new S3Object();
+                object.setObjectContent(
+                    new ByteArrayInputStream(content, (int) range[0], (int) (range[1] - range[0] + 1))
+                );
+                return object;
+            }
+        );
+        final File dst = new File(this.temporaryFolder.getRoot(), "dst");
+
+        this.parallelS3FileTransfer.getFile(PARTS_PATH, dst.getAbsolutePath());
+        Assert.assertEquals(CONTENT, new String(Files.readAllBytes(dst.toPath()), StandardCharsets.UTF_8));
+        Mockito.verify(this.s3Client, Mockito.times(5)).getObject(Mockito.any(GetObjectRequest.class));
+        Mockito.verify(this.downloadThroughput, Mockito.times(1)).record(Mockito.anyLong());
+        Mockito
+            .verify(this.downloadTimer, Mockito.times(1))
+            .record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Make sure a download fails if the object changes between parts.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test(expected = GenieServerException.class)
+    public void cantGetFileInPartsIfObjectChanges() throws GenieException {
+        final ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(CONTENT.length());
+        metadata.setHeader("ETag", "etag");
+        Mockito.when(this.s3Client.getObjectMetadata(S3_BUCKET, PARTS_KEY)).thenReturn(metadata);
+        Mockito.when(this.s3Client.getObject(Mockito.any(GetObjectRequest.class))).thenReturn(null);
+
+        this.parallelS3FileTransfer.getFile(
+            PARTS_PATH,
+            new File(this.temporaryFolder.getRoot(), "dst").getAbsolutePath()
+        );
+    }
+
+    /**
+     * Make sure nothing is left at the destination when a part fails to download.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void cantLeavePartialFileWhenPartFails() throws GenieException {
+        final byte[] content = CONTENT.getBytes(StandardCharsets.UTF_8);
+        this.mockPartsMetadata(content, "etag");
+        Mockito.when(this.s3Client.getObject(Mockito.any(GetObjectRequest.class))).thenAnswer(
+            invocation -> {
+                final long[] range = ((GetObjectRequest) invocation.getArguments()[0]).getRange();
+                if (range[0] == 2 * PART_SIZE) {
+                    throw new AmazonS3Exception("connection reset");
+                }
+                final S3Object object = new S3Object();
+                object.setObjectContent(
+                    new ByteArrayInputStream(content, (int) range[0], (int) (range[1] - range[0] + 1))
+                );
+                return object;
+            }
+        );
+        final File dst = new File(this.temporaryFolder.getRoot(), "dst");
+
+        try {
+            this.parallelS3FileTransfer.getFile(PARTS_PATH, dst.getAbsolutePath());
+            Assert.fail("Download should have failed");
+        } catch (final GenieServerException gse) {
+            Assert.assertFalse(dst.exists());
+            Assert.assertArrayEquals(new String[0], this.temporaryFolder.getRoot().list());
+        }
+    }
+
+    /**
+     * Make sure a download in parts fails if its MD5 doesn't match the ETag of an object uploaded in one request.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void cantGetFileInPartsIfMd5DoesNotMatch() throws GenieException {
+        final byte[] content = CONTENT.getBytes(StandardCharsets.UTF_8);
+        this.mockPartsMetadata(content, Hashing.md5().hashBytes(content).toString());
+        Mockito.when(this.s3Client.getObject(Mockito.any(GetObjectRequest.class))).thenAnswer(
+            invocation -> {
+                final long[] range = ((GetObjectRequest) invocation.getArguments()[0]).getRange();
+                final byte[] corrupt = content.clone();
+                corrupt[(int) range[0]] = '!';
+                final S3Object object = new S3Object();
+                object.setObjectContent(
+                    new ByteArrayInputStream(corrupt, (int) range[0], (int) (range[1] - range[0] + 1))
+                );
+                return object;
+            }
+        );
+        final File dst = new File(this.temporaryFolder.getRoot(), "dst");
+
+        try {
+            this.parallelS3FileTransfer.getFile(PARTS_PATH, dst.getAbsolutePath());
+            Assert.fail("Download should have failed");
+        } catch (final GenieServerException gse) {
+            Assert.assertFalse(dst.exists());
+            Assert.assertArrayEquals(new String[0], this.temporaryFolder.getRoot().list());
+        }
+    }
+
+    /**
+     * Make sure large files are uploaded as a multipart upload with one request per part.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void canPutFileInParts() throws GenieException, IOException {
+        final File src = this.temporaryFolder.newFile();
+        Files.write(src.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+        final InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+        initiateResult.setUploadId("upload");
+        Mockito
+            .when(this.s3Client.initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class)))
+            .thenReturn(initiateResult);
+        Mockito.when(this.s3Client.uploadPart(Mockito.any(UploadPartRequest.class))).thenAnswer(
+            invocation -> {
+                final UploadPartRequest request = (UploadPartRequest) invocation.getArguments()[0];
+                Assert.assertEquals("upload", request.getUploadId());
+                Assert.assertEquals(PART_SIZE * (request.getPartNumber() - 1), request.getFileOffset());
+                final UploadPartResult result = new UploadPartResult();
+                result.setPartNumber(request.getPartNumber());
+                result.setETag("etag" + request.getPartNumber());
+                return result;
+            }
+        );
+        final ArgumentCaptor<CompleteMultipartUploadRequest> argument
+            = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+
+        this.parallelS3FileTransfer.putFile(src.getAbsolutePath(), PARTS_PATH);
+        Mockito.verify(this.s3Client, Mockito.times(5)).uploadPart(Mockito.any(UploadPartRequest.class));
+        Mockito.verify(this.s3Client).completeMultipartUpload(argument.capture());
+        Assert.assertEquals(S3_BUCKET, argument.getValue().getBucketName());
+        Assert.assertEquals(PARTS_KEY, argument.getValue().getKey());
+        Assert.assertEquals(5, argument.getValue().getPartETags().size());
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(i + 1, argument.getValue().getPartETags().get(i).getPartNumber());
+            Assert.assertEquals("etag" + (i + 1), argument.getValue().getPartETags().get(i).getETag());
+        }
+        Mockito
+            .verify(this.s3Client, Mockito.never())
+            .putObject(Mockito.any(), Mockito.any(), Mockito.any(File.class));
+        Mockito.verify(this.uploadThroughput, Mockito.times(1)).record(Mockito.anyLong());
+    }
+
+    /**
+     * Make sure a multipart upload is aborted if a part fails.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void canAbortPutFileInParts() throws GenieException, IOException {
+        final File src = this.temporaryFolder.newFile();
+        Files.write(src.toPath(), CONTENT.getBytes(StandardCharsets.UTF_8));
+        final InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+        initiateResult.setUploadId("upload");
+        Mockito
+            .when(this.s3Client.initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class)))
+            .thenReturn(initiateResult);
+        Mockito
+            .when(this.s3Client.uploadPart(Mockito.any(UploadPartRequest.class)))
+            .thenThrow(new AmazonS3Exception("something"));
+        final ArgumentCaptor<AbortMultipartUploadRequest> argument
+            = ArgumentCaptor.forClass(AbortMultipartUploadRequest.class);
+
+        try {
+            this.parallelS3FileTransfer.putFile(src.getAbsolutePath(), PARTS_PATH);
+            Assert.fail();
+        } catch (final GenieServerException gse) {
+            Mockito.verify(this.s3Client).abortMultipartUpload(argument.capture());
+            Assert.assertEquals("upload", argument.getValue().getUploadId());
+            Mockito
+                .verify(this.s3Client, Mockito.never())
+                .completeMultipartUpload(Mockito.any(CompleteMultipartUploadRequest.class));
+        }
+    }
+
+    /**
+     * Make sure files under the threshold are still uploaded with a single request.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void canPutSmallFileInOneRequest() throws GenieException, IOException {
+        final File src = this.temporaryFolder.newFile();
+        Files.write(src.toPath(), "small".getBytes(StandardCharsets.UTF_8));
+
+        this.parallelS3FileTransfer.putFile(src.getAbsolutePath(), PARTS_PATH);
+        Mockito.verify(this.s3Client).putObject(S3_BUCKET, PARTS_KEY, src);
+        Mockito
+            .verify(this.s3Client, Mockito.never())
+            .initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class));
+    }
+
+    /**
+     * Make sure a stream larger than a part is uploaded as a multipart upload while it's written.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void canPutStreamInParts() throws GenieException {
+        final InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+        initiateResult.setUploadId("upload");
+        Mockito
+            .when(this.s3Client.initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class)))
+            .thenReturn(initiateResult);
+        final Map<Integer, String> uploaded = new ConcurrentHashMap<>();
+        Mockito.when(this.s3Client.uploadPart(Mockito.any(UploadPartRequest.class))).thenAnswer(
+            invocation -> {
+                final UploadPartRequest request = (UploadPartRequest) invocation.getArguments()[0];
+                final byte[] data = new byte[(int) request.getPartSize()];
+                Assert.assertEquals(data.length, request.getInputStream().read(data));
+                uploaded.put(request.getPartNumber(), new String(data, StandardCharsets.UTF_8));
+                final UploadPartResult result = new UploadPartResult();
+                result.setPartNumber(request.getPartNumber());
+                result.setETag("etag" + request.getPartNumber());
+                return result;
+            }
+        );
+        final ArgumentCaptor<CompleteMultipartUploadRequest> argument
+            = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+
+        this.parallelS3FileTransfer.putStream(
+            output -> {
+                // Mix single byte and array writes
+                output.write(CONTENT.charAt(0));
+                output.write(CONTENT.substring(1).getBytes(StandardCharsets.UTF_8));
+            },
+            PARTS_PATH
+        );
+        Mockito.verify(this.s3Client).completeMultipartUpload(argument.capture());
+        Assert.assertEquals(5, argument.getValue().getPartETags().size());
+        final StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 5; i++) {
+            Assert.assertEquals(i + 1, argument.getValue().getPartETags().get(i).getPartNumber());
+            Assert.assertEquals("etag" + (i + 1), argument.getValue().getPartETags().get(i).getETag());
+            content.append(uploaded.get(i + 1));
+        }
+        Assert.assertEquals(CONTENT, content.toString());
+        Mockito.verify(this.uploadThroughput, Mockito.times(1)).record(Mockito.anyLong());
+    }
+
+    /**
+     * Make sure the parts of a stream are uploaded up to the maximum concurrency at the same time.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void canPutStreamPartsConcurrently() throws GenieException {
+        final InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+        initiateResult.setUploadId("upload");
+        Mockito
+            .when(this.s3Client.initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class)))
+            .thenReturn(initiateResult);
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final CountDownLatch allInFlight = new CountDownLatch(1);
+        Mockito.when(this.s3Client.uploadPart(Mockito.any(UploadPartRequest.class))).thenAnswer(
+            invocation -> {
+                final int current = inFlight.incrementAndGet();
+                maxInFlight.accumulateAndGet(current, Math::max);
+                if (current == 3) {
+                    allInFlight.countDown();
+                }
+                // Block the part until the maximum concurrency is reached
+                allInFlight.await(10, TimeUnit.SECONDS);
+                inFlight.decrementAndGet();
+                final UploadPartRequest request = (UploadPartRequest) invocation.getArguments()[0];
+                final UploadPartResult result = new UploadPartResult();
+                result.setPartNumber(request.getPartNumber());
+                result.setETag("etag" + request.getPartNumber());
+                return result;
+            }
+        );
+        final ArgumentCaptor<CompleteMultipartUploadRequest> argument
+            = ArgumentCaptor.forClass(CompleteMultipartUploadRequest.class);
+
+        this.parallelS3FileTransfer.putStream(
+            output -> output.write(CONTENT.getBytes(StandardCharsets.UTF_8)),
+            PARTS_PATH
+        );
+        Assert.assertEquals(0L, allInFlight.getCount());
+        Assert.assertEquals(3, maxInFlight.get());
+        Mockito.verify(this.s3Client).completeMultipartUpload(argument.capture());
+        Assert.assertEquals(5, argument.getValue().getPartETags().size());
+    }
+
+    /**
+     * Make sure a stream smaller than a part is uploaded with a single request.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void canPutSmallStreamInOneRequest() throws GenieException, IOException {
+        final ArgumentCaptor<InputStream> argument = ArgumentCaptor.forClass(InputStream.class);
+
+        this.parallelS3FileTransfer.putStream(
+            output -> output.write("small".getBytes(StandardCharsets.UTF_8)),
+            PARTS_PATH
+        );
+        Mockito
+            .verify(this.s3Client)
+            .putObject(Mockito.eq(S3_BUCKET), Mockito.eq(PARTS_KEY), argument.capture(), Mockito.any());
+        final byte[] data = new byte[5];
+        Assert.assertEquals(5, argument.getValue().read(data));
+        Assert.assertEquals("small", new String(data, StandardCharsets.UTF_8));
+        Mockito
+            .verify(this.s3Client, Mockito.never())
+            .initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class));
+    }
+
+    /**
+     * Make sure the multipart upload of a stream is aborted if the writer fails.
+     *
+     * @throws GenieException If there is any problem
+     */
+    @Test
+    public void canAbortPutStream() throws GenieException {
+        final InitiateMultipartUploadResult initiateResult = new InitiateMultipartUploadResult();
+        initiateResult.setUploadId("upload");
+        Mockito
+            .when(this.s3Client.initiateMultipartUpload(Mockito.any(InitiateMultipartUploadRequest.class)))
+            .thenReturn(initiateResult);
+        Mockito
+            .when(this.s3Client.uploadPart(Mockito.any(UploadPartRequest.class)))
+            .thenReturn(new UploadPartResult());
+
+        try {
+            this.parallelS3FileTransfer.putStream(
+                output -> {
+                    output.write(CONTENT.getBytes(StandardCharsets.UTF_8));
+                    throw new IOException("writer failed");
+                },
+                PARTS_PATH
+            );
+            Assert.fail();
+        } catch (final GenieServerException gse) {
+            Mockito.verify(this.s3Client).abortMultipartUpload(Mockito.any(AbortMultipartUploadRequest.class));
+            Mockito
+                .verify(this.s3Client, Mockito.never())
+                .completeMultipartUpload(Mockito.any(CompleteMultipartUploadRequest.class));
+        }
+    }
+
+    private void mockPartsMetadata(final byte[] content, final String eTag) {
+        final ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(content.length);
+        metadata.setHeader("ETag", eTag);
+        Mockito.when(this.s3Client.getObjectMetadata(S3_BUCKET, PARTS_KEY)).thenReturn(metadata);
+    }
 }
@@ -0,0 +1,201 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.services.impl;
+
+import com.google.common.io.ByteStreams;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.properties.JobsArchiveProperties;
+import com.netflix.genie.core.services.FileTransfer;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Unit tests for TarGzJobArchiveServiceImpl.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class TarGzJobArchiveServiceImplUnitTests {
+
+    private static final String ARCHIVE_LOCATION = "s3://bucket/archives/job.tar.gz";
+
+    /**
+     * Temporary folder for the job directories.
+     */
+    @Rule
+    public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private GenieFileTransferService fileTransferService;
+    private JobsArchiveProperties archiveProperties;
+    private Registry registry;
+    private TarGzJobArchiveServiceImpl archiveService;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.fileTransferService = Mockito.mock(GenieFileTransferService.class);
+        this.archiveProperties = new JobsArchiveProperties();
+        this.registry = new DefaultRegistry();
+        this.archiveService = new TarGzJobArchiveServiceImpl(
+            this.fileTransferService,
+            this.archiveProperties,
+            Executors.newFixedThreadPool(2),
+            false,
+            this.registry
+        );
+    }
+
+    /**
+     * Make sure the job directory is streamed as a gzipped tar to the archive location.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void canArchiveDirectory() throws GenieException, IOException {
+        this.assertArchivesDirectory();
+    }
+
+    /**
+     * Make sure the archive can still be read as a single gzip stream when it's compressed in parallel blocks.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void canArchiveDirectoryWithParallelCompression() throws GenieException, IOException {
+        this.archiveProperties.setCompressionThreads(2);
+        this.archiveProperties.setCompressionLevel(1);
+        // Smaller than a tar record so the archive is split over several blocks
+        this.archiveProperties.setCompressionBlockSize(100);
+        this.assertArchivesDirectory();
+    }
+
+    private void assertArchivesDirectory() throws GenieException, IOException {
+        final File jobDir = this.temporaryFolder.newFolder();
+        final Path stdout = Files.write(jobDir.toPath().resolve("stdout"), "out".getBytes(StandardCharsets.UTF_8));
+        final Path logs = Files.createDirectories(jobDir.toPath().resolve("genie").resolve("logs"));
+        final Path script = Files.write(logs.resolve("run"), "#!/bin/bash".getBytes(StandardCharsets.UTF_8));
+        Files.setPosixFilePermissions(script, PosixFilePermissions.fromString("rwxr-x---"));
+        Files.createSymbolicLink(jobDir.toPath().resolve("link"), stdout);
+
+        final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        Mockito
+            .doAnswer(
+                invocation -> {
+                    ((FileTransfer.StreamWriter) invocation.getArguments()[0]).write(archive);
+                    return null;
+                }
+            )
+            .when(this.fileTransferService)
+            .putStream(Mockito.any(FileTransfer.StreamWriter.class), Mockito.eq(ARCHIVE_LOCATION));
+
+        this.archiveService.archiveDirectory(jobDir, ARCHIVE_LOCATION);
+
+        final Map<String, TarArchiveEntry> entries = new HashMap<>();
+        final Map<String, String> contents = new HashMap<>();
+        try (
+            TarArchiveInputStream input = new TarArchiveInputStream(
+                new GZIPInputStream(new ByteArrayInputStream(archive.toByteArray()))
+            )
+        ) {
+            TarArchiveEntry entry = input.getNextTarEntry();
+            while (entry != null) {
+                entries.put(entry.getName(), entry);
+                contents.put(entry.getName(), new String(ByteStreams.toByteArray(input), StandardCharsets.UTF_8));
+                entry = input.getNextTarEntry();
+            }
+        }
+
+        Assert.assertEquals(6, entries.size());
+        Assert.assertTrue(entries.get("./").isDirectory());
+        Assert.assertTrue(entries.get("./genie/").isDirectory());
+        Assert.assertTrue(entries.get("./genie/logs/").isDirectory());
+        Assert.assertEquals("out", contents.get("./stdout"));
+        Assert.assertEquals("#!/bin/bash", contents.get("./genie/logs/run"));
+        Assert.assertEquals(0750, entries.get("./genie/logs/run").getMode() & 0777);
+        Assert.assertTrue(entries.get("./link").isSymbolicLink());
+        Assert.assertEquals(stdout.toString(), entries.get("./link").getLinkName());
+
+        Assert.assertEquals(
+            1L,
+            this.registry.timer(
+                this.registry.createId("genie.jobs.archive.timer").withTag("status", "success")
+            ).count()
+        );
+        Assert.assertEquals(
+            archive.size(),
+            this.registry.distributionSummary("genie.jobs.archive.size").totalAmount()
+        );
+    }
+
+    /**
+     * Make sure failures to upload the archive are propagated and recorded.
+     *
+     * @throws GenieException If there is any problem
+     * @throws IOException    If there is any problem
+     */
+    @Test
+    public void cantArchiveDirectoryIfUploadFails() throws GenieException, IOException {
+        final File jobDir = this.temporaryFolder.newFolder();
+        Mockito
+            .doThrow(new GenieServerException("upload failed"))
+            .when(this.fileTransferService)
+            .putStream(Mockito.any(FileTransfer.StreamWriter.class), Mockito.eq(ARCHIVE_LOCATION));
+
+        try {
+            this.archiveService.archiveDirectory(jobDir, ARCHIVE_LOCATION);
+            Assert.fail();
+        } catch (final GenieServerException gse) {
+            Assert.assertEquals(
+                1L,
+                this.registry.timer(
+                    this.registry.createId("genie.jobs.archive.timer").withTag("status", "failure")
+                ).count()
+            );
+            Assert.assertEquals(0L, this.registry.distributionSummary("genie.jobs.archive.size").count());
+        }
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.util;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Unit tests for HashedTimingWheel.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class HashedTimingWheelUnitTests {
+
+    private static final long TICK = 100L;
+    private static final int WHEEL_SIZE = 8;
+    private static final long START = 1_000_000L;
+
+    private HashedTimingWheel<String> wheel;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.wheel = new HashedTimingWheel<>(TICK, WHEEL_SIZE, START);
+    }
+
+    /**
+     * Make sure items expire once their deadline passed and not before.
+     */
+    @Test
+    public void canExpireAtDeadline() {
+        this.wheel.schedule("a", START + 250L);
+        this.wheel.schedule("b", START + 300L);
+        Assert.assertThat(this.wheel.size(), Matchers.is(2));
+
+        Assert.assertThat(this.wheel.advance(START + 249L), Matchers.empty());
+        Assert.assertThat(this.wheel.advance(START + 299L), Matchers.empty());
+        Assert.assertThat(this.wheel.advance(START + 300L), Matchers.contains("a", "b"));
+        Assert.assertThat(this.wheel.size(), Matchers.is(0));
+        Assert.assertThat(this.wheel.advance(START + 1000L), Matchers.empty());
+    }
+
+    /**
+     * Make sure items more than a revolution away only expire when their own tick is reached.
+     */
+    @Test
+    public void canExpireAfterSeveralRevolutions() {
+        final long farDeadline = START + 3 * WHEEL_SIZE * TICK + 50L;
+        this.wheel.schedule("far", farDeadline);
+        this.wheel.schedule("near", START + TICK);
+
+        for (long now = START; now < farDeadline; now += TICK) {
+            Assert.assertThat(this.wheel.advance(now), Matchers.not(Matchers.contains("far")));
+        }
+        Assert.assertThat(this.wheel.advance(farDeadline + TICK), Matchers.contains("far"));
+    }
+
+    /**
+     * Make sure items are expired even if the wheel wasn't advanced for longer than a revolution.
+     */
+    @Test
+    public void canCatchUp() {
+        this.wheel.schedule("a", START + TICK);
+        this.wheel.schedule("b", START + 5 * TICK);
+        this.wheel.schedule("c", START + 100 * TICK);
+        Assert.assertThat(
+            this.wheel.advance(START + 50 * TICK),
+            Matchers.containsInAnyOrder("a", "b")
+        );
+        Assert.assertThat(this.wheel.advance(START + 100 * TICK), Matchers.contains("c"));
+    }
+
+    /**
+     * Make sure items whose deadline already passed expire on the next advance.
+     */
+    @Test
+    public void canExpirePastDeadline() {
+        this.wheel.advance(START + 10 * TICK);
+        this.wheel.schedule("late", START);
+        Assert.assertThat(this.wheel.advance(START + 10 * TICK), Matchers.empty());
+        Assert.assertThat(this.wheel.advance(START + 11 * TICK), Matchers.contains("late"));
+    }
+
+    /**
+     * Make sure cancelled items don't expire.
+     */
+    @Test
+    public void canCancel() {
+        final HashedTimingWheel.Timeout<String> timeout = this.wheel.schedule("a", START + TICK);
+        this.wheel.schedule("b", START + TICK);
+        Assert.assertTrue(timeout.cancel());
+        Assert.assertFalse(timeout.cancel());
+        Assert.assertThat(this.wheel.size(), Matchers.is(1));
+        Assert.assertThat(this.wheel.advance(START + TICK), Matchers.contains("b"));
+
+        final HashedTimingWheel.Timeout<String> expired = this.wheel.schedule("c", START + 2 * TICK);
+        this.wheel.advance(START + 2 * TICK);
+        Assert.assertFalse(expired.cancel());
+    }
+
+    /**
+     * Make sure the wheel can't be built with invalid sizes.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void cantConstructWithInvalidTick() {
+        new HashedTimingWheel<String>(0L, WHEEL_SIZE, START);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.util;
+
+import com.google.common.io.ByteStreams;
+import com.netflix.genie.test.categories.UnitTest;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Unit tests for ParallelGzipOutputStream.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class ParallelGzipOutputStreamUnitTests {
+
+    private ExecutorService executor;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.executor = Executors.newFixedThreadPool(4);
+    }
+
+    /**
+     * Cleanup after the tests.
+     */
+    @After
+    public void cleanup() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Make sure data split over many blocks reads back as a single gzip stream.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canCompressInParallel() throws IOException {
+        // Compressible data so each block is made of real deflate output
+        final byte[] data = new byte[1024 * 1024 + 17];
+        final Random random = new Random(42);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + random.nextInt(4));
+        }
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+
+        try (ParallelGzipOutputStream output = new ParallelGzipOutputStream(compressed, this.executor, 4, 6, 65536)) {
+            // Mix single byte and array writes
+            output.write(data[0]);
+            output.write(data, 1, data.length - 1);
+        }
+
+        Assert.assertArrayEquals(data, this.decompress(compressed.toByteArray()));
+        Assert.assertTrue(compressed.size() < data.length / 2);
+    }
+
+    /**
+     * Make sure the output is comparable in size to that of a single threaded gzip.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canCompressAsWellAsGzip() throws IOException {
+        final byte[] data = new byte[512 * 1024];
+        final Random random = new Random(7);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) ('a' + random.nextInt(16));
+        }
+        final ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+        try (ParallelGzipOutputStream output = new ParallelGzipOutputStream(parallel, this.executor, 2, 6, 131072)) {
+            output.write(data);
+        }
+        final ByteArrayOutputStream single = new ByteArrayOutputStream();
+        try (GZIPOutputStream output = new GZIPOutputStream(single)) {
+            output.write(data);
+        }
+
+        Assert.assertTrue(parallel.size() < single.size() * 1.05);
+    }
+
+    /**
+     * Make sure an empty stream is still a valid gzip file.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canCompressEmptyStream() throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        new ParallelGzipOutputStream(compressed, this.executor, 2, 6, 1024).close();
+
+        Assert.assertArrayEquals(new byte[0], this.decompress(compressed.toByteArray()));
+    }
+
+    /**
+     * Make sure finishing doesn't close the underlying stream and no more data can be written after.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canFinishWithoutClosing() throws IOException {
+        final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        final ParallelGzipOutputStream output = new ParallelGzipOutputStream(compressed, Runnable::run, 1, 9, 4);
+        output.write(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9});
+        output.finish();
+        output.finish();
+
+        Assert.assertArrayEquals(new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9}, this.decompress(compressed.toByteArray()));
+        try {
+            output.write(10);
+            Assert.fail();
+        } catch (final IOException ioe) {
+            // Expected
+        }
+    }
+
+    /**
+     * Make sure invalid settings are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void cantUseInvalidLevel() {
+        new ParallelGzipOutputStream(new ByteArrayOutputStream(), this.executor, 2, 10, 1024);
+    }
+
+    private byte[] decompress(final byte[] compressed) throws IOException {
+        try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return ByteStreams.toByteArray(input);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.util;
+
+import com.netflix.genie.common.exceptions.GenieTimeoutException;
+import com.netflix.genie.test.categories.UnitTest;
+import org.apache.commons.exec.ExecuteException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Calendar;
+import java.util.Date;
+
+/**
+ * Unit tests for ProcFsProcessChecker.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class ProcFsProcessCheckerUnitTests {
+
+    private static final int PID = 18243;
+
+    /**
+     * Temporary folder standing in for the proc filesystem.
+     */
+    @Rule
+    public final TemporaryFolder procDirectory = new TemporaryFolder();
+
+    private Date tomorrow;
+    private ProcFsProcessChecker processChecker;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        final Calendar calendar = Calendar.getInstance();
+        // For standard tests this will keep it from dying
+        calendar.add(Calendar.DAY_OF_YEAR, 1);
+        this.tomorrow = calendar.getTime();
+        this.processChecker = new ProcFsProcessChecker(PID, this.procDirectory.getRoot(), this.tomorrow);
+    }
+
+    /**
+     * Make sure a running process passes the check even if its name looks like the end of the command.
+     *
+     * @throws GenieTimeoutException on timeout
+     * @throws IOException           on error
+     */
+    @Test
+    public void canCheckRunningProcess() throws GenieTimeoutException, IOException {
+        this.writeStat(PID + " (run) Z (x) S 1 18243 18243 0 -1 4194560");
+        this.processChecker.checkProcess();
+    }
+
+    /**
+     * Make sure a process which no longer exists is reported as finished.
+     *
+     * @throws GenieTimeoutException on timeout
+     * @throws IOException           on error
+     */
+    @Test(expected = ExecuteException.class)
+    public void canCheckMissingProcess() throws GenieTimeoutException, IOException {
+        this.processChecker.checkProcess();
+    }
+
+    /**
+     * Make sure a process which exited but wasn't reaped yet is reported as finished.
+     *
+     * @throws GenieTimeoutException on timeout
+     * @throws IOException           on error
+     */
+    @Test(expected = ExecuteException.class)
+    public void canCheckZombieProcess() throws GenieTimeoutException, IOException {
+        this.writeStat(PID + " (run) Z 1 18243 18243 0 -1 4194560");
+        this.processChecker.checkProcess();
+    }
+
+    /**
+     * Make sure an unexpected stat file is reported as an error rather than a finished process.
+     *
+     * @throws GenieTimeoutException on timeout
+     * @throws IOException           on error
+     */
+    @Test
+    public void cantParseInvalidStat() throws GenieTimeoutException, IOException {
+        this.writeStat(PID + " run");
+        try {
+            this.processChecker.checkProcess();
+            Assert.fail();
+        } catch (final ExecuteException ee) {
+            Assert.fail();
+        } catch (final IOException ioe) {
+            // Expected
+        }
+    }
+
+    /**
+     * Make sure if the timeout has been exceeded then an exception is thrown indicating the process should be killed.
+     *
+     * @throws GenieTimeoutException on timeout
+     * @throws IOException           on any other error
+     */
+    @Test(expected = GenieTimeoutException.class)
+    public void canCheckProcessTimeout() throws GenieTimeoutException, IOException {
+        final Calendar yesterday = Calendar.getInstance();
+        yesterday.add(Calendar.DAY_OF_YEAR, -1);
+        this.processChecker = new ProcFsProcessChecker(PID, this.procDirectory.getRoot(), yesterday.getTime());
+        this.writeStat(PID + " (run) S 1 18243 18243 0 -1 4194560");
+        this.processChecker.checkProcess();
+    }
+
+    /**
+     * Make sure support is only reported when the directory looks like a proc filesystem.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canCheckSupport() throws IOException {
+        Assert.assertFalse(ProcFsProcessChecker.isSupported(this.procDirectory.getRoot()));
+        Assert.assertFalse(ProcFsProcessChecker.isSupported(new File(this.procDirectory.getRoot(), "missing")));
+        final File self = this.procDirectory.newFolder("self");
+        Files.write(new File(self, "stat").toPath(), "1 (java) R".getBytes(StandardCharsets.UTF_8));
+        Assert.assertTrue(ProcFsProcessChecker.isSupported(this.procDirectory.getRoot()));
+    }
+
+    private void writeStat(final String contents) throws IOException {
+        final File processDirectory = this.procDirectory.newFolder(Integer.toString(PID));
+        Files.write(new File(processDirectory, "stat").toPath(), contents.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.core.util;
+
+import com.google.common.collect.Sets;
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Map;
+
+/**
+ * Unit tests for ProcFsResourceUsageReader.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class ProcFsResourceUsageReaderUnitTests {
+
+    private static final int SESSION_1 = 100;
+    private static final int SESSION_2 = 200;
+
+    /**
+     * Temporary folder standing in for the proc filesystem.
+     */
+    @Rule
+    public final TemporaryFolder procDirectory = new TemporaryFolder();
+
+    private ProcFsResourceUsageReader reader;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.reader = new ProcFsResourceUsageReader(this.procDirectory.getRoot(), 100L, 4096L);
+    }
+
+    /**
+     * Make sure the resources of all the processes of a session are added up.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canReadSessions() throws IOException {
+        this.writeStat(SESSION_1, SESSION_1, "bash", 10L, 5L, 100L, 50L, 100L);
+        this.writeStat(101, SESSION_1, "java (main) thread", 200L, 100L, 0L, 0L, 2000L);
+        this.writeStat(SESSION_2, SESSION_2, "bash", 1L, 1L, 0L, 0L, 10L);
+        this.writeStat(300, 300, "other", 1000L, 1000L, 0L, 0L, 10000L);
+        this.procDirectory.newFolder("self");
+        this.procDirectory.newFile("uptime");
+
+        final Map<Integer, ProcFsResourceUsageReader.Usage> usages
+            = this.reader.read(Sets.newHashSet(SESSION_1, SESSION_2, 400));
+
+        Assert.assertThat(usages.size(), Matchers.is(2));
+        final ProcFsResourceUsageReader.Usage usage1 = usages.get(SESSION_1);
+        Assert.assertThat(usage1.getProcesses(), Matchers.is(2));
+        Assert.assertThat(usage1.getCpuTime(), Matchers.is(4650L));
+        Assert.assertThat(usage1.getRss(), Matchers.is(2100L * 4096L));
+        final ProcFsResourceUsageReader.Usage usage2 = usages.get(SESSION_2);
+        Assert.assertThat(usage2.getProcesses(), Matchers.is(1));
+        Assert.assertThat(usage2.getCpuTime(), Matchers.is(20L));
+        Assert.assertThat(usage2.getRss(), Matchers.is(10L * 4096L));
+    }
+
+    /**
+     * Make sure nothing is read if no sessions are asked for.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canReadNoSessions() throws IOException {
+        this.writeStat(SESSION_1, SESSION_1, "bash", 10L, 5L, 100L, 50L, 100L);
+        Assert.assertTrue(this.reader.read(Sets.newHashSet()).isEmpty());
+    }
+
+    /**
+     * Make sure an error is thrown if the proc filesystem can't be listed.
+     *
+     * @throws IOException on error
+     */
+    @Test(expected = IOException.class)
+    public void cantReadWithoutProcFs() throws IOException {
+        new ProcFsResourceUsageReader(new File(this.procDirectory.getRoot(), "proc"), 100L, 4096L)
+            .read(Sets.newHashSet(SESSION_1));
+    }
+
+    /**
+     * Make sure the available memory is read from the memory information.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canReadAvailableMemory() throws IOException {
+        this.writeMemInfo("MemTotal:       16318412 kB\nMemFree:         1234567 kB\nMemAvailable:    8000000 kB\n");
+        Assert.assertThat(this.reader.readAvailableMemory(), Matchers.is(8000000L * 1024L));
+    }
+
+    /**
+     * Make sure an error is thrown if the memory information doesn't report the available memory.
+     *
+     * @throws IOException on error
+     */
+    @Test(expected = IOException.class)
+    public void cantReadAvailableMemoryIfNotReported() throws IOException {
+        this.writeMemInfo("MemTotal:       16318412 kB\nMemFree:         1234567 kB\n");
+        this.reader.readAvailableMemory();
+    }
+
+    /**
+     * Make sure an error is thrown if there is no memory information.
+     *
+     * @throws IOException on error
+     */
+    @Test(expected = IOException.class)
+    public void cantReadAvailableMemoryWithoutMemInfo() throws IOException {
+        this.reader.readAvailableMemory();
+    }
+
+    private void writeMemInfo(final String memInfo) throws IOException {
+        Files.write(
+            new File(this.procDirectory.getRoot(), "meminfo").toPath(),
+            memInfo.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    private void writeStat(
+        final int pid,
+        final int session,
+        final String command,
+        final long utime,
+        final long stime,
+        final long cutime,
+        final long cstime,
+        final long rss
+    ) throws IOException {
+        final File directory = this.procDirectory.newFolder(Integer.toString(pid));
+        final String stat = pid + " (" + command + ") S 1 " + session + " " + session + " 0 -1 4194560 1 2 3 4 "
+            + utime + " " + stime + " " + cutime + " " + cstime + " 20 0 1 0 12345 1000000 " + rss + " 0 0\n";
+        Files.write(new File(directory, "stat").toPath(), stat.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -48,6 +48,22 @@ CREATE TABLE `application_dependencies` (
 ) ENGINE=InnoDB DEFAULT CHARSET=latin1;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
+--
+-- Table structure for table `application_tags`
+--
+
+DROP TABLE IF EXISTS `application_tags`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `application_tags` (
+  `application_id` varchar(255) NOT NULL,
+  `tag` varchar(1024) NOT NULL,
+  KEY `application_id` (`application_id`),
+  KEY `APPLICATION_TAGS_TAG_INDEX` (`tag`(255),`application_id`),
+  CONSTRAINT `application_tags_ibfk_1` FOREIGN KEY (`application_id`) REFERENCES `applications` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `applications`
 --
@@ -106,6 +122,22 @@ CREATE TABLE `cluster_dependencies` (
 ) ENGINE=InnoDB DEFAULT CHARSET=latin1;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
+--
+-- Table structure for table `cluster_tags`
+--
+
+DROP TABLE IF EXISTS `cluster_tags`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `cluster_tags` (
+  `cluster_id` varchar(255) NOT NULL,
+  `tag` varchar(1024) NOT NULL,
+  KEY `cluster_id` (`cluster_id`),
+  KEY `CLUSTER_TAGS_TAG_INDEX` (`tag`(255),`cluster_id`),
+  CONSTRAINT `cluster_tags_ibfk_1` FOREIGN KEY (`cluster_id`) REFERENCES `clusters` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `clusters`
 --
@@ -180,6 +212,22 @@ CREATE TABLE `command_dependencies` (
 ) ENGINE=InnoDB DEFAULT CHARSET=latin1;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
+--
+-- Table structure for table `command_tags`
+--
+
+DROP TABLE IF EXISTS `command_tags`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `command_tags` (
+  `command_id` varchar(255) NOT NULL,
+  `tag` varchar(1024) NOT NULL,
+  KEY `command_id` (`command_id`),
+  KEY `COMMAND_TAGS_TAG_INDEX` (`tag`(255),`command_id`),
+  CONSTRAINT `command_tags_ibfk_1` FOREIGN KEY (`command_id`) REFERENCES `commands` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `commands`
 --
@@ -270,6 +318,8 @@ CREATE TABLE `job_metadata` (
   `total_size_of_attachments` bigint(20) DEFAULT NULL,
   `std_out_size` bigint(20) DEFAULT NULL,
   `std_err_size` bigint(20) DEFAULT NULL,
+  `cpu_time` bigint(20) DEFAULT NULL,
+  `peak_rss` bigint(20) DEFAULT NULL,
   KEY `id` (`id`),
   CONSTRAINT `job_metadata_ibfk_1` FOREIGN KEY (`id`) REFERENCES `job_requests` (`id`) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=latin1;
@@ -310,6 +360,22 @@ CREATE TABLE `job_requests` (
 ) ENGINE=InnoDB DEFAULT CHARSET=latin1;
 /*!40101 SET character_set_client = @saved_cs_client */;
 
+--
+-- Table structure for table `job_tags`
+--
+
+DROP TABLE IF EXISTS `job_tags`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `job_tags` (
+  `job_id` varchar(255) NOT NULL,
+  `tag` varchar(1024) NOT NULL,
+  KEY `job_id` (`job_id`),
+  KEY `JOB_TAGS_TAG_INDEX` (`tag`(255),`job_id`),
+  CONSTRAINT `job_tags_ibfk_1` FOREIGN KEY (`job_id`) REFERENCES `jobs` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
 --
 -- Table structure for table `jobs`
 --
@@ -0,0 +1,80 @@
+-- Run once the last 3.0 node is gone. Nodes older than 3.1.0 only write the delimited tags column so the tag tables
+-- filled by upgrade-3.0.1-to-3.1.0.mysql.sql miss the tags they created or changed during a rolling upgrade.
+-- Safe to run more than once.
+BEGIN;
+SELECT CURRENT_TIMESTAMP AS '', 'Copying tags written by 3.0 nodes to the 3.1.0 tag tables' AS '';
+
+SELECT CURRENT_TIMESTAMP AS '', 'Creating tag number sequence used to split the existing tags' AS '';
+
+CREATE TEMPORARY TABLE `tag_numbers` (
+  `n` int(11) NOT NULL,
+  PRIMARY KEY (`n`)
+);
+
+INSERT INTO `tag_numbers` (`n`)
+  SELECT `ones`.`d` + 10 * `tens`.`d` + 100 * `hundreds`.`d` + 1000 * `thousands`.`d` + 1
+  FROM (SELECT 0 AS `d` UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+      UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) `ones`
+    CROSS JOIN (SELECT 0 AS `d` UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+      UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) `tens`
+    CROSS JOIN (SELECT 0 AS `d` UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+      UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) `hundreds`
+    CROSS JOIN (SELECT 0 AS `d` UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+      UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) `thousands`;
+
+SELECT CURRENT_TIMESTAMP AS '', 'Copying tags from applications table to application_tags table' AS '';
+
+DELETE FROM `application_tags`;
+
+INSERT INTO `application_tags` (`application_id`, `tag`)
+  SELECT
+    `t`.`id`,
+    SUBSTRING_INDEX(SUBSTRING_INDEX(SUBSTRING(`t`.`tags`, 2, CHAR_LENGTH(`t`.`tags`) - 2), '||', `n`.`n`), '||', -1)
+  FROM `applications` `t`
+    JOIN `tag_numbers` `n`
+      ON `n`.`n` <= 1 + (CHAR_LENGTH(`t`.`tags`) - CHAR_LENGTH(REPLACE(`t`.`tags`, '||', ''))) / 2
+  WHERE `t`.`tags` IS NOT NULL AND CHAR_LENGTH(`t`.`tags`) > 2;
+
+SELECT CURRENT_TIMESTAMP AS '', 'Copying tags from clusters table to cluster_tags table' AS '';
+
+DELETE FROM `cluster_tags`;
+
+INSERT INTO `cluster_tags` (`cluster_id`, `tag`)
+  SELECT
+    `t`.`id`,
+    SUBSTRING_INDEX(SUBSTRING_INDEX(SUBSTRING(`t`.`tags`, 2, CHAR_LENGTH(`t`.`tags`) - 2), '||', `n`.`n`), '||', -1)
+  FROM `clusters` `t`
+    JOIN `tag_numbers` `n`
+      ON `n`.`n` <= 1 + (CHAR_LENGTH(`t`.`tags`) - CHAR_LENGTH(REPLACE(`t`.`tags`, '||', ''))) / 2
+  WHERE `t`.`tags` IS NOT NULL AND CHAR_LENGTH(`t`.`tags`) > 2;
+
+SELECT CURRENT_TIMESTAMP AS '', 'Copying tags from commands table to command_tags table' AS '';
+
+DELETE FROM `command_tags`;
+
+INSERT INTO `command_tags` (`command_id`, `tag`)
+  SELECT
+    `t`.`id`,
+    SUBSTRING_INDEX(SUBSTRING_INDEX(SUBSTRING(`t`.`tags`, 2, CHAR_LENGTH(`t`.`tags`) - 2), '||', `n`.`n`), '||', -1)
+  FROM `commands` `t`
+    JOIN `tag_numbers` `n`
+      ON `n`.`n` <= 1 + (CHAR_LENGTH(`t`.`tags`) - CHAR_LENGTH(REPLACE(`t`.`tags`, '||', ''))) / 2
+  WHERE `t`.`tags` IS NOT NULL AND CHAR_LENGTH(`t`.`tags`) > 2;
+
+SELECT CURRENT_TIMESTAMP AS '', 'Copying tags of jobs without any from jobs table to job_tags table' AS '';
+
+-- The tags of a job don't change once it's created so only jobs created by 3.0 nodes are missing theirs
+INSERT INTO `job_tags` (`job_id`, `tag`)
+  SELECT
+    `t`.`id`,
+    SUBSTRING_INDEX(SUBSTRING_INDEX(SUBSTRING(`t`.`tags`, 2, CHAR_LENGTH(`t`.`tags`) - 2), '||', `n`.`n`), '||', -1)
+  FROM `jobs` `t`
+    JOIN `tag_numbers` `n`
+      ON `n`.`n` <= 1 + (CHAR_LENGTH(`t`.`tags`) - CHAR_LENGTH(REPLACE(`t`.`tags`, '||', ''))) / 2
+  WHERE `t`.`tags` IS NOT NULL AND CHAR_LENGTH(`t`.`tags`) > 2
+    AND NOT EXISTS (SELECT 1 FROM `job_tags` `j` WHERE `j`.`job_id` = `t`.`id`);
+
+DROP TEMPORARY TABLE `tag_numbers`;
+
+SELECT CURRENT_TIMESTAMP AS '', 'Finished copying tags written by 3.0 nodes to the 3.1.0 tag tables' AS '';
+COMMIT;
@@ -1,3 +1,5 @@
+-- Searches only look at the tag tables created here. Nodes older than 3.1.0 don't write them so when upgrading one
+-- node at a time run upgrade-3.0.1-to-3.1.0-tags.mysql.sql once the last 3.0 node is gone.
 BEGIN;
 SELECT CURRENT_TIMESTAMP AS '', 'Upgrading from 3.0.1 schema to 3.1.0 schema' AS '';
 
@@ -36,6 +38,12 @@ ALTER TABLE `job_requests`
   ADD COLUMN `configs` TEXT NOT NULL,
   MODIFY COLUMN `tags` VARCHAR(10000) DEFAULT NULL;
 
+SELECT CURRENT_TIMESTAMP AS '', 'Upgrading job_metadata table' AS '';
+
+ALTER TABLE `job_metadata`
+  ADD COLUMN `cpu_time` bigint(20) DEFAULT NULL,
+  ADD COLUMN `peak_rss` bigint(20) DEFAULT NULL;
+
 SELECT CURRENT_TIMESTAMP AS '', 'Upgrading application_dependencies table' AS '';
 
 ALTER TABLE `application_dependencies`
@@ -74,5 +82,109 @@ SELECT CURRENT_TIMESTAMP AS '', 'Upgrading command_configs table' AS '';
 ALTER TABLE `command_configs`
   MODIFY COLUMN `config` VARCHAR(2048) NOT NULL;
 
+SELECT CURRENT_TIMESTAMP AS '', 'Creating tag number sequence used to split the existing tags' AS '';
+
+CREATE TEMPORARY TABLE `tag_numbers` (
+  `n` int(11) NOT NULL,
+  PRIMARY KEY (`n`)
+);
+
+INSERT INTO `tag_numbers` (`n`)
+  SELECT `ones`.`d` + 10 * `tens`.`d` + 100 * `hundreds`.`d` + 1000 * `thousands`.`d` + 1
+  FROM (SELECT 0 AS `d` UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+      UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) `ones`
+    CROSS JOIN (SELECT 0 AS `d` UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+      UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) `tens`
+    CROSS JOIN (SELECT 0 AS `d` UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+      UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) `hundreds`
+    CROSS JOIN (SELECT 0 AS `d` UNION ALL SELECT 1 UNION ALL SELECT 2 UNION ALL SELECT 3 UNION ALL SELECT 4
+      UNION ALL SELECT 5 UNION ALL SELECT 6 UNION ALL SELECT 7 UNION ALL SELECT 8 UNION ALL SELECT 9) `thousands`;
+
+SELECT CURRENT_TIMESTAMP AS '', 'Creating application_tags table' AS '';
+
+CREATE TABLE `application_tags` (
+  `application_id` varchar(255) NOT NULL,
+  `tag` varchar(1024) NOT NULL,
+  KEY `application_id` (`application_id`),
+  KEY `APPLICATION_TAGS_TAG_INDEX` (`tag`(255),`application_id`),
+  CONSTRAINT `application_tags_ibfk_1` FOREIGN KEY (`application_id`) REFERENCES `applications` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+
+SELECT CURRENT_TIMESTAMP AS '', 'Copying tags from applications table to application_tags table' AS '';
+
+INSERT INTO `application_tags` (`application_id`, `tag`)
+  SELECT
+    `t`.`id`,
+    SUBSTRING_INDEX(SUBSTRING_INDEX(SUBSTRING(`t`.`tags`, 2, CHAR_LENGTH(`t`.`tags`) - 2), '||', `n`.`n`), '||', -1)
+  FROM `applications` `t`
+    JOIN `tag_numbers` `n`
+      ON `n`.`n` <= 1 + (CHAR_LENGTH(`t`.`tags`) - CHAR_LENGTH(REPLACE(`t`.`tags`, '||', ''))) / 2
+  WHERE `t`.`tags` IS NOT NULL AND CHAR_LENGTH(`t`.`tags`) > 2;
+
+SELECT CURRENT_TIMESTAMP AS '', 'Creating cluster_tags table' AS '';
+
+CREATE TABLE `cluster_tags` (
+  `cluster_id` varchar(255) NOT NULL,
+  `tag` varchar(1024) NOT NULL,
+  KEY `cluster_id` (`cluster_id`),
+  KEY `CLUSTER_TAGS_TAG_INDEX` (`tag`(255),`cluster_id`),
+  CONSTRAINT `cluster_tags_ibfk_1` FOREIGN KEY (`cluster_id`) REFERENCES `clusters` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+
+SELECT CURRENT_TIMESTAMP AS '', 'Copying tags from clusters table to cluster_tags table' AS '';
+
+INSERT INTO `cluster_tags` (`cluster_id`, `tag`)
+  SELECT
+    `t`.`id`,
+    SUBSTRING_INDEX(SUBSTRING_INDEX(SUBSTRING(`t`.`tags`, 2, CHAR_LENGTH(`t`.`tags`) - 2), '||', `n`.`n`), '||', -1)
+  FROM `clusters` `t`
+    JOIN `tag_numbers` `n`
+      ON `n`.`n` <= 1 + (CHAR_LENGTH(`t`.`tags`) - CHAR_LENGTH(REPLACE(`t`.`tags`, '||', ''))) / 2
+  WHERE `t`.`tags` IS NOT NULL AND CHAR_LENGTH(`t`.`tags`) > 2;
+
+SELECT CURRENT_TIMESTAMP AS '', 'Creating command_tags table' AS '';
+
+CREATE TABLE `command_tags` (
+  `command_id` varchar(255) NOT NULL,
+  `tag` varchar(1024) NOT NULL,
+  KEY `command_id` (`command_id`),
+  KEY `COMMAND_TAGS_TAG_INDEX` (`tag`(255),`command_id`),
+  CONSTRAINT `command_tags_ibfk_1` FOREIGN KEY (`command_id`) REFERENCES `commands` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+
+SELECT CURRENT_TIMESTAMP AS '', 'Copying tags from commands table to command_tags table' AS '';
+
+INSERT INTO `command_tags` (`command_id`, `tag`)
+  SELECT
+    `t`.`id`,
+    SUBSTRING_INDEX(SUBSTRING_INDEX(SUBSTRING(`t`.`tags`, 2, CHAR_LENGTH(`t`.`tags`) - 2), '||', `n`.`n`), '||', -1)
+  FROM `commands` `t`
+    JOIN `tag_numbers` `n`
+      ON `n`.`n` <= 1 + (CHAR_LENGTH(`t`.`tags`) - CHAR_LENGTH(REPLACE(`t`.`tags`, '||', ''))) / 2
+  WHERE `t`.`tags` IS NOT NULL AND CHAR_LENGTH(`t`.`tags`) > 2;
+
+SELECT CURRENT_TIMESTAMP AS '', 'Creating job_tags table' AS '';
+
+CREATE TABLE `job_tags` (
+  `job_id` varchar(255) NOT NULL,
+  `tag` varchar(1024) NOT NULL,
+  KEY `job_id` (`job_id`),
+  KEY `JOB_TAGS_TAG_INDEX` (`tag`(255),`job_id`),
+  CONSTRAINT `job_tags_ibfk_1` FOREIGN KEY (`job_id`) REFERENCES `jobs` (`id`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=latin1;
+
+SELECT CURRENT_TIMESTAMP AS '', 'Copying tags from jobs table to job_tags table' AS '';
+
+INSERT INTO `job_tags` (`job_id`, `tag`)
+  SELECT
+    `t`.`id`,
+    SUBSTRING_INDEX(SUBSTRING_INDEX(SUBSTRING(`t`.`tags`, 2, CHAR_LENGTH(`t`.`tags`) - 2), '||', `n`.`n`), '||', -1)
+  FROM `jobs` `t`
+    JOIN `tag_numbers` `n`
+      ON `n`.`n` <= 1 + (CHAR_LENGTH(`t`.`tags`) - CHAR_LENGTH(REPLACE(`t`.`tags`, '||', ''))) / 2
+  WHERE `t`.`tags` IS NOT NULL AND CHAR_LENGTH(`t`.`tags`) > 2;
+
+DROP TEMPORARY TABLE `tag_numbers`;
+
 SELECT CURRENT_TIMESTAMP AS '', 'Finished upgrading from 3.0.1 schema to 3.1.0 schema' AS '';
 COMMIT;
@@ -56,6 +56,16 @@ CREATE TABLE application_dependencies (
 );
 
 
+--
+-- Name: application_tags; Type: TABLE; Schema: public; Owner: -
+--
+
+CREATE TABLE application_tags (
+    application_id character varying(255) NOT NULL,
+    tag character varying(1024) NOT NULL
+);
+
+
 --
 -- Name: applications; Type: TABLE; Schema: public; Owner: -
 --
@@ -96,6 +106,16 @@ CREATE TABLE cluster_dependencies (
 );
 
 
+--
+-- Name: cluster_tags; Type: TABLE; Schema: public; Owner: -
+--
+
+CREATE TABLE cluster_tags (
+    cluster_id character varying(255) NOT NULL,
+    tag character varying(1024) NOT NULL
+);
+
+
 --
 -- Name: clusters; Type: TABLE; Schema: public; Owner: -
 --
@@ -146,6 +166,16 @@ CREATE TABLE command_dependencies (
 );
 
 
+--
+-- Name: command_tags; Type: TABLE; Schema: public; Owner: -
+--
+
+CREATE TABLE command_tags (
+    command_id character varying(255) NOT NULL,
+    tag character varying(1024) NOT NULL
+);
+
+
 --
 -- Name: commands; Type: TABLE; Schema: public; Owner: -
 --
@@ -211,7 +241,9 @@ CREATE TABLE job_metadata (
     num_attachments integer,
     total_size_of_attachments bigint,
     std_out_size bigint,
-    std_err_size bigint
+    std_err_size bigint,
+    cpu_time bigint,
+    peak_rss bigint
 );
 
 
@@ -245,6 +277,16 @@ CREATE TABLE job_requests (
 );
 
 
+--
+-- Name: job_tags; Type: TABLE; Schema: public; Owner: -
+--
+
+CREATE TABLE job_tags (
+    job_id character varying(255) NOT NULL,
+    tag character varying(1024) NOT NULL
+);
+
+
 --
 -- Name: jobs; Type: TABLE; Schema: public; Owner: -
 --
@@ -323,6 +365,20 @@ ALTER TABLE ONLY job_requests
     ADD CONSTRAINT job_requests_pkey PRIMARY KEY (id);
 
 
+--
+-- Name: application_tags_application_id_index; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX application_tags_application_id_index ON application_tags USING btree (application_id);
+
+
+--
+-- Name: application_tags_tag_index; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX application_tags_tag_index ON application_tags USING btree (tag, application_id);
+
+
 --
 -- Name: applications_name_index; Type: INDEX; Schema: public; Owner: -
 --
@@ -351,6 +407,20 @@ CREATE INDEX applications_tags_index ON applications USING btree (tags);
 CREATE INDEX applications_type_index ON applications USING btree (type);
 
 
+--
+-- Name: cluster_tags_cluster_id_index; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX cluster_tags_cluster_id_index ON cluster_tags USING btree (cluster_id);
+
+
+--
+-- Name: cluster_tags_tag_index; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX cluster_tags_tag_index ON cluster_tags USING btree (tag, cluster_id);
+
+
 --
 -- Name: clusters_name_index; Type: INDEX; Schema: public; Owner: -
 --
@@ -372,6 +442,20 @@ CREATE INDEX clusters_status_index ON clusters USING btree (status);
 CREATE INDEX clusters_tag_index ON clusters USING btree (tags);
 
 
+--
+-- Name: command_tags_command_id_index; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX command_tags_command_id_index ON command_tags USING btree (command_id);
+
+
+--
+-- Name: command_tags_tag_index; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX command_tags_tag_index ON command_tags USING btree (tag, command_id);
+
+
 --
 -- Name: commands_name_index; Type: INDEX; Schema: public; Owner: -
 --
@@ -414,6 +498,20 @@ CREATE INDEX job_executions_hostname_index ON job_executions USING btree (host_n
 CREATE INDEX job_requests_created_index ON job_requests USING btree (created);
 
 
+--
+-- Name: job_tags_job_id_index; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX job_tags_job_id_index ON job_tags USING btree (job_id);
+
+
+--
+-- Name: job_tags_tag_index; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX job_tags_tag_index ON job_tags USING btree (tag, job_id);
+
+
 --
 -- Name: jobs_cluster_name_index; Type: INDEX; Schema: public; Owner: -
 --
@@ -494,6 +592,14 @@ ALTER TABLE ONLY application_dependencies
     ADD CONSTRAINT application_dependencies_application_id_fkey FOREIGN KEY (application_id) REFERENCES applications(id) ON DELETE CASCADE;
 
 
+--
+-- Name: application_tags application_tags_application_id_fkey; Type: FK CONSTRAINT; Schema: public; Owner: -
+--
+
+ALTER TABLE ONLY application_tags
+    ADD CONSTRAINT application_tags_application_id_fkey FOREIGN KEY (application_id) REFERENCES applications(id) ON DELETE CASCADE;
+
+
 --
 -- Name: cluster_configs cluster_configs_cluster_id_fkey; Type: FK CONSTRAINT; Schema: public; Owner: -
 --
@@ -510,6 +616,14 @@ ALTER TABLE ONLY cluster_dependencies
     ADD CONSTRAINT cluster_dependencies_cluster_id_fkey FOREIGN KEY (cluster_id) REFERENCES clusters(id) ON DELETE CASCADE;
 
 
+--
+-- Name: cluster_tags cluster_tags_cluster_id_fkey; Type: FK CONSTRAINT; Schema: public; Owner: -
+--
+
+ALTER TABLE ONLY cluster_tags
+    ADD CONSTRAINT cluster_tags_cluster_id_fkey FOREIGN KEY (cluster_id) REFERENCES clusters(id) ON DELETE CASCADE;
+
+
 --
 -- Name: clusters_commands clusters_commands_cluster_id_fkey; Type: FK CONSTRAINT; Schema: public; Owner: -
 --
@@ -542,6 +656,14 @@ ALTER TABLE ONLY command_dependencies
     ADD CONSTRAINT command_dependencies_command_id_fkey FOREIGN KEY (command_id) REFERENCES commands(id) ON DELETE CASCADE;
 
 
+--
+-- Name: command_tags command_tags_command_id_fkey; Type: FK CONSTRAINT; Schema: public; Owner: -
+--
+
+ALTER TABLE ONLY command_tags
+    ADD CONSTRAINT command_tags_command_id_fkey FOREIGN KEY (command_id) REFERENCES commands(id) ON DELETE CASCADE;
+
+
 --
 -- Name: commands_applications commands_applications_application_id_fkey; Type: FK CONSTRAINT; Schema: public; Owner: -
 --
@@ -574,6 +696,14 @@ ALTER TABLE ONLY job_metadata
     ADD CONSTRAINT job_metadata_id_fkey FOREIGN KEY (id) REFERENCES job_requests(id) ON DELETE CASCADE;
 
 
+--
+-- Name: job_tags job_tags_job_id_fkey; Type: FK CONSTRAINT; Schema: public; Owner: -
+--
+
+ALTER TABLE ONLY job_tags
+    ADD CONSTRAINT job_tags_job_id_fkey FOREIGN KEY (job_id) REFERENCES jobs(id) ON DELETE CASCADE;
+
+
 --
 -- Name: jobs_applications jobs_applications_application_id_fkey; Type: FK CONSTRAINT; Schema: public; Owner: -
 --
@@ -0,0 +1,44 @@
+-- Run once the last 3.0 node is gone. Nodes older than 3.1.0 only write the delimited tags column so the tag tables
+-- filled by upgrade-3.0.1-to-3.1.0.postgresql.sql miss the tags they created or changed during a rolling upgrade.
+-- Safe to run more than once.
+BEGIN;
+SELECT CURRENT_TIMESTAMP, 'Copying tags written by 3.0 nodes to the 3.1.0 tag tables';
+
+SELECT CURRENT_TIMESTAMP, 'Copying tags from applications table to application_tags table';
+
+DELETE FROM application_tags;
+
+INSERT INTO application_tags (application_id, tag)
+  SELECT id, regexp_split_to_table(substr(tags, 2, char_length(tags) - 2), '\|\|')
+  FROM applications
+  WHERE tags IS NOT NULL AND char_length(tags) > 2;
+
+SELECT CURRENT_TIMESTAMP, 'Copying tags from clusters table to cluster_tags table';
+
+DELETE FROM cluster_tags;
+
+INSERT INTO cluster_tags (cluster_id, tag)
+  SELECT id, regexp_split_to_table(substr(tags, 2, char_length(tags) - 2), '\|\|')
+  FROM clusters
+  WHERE tags IS NOT NULL AND char_length(tags) > 2;
+
+SELECT CURRENT_TIMESTAMP, 'Copying tags from commands table to command_tags table';
+
+DELETE FROM command_tags;
+
+INSERT INTO command_tags (command_id, tag)
+  SELECT id, regexp_split_to_table(substr(tags, 2, char_length(tags) - 2), '\|\|')
+  FROM commands
+  WHERE tags IS NOT NULL AND char_length(tags) > 2;
+
+SELECT CURRENT_TIMESTAMP, 'Copying tags of jobs without any from jobs table to job_tags table';
+
+-- The tags of a job don't change once it's created so only jobs created by 3.0 nodes are missing theirs
+INSERT INTO job_tags (job_id, tag)
+  SELECT id, regexp_split_to_table(substr(tags, 2, char_length(tags) - 2), '\|\|')
+  FROM jobs
+  WHERE tags IS NOT NULL AND char_length(tags) > 2
+    AND NOT EXISTS (SELECT 1 FROM job_tags WHERE job_tags.job_id = jobs.id);
+
+SELECT CURRENT_TIMESTAMP, 'Finished copying tags written by 3.0 nodes to the 3.1.0 tag tables';
+COMMIT;
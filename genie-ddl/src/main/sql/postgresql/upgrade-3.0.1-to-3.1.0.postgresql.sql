@@ -1,3 +1,5 @@
+-- Searches only look at the tag tables created here. Nodes older than 3.1.0 don't write them so when upgrading one
+-- node at a time run upgrade-3.0.1-to-3.1.0-tags.postgresql.sql once the last 3.0 node is gone.
 BEGIN;
 SELECT CURRENT_TIMESTAMP, 'Upgrading from 3.0.1 schema to 3.1.0 schema';
 
@@ -53,6 +55,12 @@ ALTER TABLE job_requests
   ALTER COLUMN description SET DEFAULT NULL,
   ALTER COLUMN tags TYPE character varying(10000);
 
+SELECT CURRENT_TIMESTAMP, 'Upgrading job_metadata table';
+
+ALTER TABLE job_metadata
+  ADD COLUMN cpu_time bigint,
+  ADD COLUMN peak_rss bigint;
+
 SELECT CURRENT_TIMESTAMP, 'Creating cluster_dependencies table';
 
 CREATE TABLE cluster_dependencies (
@@ -97,5 +105,93 @@ ALTER TABLE command_configs
   ALTER COLUMN config TYPE character varying(2048),
   ALTER COLUMN config SET NOT NULL;
 
+SELECT CURRENT_TIMESTAMP, 'Creating application_tags table';
+
+CREATE TABLE application_tags (
+    application_id character varying(255) NOT NULL,
+    tag character varying(1024) NOT NULL
+);
+
+ALTER TABLE application_tags
+  ADD CONSTRAINT application_tags_application_id_fkey FOREIGN KEY (application_id) REFERENCES applications(id) ON DELETE CASCADE;
+
+SELECT CURRENT_TIMESTAMP, 'Copying tags from applications table to application_tags table';
+
+INSERT INTO application_tags (application_id, tag)
+  SELECT id, regexp_split_to_table(substr(tags, 2, char_length(tags) - 2), '\|\|')
+  FROM applications
+  WHERE tags IS NOT NULL AND char_length(tags) > 2;
+
+SELECT CURRENT_TIMESTAMP, 'Creating indices for application_tags table';
+
+CREATE INDEX application_tags_application_id_index ON application_tags (application_id);
+CREATE INDEX application_tags_tag_index ON application_tags (tag, application_id);
+
+SELECT CURRENT_TIMESTAMP, 'Creating cluster_tags table';
+
+CREATE TABLE cluster_tags (
+    cluster_id character varying(255) NOT NULL,
+    tag character varying(1024) NOT NULL
+);
+
+ALTER TABLE cluster_tags
+  ADD CONSTRAINT cluster_tags_cluster_id_fkey FOREIGN KEY (cluster_id) REFERENCES clusters(id) ON DELETE CASCADE;
+
+SELECT CURRENT_TIMESTAMP, 'Copying tags from clusters table to cluster_tags table';
+
+INSERT INTO cluster_tags (cluster_id, tag)
+  SELECT id, regexp_split_to_table(substr(tags, 2, char_length(tags) - 2), '\|\|')
+  FROM clusters
+  WHERE tags IS NOT NULL AND char_length(tags) > 2;
+
+SELECT CURRENT_TIMESTAMP, 'Creating indices for cluster_tags table';
+
+CREATE INDEX cluster_tags_cluster_id_index ON cluster_tags (cluster_id);
+CREATE INDEX cluster_tags_tag_index ON cluster_tags (tag, cluster_id);
+
+SELECT CURRENT_TIMESTAMP, 'Creating command_tags table';
+
+CREATE TABLE command_tags (
+    command_id character varying(255) NOT NULL,
+    tag character varying(1024) NOT NULL
+);
+
+ALTER TABLE command_tags
+  ADD CONSTRAINT command_tags_command_id_fkey FOREIGN KEY (command_id) REFERENCES commands(id) ON DELETE CASCADE;
+
+SELECT CURRENT_TIMESTAMP, 'Copying tags from commands table to command_tags table';
+
+INSERT INTO command_tags (command_id, tag)
+  SELECT id, regexp_split_to_table(substr(tags, 2, char_length(tags) - 2), '\|\|')
+  FROM commands
+  WHERE tags IS NOT NULL AND char_length(tags) > 2;
+
+SELECT CURRENT_TIMESTAMP, 'Creating indices for command_tags table';
+
+CREATE INDEX command_tags_command_id_index ON command_tags (command_id);
+CREATE INDEX command_tags_tag_index ON command_tags (tag, command_id);
+
+SELECT CURRENT_TIMESTAMP, 'Creating job_tags table';
+
+CREATE TABLE job_tags (
+    job_id character varying(255) NOT NULL,
+    tag character varying(1024) NOT NULL
+);
+
+ALTER TABLE job_tags
+  ADD CONSTRAINT job_tags_job_id_fkey FOREIGN KEY (job_id) REFERENCES jobs(id) ON DELETE CASCADE;
+
+SELECT CURRENT_TIMESTAMP, 'Copying tags from jobs table to job_tags table';
+
+INSERT INTO job_tags (job_id, tag)
+  SELECT id, regexp_split_to_table(substr(tags, 2, char_length(tags) - 2), '\|\|')
+  FROM jobs
+  WHERE tags IS NOT NULL AND char_length(tags) > 2;
+
+SELECT CURRENT_TIMESTAMP, 'Creating indices for job_tags table';
+
+CREATE INDEX job_tags_job_id_index ON job_tags (job_id);
+CREATE INDEX job_tags_tag_index ON job_tags (tag, job_id);
+
 SELECT CURRENT_TIMESTAMP, 'Finished upgrading from 3.0.1 schema to 3.1.0 schema';
 COMMIT;
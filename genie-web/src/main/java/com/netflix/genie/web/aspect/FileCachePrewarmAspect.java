@@ -0,0 +1,158 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.aspect;
+
+import com.netflix.genie.web.tasks.node.FileCachePrewarmTask;
+import lombok.extern.slf4j.Slf4j;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Aspect which prewarms the local file cache with the files of clusters, commands and applications when they're
+ * created or updated through the services.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@ConditionalOnProperty("genie.tasks.fileCachePrewarm.enabled")
+@Aspect
+@Component
+@Slf4j
+public class FileCachePrewarmAspect {
+
+    private final FileCachePrewarmTask prewarmTask;
+
+    /**
+     * Constructor.
+     *
+     * @param prewarmTask The task to prewarm the cache with
+     */
+    @Autowired
+    public FileCachePrewarmAspect(@NotNull final FileCachePrewarmTask prewarmTask) {
+        this.prewarmTask = prewarmTask;
+    }
+
+    /**
+     * Prewarm the files of a newly created cluster.
+     *
+     * @param id The id of the cluster
+     */
+    @AfterReturning(
+        pointcut = "execution(String com.netflix.genie.core.services.ClusterService.createCluster(..))",
+        returning = "id"
+    )
+    public void clusterCreated(final String id) {
+        this.afterCommit(() -> this.prewarmTask.prewarmCluster(id));
+    }
+
+    /**
+     * Prewarm the files of an updated cluster.
+     *
+     * @param id The id of the cluster
+     */
+    @AfterReturning(
+        "(execution(* com.netflix.genie.core.services.ClusterService.update*(..))"
+            + " || execution(* com.netflix.genie.core.services.ClusterService.patch*(..))"
+            + " || execution(* com.netflix.genie.core.services.ClusterService.add*(..)))"
+            + " && args(id, ..)"
+    )
+    public void clusterUpdated(final String id) {
+        this.afterCommit(() -> this.prewarmTask.prewarmCluster(id));
+    }
+
+    /**
+     * Prewarm the files of a newly created command.
+     *
+     * @param id The id of the command
+     */
+    @AfterReturning(
+        pointcut = "execution(String com.netflix.genie.core.services.CommandService.createCommand(..))",
+        returning = "id"
+    )
+    public void commandCreated(final String id) {
+        this.afterCommit(() -> this.prewarmTask.prewarmCommand(id));
+    }
+
+    /**
+     * Prewarm the files of an updated command.
+     *
+     * @param id The id of the command
+     */
+    @AfterReturning(
+        "(execution(* com.netflix.genie.core.services.CommandService.update*(..))"
+            + " || execution(* com.netflix.genie.core.services.CommandService.patch*(..))"
+            + " || execution(* com.netflix.genie.core.services.CommandService.add*(..)))"
+            + " && args(id, ..)"
+    )
+    public void commandUpdated(final String id) {
+        this.afterCommit(() -> this.prewarmTask.prewarmCommand(id));
+    }
+
+    /**
+     * Prewarm the files of a newly created application.
+     *
+     * @param id The id of the application
+     */
+    @AfterReturning(
+        pointcut = "execution(String com.netflix.genie.core.services.ApplicationService.createApplication(..))",
+        returning = "id"
+    )
+    public void applicationCreated(final String id) {
+        this.afterCommit(() -> this.prewarmTask.prewarmApplication(id));
+    }
+
+    /**
+     * Prewarm the files of an updated application.
+     *
+     * @param id The id of the application
+     */
+    @AfterReturning(
+        "(execution(* com.netflix.genie.core.services.ApplicationService.update*(..))"
+            + " || execution(* com.netflix.genie.core.services.ApplicationService.patch*(..))"
+            + " || execution(* com.netflix.genie.core.services.ApplicationService.add*(..)))"
+            + " && args(id, ..)"
+    )
+    public void applicationUpdated(final String id) {
+        this.afterCommit(() -> this.prewarmTask.prewarmApplication(id));
+    }
+
+    /**
+     * Run the action once the surrounding transaction, if any, commits so the prewarm reads the new data.
+     */
+    private void afterCommit(final Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void afterCommit() {
+                        action.run();
+                    }
+                }
+            );
+        } else {
+            action.run();
+        }
+    }
+}
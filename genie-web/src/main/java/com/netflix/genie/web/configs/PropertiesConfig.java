@@ -18,8 +18,11 @@
 package com.netflix.genie.web.configs;
 
 import com.netflix.genie.core.properties.DataServiceRetryProperties;
+import com.netflix.genie.core.properties.FileCacheProperties;
 import com.netflix.genie.core.properties.HealthProperties;
 import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.properties.S3TransferProperties;
+import com.netflix.genie.core.properties.TagIndexProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -55,6 +58,17 @@ public class PropertiesConfig {
         return new DataServiceRetryProperties();
     }
 
+    /**
+     * All the properties related to the local cache of files downloaded for jobs.
+     *
+     * @return The file cache properties structure
+     */
+    @Bean
+    @ConfigurationProperties("genie.file.cache")
+    public FileCacheProperties fileCacheProperties() {
+        return new FileCacheProperties();
+    }
+
     /**
      * All the properties related to configuring health threshold properties.
      *
@@ -65,4 +79,26 @@ public class PropertiesConfig {
     public HealthProperties healthProperties() {
         return new HealthProperties();
     }
+
+    /**
+     * All the properties related to transferring files to and from S3.
+     *
+     * @return The S3 transfer properties structure
+     */
+    @Bean
+    @ConfigurationProperties("genie.aws.s3.transfer")
+    public S3TransferProperties s3TransferProperties() {
+        return new S3TransferProperties();
+    }
+
+    /**
+     * All the properties related to the in-memory tag index used for cluster selection.
+     *
+     * @return The tag index properties structure
+     */
+    @Bean
+    @ConfigurationProperties("genie.tagIndex")
+    public TagIndexProperties tagIndexProperties() {
+        return new TagIndexProperties();
+    }
 }
@@ -32,13 +32,19 @@ import com.netflix.genie.core.jpa.services.JpaClusterServiceImpl;
 import com.netflix.genie.core.jpa.services.JpaCommandServiceImpl;
 import com.netflix.genie.core.jpa.services.JpaJobPersistenceServiceImpl;
 import com.netflix.genie.core.jpa.services.JpaJobSearchServiceImpl;
+import com.netflix.genie.core.jpa.services.TagIndex;
+import com.netflix.genie.core.properties.FileCacheProperties;
 import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.properties.TagIndexProperties;
 import com.netflix.genie.core.services.ApplicationService;
 import com.netflix.genie.core.services.AttachmentService;
 import com.netflix.genie.core.services.ClusterLoadBalancer;
 import com.netflix.genie.core.services.ClusterService;
 import com.netflix.genie.core.services.CommandService;
+import com.netflix.genie.core.services.DirectoryDeletionService;
 import com.netflix.genie.core.services.FileTransferFactory;
+import com.netflix.genie.core.services.JobAdmissionPolicy;
+import com.netflix.genie.core.services.JobArchiveService;
 import com.netflix.genie.core.services.JobCoordinatorService;
 import com.netflix.genie.core.services.JobKillService;
 import com.netflix.genie.core.services.JobPersistenceService;
@@ -55,7 +61,15 @@ import com.netflix.genie.core.services.impl.LocalFileTransferImpl;
 import com.netflix.genie.core.services.impl.LocalJobKillServiceImpl;
 import com.netflix.genie.core.services.impl.LocalJobRunner;
 import com.netflix.genie.core.services.impl.MailServiceImpl;
+import com.netflix.genie.core.services.impl.ParallelDirectoryDeletionServiceImpl;
 import com.netflix.genie.core.services.impl.RandomizedClusterLoadBalancerImpl;
+import com.netflix.genie.core.services.impl.RequestedMemoryAdmissionPolicy;
+import com.netflix.genie.core.services.impl.TarGzJobArchiveServiceImpl;
+import com.netflix.genie.core.util.ProcFsResourceUsageReader;
+import com.netflix.genie.web.properties.JobMonitorProperties;
+import com.netflix.genie.web.properties.JobResourceUsageProperties;
+import com.netflix.genie.web.services.impl.UtilizationAwareAdmissionPolicy;
+import com.netflix.genie.web.tasks.job.JobResourceUsageSampler;
 import com.netflix.spectator.api.Registry;
 import org.apache.commons.exec.Executor;
 import org.springframework.beans.factory.FactoryBean;
@@ -69,8 +83,11 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.event.ApplicationEventMulticaster;
 import org.springframework.core.io.Resource;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.mail.javamail.JavaMailSender;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.List;
 
 /**
@@ -124,19 +141,40 @@ public class ServicesConfig {
         return new JpaApplicationServiceImpl(applicationRepo, commandRepo);
     }
 
+    /**
+     * Get the in-memory tag index used to find candidate clusters for jobs.
+     *
+     * @param clusterRepo        The cluster repository to build the index from.
+     * @param tagIndexProperties The properties controlling the index.
+     * @param registry           The metrics registry to use.
+     * @return The tag index instance.
+     */
+    @Bean
+    public TagIndex tagIndex(
+        final JpaClusterRepository clusterRepo,
+        final TagIndexProperties tagIndexProperties,
+        final Registry registry
+    ) {
+        return new TagIndex(clusterRepo, tagIndexProperties, registry);
+    }
+
     /**
      * Get JPA based implementation of the ClusterService.
      *
      * @param clusterRepo The cluster repository to use.
      * @param commandRepo The command repository to use.
+     * @param appRepo     The application repository to use.
+     * @param tagIndex    The tag index to find candidate clusters with.
      * @return A cluster service instance.
      */
     @Bean
     public ClusterService clusterService(
         final JpaClusterRepository clusterRepo,
-        final JpaCommandRepository commandRepo
+        final JpaCommandRepository commandRepo,
+        final JpaApplicationRepository appRepo,
+        final TagIndex tagIndex
     ) {
-        return new JpaClusterServiceImpl(clusterRepo, commandRepo);
+        return new JpaClusterServiceImpl(clusterRepo, commandRepo, appRepo, tagIndex);
     }
 
     /**
@@ -145,15 +183,17 @@ public class ServicesConfig {
      * @param commandRepo the command repository to use
      * @param appRepo     the application repository to use
      * @param clusterRepo the cluster repository to use
+     * @param tagIndex    the tag index to invalidate when commands change
      * @return A command service instance.
      */
     @Bean
     public CommandService commandService(
         final JpaCommandRepository commandRepo,
         final JpaApplicationRepository appRepo,
-        final JpaClusterRepository clusterRepo
+        final JpaClusterRepository clusterRepo,
+        final TagIndex tagIndex
     ) {
-        return new JpaCommandServiceImpl(commandRepo, appRepo, clusterRepo);
+        return new JpaCommandServiceImpl(commandRepo, appRepo, clusterRepo, tagIndex);
     }
 
     /**
@@ -162,6 +202,7 @@ public class ServicesConfig {
      * @param jobRepository          The repository to use for job entities
      * @param jobRequestRepository   The repository to use for job request entities
      * @param jobExecutionRepository The repository to use for job execution entities
+     * @param jobMetadataRepository  The repository to use for job metadata entities
      * @param clusterRepository      The repository to use for cluster entities
      * @param commandRepository      The repository to use for command entities
      * @return A job search service instance.
@@ -171,6 +212,7 @@ public class ServicesConfig {
         final JpaJobRepository jobRepository,
         final JpaJobRequestRepository jobRequestRepository,
         final JpaJobExecutionRepository jobExecutionRepository,
+        final JpaJobMetadataRepository jobMetadataRepository,
         final JpaClusterRepository clusterRepository,
         final JpaCommandRepository commandRepository
     ) {
@@ -178,6 +220,7 @@ public class ServicesConfig {
             jobRepository,
             jobRequestRepository,
             jobExecutionRepository,
+            jobMetadataRepository,
             clusterRepository,
             commandRepository
         );
@@ -258,6 +301,41 @@ public class ServicesConfig {
         return new RandomizedClusterLoadBalancerImpl();
     }
 
+    /**
+     * Get the policy deciding whether jobs can start on this node. Jobs are admitted on the memory they requested
+     * unless admitting them on the memory observed to be used is enabled.
+     *
+     * @param jobsProperties          The jobs properties with the memory limits of this node and how to admit jobs
+     * @param resourceUsageSampler    The sampler of the resources used by the jobs running on this node
+     * @param resourceUsageProperties The properties controlling how the resources used by jobs are read
+     * @param jobMonitorProperties    The properties holding where the proc filesystem is
+     * @param registry                The metrics registry to use
+     * @return The job admission policy of this node
+     */
+    @Bean
+    @ConditionalOnMissingBean
+    public JobAdmissionPolicy jobAdmissionPolicy(
+        final JobsProperties jobsProperties,
+        final JobResourceUsageSampler resourceUsageSampler,
+        final JobResourceUsageProperties resourceUsageProperties,
+        final JobMonitorProperties jobMonitorProperties,
+        final Registry registry
+    ) {
+        if (!jobsProperties.getAdmission().isUtilizationAware()) {
+            return new RequestedMemoryAdmissionPolicy(jobsProperties);
+        }
+        return new UtilizationAwareAdmissionPolicy(
+            jobsProperties,
+            resourceUsageSampler,
+            new ProcFsResourceUsageReader(
+                new File(jobMonitorProperties.getProcDirectory()),
+                resourceUsageProperties.getClockTicksPerSecond(),
+                resourceUsageProperties.getPageSize()
+            ),
+            registry
+        );
+    }
+
     /**
      * Get an instance of the Genie File Transfer service.
      *
@@ -278,18 +356,82 @@ public class ServicesConfig {
      * @param fileTransferFactory file transfer implementation factory
      * @param baseCacheLocation   file cache location
      * @param localFileTransfer   local file transfer service
+     * @param fileCacheProperties The properties of the file cache
+     * @param jobsDir             The directory the job directories are in
+     * @param jobsProperties      The jobs properties to use
      * @param registry            Registry
-     * @return A singleton for GenieFileTransferService
+     * @return A singleton for CacheGenieFileTransferService
      * @throws GenieException If there is any problem
      */
     @Bean
-    public GenieFileTransferService cacheGenieFileTransferService(
+    public CacheGenieFileTransferService cacheGenieFileTransferService(
         final FileTransferFactory fileTransferFactory,
         @Value("${genie.file.cache.location}") final String baseCacheLocation,
         final LocalFileTransferImpl localFileTransfer,
+        final FileCacheProperties fileCacheProperties,
+        @Qualifier("jobsDir") final Resource jobsDir,
+        final JobsProperties jobsProperties,
         final Registry registry
     ) throws GenieException {
-        return new CacheGenieFileTransferService(fileTransferFactory, baseCacheLocation, localFileTransfer, registry);
+        return new CacheGenieFileTransferService(
+            fileTransferFactory,
+            baseCacheLocation,
+            localFileTransfer,
+            fileCacheProperties,
+            jobsDir,
+            jobsProperties.getUsers().isRunAsUserEnabled(),
+            registry
+        );
+    }
+
+    /**
+     * Get an implementation of the DirectoryDeletionService which deletes the files of directories in parallel.
+     *
+     * @param genieWorkingDir           Working directory for genie where it creates jobs directories.
+     * @param directoryDeletionExecutor The executor to delete files on
+     * @param jobsProperties            The jobs properties to use
+     * @param registry                  The metrics registry to use
+     * @return A directory deletion service instance
+     * @throws IOException if the jobs directory can't be resolved
+     */
+    @Bean
+    public DirectoryDeletionService directoryDeletionService(
+        @Qualifier("jobsDir") final Resource genieWorkingDir,
+        @Qualifier("directoryDeletionExecutor") final AsyncTaskExecutor directoryDeletionExecutor,
+        final JobsProperties jobsProperties,
+        final Registry registry
+    ) throws IOException {
+        return new ParallelDirectoryDeletionServiceImpl(
+            genieWorkingDir,
+            directoryDeletionExecutor,
+            jobsProperties.getUsers().isRunAsUserEnabled(),
+            registry
+        );
+    }
+
+    /**
+     * Get an implementation of the JobArchiveService which streams job directories to their archive locations.
+     *
+     * @param genieFileTransferService      The file transfer service to upload archives with
+     * @param jobsProperties                The jobs properties to use
+     * @param jobArchiveCompressionExecutor The executor to compress archives on
+     * @param registry                      The metrics registry to use
+     * @return A job archive service instance
+     */
+    @Bean
+    public JobArchiveService jobArchiveService(
+        @Qualifier("genieFileTransferService") final GenieFileTransferService genieFileTransferService,
+        final JobsProperties jobsProperties,
+        @Qualifier("jobArchiveCompressionExecutor") final AsyncTaskExecutor jobArchiveCompressionExecutor,
+        final Registry registry
+    ) {
+        return new TarGzJobArchiveServiceImpl(
+            genieFileTransferService,
+            jobsProperties.getArchive(),
+            jobArchiveCompressionExecutor,
+            jobsProperties.getUsers().isRunAsUserEnabled(),
+            registry
+        );
     }
 
     /**
@@ -300,6 +442,8 @@ public class ServicesConfig {
      * @param eventMulticaster      Instance of the asynchronous event publisher.
      * @param workflowTasks         List of all the workflow tasks to be executed.
      * @param genieWorkingDir       Working directory for genie where it creates jobs directories.
+     * @param downloadExecutor      The executor shared by all jobs to download the files they need on
+     * @param jobsProperties        The jobs properties to use
      * @param registry              The metrics registry to use
      * @return An instance of the JobSubmitterService.
      */
@@ -310,6 +454,8 @@ public class ServicesConfig {
         final ApplicationEventMulticaster eventMulticaster,
         final List<WorkflowTask> workflowTasks,
         @Qualifier("jobsDir") final Resource genieWorkingDir,
+        @Qualifier("jobDownloadExecutor") final AsyncTaskExecutor downloadExecutor,
+        final JobsProperties jobsProperties,
         final Registry registry
     ) {
         return new LocalJobRunner(
@@ -318,6 +464,8 @@ public class ServicesConfig {
             eventMulticaster,
             workflowTasks,
             genieWorkingDir,
+            downloadExecutor,
+            jobsProperties.getDownloads().getMaxConcurrent(),
             registry
         );
     }
@@ -330,9 +478,7 @@ public class ServicesConfig {
      * @param jobStateService       The running job metrics service to use
      * @param jobSearchService      Implementation of job search service interface
      * @param jobsProperties        The jobs properties to use
-     * @param applicationService    Implementation of application service interface
      * @param clusterService        Implementation of cluster service interface
-     * @param commandService        Implementation of command service interface
      * @param clusterLoadBalancers  Implementations of the cluster load balancer interface in invocation order
      * @param registry              The metrics registry to use
      * @param hostName              The host this Genie instance is running on
@@ -345,9 +491,7 @@ public class ServicesConfig {
         @Qualifier("jobMonitoringCoordinator") final JobStateService jobStateService,
         final JobSearchService jobSearchService,
         final JobsProperties jobsProperties,
-        final ApplicationService applicationService,
         final ClusterService clusterService,
-        final CommandService commandService,
         final List<ClusterLoadBalancer> clusterLoadBalancers,
         final Registry registry,
         final String hostName
@@ -360,10 +504,8 @@ public class ServicesConfig {
             jobKillService,
             jobStateService,
             jobsProperties,
-            applicationService,
             jobSearchService,
             clusterService,
-            commandService,
             clusterLoadBalancers,
             registry,
             hostName
@@ -378,7 +520,10 @@ public class ServicesConfig {
      */
     @Bean
     public AttachmentService attachmentService(final JobsProperties jobsProperties) {
-        return new FileSystemAttachmentService(jobsProperties.getLocations().getAttachments());
+        return new FileSystemAttachmentService(
+            jobsProperties.getLocations().getAttachments(),
+            jobsProperties.getAttachments().getMaterialization()
+        );
     }
 
     /**
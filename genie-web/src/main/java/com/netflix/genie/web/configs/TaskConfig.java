@@ -17,9 +17,12 @@
  */
 package com.netflix.genie.web.configs;
 
+import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.spectator.api.Registry;
 import org.apache.commons.exec.DefaultExecutor;
 import org.apache.commons.exec.Executor;
 import org.apache.commons.exec.PumpStreamHandler;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -61,7 +64,9 @@ public class TaskConfig {
      * @return The application event multicaster to use
      */
     @Bean
-    public ApplicationEventMulticaster applicationEventMulticaster(final TaskExecutor taskExecutor) {
+    public ApplicationEventMulticaster applicationEventMulticaster(
+        @Qualifier("taskExecutor") final TaskExecutor taskExecutor
+    ) {
         final SimpleApplicationEventMulticaster applicationEventMulticaster = new SimpleApplicationEventMulticaster();
         applicationEventMulticaster.setTaskExecutor(taskExecutor);
         return applicationEventMulticaster;
@@ -92,4 +97,189 @@ public class TaskConfig {
         executor.setCorePoolSize(poolSize);
         return executor;
     }
+
+    /**
+     * Get the executor shared by all jobs on the node to download the files they need in parallel.
+     *
+     * @param poolSize The maximum number of files downloaded at the same time across all jobs
+     * @return The job download executor
+     */
+    @Bean
+    public AsyncTaskExecutor jobDownloadExecutor(@Value("${genie.tasks.jobDownload.pool.size:16}") final int poolSize) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("genie-job-download-");
+        return executor;
+    }
+
+    /**
+     * Get the executor used to download the files of clusters, commands and applications into the local file cache
+     * before jobs need them. Kept separate from the job download executor so prewarming never delays running jobs.
+     *
+     * @param poolSize The maximum number of files prewarmed at the same time
+     * @return The file cache prewarm executor
+     */
+    @Bean
+    public AsyncTaskExecutor fileCachePrewarmExecutor(
+        @Value("${genie.tasks.fileCachePrewarm.pool.size:2}") final int poolSize
+    ) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("genie-cache-prewarm-");
+        return executor;
+    }
+
+    /**
+     * Get the executor the archives of finished jobs are compressed on when more than one compression thread is
+     * configured. Shared by all archives so the threads compressing at once stay bounded however many jobs finish.
+     *
+     * @param jobsProperties The jobs properties to get the number of compression threads from
+     * @return The job archive compression executor
+     */
+    @Bean
+    public AsyncTaskExecutor jobArchiveCompressionExecutor(final JobsProperties jobsProperties) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(jobsProperties.getArchive().getCompressionThreads());
+        executor.setMaxPoolSize(jobsProperties.getArchive().getCompressionThreads());
+        executor.setThreadNamePrefix("genie-archive-compression-");
+        return executor;
+    }
+
+    /**
+     * Get the executor the files of deleted directories are deleted on. Shared by all deletions so the number of
+     * threads deleting at once stays bounded however many directories are deleted.
+     *
+     * @param poolSize      The number of batches of files which can be deleted concurrently
+     * @param queueCapacity The number of batches which can wait for a free thread before they're deleted on the thread
+     *                      walking the directory
+     * @return The directory deletion executor
+     */
+    @Bean
+    public AsyncTaskExecutor directoryDeletionExecutor(
+        @Value("${genie.tasks.directoryDeletion.pool.size:4}") final int poolSize,
+        @Value("${genie.tasks.directoryDeletion.queue.capacity:100}") final int queueCapacity
+    ) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("genie-directory-deletion-");
+        return executor;
+    }
+
+    /**
+     * Get the executor the output of running jobs is shipped to their archive locations on. Kept off the task
+     * scheduler so slow uploads can't delay the periodic tasks.
+     *
+     * @param poolSize The maximum number of jobs whose output is shipped at the same time
+     * @return The job log shipping executor
+     */
+    @Bean
+    public AsyncTaskExecutor jobLogShippingExecutor(
+        @Value("${genie.tasks.jobLogShipping.pool.size:2}") final int poolSize
+    ) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setThreadNamePrefix("genie-log-shipping-");
+        return executor;
+    }
+
+    /**
+     * Get the executor job launchers are run on. Kept separate from the task scheduler so slow job setup can't delay
+     * the periodic tasks and bounded so a burst of submissions can't pile up without limit.
+     *
+     * @param poolSize      The number of jobs which can be set up concurrently
+     * @param queueCapacity The number of jobs which can wait for a free thread before submissions are rejected
+     * @param registry      The metrics registry to use
+     * @return The job launch executor
+     */
+    @Bean
+    public AsyncTaskExecutor jobLaunchExecutor(
+        @Value("${genie.tasks.jobLaunch.pool.size:5}") final int poolSize,
+        @Value("${genie.tasks.jobLaunch.queue.capacity:100}") final int queueCapacity,
+        final Registry registry
+    ) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("genie-job-launch-");
+        registry.methodValue("genie.jobs.launch.active.gauge", executor, "getActiveCount");
+        registry.gauge(
+            "genie.jobs.launch.queue.depth.gauge",
+            executor,
+            launchExecutor -> launchExecutor.getThreadPoolExecutor().getQueue().size()
+        );
+        return executor;
+    }
+
+    /**
+     * Get the executor the final status of finished jobs is saved on. Kept off the event multicaster so completing
+     * jobs can't hold up the other asynchronous events of the node.
+     *
+     * @param poolSize      The number of jobs whose final status can be saved concurrently
+     * @param queueCapacity The number of jobs which can wait for a free thread before they're handed over again later
+     * @param registry      The metrics registry to use
+     * @return The job completion finalize executor
+     */
+    @Bean
+    public AsyncTaskExecutor jobCompletionFinalizeExecutor(
+        @Value("${genie.tasks.jobCompletion.finalize.pool.size:2}") final int poolSize,
+        @Value("${genie.tasks.jobCompletion.finalize.queue.capacity:1000}") final int queueCapacity,
+        final Registry registry
+    ) {
+        return this.jobCompletionExecutor("finalize", poolSize, queueCapacity, registry);
+    }
+
+    /**
+     * Get the executor the directories of finished jobs are cleaned up and archived on.
+     *
+     * @param poolSize      The number of job directories which can be archived concurrently
+     * @param queueCapacity The number of jobs which can wait for a free thread before they're handed over again later
+     * @param registry      The metrics registry to use
+     * @return The job completion archive executor
+     */
+    @Bean
+    public AsyncTaskExecutor jobCompletionArchiveExecutor(
+        @Value("${genie.tasks.jobCompletion.archive.pool.size:4}") final int poolSize,
+        @Value("${genie.tasks.jobCompletion.archive.queue.capacity:1000}") final int queueCapacity,
+        final Registry registry
+    ) {
+        return this.jobCompletionExecutor("archive", poolSize, queueCapacity, registry);
+    }
+
+    /**
+     * Get the executor the emails about finished jobs are sent on.
+     *
+     * @param poolSize      The number of emails which can be sent concurrently
+     * @param queueCapacity The number of jobs which can wait for a free thread before they're handed over again later
+     * @param registry      The metrics registry to use
+     * @return The job completion notify executor
+     */
+    @Bean
+    public AsyncTaskExecutor jobCompletionNotifyExecutor(
+        @Value("${genie.tasks.jobCompletion.notify.pool.size:2}") final int poolSize,
+        @Value("${genie.tasks.jobCompletion.notify.queue.capacity:1000}") final int queueCapacity,
+        final Registry registry
+    ) {
+        return this.jobCompletionExecutor("notify", poolSize, queueCapacity, registry);
+    }
+
+    private AsyncTaskExecutor jobCompletionExecutor(
+        final String stage,
+        final int poolSize,
+        final int queueCapacity,
+        final Registry registry
+    ) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("genie-job-" + stage + "-");
+        registry.methodValue("genie.jobs.completion." + stage + ".active.gauge", executor, "getActiveCount");
+        return executor;
+    }
 }
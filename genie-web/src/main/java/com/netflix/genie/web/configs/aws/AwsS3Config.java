@@ -25,9 +25,11 @@ import com.amazonaws.retry.PredefinedRetryPolicies;
 import com.amazonaws.services.s3.AmazonS3;
 import com.amazonaws.services.s3.AmazonS3ClientBuilder;
 import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.properties.S3TransferProperties;
 import com.netflix.genie.core.services.impl.S3FileTransferImpl;
 import com.netflix.spectator.api.Registry;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -35,6 +37,8 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.annotation.Order;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /**
  * Beans and configuration specifically for S3 connection on AWS.
@@ -100,11 +104,30 @@ public class AwsS3Config {
             .build();
     }
 
+    /**
+     * The executor parts of large S3 objects are transferred on. Shared by all transfers and without a queue so a
+     * transfer which can't get more threads carries on with the ones it has instead of waiting behind other transfers.
+     *
+     * @param transferProperties The properties controlling parallel transfers
+     * @return The S3 transfer executor
+     */
+    @Bean
+    public AsyncTaskExecutor s3TransferExecutor(final S3TransferProperties transferProperties) {
+        final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(transferProperties.getPoolSize());
+        executor.setMaxPoolSize(transferProperties.getPoolSize());
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("genie-s3-transfer-");
+        return executor;
+    }
+
     /**
      * Returns a bean which has an s3 implementation of the File Transfer interface.
      *
-     * @param s3Client S3 client to initialize the service
-     * @param registry The metrics registry to use
+     * @param s3Client           S3 client to initialize the service
+     * @param transferProperties The properties controlling parallel transfers
+     * @param s3TransferExecutor The executor to transfer parts of large objects on
+     * @param registry           The metrics registry to use
      * @return An s3 implementation of the FileTransfer interface
      * @throws GenieException if there is any problem
      */
@@ -113,8 +136,10 @@ public class AwsS3Config {
     @ConditionalOnBean(AmazonS3.class)
     public S3FileTransferImpl s3FileTransferImpl(
         final AmazonS3 s3Client,
+        final S3TransferProperties transferProperties,
+        @Qualifier("s3TransferExecutor") final AsyncTaskExecutor s3TransferExecutor,
         final Registry registry
     ) throws GenieException {
-        return new S3FileTransferImpl(s3Client, registry);
+        return new S3FileTransferImpl(s3Client, transferProperties, s3TransferExecutor, registry);
     }
 }
@@ -0,0 +1,82 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.endpoints;
+
+import com.netflix.genie.web.tasks.node.FileCachePrewarmTask;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.mvc.AbstractMvcEndpoint;
+import org.springframework.boot.actuate.endpoint.mvc.ActuatorMediaTypes;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import javax.validation.constraints.NotNull;
+import java.util.Map;
+
+/**
+ * Actuator endpoint to report the progress of prewarming the local file cache and to trigger a full prewarm.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@ConditionalOnProperty("genie.tasks.fileCachePrewarm.enabled")
+@Component
+public class FileCachePrewarmMvcEndpoint extends AbstractMvcEndpoint {
+
+    private final FileCachePrewarmTask prewarmTask;
+
+    /**
+     * Constructor.
+     *
+     * @param prewarmTask The task which prewarms the cache
+     */
+    @Autowired
+    public FileCachePrewarmMvcEndpoint(@NotNull final FileCachePrewarmTask prewarmTask) {
+        super("/fileCachePrewarm", true);
+        this.prewarmTask = prewarmTask;
+    }
+
+    /**
+     * Get the progress of prewarming the cache.
+     *
+     * @return The status of the prewarm task
+     */
+    @GetMapping(produces = {ActuatorMediaTypes.APPLICATION_ACTUATOR_V1_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @ResponseBody
+    public Map<String, Object> getStatus() {
+        return this.prewarmTask.getStatus();
+    }
+
+    /**
+     * Prewarm the files of all UP clusters and ACTIVE commands and applications in the background.
+     *
+     * @return The status of the prewarm task
+     */
+    @PostMapping(produces = {ActuatorMediaTypes.APPLICATION_ACTUATOR_V1_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    @ResponseBody
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public Map<String, Object> prewarm() {
+        this.prewarmTask.prewarm();
+        return this.prewarmTask.getStatus();
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Properties controlling how often, and how far apart, the tasks done when a job completes are attempted.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@ConfigurationProperties(prefix = "genie.tasks.jobCompletion")
+@Component
+@Getter
+@Setter
+public class JobCompletionProperties {
+    private int maxAttempts = 10;
+    private long initialRetryDelay = 10000L;
+    private long maxRetryDelay = 600000L;
+}
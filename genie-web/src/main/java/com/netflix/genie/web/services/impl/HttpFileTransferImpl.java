@@ -28,6 +28,7 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.validator.routines.UrlValidator;
 import org.hibernate.validator.constraints.NotBlank;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.web.client.ResponseExtractor;
@@ -90,32 +91,30 @@ public class HttpFileTransferImpl implements FileTransfer {
         @NotBlank(message = "Destination local path cannot be empty")
         final String dstLocalPath
     ) throws GenieException {
-        final long start = System.nanoTime();
         log.debug("Called with src path {} and destination path {}", srcRemotePath, dstLocalPath);
+        this.download(srcRemotePath, dstLocalPath, -1L);
+    }
 
-        try {
-            final File outputFile = new File(dstLocalPath);
-            if (!this.isValid(srcRemotePath)) {
-                throw new GenieServerException("Unable to download " + srcRemotePath + " not a valid URL");
-            }
-            this.restTemplate.execute(
-                srcRemotePath,
-                HttpMethod.GET,
-                requestEntity ->
-                    requestEntity.getHeaders().setAccept(Lists.newArrayList(MediaType.ALL)),
-                new ResponseExtractor<Void>() {
-                    @Override
-                    public Void extractData(final ClientHttpResponse response) throws IOException {
-                        // Documentation I could find pointed to the HttpEntity reading the bytes off
-                        // the stream so this should resolve memory problems if the file returned is large
-                        FileUtils.copyInputStreamToFile(response.getBody(), outputFile);
-                        return null;
-                    }
-                }
-            );
-        } finally {
-            this.downloadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
-        }
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Sends an If-Modified-Since header with the GET request so the server only returns the file if it changed.
+     */
+    @Override
+    public boolean getFileIfModified(
+        @NotBlank(message = "Source file path cannot be empty.")
+        final String srcRemotePath,
+        @NotBlank(message = "Destination local path cannot be empty")
+        final String dstLocalPath,
+        final long lastModifiedTime
+    ) throws GenieException {
+        log.debug(
+            "Called with src path {}, destination path {} and last modified time {}",
+            srcRemotePath,
+            dstLocalPath,
+            lastModifiedTime
+        );
+        return this.download(srcRemotePath, dstLocalPath, lastModifiedTime);
     }
 
     /**
@@ -138,6 +137,20 @@ public class HttpFileTransferImpl implements FileTransfer {
         }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void putStream(
+        @NotNull final StreamWriter writer,
+        @NotBlank(message = "Destination remote path cannot be empty")
+        final String dstRemotePath
+    ) throws GenieException {
+        throw new UnsupportedOperationException(
+            "Saving a stream to an HttpEndpoint isn't implemented in this version"
+        );
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -156,4 +169,43 @@ public class HttpFileTransferImpl implements FileTransfer {
             this.getLastModifiedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
+
+    private boolean download(
+        final String srcRemotePath,
+        final String dstLocalPath,
+        final long ifModifiedSince
+    ) throws GenieException {
+        final long start = System.nanoTime();
+        try {
+            final File outputFile = new File(dstLocalPath);
+            if (!this.isValid(srcRemotePath)) {
+                throw new GenieServerException("Unable to download " + srcRemotePath + " not a valid URL");
+            }
+            final Boolean downloaded = this.restTemplate.execute(
+                srcRemotePath,
+                HttpMethod.GET,
+                requestEntity -> {
+                    requestEntity.getHeaders().setAccept(Lists.newArrayList(MediaType.ALL));
+                    if (ifModifiedSince >= 0) {
+                        requestEntity.getHeaders().setIfModifiedSince(ifModifiedSince);
+                    }
+                },
+                new ResponseExtractor<Boolean>() {
+                    @Override
+                    public Boolean extractData(final ClientHttpResponse response) throws IOException {
+                        if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                            return false;
+                        }
+                        // Documentation I could find pointed to the HttpEntity reading the bytes off
+                        // the stream so this should resolve memory problems if the file returned is large
+                        FileUtils.copyInputStreamToFile(response.getBody(), outputFile);
+                        return true;
+                    }
+                }
+            );
+            return downloaded != null && downloaded;
+        } finally {
+            this.downloadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
 }
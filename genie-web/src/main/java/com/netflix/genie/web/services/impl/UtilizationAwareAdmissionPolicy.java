@@ -0,0 +1,172 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services.impl;
+
+import com.netflix.genie.core.properties.JobsAdmissionProperties;
+import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.services.JobAdmissionPolicy;
+import com.netflix.genie.core.services.impl.RequestedMemoryAdmissionPolicy;
+import com.netflix.genie.core.util.ProcFsResourceUsageReader;
+import com.netflix.genie.web.tasks.job.JobResourceUsageSampler;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.validation.constraints.NotNull;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Admits jobs based on the memory the jobs running on the node are observed to use and on the memory still available
+ * on the node rather than only on the memory they requested. A job is admitted when:
+ * <ul>
+ * <li>the requested memory doesn't exceed the memory the node can use for jobs times the overcommit ratio</li>
+ * <li>the observed memory plus the memory the job requested fits in the memory the node can use for jobs</li>
+ * <li>the memory available on the node minus the memory the job requested leaves at least the headroom free</li>
+ * </ul>
+ * The observed memory is the peak resident set size of every sampled job. Jobs which weren't sampled yet, for example
+ * because they are still being set up, are assumed to use all the memory they requested. When the resources used by
+ * jobs aren't sampled, or the available memory can't be read, jobs are admitted on the memory they requested.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Slf4j
+public class UtilizationAwareAdmissionPolicy implements JobAdmissionPolicy {
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+    private static final String REASON_TAG = "reason";
+
+    private final JobsProperties jobsProperties;
+    private final JobResourceUsageSampler sampler;
+    private final ProcFsResourceUsageReader reader;
+    private final JobAdmissionPolicy fallbackPolicy;
+    private volatile long observedMemory;
+    private volatile long availableMemory;
+
+    private final Timer checkTimer;
+    private final Counter fallbackCounter;
+    private final Counter overcommitRejections;
+    private final Counter observedRejections;
+    private final Counter availableRejections;
+
+    /**
+     * Constructor.
+     *
+     * @param jobsProperties The jobs properties with the memory limits of this node and how to admit jobs
+     * @param sampler        The sampler of the resources used by the jobs running on this node
+     * @param reader         The reader of the memory available on this node
+     * @param registry       The metrics registry to use
+     */
+    public UtilizationAwareAdmissionPolicy(
+        @NotNull final JobsProperties jobsProperties,
+        @NotNull final JobResourceUsageSampler sampler,
+        @NotNull final ProcFsResourceUsageReader reader,
+        @NotNull final Registry registry
+    ) {
+        this.jobsProperties = jobsProperties;
+        this.sampler = sampler;
+        this.reader = reader;
+        this.fallbackPolicy = new RequestedMemoryAdmissionPolicy(jobsProperties);
+
+        this.checkTimer = registry.timer("genie.jobs.admission.check.timer");
+        this.fallbackCounter = registry.counter("genie.jobs.admission.fallback.counter");
+        final String rejectedName = "genie.jobs.admission.utilization.rejected.counter";
+        this.overcommitRejections = registry.counter(registry.createId(rejectedName).withTag(REASON_TAG, "overcommit"));
+        this.observedRejections = registry.counter(registry.createId(rejectedName).withTag(REASON_TAG, "observed"));
+        this.availableRejections = registry.counter(registry.createId(rejectedName).withTag(REASON_TAG, "available"));
+        registry.gauge(
+            "genie.jobs.admission.memory.observed.gauge",
+            this,
+            (ToDoubleFunction<UtilizationAwareAdmissionPolicy>) UtilizationAwareAdmissionPolicy::getObservedMemory
+        );
+        registry.gauge(
+            "genie.jobs.admission.memory.available.gauge",
+            this,
+            (ToDoubleFunction<UtilizationAwareAdmissionPolicy>) UtilizationAwareAdmissionPolicy::getAvailableMemory
+        );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean canAdmit(final int usedMemory, final int memory) {
+        final long start = System.nanoTime();
+        try {
+            if (!this.sampler.isEnabled()) {
+                this.fallbackCounter.increment();
+                return this.fallbackPolicy.canAdmit(usedMemory, memory);
+            }
+
+            final long available;
+            try {
+                available = this.reader.readAvailableMemory() / BYTES_PER_MB;
+            } catch (final IOException ioe) {
+                log.warn("Unable to read the available memory. Admitting on requested memory", ioe);
+                this.fallbackCounter.increment();
+                return this.fallbackPolicy.canAdmit(usedMemory, memory);
+            }
+
+            final JobResourceUsageSampler.SampledMemory sampled = this.sampler.getSampledMemory();
+            final long unsampled = Math.max(0L, usedMemory - sampled.getRequestedMemory());
+            final long observed = unsampled + (sampled.getPeakRss() + BYTES_PER_MB - 1) / BYTES_PER_MB;
+            this.observedMemory = observed;
+            this.availableMemory = available;
+
+            final int maxSystemMemory = this.jobsProperties.getMemory().getMaxSystemMemory();
+            final JobsAdmissionProperties admission = this.jobsProperties.getAdmission();
+            if (usedMemory + memory > (long) (maxSystemMemory * admission.getOvercommitRatio())) {
+                this.overcommitRejections.increment();
+                return false;
+            }
+            if (observed + memory > maxSystemMemory) {
+                this.observedRejections.increment();
+                return false;
+            }
+            // The jobs not sampled yet may not have allocated their memory so it isn't counted as used by the system
+            if (available - unsampled - memory < admission.getHeadroom()) {
+                this.availableRejections.increment();
+                return false;
+            }
+            return true;
+        } finally {
+            this.checkTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Get the memory the jobs running on this node were estimated to use at the last admission check.
+     *
+     * @return The observed memory in MB
+     */
+    public long getObservedMemory() {
+        return this.observedMemory;
+    }
+
+    /**
+     * Get the memory available on this node at the last admission check.
+     *
+     * @return The available memory in MB
+     */
+    public long getAvailableMemory() {
+        return this.availableMemory;
+    }
+}
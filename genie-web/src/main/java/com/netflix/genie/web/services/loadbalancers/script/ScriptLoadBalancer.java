@@ -130,7 +130,7 @@ public class ScriptLoadBalancer implements ClusterLoadBalancer {
      */
     @Autowired
     public ScriptLoadBalancer(
-        final AsyncTaskExecutor taskExecutor,
+        @Qualifier("taskExecutor") final AsyncTaskExecutor taskExecutor,
         final TaskScheduler taskScheduler,
         @Qualifier("cacheGenieFileTransferService") final GenieFileTransferService fileTransferService,
         final Environment environment,
@@ -0,0 +1,307 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.netflix.genie.core.events.JobFinishedReason;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.validation.constraints.NotNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A durable record of the completion work still to be done for the jobs which finished on this node.
+ * <p>
+ * Every pending task is a small JSON file in the outbox directory. It's written before the task is first attempted,
+ * rewritten whenever an attempt fails and deleted once the task succeeded or was given up on, so whatever is left
+ * after a restart is the work to resume. If a file can't be written the task is still tracked in memory so it's
+ * attempted, it just won't survive a restart.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Slf4j
+public class JobCompletionOutbox {
+
+    /**
+     * The name of the directory, within the jobs directory, the outbox is kept in.
+     */
+    public static final String DIRECTORY_NAME = ".completion-outbox";
+
+    private static final String ENTRY_SUFFIX = ".json";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final File directory;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<String> claimed = ConcurrentHashMap.newKeySet();
+    private final List<Entry> loaded;
+
+    private final Counter writeFailureCounter;
+    private final Counter readFailureCounter;
+
+    /**
+     * Constructor. Loads the entries left behind by the previous run of this node.
+     *
+     * @param directory The directory to keep the outbox in. Created if it doesn't exist.
+     * @param registry  The metrics registry to use
+     * @throws IOException if the directory can't be created
+     */
+    public JobCompletionOutbox(@NotNull final File directory, @NotNull final Registry registry) throws IOException {
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create job completion outbox " + directory);
+        }
+        this.directory = directory;
+
+        this.writeFailureCounter = registry.counter("genie.jobs.completion.outbox.write.failure.counter");
+        this.readFailureCounter = registry.counter("genie.jobs.completion.outbox.read.failure.counter");
+        registry.gauge(
+            "genie.jobs.completion.outbox.depth.gauge",
+            this,
+            (ToDoubleFunction<JobCompletionOutbox>) JobCompletionOutbox::getDepth
+        );
+        registry.gauge(
+            "genie.jobs.completion.outbox.age.gauge",
+            this,
+            (ToDoubleFunction<JobCompletionOutbox>) JobCompletionOutbox::getAge
+        );
+
+        this.loaded = this.load();
+    }
+
+    /**
+     * Record a task for a job unless one is already pending.
+     *
+     * @param jobId   The id of the job
+     * @param task    The task to do
+     * @param reason  Why the job finished
+     * @param message The message the job finished with
+     * @return The pending entry for the task. The existing one if there was one already.
+     */
+    public Entry add(
+        @NotNull final String jobId,
+        @NotNull final Task task,
+        @NotNull final JobFinishedReason reason,
+        final String message
+    ) {
+        return this.entries.computeIfAbsent(
+            key(jobId, task),
+            key -> {
+                final Entry entry = new Entry(jobId, task, reason, message, System.currentTimeMillis());
+                this.write(entry);
+                return entry;
+            }
+        );
+    }
+
+    /**
+     * Save the current state of an entry, e.g. after an attempt failed.
+     *
+     * @param entry The entry to save
+     */
+    public void update(@NotNull final Entry entry) {
+        this.write(entry);
+    }
+
+    /**
+     * Remove an entry once its task is done or given up on.
+     *
+     * @param entry The entry to remove
+     */
+    public void remove(@NotNull final Entry entry) {
+        final String key = key(entry.getJobId(), entry.getTask());
+        this.entries.remove(key);
+        this.claimed.remove(key);
+        final File file = new File(this.directory, key + ENTRY_SUFFIX);
+        if (file.exists() && !file.delete()) {
+            log.warn("Unable to delete job completion outbox entry {}", file);
+        }
+    }
+
+    /**
+     * Claim an entry for processing. Only the first claim of an entry succeeds so the same task isn't worked on
+     * twice at the same time.
+     *
+     * @param entry The entry to claim
+     * @return true if the caller now owns the entry
+     */
+    public boolean claim(@NotNull final Entry entry) {
+        return this.claimed.add(key(entry.getJobId(), entry.getTask()));
+    }
+
+    /**
+     * Get the pending entry of a task for a job.
+     *
+     * @param jobId The id of the job
+     * @param task  The task
+     * @return The entry or null if there is none pending
+     */
+    public Entry get(@NotNull final String jobId, @NotNull final Task task) {
+        return this.entries.get(key(jobId, task));
+    }
+
+    /**
+     * Get the entries which were left behind by the previous run of this node.
+     *
+     * @return The entries found on disk when the outbox was created
+     */
+    public List<Entry> getLoaded() {
+        return this.loaded;
+    }
+
+    /**
+     * Get how many tasks are pending.
+     *
+     * @return The number of entries in the outbox
+     */
+    public int getDepth() {
+        return this.entries.size();
+    }
+
+    /**
+     * Get how long the oldest pending task has been waiting in milliseconds.
+     *
+     * @return The age of the oldest entry or 0 if the outbox is empty
+     */
+    public long getAge() {
+        final OptionalLong oldest = this.entries.values().stream().mapToLong(Entry::getCreated).min();
+        return oldest.isPresent() ? System.currentTimeMillis() - oldest.getAsLong() : 0L;
+    }
+
+    private List<Entry> load() {
+        final File[] files = this.directory.listFiles();
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        for (final File file : files) {
+            final String name = file.getName();
+            if (name.endsWith(TEMP_SUFFIX)) {
+                // Left behind by a write which never completed. The entry it was replacing is still there.
+                if (!file.delete()) {
+                    log.warn("Unable to delete partial job completion outbox entry {}", file);
+                }
+            } else if (name.endsWith(ENTRY_SUFFIX)) {
+                try {
+                    final Entry entry = this.mapper.readValue(file, Entry.class);
+                    this.entries.put(key(entry.getJobId(), entry.getTask()), entry);
+                } catch (final IOException ioe) {
+                    log.error("Unable to read job completion outbox entry {}. Its task won't be resumed.", file, ioe);
+                    this.readFailureCounter.increment();
+                }
+            }
+        }
+        log.info("Loaded {} pending job completion tasks", this.entries.size());
+        return new ArrayList<>(this.entries.values());
+    }
+
+    private void write(final Entry entry) {
+        final String key = key(entry.getJobId(), entry.getTask());
+        final File temp = new File(this.directory, key + TEMP_SUFFIX);
+        try {
+            this.mapper.writeValue(temp, entry);
+            Files.move(
+                temp.toPath(),
+                new File(this.directory, key + ENTRY_SUFFIX).toPath(),
+                StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE
+            );
+        } catch (final IOException ioe) {
+            log.error("Unable to save job completion outbox entry {}. It won't survive a restart.", key, ioe);
+            this.writeFailureCounter.increment();
+        }
+    }
+
+    private static String key(final String jobId, final Task task) {
+        return jobId + "." + task.name().toLowerCase();
+    }
+
+    /**
+     * The tasks done once a job completes.
+     */
+    public enum Task {
+        /**
+         * Save the final status of the job.
+         */
+        FINALIZE,
+        /**
+         * Delete the dependencies of the job and archive its directory.
+         */
+        ARCHIVE,
+        /**
+         * Email the user about the job.
+         */
+        NOTIFY
+    }
+
+    /**
+     * A pending task for a job.
+     */
+    @Getter
+    @Setter
+    public static class Entry {
+        private String jobId;
+        private Task task;
+        private JobFinishedReason reason;
+        private String message;
+        private long created;
+        private int attempts;
+
+        /**
+         * Constructor used when reading entries back.
+         */
+        public Entry() {
+        }
+
+        /**
+         * Constructor.
+         *
+         * @param jobId   The id of the job
+         * @param task    The task to do
+         * @param reason  Why the job finished
+         * @param message The message the job finished with
+         * @param created When the task was recorded in epoch milliseconds
+         */
+        public Entry(
+            final String jobId,
+            final Task task,
+            final JobFinishedReason reason,
+            final String message,
+            final long created
+        ) {
+            this.jobId = jobId;
+            this.task = task;
+            this.reason = reason;
+            this.message = message;
+            this.created = created;
+        }
+    }
+}
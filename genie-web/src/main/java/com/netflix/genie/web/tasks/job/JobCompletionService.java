@@ -34,36 +34,56 @@ import com.netflix.genie.core.jobs.JobConstants;
 import com.netflix.genie.core.jobs.JobDoneFile;
 import com.netflix.genie.core.jobs.JobKillReasonFile;
 import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.services.DirectoryDeletionService;
+import com.netflix.genie.core.services.JobArchiveService;
 import com.netflix.genie.core.services.JobPersistenceService;
 import com.netflix.genie.core.services.JobSearchService;
 import com.netflix.genie.core.services.MailService;
-import com.netflix.genie.core.services.impl.GenieFileTransferService;
+import com.netflix.genie.web.properties.JobCompletionProperties;
 import com.netflix.spectator.api.Counter;
 import com.netflix.spectator.api.Id;
 import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.exec.CommandLine;
 import org.apache.commons.exec.DefaultExecutor;
 import org.apache.commons.exec.Executor;
 import org.apache.commons.exec.PumpStreamHandler;
-import org.apache.commons.io.FileUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
-import org.springframework.retry.support.RetryTemplate;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 
 import javax.validation.constraints.NotNull;
 import java.io.File;
 import java.io.IOException;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
  * A class that has the methods to perform various tasks when a job completes.
+ * <p>
+ * Completion runs in stages, each on its own bounded executor. The final status of the job is always saved first.
+ * Only then are the job directory archived and the email sent, in parallel, so slow uploads can't hold up the status
+ * of other jobs or their emails. A job isn't handed over to a stage whose executor is full on the thread handing it
+ * over, which would hold up every job behind it. It stays in the outbox and is handed over again after a delay which
+ * grows every time the stage is still full, whether it's handed over the first time or to attempt a failed stage again.
+ * <p>
+ * Every stage is recorded in the {@link JobCompletionOutbox} before it's attempted and removed once it's done, so
+ * the stages of jobs which were still completing when the node went down are resumed once it's back up. A failed
+ * attempt is scheduled again after an exponentially growing delay instead of holding on to the stage's thread.
  *
  * @author amsharma
  * @author tgianos
@@ -78,13 +98,15 @@ public class JobCompletionService {
 
     private final JobPersistenceService jobPersistenceService;
     private final JobSearchService jobSearchService;
-    private final GenieFileTransferService genieFileTransferService;
+    private final JobArchiveService jobArchiveService;
     private final File baseWorkingDir;
     private final MailService mailServiceImpl;
     private final Executor executor;
-    private final boolean deleteArchiveFile;
     private final boolean deleteDependencies;
-    private final boolean runAsUserEnabled;
+    private final DirectoryDeletionService directoryDeletionService;
+    private final JobCompletionProperties completionProperties;
+    private final TaskScheduler scheduler;
+    private final JobCompletionOutbox outbox;
 
     // Metrics
     private final Registry registry;
@@ -95,48 +117,62 @@ public class JobCompletionService {
     private final Counter doneFileProcessingFailureRate;
     private final Counter finalStatusUpdateFailureRate;
     private final Counter processGroupCleanupFailureRate;
-    private final Counter archiveFileDeletionFailure;
     private final Counter deleteDependenciesFailure;
-    private final RetryTemplate retryTemplate;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<JobCompletionOutbox.Task, Stage> stages = new EnumMap<>(JobCompletionOutbox.Task.class);
 
     /**
      * Constructor.
      *
      * @param jobSearchService         An implementation of the job search service.
      * @param jobPersistenceService    An implementation of the job persistence service.
-     * @param genieFileTransferService An implementation of the Genie File Transfer service.
+     * @param jobArchiveService        An implementation of the job archive service.
+     * @param directoryDeletionService The service to delete the dependencies of jobs with
      * @param genieWorkingDir          The working directory where all job directories are created.
      * @param mailServiceImpl          An implementation of the mail service.
      * @param registry                 The metrics registry to use
      * @param jobsProperties           The properties relating to running jobs
-     * @param retryTemplate            Retry template for retrying remote calls
+     * @param completionProperties     The properties controlling how often the stages are attempted
+     * @param scheduler                The scheduler failed attempts are retried from
+     * @param finalizeExecutor         The executor the final status of jobs is saved on
+     * @param archiveExecutor          The executor the directories of jobs are cleaned up and archived on
+     * @param notifyExecutor           The executor the emails about finished jobs are sent on
      * @throws GenieException if there is a problem
      */
     @Autowired
     public JobCompletionService(
         final JobPersistenceService jobPersistenceService,
         final JobSearchService jobSearchService,
-        final GenieFileTransferService genieFileTransferService,
+        final JobArchiveService jobArchiveService,
+        final DirectoryDeletionService directoryDeletionService,
         @Qualifier("jobsDir") final Resource genieWorkingDir,
         final MailService mailServiceImpl,
         final Registry registry,
         final JobsProperties jobsProperties,
-        @Qualifier("genieRetryTemplate") @NotNull final RetryTemplate retryTemplate
+        @NotNull final JobCompletionProperties completionProperties,
+        @NotNull final TaskScheduler scheduler,
+        @Qualifier("jobCompletionFinalizeExecutor") @NotNull final TaskExecutor finalizeExecutor,
+        @Qualifier("jobCompletionArchiveExecutor") @NotNull final TaskExecutor archiveExecutor,
+        @Qualifier("jobCompletionNotifyExecutor") @NotNull final TaskExecutor notifyExecutor
     ) throws GenieException {
         this.jobPersistenceService = jobPersistenceService;
         this.jobSearchService = jobSearchService;
-        this.genieFileTransferService = genieFileTransferService;
+        this.jobArchiveService = jobArchiveService;
+        this.directoryDeletionService = directoryDeletionService;
         this.mailServiceImpl = mailServiceImpl;
-        this.deleteArchiveFile = jobsProperties.getCleanup().isDeleteArchiveFile();
         this.deleteDependencies = jobsProperties.getCleanup().isDeleteDependencies();
-        this.runAsUserEnabled = jobsProperties.getUsers().isRunAsUserEnabled();
+        this.completionProperties = completionProperties;
+        this.scheduler = scheduler;
 
         this.executor = new DefaultExecutor();
         this.executor.setStreamHandler(new PumpStreamHandler(null, null));
 
         try {
             this.baseWorkingDir = genieWorkingDir.getFile();
+            this.outbox = new JobCompletionOutbox(
+                new File(this.baseWorkingDir, JobCompletionOutbox.DIRECTORY_NAME),
+                registry
+            );
         } catch (IOException gse) {
             throw new GenieServerException("Could not load the base path from resource");
         }
@@ -150,74 +186,198 @@ public class JobCompletionService {
         this.doneFileProcessingFailureRate = registry.counter("genie.jobs.doneFileProcessingFailure.rate");
         this.finalStatusUpdateFailureRate = registry.counter("genie.jobs.finalStatusUpdateFailure.rate");
         this.processGroupCleanupFailureRate = registry.counter("genie.jobs.processGroupCleanupFailure.rate");
-        this.archiveFileDeletionFailure = registry.counter("genie.jobs.archiveFileDeletionFailure.rate");
         this.deleteDependenciesFailure = registry.counter("genie.jobs.deleteDependenciesFailure.rate");
-        // Retry template
-        this.retryTemplate = retryTemplate;
+
+        this.stages.put(JobCompletionOutbox.Task.FINALIZE, new Stage("finalize", finalizeExecutor, registry));
+        this.stages.put(JobCompletionOutbox.Task.ARCHIVE, new Stage("archive", archiveExecutor, registry));
+        this.stages.put(JobCompletionOutbox.Task.NOTIFY, new Stage("notify", notifyExecutor, registry));
+    }
+
+    /**
+     * Resume the stages of the jobs which were still completing when this node went down. Stages following the
+     * final status of a job still being saved are resumed once it has been.
+     *
+     * @param event The Spring Boot application ready event to startup on
+     */
+    @EventListener
+    public void onStartup(final ApplicationReadyEvent event) {
+        final List<JobCompletionOutbox.Entry> pending = this.outbox.getLoaded();
+        log.info("Resuming {} job completion tasks due to {}", pending.size(), event);
+        for (final JobCompletionOutbox.Entry entry : pending) {
+            if (entry.getTask() == JobCompletionOutbox.Task.FINALIZE
+                || this.outbox.get(entry.getJobId(), JobCompletionOutbox.Task.FINALIZE) == null) {
+                this.submit(entry);
+            }
+        }
     }
 
     /**
-     * Event listener for when a job is completed. Updates the status of the job.
+     * Event listener for when a job is completed. Hands the job over to the stage saving its final status.
      *
      * @param event The Spring Boot application ready event to startup on
      * @throws GenieException If there is any problem
      */
     void handleJobCompletion(final JobFinishedEvent event) throws GenieException {
+        this.submit(
+            this.outbox.add(event.getId(), JobCompletionOutbox.Task.FINALIZE, event.getReason(), event.getMessage())
+        );
+    }
+
+    private void submit(final JobCompletionOutbox.Entry entry) {
+        if (this.outbox.claim(entry)) {
+            this.handOver(entry, 0);
+        }
+    }
+
+    private void handOver(final JobCompletionOutbox.Entry entry, final int rejections) {
+        final Stage stage = this.stages.get(entry.getTask());
+        if (!stage.submit(() -> this.attempt(entry))) {
+            final long delay = this.getRetryDelay(rejections + 1);
+            log.warn(
+                "The {} stage of job completion is full. Handing job {} over to it again in {} ms",
+                stage.name,
+                entry.getJobId(),
+                delay
+            );
+            this.scheduler.schedule(
+                () -> this.handOver(entry, rejections + 1),
+                new Date(System.currentTimeMillis() + delay)
+            );
+        }
+    }
+
+    private long getRetryDelay(final int attempts) {
+        return (long) Math.min(
+            this.completionProperties.getMaxRetryDelay(),
+            this.completionProperties.getInitialRetryDelay() * Math.pow(2, attempts - 1)
+        );
+    }
+
+    private void attempt(final JobCompletionOutbox.Entry entry) {
+        final Stage stage = this.stages.get(entry.getTask());
+        try {
+            switch (entry.getTask()) {
+                case FINALIZE:
+                    this.finalizeJob(entry);
+                    break;
+                case ARCHIVE:
+                    this.archiveJob(entry.getJobId());
+                    break;
+                default:
+                    this.notifyJob(entry.getJobId());
+            }
+            this.outbox.remove(entry);
+        } catch (final Exception e) {
+            final int attempts = entry.getAttempts() + 1;
+            if (attempts >= this.completionProperties.getMaxAttempts()) {
+                log.error(
+                    "Giving up on the {} stage of job {} after {} attempts",
+                    stage.name,
+                    entry.getJobId(),
+                    attempts,
+                    e
+                );
+                this.giveUp(entry);
+                return;
+            }
+
+            final long delay = this.getRetryDelay(attempts);
+            log.warn(
+                "The {} stage of job {} failed due to {}. Trying again in {} ms",
+                stage.name,
+                entry.getJobId(),
+                e.getMessage(),
+                delay
+            );
+            entry.setAttempts(attempts);
+            this.outbox.update(entry);
+            stage.retryCounter.increment();
+            this.scheduler.schedule(() -> this.handOver(entry, 0), new Date(System.currentTimeMillis() + delay));
+        }
+    }
+
+    private void giveUp(final JobCompletionOutbox.Entry entry) {
+        this.outbox.remove(entry);
+        switch (entry.getTask()) {
+            case FINALIZE:
+                this.finalStatusUpdateFailureRate.increment();
+                // Things that should be done either way
+                this.submitFollowingStages(entry.getJobId());
+                break;
+            case ARCHIVE:
+                this.archivalFailureRate.increment();
+                break;
+            default:
+                this.emailFailureRate.increment();
+        }
+    }
+
+    private void finalizeJob(final JobCompletionOutbox.Entry entry) throws GenieException {
         final long start = System.nanoTime();
-        final String jobId = event.getId();
+        final String jobId = entry.getJobId();
         final Map<String, String> tags = Maps.newHashMap();
 
         try {
-            final Job job = retryTemplate.execute(context -> getJob(jobId));
-
-            final JobStatus status = job.getStatus();
+            final Job job;
+            try {
+                job = this.getJob(jobId);
+            } catch (final GenieException | RuntimeException e) {
+                tags.put(ERROR_TAG, "GET_JOB_FAILURE");
+                throw e;
+            }
 
-            // Make sure the job isn't already done before doing something
-            if (status.isActive()) {
+            // Make sure the job isn't already done before doing something. If it is a previous attempt may have
+            // saved the status already and left the following stages to be handed over.
+            if (job.getStatus().isActive()) {
+                // Record the following stages first so they aren't lost if the node goes down once the status is saved
+                this.outbox.add(jobId, JobCompletionOutbox.Task.ARCHIVE, entry.getReason(), entry.getMessage());
+                this.outbox.add(jobId, JobCompletionOutbox.Task.NOTIFY, entry.getReason(), entry.getMessage());
                 try {
-                    this.retryTemplate.execute(context -> updateJob(job, event, tags));
-                } catch (Exception e) {
-                    log.error("Failed updating for job: {}", jobId, e);
+                    this.updateJob(job, entry, tags);
+                } catch (final GenieException | RuntimeException e) {
                     tags.put(ERROR_TAG, "JOB_UPDATE_FAILURE");
-                    this.finalStatusUpdateFailureRate.increment();
-                }
-                // Things that should be done either way
-                try {
-                    this.retryTemplate.execute(context -> processJobDir(job));
-                } catch (Exception e) {
-                    log.error("Failed archiving directory for job: {}", jobId, e);
-                    tags.put(ERROR_TAG, "JOB_DIRECTORY_FAILURE");
-                    this.archivalFailureRate.increment();
-                }
-                try {
-                    this.retryTemplate.execute(context -> sendEmail(jobId));
-                } catch (Exception e) {
-                    log.error("Failed sending email for job: {}", jobId, e);
-                    tags.put(ERROR_TAG, "SEND_EMAIL_FAILURE");
-                    this.emailFailureRate.increment();
+                    throw e;
                 }
             }
-        } catch (Exception e) {
-            log.error("Failed getting job with id: {}", jobId, e);
-            tags.put(ERROR_TAG, "GET_JOB_FAILURE");
+            this.submitFollowingStages(jobId);
         } finally {
             final Id timerId = this.jobCompletionId.withTags(tags);
             this.registry.timer(timerId).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
     }
 
+    private void submitFollowingStages(final String jobId) {
+        for (final JobCompletionOutbox.Task task : EnumSet.of(
+            JobCompletionOutbox.Task.ARCHIVE,
+            JobCompletionOutbox.Task.NOTIFY
+        )) {
+            final JobCompletionOutbox.Entry entry = this.outbox.get(jobId, task);
+            if (entry != null) {
+                this.submit(entry);
+            }
+        }
+    }
+
+    private void archiveJob(final String jobId) throws GenieException, IOException {
+        this.processJobDir(this.getJob(jobId));
+    }
+
+    private void notifyJob(final String jobId) throws GenieException {
+        this.sendEmail(jobId);
+    }
+
     private Job getJob(final String jobId) throws GenieException {
         return this.jobSearchService.getJob(jobId);
     }
 
-    private Void updateJob(final Job job, final JobFinishedEvent event, final Map<String, String> tags)
+    private void updateJob(final Job job, final JobCompletionOutbox.Entry entry, final Map<String, String> tags)
         throws GenieException {
-        final String jobId = event.getId();
+        final String jobId = entry.getJobId();
         final JobStatus status = job.getStatus();
         // Now we know this job should be marked in one of the finished states
         JobStatus eventStatus = null;
         if (status == JobStatus.INIT) {
-            switch (event.getReason()) {
+            switch (entry.getReason()) {
                 case KILLED:
                     eventStatus = JobStatus.KILLED;
                     break;
@@ -238,27 +398,19 @@ public class JobCompletionService {
                     log.warn("Unknown event status for job: {}", jobId);
             }
         } else {
-            if (event.getReason() != JobFinishedReason.SYSTEM_CRASH) {
-                try {
-                    final String finalStatus =
-                        this.retryTemplate.execute(context -> updateFinalStatusForJob(jobId).toString());
-                    tags.put(STATUS_TAG, finalStatus);
-                    cleanupProcesses(jobId);
-                } catch (Exception e) {
-                    tags.put(ERROR_TAG, "JOB_UPDATE_FINAL_STATUS_FAILURE");
-                    log.error("Failed updating the exit code and status for job: {}", jobId, e);
-                    this.finalStatusUpdateFailureRate.increment();
-                }
+            if (entry.getReason() != JobFinishedReason.SYSTEM_CRASH) {
+                final JobStatus finalStatus = this.updateFinalStatusForJob(jobId);
+                tags.put(STATUS_TAG, finalStatus.toString());
+                cleanupProcesses(jobId);
             } else {
                 eventStatus = JobStatus.FAILED;
             }
         }
 
         if (eventStatus != null) {
-            this.jobPersistenceService.updateJobStatus(jobId, eventStatus, event.getMessage());
+            this.jobPersistenceService.updateJobStatus(jobId, eventStatus, entry.getMessage());
             tags.put(STATUS_TAG, eventStatus.toString());
         }
-        return null;
     }
 
     /**
@@ -286,8 +438,9 @@ public class JobCompletionService {
                     }
                 });
             }
-        } catch (final GenieException ge) {
-            log.error("Unable to cleanup process for job due to exception. " + jobId, ge);
+        } catch (final GenieException | RuntimeException e) {
+            // Best effort, the final status is already saved so don't fail the stage over it
+            log.error("Unable to cleanup process for job due to exception. " + jobId, e);
             this.processGroupCleanupFailureRate.increment();
         }
     }
@@ -457,18 +610,7 @@ public class JobCompletionService {
     }
 
     private void deleteDependenciesDirectory(final File dependencyDirectory) throws IOException {
-        if (dependencyDirectory.exists()) {
-            if (this.runAsUserEnabled) {
-                final CommandLine deleteCommand = new CommandLine("sudo");
-                deleteCommand.addArgument("rm");
-                deleteCommand.addArgument("-rf");
-                deleteCommand.addArgument(dependencyDirectory.getCanonicalPath());
-                log.debug("Delete command is {}", deleteCommand.toString());
-                this.executor.execute(deleteCommand);
-            } else {
-                FileUtils.deleteDirectory(dependencyDirectory);
-            }
-        }
+        this.directoryDeletionService.deleteDirectory(dependencyDirectory);
     }
 
     /**
@@ -496,53 +638,7 @@ public class JobCompletionService {
                 final Optional<String> archiveLocation = job.getArchiveLocation();
                 if (archiveLocation.isPresent() && !Strings.isNullOrEmpty(archiveLocation.get())) {
                     log.debug("Archiving job directory");
-                    // Create the tar file
-                    final File localArchiveFile = new File(jobDir, "genie/logs/" + jobId + ".tar.gz");
-
-                    final CommandLine commandLine;
-                    if (this.runAsUserEnabled) {
-                        commandLine = new CommandLine("sudo");
-                        commandLine.addArgument("tar");
-                    } else {
-                        commandLine = new CommandLine("tar");
-                    }
-                    commandLine.addArgument("-c");
-                    commandLine.addArgument("-z");
-                    commandLine.addArgument("-f");
-                    commandLine.addArgument(localArchiveFile.getCanonicalPath());
-                    commandLine.addArgument("./");
-
-                    this.executor.setWorkingDirectory(jobDir);
-
-                    log.debug("Archive command : {}", commandLine.toString());
-                    this.executor.execute(commandLine);
-
-                    // Upload the tar file to remote location
-                    this.genieFileTransferService.putFile(localArchiveFile.getCanonicalPath(), archiveLocation.get());
-
-                    // At this point the archive file is successfully uploaded to archive location specified in the job.
-                    // Now we can delete it from local disk to save space if enabled.
-                    if (this.deleteArchiveFile) {
-                        log.debug("Deleting archive file");
-                        try {
-                            if (this.runAsUserEnabled) {
-                                final CommandLine deleteCommand = new CommandLine("sudo");
-                                deleteCommand.addArgument("rm");
-                                deleteCommand.addArgument("-f");
-                                deleteCommand.addArgument(localArchiveFile.getCanonicalPath());
-
-                                this.executor.setWorkingDirectory(jobDir);
-                                log.debug("Delete command: {}", deleteCommand.toString());
-                                this.executor.execute(deleteCommand);
-                            } else if (!localArchiveFile.delete()) {
-                                log.error("Failed to delete archive file for job: {}", jobId);
-                                this.archiveFileDeletionFailure.increment();
-                            }
-                        } catch (final Exception e) {
-                            log.error("Failed to delete archive file for job: {}", jobId, e);
-                            this.archiveFileDeletionFailure.increment();
-                        }
-                    }
+                    this.jobArchiveService.archiveDirectory(jobDir, archiveLocation.get());
                     result = true;
                 }
             }
@@ -592,4 +688,52 @@ public class JobCompletionService {
         }
         return result;
     }
+
+    /**
+     * A stage of job completion. Keeps track of how many jobs are waiting for it, how long they waited and how long
+     * the stage took.
+     */
+    private static final class Stage {
+        private final String name;
+        private final TaskExecutor executor;
+        private final AtomicInteger depth = new AtomicInteger();
+        private final Timer waitTimer;
+        private final Timer runTimer;
+        private final Counter rejectedCounter;
+        private final Counter retryCounter;
+
+        private Stage(final String name, final TaskExecutor executor, final Registry registry) {
+            this.name = name;
+            this.executor = executor;
+            final String prefix = "genie.jobs.completion." + name;
+            this.waitTimer = registry.timer(prefix + ".wait.timer");
+            this.runTimer = registry.timer(prefix + ".run.timer");
+            this.rejectedCounter = registry.counter(prefix + ".rejected.counter");
+            this.retryCounter = registry.counter(prefix + ".retry.counter");
+            registry.gauge(prefix + ".queue.depth.gauge", this.depth);
+        }
+
+        private boolean submit(final Runnable task) {
+            final long submittedAt = System.nanoTime();
+            this.depth.incrementAndGet();
+            final Runnable timedTask = () -> {
+                final long start = System.nanoTime();
+                this.depth.decrementAndGet();
+                this.waitTimer.record(start - submittedAt, TimeUnit.NANOSECONDS);
+                try {
+                    task.run();
+                } finally {
+                    this.runTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                }
+            };
+            try {
+                this.executor.execute(timedTask);
+                return true;
+            } catch (final TaskRejectedException tre) {
+                this.depth.decrementAndGet();
+                this.rejectedCounter.increment();
+                return false;
+            }
+        }
+    }
 }
@@ -0,0 +1,178 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job;
+
+import com.netflix.genie.common.dto.JobStatusMessages;
+import com.netflix.genie.core.events.KillJobEvent;
+import com.netflix.genie.core.util.HashedTimingWheel;
+import com.netflix.genie.web.properties.JobMonitorProperties;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ApplicationEventMulticaster;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kills jobs when they reach their timeout. The deadlines of all jobs running on this node are kept on a hashed timing
+ * wheel advanced by a dedicated thread every tick, so jobs are killed within a tick of their deadline however busy the
+ * task scheduler is.
+ * <p>
+ * A kill is requested once per job. Job monitors still request it again if the job outlives its timeout.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Component
+@Slf4j
+public class JobDeadlineWheel implements Runnable {
+
+    private static final int WHEEL_SIZE = 512;
+
+    private final ApplicationEventMulticaster eventMulticaster;
+    private final long tickDuration;
+    private final HashedTimingWheel<Deadline> wheel;
+    private final Map<String, Deadline> deadlines = new ConcurrentHashMap<>();
+    private final Thread thread;
+
+    private final Counter expiredDeadlines;
+    private final Timer lateness;
+
+    /**
+     * Constructor. Starts the thread advancing the wheel.
+     *
+     * @param properties       The properties controlling how jobs are monitored
+     * @param eventMulticaster The multicaster to send the kill events with
+     * @param registry         The metrics registry to use
+     */
+    @Autowired
+    public JobDeadlineWheel(
+        @NotNull final JobMonitorProperties properties,
+        @NotNull final ApplicationEventMulticaster eventMulticaster,
+        @NotNull final Registry registry
+    ) {
+        this.eventMulticaster = eventMulticaster;
+        this.tickDuration = properties.getDeadlineTickDuration();
+        this.wheel = new HashedTimingWheel<>(this.tickDuration, WHEEL_SIZE, System.currentTimeMillis());
+
+        this.expiredDeadlines = registry.counter("genie.jobs.deadline.expired.counter");
+        this.lateness = registry.timer("genie.jobs.deadline.lateness.timer");
+        registry.mapSize("genie.jobs.deadline.pending.gauge", this.deadlines);
+
+        this.thread = new Thread(this, "genie-job-deadlines");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Kill the job when its timeout is reached. Replaces any deadline already set for the job.
+     *
+     * @param jobId   The id of the job
+     * @param timeout The time the job should be killed at
+     */
+    public void add(@NotNull final String jobId, @NotNull final Date timeout) {
+        final Deadline deadline = new Deadline(jobId, timeout.getTime());
+        deadline.timeout = this.wheel.schedule(deadline, deadline.time);
+        final Deadline previous = this.deadlines.put(jobId, deadline);
+        if (previous != null) {
+            previous.timeout.cancel();
+        }
+    }
+
+    /**
+     * Stop tracking the deadline of a job, for example once it finished.
+     *
+     * @param jobId The id of the job
+     */
+    public void remove(@NotNull final String jobId) {
+        final Deadline deadline = this.deadlines.remove(jobId);
+        if (deadline != null) {
+            deadline.timeout.cancel();
+        }
+    }
+
+    /**
+     * Stop the thread advancing the wheel.
+     */
+    @PreDestroy
+    public void close() {
+        this.thread.interrupt();
+    }
+
+    /**
+     * Advance the wheel every tick and kill the jobs whose deadline passed until interrupted.
+     */
+    @Override
+    public void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            final long now = System.currentTimeMillis();
+            try {
+                this.expire(now);
+                // Wake up at the start of the next tick
+                Thread.sleep(this.tickDuration - now % this.tickDuration);
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+            } catch (final RuntimeException re) {
+                log.error("Unable to expire job deadlines", re);
+            }
+        }
+        log.info("Stopped tracking job deadlines");
+    }
+
+    /**
+     * Kill the jobs whose deadline passed by the given time.
+     *
+     * @param now The current time in epoch milliseconds
+     */
+    void expire(final long now) {
+        for (final Deadline deadline : this.wheel.advance(now)) {
+            if (!this.deadlines.remove(deadline.jobId, deadline)) {
+                continue;
+            }
+            log.info("Job {} reached its timeout", deadline.jobId);
+            this.expiredDeadlines.increment();
+            this.lateness.record(Math.max(0L, now - deadline.time), TimeUnit.MILLISECONDS);
+            // Kills are handled asynchronously so a slow kill can't delay the other deadlines
+            this.eventMulticaster.multicastEvent(
+                new KillJobEvent(deadline.jobId, JobStatusMessages.JOB_EXCEEDED_TIMEOUT, this)
+            );
+        }
+    }
+
+    /**
+     * The deadline of a job.
+     */
+    private static final class Deadline {
+        private final String jobId;
+        private final long time;
+        private HashedTimingWheel.Timeout<Deadline> timeout;
+
+        private Deadline(final String jobId, final long time) {
+            this.jobId = jobId;
+            this.time = time;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job;
+
+import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.web.properties.JobMonitorProperties;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import javax.validation.constraints.NotNull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Watches the genie directory of every job running on this node for the done file the run script writes when the job
+ * ends. As soon as it appears the job process is checked by the {@link JobProcessScanner} instead of waiting for the
+ * next periodic check, so jobs are detected as finished within milliseconds. The periodic checks remain in case an
+ * event is missed.
+ * <p>
+ * The done file alone doesn't finish the job as it's also written when the job is killed before the job processes
+ * are gone.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Component
+@Slf4j
+public class JobDoneFileWatcher implements Runnable {
+
+    private final JobProcessScanner processScanner;
+    private final File jobsDir;
+    private final WatchService watchService;
+    private final Path doneFileName;
+    private final Map<String, WatchKey> keys = new ConcurrentHashMap<>();
+
+    private final Counter doneFilesDetected;
+    private final Counter watchFailures;
+
+    /**
+     * Constructor. Starts the thread watching for done files if enabled.
+     *
+     * @param processScanner The scanner to check the processes of finishing jobs with
+     * @param properties     The properties controlling how job processes are checked
+     * @param jobsDir        The directory where job output is stored
+     * @param registry       The metrics registry to use
+     * @throws IOException on error with the filesystem
+     */
+    @Autowired
+    public JobDoneFileWatcher(
+        @NotNull final JobProcessScanner processScanner,
+        @NotNull final JobMonitorProperties properties,
+        @Qualifier("jobsDir") @NotNull final Resource jobsDir,
+        @NotNull final Registry registry
+    ) throws IOException {
+        this.processScanner = processScanner;
+        this.jobsDir = jobsDir.getFile();
+        this.doneFileName = new File(JobConstants.GENIE_DONE_FILE_NAME).toPath().getFileName();
+
+        this.doneFilesDetected = registry.counter("genie.jobs.monitor.doneFile.detected.counter");
+        this.watchFailures = registry.counter("genie.jobs.monitor.doneFile.watchFailure.counter");
+        registry.mapSize("genie.jobs.monitor.doneFile.watched.gauge", this.keys);
+
+        if (properties.isWatchDoneFile()) {
+            this.watchService = this.jobsDir.toPath().getFileSystem().newWatchService();
+            final Thread thread = new Thread(this, "genie-done-file-watcher");
+            thread.setDaemon(true);
+            thread.start();
+        } else {
+            this.watchService = null;
+        }
+    }
+
+    /**
+     * Start watching for the done file of a job.
+     *
+     * @param jobId The id of the job
+     */
+    public void watch(@NotNull final String jobId) {
+        if (this.watchService == null) {
+            return;
+        }
+        final Path genieDir = new File(new File(this.jobsDir, jobId), JobConstants.GENIE_PATH_VAR).toPath();
+        try {
+            this.keys.put(jobId, genieDir.register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE));
+        } catch (final IOException | RuntimeException e) {
+            log.warn("Unable to watch {} for the done file of job {}. Relying on periodic checks.", genieDir, jobId, e);
+            this.watchFailures.increment();
+            return;
+        }
+        // The job may have ended before its directory was watched
+        if (Files.exists(genieDir.resolve(this.doneFileName))) {
+            this.onDoneFile(jobId);
+        }
+    }
+
+    /**
+     * Stop watching for the done file of a job.
+     *
+     * @param jobId The id of the job
+     */
+    public void unwatch(@NotNull final String jobId) {
+        final WatchKey key = this.keys.remove(jobId);
+        if (key != null) {
+            key.cancel();
+        }
+    }
+
+    /**
+     * Stop watching all jobs and end the watching thread.
+     *
+     * @throws IOException on error closing the watch service
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        if (this.watchService != null) {
+            this.watchService.close();
+        }
+    }
+
+    /**
+     * Wait for events in watched directories and check the jobs which wrote their done file until closed.
+     */
+    @Override
+    public void run() {
+        while (true) {
+            final WatchKey key;
+            try {
+                key = this.watchService.take();
+            } catch (final ClosedWatchServiceException cwse) {
+                log.info("Stopped watching for job done files");
+                return;
+            } catch (final InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            try {
+                this.handle(key);
+            } catch (final RuntimeException re) {
+                log.error("Unable to handle events in {}", key.watchable(), re);
+            } finally {
+                key.reset();
+            }
+        }
+    }
+
+    private void handle(final WatchKey key) {
+        final Path genieDir = (Path) key.watchable();
+        final String jobId = genieDir.getParent().getFileName().toString();
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            // Events may have been lost on overflow so look for the file instead
+            final boolean possiblyDone = event.kind() == StandardWatchEventKinds.OVERFLOW
+                ? Files.exists(genieDir.resolve(this.doneFileName))
+                : this.doneFileName.equals(event.context());
+            if (possiblyDone) {
+                this.onDoneFile(jobId);
+                return;
+            }
+        }
+    }
+
+    private void onDoneFile(final String jobId) {
+        log.debug("Done file of job {} detected", jobId);
+        this.doneFilesDetected.increment();
+        this.processScanner.expedite(jobId);
+    }
+}
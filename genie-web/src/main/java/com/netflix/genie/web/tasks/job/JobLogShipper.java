@@ -0,0 +1,344 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job;
+
+import com.google.common.base.Strings;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.events.JobFinishedEvent;
+import com.netflix.genie.core.events.JobStartedEvent;
+import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.core.properties.JobsLogShippingProperties;
+import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.services.JobSearchService;
+import com.netflix.genie.core.services.impl.GenieFileTransferService;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Id;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Date;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Ships the stdout and stderr of running jobs to their archive location as they're written, so the output isn't
+ * lost if the node dies before the job finishes and can be read without going through the node running the job.
+ * <p>
+ * Every interval the bytes appended to each file since the last shipment are uploaded as a new segment named
+ * {@code <archive location>.logs/<file>.<offset>} where the offset, zero padded so segments sort in order, is the
+ * position of the segment's first byte in the file. Concatenating the segments of a file in order gives the file.
+ * Only the new bytes are read from disk each time. Whatever is left is shipped once more when the job finishes.
+ * <p>
+ * Jobs re-attached to after a restart of Genie aren't shipped.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Component
+@Slf4j
+public class JobLogShipper {
+
+    private static final String LOGS_SUFFIX = ".logs/";
+    private static final String JOB_ID_TAG = "jobId";
+    private static final String FILE_TAG = "file";
+
+    private final JobSearchService jobSearchService;
+    private final GenieFileTransferService fileTransferService;
+    private final TaskScheduler scheduler;
+    private final AsyncTaskExecutor shippingExecutor;
+    private final File jobsDir;
+    private final JobsLogShippingProperties properties;
+    private final Registry registry;
+    private final Map<String, Shipment> shipments = new ConcurrentHashMap<>();
+
+    private final Counter shippedBytes;
+    private final Counter shippedSegments;
+    private final Counter failures;
+    private final Timer shippingTimer;
+    private final Id lagId;
+    private final Id ageId;
+
+    /**
+     * Constructor.
+     *
+     * @param jobSearchService    The search service to find the archive location of jobs with
+     * @param fileTransferService The file transfer service to upload segments with
+     * @param scheduler           The task scheduler to schedule shipments on
+     * @param shippingExecutor    The executor to upload segments on
+     * @param jobsDir             The directory where job output is stored
+     * @param jobsProperties      The properties pertaining to jobs
+     * @param registry            The metrics registry to use
+     * @throws IOException on error with the filesystem
+     */
+    @Autowired
+    public JobLogShipper(
+        final JobSearchService jobSearchService,
+        @Qualifier("genieFileTransferService") final GenieFileTransferService fileTransferService,
+        final TaskScheduler scheduler,
+        @Qualifier("jobLogShippingExecutor") final AsyncTaskExecutor shippingExecutor,
+        @Qualifier("jobsDir") final Resource jobsDir,
+        final JobsProperties jobsProperties,
+        final Registry registry
+    ) throws IOException {
+        this.jobSearchService = jobSearchService;
+        this.fileTransferService = fileTransferService;
+        this.scheduler = scheduler;
+        this.shippingExecutor = shippingExecutor;
+        this.jobsDir = jobsDir.getFile();
+        this.properties = jobsProperties.getLogShipping();
+        this.registry = registry;
+
+        this.shippedBytes = registry.counter("genie.jobs.logShipping.bytes.counter");
+        this.shippedSegments = registry.counter("genie.jobs.logShipping.segments.counter");
+        this.failures = registry.counter("genie.jobs.logShipping.failures.counter");
+        this.shippingTimer = registry.timer("genie.jobs.logShipping.timer");
+        this.lagId = registry.createId("genie.jobs.logShipping.lag.gauge");
+        this.ageId = registry.createId("genie.jobs.logShipping.age.gauge");
+        registry.mapSize("genie.jobs.logShipping.jobs.gauge", this.shipments);
+    }
+
+    /**
+     * Start shipping the output of a job when it starts if shipping is enabled and the job is archived.
+     *
+     * @param event The event of the started job
+     */
+    @EventListener
+    public void onJobStarted(final JobStartedEvent event) {
+        if (!this.properties.isEnabled()) {
+            return;
+        }
+        final String jobId = event.getId();
+        final Optional<String> archiveLocation;
+        try {
+            archiveLocation = this.jobSearchService.getJob(jobId).getArchiveLocation();
+        } catch (final GenieException ge) {
+            log.error("Unable to find archive location of job {}. Not shipping its output.", jobId, ge);
+            return;
+        }
+        if (!archiveLocation.isPresent() || Strings.isNullOrEmpty(archiveLocation.get())) {
+            log.debug("Job {} isn't archived. Not shipping its output.", jobId);
+            return;
+        }
+
+        final File jobDir = new File(this.jobsDir, jobId);
+        final Shipment shipment = new Shipment(
+            jobId,
+            archiveLocation.get() + LOGS_SUFFIX,
+            new LogFile(new File(jobDir, JobConstants.STDOUT_LOG_FILE_NAME)),
+            new LogFile(new File(jobDir, JobConstants.STDERR_LOG_FILE_NAME))
+        );
+        for (final LogFile logFile : shipment.logFiles) {
+            // The gauges only weakly reference the files so they go away once the job is done
+            this.registry.gauge(
+                this.lagId.withTag(JOB_ID_TAG, jobId).withTag(FILE_TAG, logFile.getName()),
+                logFile,
+                (ToDoubleFunction<LogFile>) LogFile::getLag
+            );
+            this.registry.gauge(
+                this.ageId.withTag(JOB_ID_TAG, jobId).withTag(FILE_TAG, logFile.getName()),
+                logFile,
+                (ToDoubleFunction<LogFile>) LogFile::getAge
+            );
+        }
+        this.shipments.put(jobId, shipment);
+        shipment.future = this.scheduler.scheduleWithFixedDelay(
+            () -> this.submit(shipment),
+            this.properties.getInterval()
+        );
+        log.info("Shipping output of job {} to {}", jobId, shipment.location);
+    }
+
+    /**
+     * Stop shipping the output of a job when it finishes after shipping whatever is left on the shipping executor.
+     *
+     * @param event The event of the finished job
+     */
+    @EventListener
+    public void onJobFinished(final JobFinishedEvent event) {
+        final Shipment shipment = this.shipments.remove(event.getId());
+        if (shipment == null) {
+            return;
+        }
+        if (shipment.future != null) {
+            shipment.future.cancel(false);
+        }
+        this.submitLast(shipment);
+    }
+
+    /**
+     * Submit a shipment to the shipping executor unless it's already waiting or running there.
+     */
+    private void submit(final Shipment shipment) {
+        if (!shipment.submitted.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            this.shippingExecutor.execute(
+                () -> {
+                    try {
+                        this.ship(shipment);
+                    } finally {
+                        shipment.submitted.set(false);
+                    }
+                }
+            );
+        } catch (final TaskRejectedException tre) {
+            log.warn("Unable to ship output of job {} this time as the executor is full", shipment.jobId);
+            shipment.submitted.set(false);
+        }
+    }
+
+    /**
+     * Submit the last shipment of a finished job to the shipping executor. It runs even if a periodic shipment is
+     * still running as the output written since has to be shipped too. If the executor is full it's tried again
+     * after the shipping interval rather than shipped on the thread which published the event.
+     */
+    private void submitLast(final Shipment shipment) {
+        try {
+            this.shippingExecutor.execute(
+                () -> {
+                    this.ship(shipment);
+                    log.info("Stopped shipping output of job {}", shipment.jobId);
+                }
+            );
+        } catch (final TaskRejectedException tre) {
+            log.warn("Unable to ship the rest of the output of job {} as the executor is full", shipment.jobId);
+            this.scheduler.schedule(
+                () -> this.submitLast(shipment),
+                new Date(System.currentTimeMillis() + this.properties.getInterval())
+            );
+        }
+    }
+
+    private void ship(final Shipment shipment) {
+        final long start = System.nanoTime();
+        try {
+            synchronized (shipment) {
+                for (final LogFile logFile : shipment.logFiles) {
+                    this.ship(shipment, logFile);
+                }
+            }
+        } finally {
+            this.shippingTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Upload what was appended to the file since the last shipment in segments of at most the maximum size. Stops at
+     * the first failure so the next shipment starts from the same offset.
+     */
+    private void ship(final Shipment shipment, final LogFile logFile) {
+        final long size = logFile.file.length();
+        while (logFile.offset < size) {
+            final long offset = logFile.offset;
+            final long length = Math.min(size - offset, this.properties.getMaxSegmentSize());
+            final String segment = String.format("%s%s.%020d", shipment.location, logFile.getName(), offset);
+            try {
+                this.fileTransferService.putStream(
+                    output -> {
+                        try (FileChannel channel = FileChannel.open(logFile.file.toPath(), StandardOpenOption.READ)) {
+                            final WritableByteChannel target = Channels.newChannel(output);
+                            long transferred = 0;
+                            while (transferred < length) {
+                                transferred += channel.transferTo(offset + transferred, length - transferred, target);
+                            }
+                        }
+                    },
+                    segment
+                );
+            } catch (final GenieException | RuntimeException e) {
+                log.error("Unable to ship {} of job {} to {}", logFile.getName(), shipment.jobId, segment, e);
+                this.failures.increment();
+                return;
+            }
+            logFile.offset = offset + length;
+            this.shippedBytes.increment(length);
+            this.shippedSegments.increment();
+        }
+        logFile.caughtUpAt = System.currentTimeMillis();
+    }
+
+    /**
+     * The output files of a job being shipped.
+     */
+    private static final class Shipment {
+        private final String jobId;
+        private final String location;
+        private final LogFile[] logFiles;
+        private final AtomicBoolean submitted = new AtomicBoolean();
+        private volatile ScheduledFuture<?> future;
+
+        private Shipment(final String jobId, final String location, final LogFile... logFiles) {
+            this.jobId = jobId;
+            this.location = location;
+            this.logFiles = logFiles;
+        }
+    }
+
+    /**
+     * A file being shipped and how much of it has been shipped.
+     */
+    private static final class LogFile {
+        private final File file;
+        private final long startedAt = System.currentTimeMillis();
+        private volatile long offset;
+        private volatile long caughtUpAt = this.startedAt;
+
+        private LogFile(final File file) {
+            this.file = file;
+        }
+
+        private String getName() {
+            return this.file.getName();
+        }
+
+        /**
+         * Get the number of bytes written to the file which haven't been shipped yet.
+         */
+        private double getLag() {
+            return Math.max(0L, this.file.length() - this.offset);
+        }
+
+        /**
+         * Get the number of milliseconds since all of the file was last shipped, or zero if it all has been.
+         */
+        private double getAge() {
+            return this.getLag() > 0 ? System.currentTimeMillis() - this.caughtUpAt : 0;
+        }
+    }
+}
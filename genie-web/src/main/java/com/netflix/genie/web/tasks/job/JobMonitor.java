@@ -41,7 +41,6 @@ import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import java.io.File;
 import java.io.IOException;
-import java.util.Date;
 
 /**
  * Given a process id this class will check if the job client process is running or not.
@@ -73,9 +72,11 @@ public class JobMonitor extends NodeTask {
     private final Counter stdOutTooLarge;
     private final Counter stdErrTooLarge;
     private int errorCount;
+    private final boolean checkOutputOnRun;
+    private volatile boolean finished;
 
     /**
-     * Constructor.
+     * Constructor. The process is checked with {@code ps} and the output sizes are checked every time the process is.
      *
      * @param execution        The job execution object including the pid
      * @param stdOut           The std out output file
@@ -95,6 +96,48 @@ public class JobMonitor extends NodeTask {
         @NotNull final ApplicationEventMulticaster eventMulticaster,
         @NotNull final Registry registry,
         @NotNull final JobsProperties jobsProperties
+    ) {
+        this(
+            execution,
+            stdOut,
+            stdErr,
+            new UnixProcessChecker(
+                execution.getProcessId().orElseThrow(IllegalArgumentException::new),
+                executor,
+                execution.getTimeout().orElseThrow(IllegalArgumentException::new)
+            ),
+            publisher,
+            eventMulticaster,
+            registry,
+            jobsProperties,
+            true
+        );
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param execution        The job execution object including the pid
+     * @param stdOut           The std out output file
+     * @param stdErr           The std err output file
+     * @param processChecker   The checker of the job process
+     * @param publisher        The event publisher to use when a job isn't running anymore
+     * @param eventMulticaster The multicaster to send async events
+     * @param registry         The metrics event registry
+     * @param jobsProperties   The properties for jobs
+     * @param checkOutputOnRun Whether the output sizes are checked every time the process is. If not
+     *                         {@link #checkOutputSizes()} is expected to be called separately.
+     */
+    public JobMonitor(
+        @Valid final JobExecution execution,
+        @NotNull final File stdOut,
+        @NotNull final File stdErr,
+        @NotNull final ProcessChecker processChecker,
+        @NotNull final ApplicationEventPublisher publisher,
+        @NotNull final ApplicationEventMulticaster eventMulticaster,
+        @NotNull final Registry registry,
+        @NotNull final JobsProperties jobsProperties,
+        final boolean checkOutputOnRun
     ) {
         if (!SystemUtils.IS_OS_UNIX) {
             throw new UnsupportedOperationException("Genie doesn't currently support " + SystemUtils.OS_NAME);
@@ -105,10 +148,8 @@ public class JobMonitor extends NodeTask {
         this.execution = execution;
         this.publisher = publisher;
         this.eventMulticaster = eventMulticaster;
-
-        final int processId = execution.getProcessId().orElseThrow(IllegalArgumentException::new);
-        final Date timeout = execution.getTimeout().orElseThrow(IllegalArgumentException::new);
-        this.processChecker = new UnixProcessChecker(processId, executor, timeout);
+        this.processChecker = processChecker;
+        this.checkOutputOnRun = checkOutputOnRun;
 
         this.stdOut = stdOut;
         this.stdErr = stdErr;
@@ -130,6 +171,9 @@ public class JobMonitor extends NodeTask {
      */
     @Override
     public void run() {
+        if (this.finished) {
+            return;
+        }
         try {
             // Blocks until result
             this.processChecker.checkProcess();
@@ -138,19 +182,7 @@ public class JobMonitor extends NodeTask {
                 this.errorCount = 0;
             }
 
-            if (this.stdOut.exists() && this.stdOut.length() > this.maxStdOutLength) {
-                this.publisher.publishEvent(
-                    new KillJobEvent(this.id, JobStatusMessages.JOB_EXCEEDED_STDOUT_LENGTH, this)
-                );
-                this.stdOutTooLarge.increment();
-                return;
-            }
-
-            if (this.stdErr.exists() && this.stdErr.length() > this.maxStdErrLength) {
-                this.publisher.publishEvent(
-                    new KillJobEvent(this.id, JobStatusMessages.JOB_EXCEEDED_STDERR_LENGTH, this)
-                );
-                this.stdErrTooLarge.increment();
+            if (this.checkOutputOnRun && this.checkOutputSizes()) {
                 return;
             }
 
@@ -161,6 +193,7 @@ public class JobMonitor extends NodeTask {
             this.publisher.publishEvent(new KillJobEvent(this.id, JobStatusMessages.JOB_EXCEEDED_TIMEOUT, this));
         } catch (final ExecuteException ee) {
             log.info("Job {} has finished", this.id);
+            this.finished = true;
             this.finishedRate.increment();
             this.eventMulticaster.multicastEvent(
                 new JobFinishedEvent(
@@ -182,6 +215,7 @@ public class JobMonitor extends NodeTask {
             // If this keeps throwing errors out we should kill the job
             if (this.errorCount > MAX_ERRORS) {
                 // TODO: What if they throw an exception?
+                this.finished = true;
                 this.publisher.publishEvent(
                     new KillJobEvent(
                         this.id,
@@ -202,6 +236,44 @@ public class JobMonitor extends NodeTask {
         }
     }
 
+    /**
+     * Request the job to be killed if its std out or std err file grew larger than allowed.
+     *
+     * @return true if the job was asked to be killed
+     */
+    public boolean checkOutputSizes() {
+        if (this.finished) {
+            return false;
+        }
+
+        if (this.stdOut.exists() && this.stdOut.length() > this.maxStdOutLength) {
+            this.publisher.publishEvent(
+                new KillJobEvent(this.id, JobStatusMessages.JOB_EXCEEDED_STDOUT_LENGTH, this)
+            );
+            this.stdOutTooLarge.increment();
+            return true;
+        }
+
+        if (this.stdErr.exists() && this.stdErr.length() > this.maxStdErrLength) {
+            this.publisher.publishEvent(
+                new KillJobEvent(this.id, JobStatusMessages.JOB_EXCEEDED_STDERR_LENGTH, this)
+            );
+            this.stdErrTooLarge.increment();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Whether this monitor already reported the job as finished. Once it has it no longer checks the process.
+     *
+     * @return true if the job finished event was sent
+     */
+    public boolean isFinished() {
+        return this.finished;
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -28,14 +28,15 @@ import com.netflix.genie.core.events.JobFinishedReason;
 import com.netflix.genie.core.events.JobStartedEvent;
 import com.netflix.genie.core.jobs.JobConstants;
 import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.services.JobAdmissionPolicy;
 import com.netflix.genie.core.services.JobSearchService;
 import com.netflix.genie.core.services.JobSubmitterService;
 import com.netflix.genie.core.services.impl.JobStateServiceImpl;
 import com.netflix.spectator.api.Counter;
 import com.netflix.spectator.api.Registry;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.exec.Executor;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.ApplicationEvent;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.annotation.Primary;
@@ -43,6 +44,7 @@ import org.springframework.context.event.ApplicationEventMulticaster;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.core.io.Resource;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
 
@@ -50,7 +52,6 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Set;
 import java.util.concurrent.Future;
-import java.util.concurrent.ScheduledFuture;
 
 /**
  * A Task to monitor running jobs on a Genie node.
@@ -65,7 +66,10 @@ public class JobMonitoringCoordinator extends JobStateServiceImpl {
     private final String hostName;
     private final JobSearchService jobSearchService;
     private final ApplicationEventMulticaster eventMulticaster;
-    private final Executor executor;
+    private final JobProcessScanner processScanner;
+    private final JobDoneFileWatcher doneFileWatcher;
+    private final JobDeadlineWheel deadlineWheel;
+    private final JobResourceUsageSampler resourceUsageSampler;
     private final File jobsDir;
     private final JobsProperties jobsProperties;
 
@@ -79,7 +83,12 @@ public class JobMonitoringCoordinator extends JobStateServiceImpl {
      * @param publisher        The application event publisher to use to publish synchronous events
      * @param eventMulticaster The event eventMulticaster to use to publish asynchronous events
      * @param scheduler        The task scheduler to use to register scheduling of job checkers
-     * @param executor         The executor to use to launch processes
+     * @param launchExecutor   The executor to run job launchers on
+     * @param processScanner   The scanner checking the processes of the jobs running on this node
+     * @param doneFileWatcher  The watcher detecting when jobs write their done file
+     * @param deadlineWheel    The wheel killing jobs when they reach their timeout
+     * @param resourceUsageSampler The sampler of the resources used by the jobs running on this node
+     * @param admissionPolicy  The policy deciding whether jobs can start on this node
      * @param registry         The metrics registry
      * @param jobsDir          The directory where job output is stored
      * @param jobsProperties   The properties pertaining to jobs
@@ -93,17 +102,25 @@ public class JobMonitoringCoordinator extends JobStateServiceImpl {
         final ApplicationEventPublisher publisher,
         final ApplicationEventMulticaster eventMulticaster,
         final TaskScheduler scheduler,
-        final Executor executor,
+        @Qualifier("jobLaunchExecutor") final AsyncTaskExecutor launchExecutor,
+        final JobProcessScanner processScanner,
+        final JobDoneFileWatcher doneFileWatcher,
+        final JobDeadlineWheel deadlineWheel,
+        final JobResourceUsageSampler resourceUsageSampler,
+        final JobAdmissionPolicy admissionPolicy,
         final Registry registry,
         final Resource jobsDir,
         final JobsProperties jobsProperties,
         final JobSubmitterService jobSubmitterService
     ) throws IOException {
-        super(jobSubmitterService, scheduler, publisher, registry);
+        super(jobSubmitterService, scheduler, launchExecutor, publisher, registry, jobsProperties, admissionPolicy);
         this.hostName = hostName;
         this.jobSearchService = jobSearchService;
         this.eventMulticaster = eventMulticaster;
-        this.executor = executor;
+        this.processScanner = processScanner;
+        this.doneFileWatcher = doneFileWatcher;
+        this.deadlineWheel = deadlineWheel;
+        this.resourceUsageSampler = resourceUsageSampler;
         this.jobsDir = jobsDir.getFile();
         this.jobsProperties = jobsProperties;
 
@@ -145,6 +162,9 @@ public class JobMonitoringCoordinator extends JobStateServiceImpl {
      */
     @EventListener
     public void onJobFinished(final JobFinishedEvent event) throws GenieException {
+        this.doneFileWatcher.unwatch(event.getId());
+        this.deadlineWheel.remove(event.getId());
+        this.resourceUsageSampler.remove(event.getId());
         done(event.getId());
     }
 
@@ -192,30 +212,25 @@ public class JobMonitoringCoordinator extends JobStateServiceImpl {
         final File stdOut = new File(this.jobsDir, jobId + "/" + JobConstants.STDOUT_LOG_FILE_NAME);
         final File stdErr = new File(this.jobsDir, jobId + "/" + JobConstants.STDERR_LOG_FILE_NAME);
 
+        final int pid = jobExecution.getProcessId().orElseThrow(IllegalArgumentException::new);
         final JobMonitor monitor = new JobMonitor(
             jobExecution,
             stdOut,
             stdErr,
-            this.executor,
+            this.processScanner.getProcessChecker(
+                pid,
+                jobExecution.getTimeout().orElseThrow(IllegalArgumentException::new)
+            ),
             this.publisher,
             this.eventMulticaster,
             this.registry,
-            this.jobsProperties
+            this.jobsProperties,
+            false
         );
-        final ScheduledFuture<?> future;
-        switch (monitor.getScheduleType()) {
-            case TRIGGER:
-                future = this.scheduler.schedule(monitor, monitor.getTrigger());
-                break;
-            case FIXED_DELAY:
-                future = this.scheduler.scheduleWithFixedDelay(monitor, monitor.getFixedDelay());
-                break;
-            case FIXED_RATE:
-                future = this.scheduler.scheduleAtFixedRate(monitor, monitor.getFixedRate());
-                break;
-            default:
-                throw new UnsupportedOperationException("Unknown schedule type: " + monitor.getScheduleType());
-        }
+        final Future<?> future = this.processScanner.add(jobId, monitor);
+        this.doneFileWatcher.watch(jobId);
+        this.deadlineWheel.add(jobId, jobExecution.getTimeout().orElseThrow(IllegalArgumentException::new));
+        this.resourceUsageSampler.add(jobId, pid, jobExecution.getMemory().orElse(0));
         log.info("Scheduled job monitoring for Job {}", jobExecution.getId());
         return future;
     }
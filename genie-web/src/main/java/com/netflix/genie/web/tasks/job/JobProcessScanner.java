@@ -0,0 +1,246 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job;
+
+import com.netflix.genie.core.util.ProcFsProcessChecker;
+import com.netflix.genie.core.util.ProcessChecker;
+import com.netflix.genie.core.util.UnixProcessChecker;
+import com.netflix.genie.web.properties.JobMonitorProperties;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.DistributionSummary;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.exec.Executor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.validation.constraints.NotNull;
+import java.io.File;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks the processes of all the jobs running on this node in a single pass instead of scheduling a task per job.
+ * Each pass runs the monitors of the jobs whose check delay elapsed since their last check.
+ * <p>
+ * Where the proc filesystem is available processes are checked by reading their state from it, which doesn't fork a
+ * process per check. Otherwise {@code ps} is still used.
+ * <p>
+ * A job can also be checked right away, for example once it wrote its done file, instead of waiting for its delay to
+ * elapse. Until its process is found to be gone it's then checked again after short, increasing, delays.
+ * <p>
+ * The sizes of the output files of all jobs are checked in a separate, less frequent, sweep.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Component
+@Slf4j
+public class JobProcessScanner implements Runnable {
+
+    private static final long EXPEDITED_CHECK_DELAY = 10L;
+    private static final int MAX_EXPEDITED_CHECKS = 8;
+
+    private final TaskScheduler scheduler;
+    private final Executor executor;
+    private final File procDirectory;
+    private final boolean procFsSupported;
+    private final Map<String, MonitoredJob> jobs = new ConcurrentHashMap<>();
+
+    private final Timer scanTimer;
+    private final DistributionSummary checkedJobs;
+    private final Counter checkFailures;
+    private final Counter expeditedChecks;
+    private final Timer outputSweepTimer;
+
+    /**
+     * Constructor. Schedules this scanner to be run by the task scheduler.
+     *
+     * @param properties The properties controlling how processes are checked
+     * @param scheduler  The scheduler to run the scans on
+     * @param executor   The executor to launch processes with when there is no proc filesystem
+     * @param registry   The metrics registry to use
+     */
+    @Autowired
+    public JobProcessScanner(
+        @NotNull final JobMonitorProperties properties,
+        @NotNull final TaskScheduler scheduler,
+        @NotNull final Executor executor,
+        @NotNull final Registry registry
+    ) {
+        this.scheduler = scheduler;
+        this.executor = executor;
+        this.procDirectory = new File(properties.getProcDirectory());
+        this.procFsSupported = ProcFsProcessChecker.isSupported(this.procDirectory);
+        if (!this.procFsSupported) {
+            log.info("No proc filesystem found at {}. Checking job processes with ps.", this.procDirectory);
+        }
+
+        this.scanTimer = registry.timer("genie.jobs.monitor.scan.timer");
+        this.checkedJobs = registry.distributionSummary("genie.jobs.monitor.scan.jobs");
+        this.checkFailures = registry.counter("genie.jobs.monitor.scan.failure.counter");
+        this.expeditedChecks = registry.counter("genie.jobs.monitor.expedited.counter");
+        this.outputSweepTimer = registry.timer("genie.jobs.monitor.outputSweep.timer");
+        registry.mapSize("genie.jobs.monitor.jobs.gauge", this.jobs);
+
+        scheduler.scheduleWithFixedDelay(this, properties.getScanInterval());
+        scheduler.scheduleWithFixedDelay(this::sweepOutputSizes, properties.getOutputSweepInterval());
+    }
+
+    /**
+     * Get a process checker for a job process which doesn't fork a process when the system allows it.
+     *
+     * @param pid     The id of the process to check
+     * @param timeout The time after which the job should be killed
+     * @return The process checker to use for the job
+     */
+    public ProcessChecker getProcessChecker(final int pid, @NotNull final Date timeout) {
+        return this.procFsSupported
+            ? new ProcFsProcessChecker(pid, this.procDirectory, timeout)
+            : new UnixProcessChecker(pid, this.executor, timeout);
+    }
+
+    /**
+     * Start checking a job with the given monitor at its fixed delay. Replaces any monitor already registered for
+     * the job. The job is checked on the next scan.
+     *
+     * @param jobId   The id of the job
+     * @param monitor The monitor to run for the job
+     * @return A future which stops checking the job once cancelled
+     */
+    public Future<?> add(@NotNull final String jobId, @NotNull final JobMonitor monitor) {
+        final MonitoredJob job = new MonitoredJob(monitor);
+        final MonitoredJob previous = this.jobs.put(jobId, job);
+        if (previous != null) {
+            previous.future.cancel(false);
+        }
+        job.future.whenComplete((result, throwable) -> this.jobs.remove(jobId, job));
+        return job.future;
+    }
+
+    /**
+     * Check a job now rather than when its delay elapses, and again shortly after until its process is gone. Used when
+     * the job is expected to be finishing.
+     *
+     * @param jobId The id of the job
+     */
+    public void expedite(@NotNull final String jobId) {
+        final MonitoredJob job = this.jobs.get(jobId);
+        if (job == null || job.future.isDone()) {
+            return;
+        }
+        this.expeditedChecks.increment();
+        this.scheduler.schedule(() -> this.checkExpedited(jobId, job, 0), new Date());
+    }
+
+    /**
+     * Run the monitors of all the jobs which are due to be checked.
+     */
+    @Override
+    public void run() {
+        final long start = System.nanoTime();
+        int checked = 0;
+        try {
+            for (final Map.Entry<String, MonitoredJob> entry : this.jobs.entrySet()) {
+                final MonitoredJob job = entry.getValue();
+                if (job.future.isDone() || job.monitor.isFinished() || System.currentTimeMillis() < job.nextCheck) {
+                    continue;
+                }
+                this.check(entry.getKey(), job);
+                checked++;
+            }
+        } finally {
+            this.scanTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            this.checkedJobs.record(checked);
+        }
+    }
+
+    /**
+     * Check the output sizes of all the jobs being monitored.
+     */
+    public void sweepOutputSizes() {
+        final long start = System.nanoTime();
+        try {
+            for (final Map.Entry<String, MonitoredJob> entry : this.jobs.entrySet()) {
+                final MonitoredJob job = entry.getValue();
+                synchronized (job) {
+                    if (job.future.isDone()) {
+                        continue;
+                    }
+                    try {
+                        job.monitor.checkOutputSizes();
+                    } catch (final RuntimeException re) {
+                        log.error("Unable to check output sizes of job {}", entry.getKey(), re);
+                        this.checkFailures.increment();
+                    }
+                }
+            }
+        } finally {
+            this.outputSweepTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void checkExpedited(final String jobId, final MonitoredJob job, final int attempt) {
+        if (job.future.isDone()) {
+            return;
+        }
+        this.check(jobId, job);
+        // The process usually exits right after the done file is written but can take longer, e.g. when it's killed
+        if (!job.monitor.isFinished() && attempt + 1 < MAX_EXPEDITED_CHECKS) {
+            this.scheduler.schedule(
+                () -> this.checkExpedited(jobId, job, attempt + 1),
+                new Date(System.currentTimeMillis() + (EXPEDITED_CHECK_DELAY << attempt))
+            );
+        }
+    }
+
+    private void check(final String jobId, final MonitoredJob job) {
+        // Expedited checks can run at the same time as a scan on other scheduler threads
+        synchronized (job) {
+            if (job.future.isDone() || job.monitor.isFinished()) {
+                return;
+            }
+            try {
+                job.monitor.run();
+            } catch (final RuntimeException re) {
+                log.error("Unable to check job {}", jobId, re);
+                this.checkFailures.increment();
+            }
+            job.nextCheck = System.currentTimeMillis() + job.monitor.getFixedDelay();
+        }
+    }
+
+    /**
+     * A job being checked and when it should be checked next.
+     */
+    private static final class MonitoredJob {
+        private final JobMonitor monitor;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+        private volatile long nextCheck;
+
+        private MonitoredJob(final JobMonitor monitor) {
+            this.monitor = monitor;
+        }
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job;
+
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.services.JobPersistenceService;
+import com.netflix.genie.core.util.ProcFsProcessChecker;
+import com.netflix.genie.core.util.ProcFsResourceUsageReader;
+import com.netflix.genie.web.properties.JobMonitorProperties;
+import com.netflix.genie.web.properties.JobResourceUsageProperties;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import com.netflix.spectator.api.Timer;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.validation.constraints.NotNull;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Periodically samples the CPU time and resident memory used by the process trees of all the jobs running on this
+ * node from the proc filesystem. The jobs are launched in their own session so every process they start is counted.
+ * <p>
+ * The current usage is published as gauges per job and for the whole node. The CPU time and peak resident set size
+ * are saved with the metadata of each job every persist interval and once more when the job finishes.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Component
+@Slf4j
+public class JobResourceUsageSampler implements Runnable {
+
+    private static final String JOB_ID_TAG = "jobId";
+
+    private final ProcFsResourceUsageReader reader;
+    private final JobPersistenceService jobPersistenceService;
+    private final Registry registry;
+    private final long persistInterval;
+    private final Map<String, SampledJob> jobs = new ConcurrentHashMap<>();
+
+    private final Timer sampleTimer;
+    private final Counter sampleFailures;
+    private final Counter persistFailures;
+
+    /**
+     * Constructor. Schedules this sampler to be run by the task scheduler if sampling is enabled and the proc
+     * filesystem is available.
+     *
+     * @param properties            The properties controlling how resources are sampled
+     * @param monitorProperties     The properties holding where the proc filesystem is
+     * @param scheduler             The scheduler to sample on
+     * @param jobPersistenceService The service to save the resources used by jobs with
+     * @param registry              The metrics registry to use
+     */
+    @Autowired
+    public JobResourceUsageSampler(
+        @NotNull final JobResourceUsageProperties properties,
+        @NotNull final JobMonitorProperties monitorProperties,
+        @NotNull final TaskScheduler scheduler,
+        @NotNull final JobPersistenceService jobPersistenceService,
+        @NotNull final Registry registry
+    ) {
+        this.jobPersistenceService = jobPersistenceService;
+        this.registry = registry;
+        this.persistInterval = properties.getPersistInterval();
+
+        final File procDirectory = new File(monitorProperties.getProcDirectory());
+        if (properties.isEnabled() && ProcFsProcessChecker.isSupported(procDirectory)) {
+            this.reader = new ProcFsResourceUsageReader(
+                procDirectory,
+                properties.getClockTicksPerSecond(),
+                properties.getPageSize()
+            );
+        } else {
+            log.info(
+                "Not sampling the resources used by jobs. Enabled: {}. Proc filesystem: {}",
+                properties.isEnabled(),
+                procDirectory
+            );
+            this.reader = null;
+        }
+
+        this.sampleTimer = registry.timer("genie.jobs.usage.sample.timer");
+        this.sampleFailures = registry.counter("genie.jobs.usage.sample.failure.counter");
+        this.persistFailures = registry.counter("genie.jobs.usage.persist.failure.counter");
+        registry.gauge(
+            "genie.jobs.usage.cpu.gauge",
+            this,
+            (ToDoubleFunction<JobResourceUsageSampler>) JobResourceUsageSampler::getCpuUsage
+        );
+        registry.gauge(
+            "genie.jobs.usage.rss.gauge",
+            this,
+            (ToDoubleFunction<JobResourceUsageSampler>) JobResourceUsageSampler::getRss
+        );
+
+        if (this.reader != null) {
+            scheduler.scheduleWithFixedDelay(this, properties.getSampleInterval());
+        }
+    }
+
+    /**
+     * Start sampling the resources used by a job. Replaces any sampling already done for the job.
+     *
+     * @param jobId  The id of the job
+     * @param pid    The id of the process which leads the session of the job
+     * @param memory The memory, in MB, the job requested
+     */
+    public void add(@NotNull final String jobId, final int pid, final int memory) {
+        if (this.reader == null) {
+            return;
+        }
+        final SampledJob job = new SampledJob(pid, memory, System.currentTimeMillis());
+        this.jobs.put(jobId, job);
+        this.registry.gauge(
+            this.registry.createId("genie.jobs.usage.job.cpu.gauge").withTag(JOB_ID_TAG, jobId),
+            job,
+            (ToDoubleFunction<SampledJob>) sampledJob -> sampledJob.cpuUsage
+        );
+        this.registry.gauge(
+            this.registry.createId("genie.jobs.usage.job.rss.gauge").withTag(JOB_ID_TAG, jobId),
+            job,
+            (ToDoubleFunction<SampledJob>) sampledJob -> sampledJob.rss
+        );
+    }
+
+    /**
+     * Stop sampling the resources used by a job and save the last values sampled.
+     *
+     * @param jobId The id of the job
+     */
+    public void remove(@NotNull final String jobId) {
+        final SampledJob job = this.jobs.remove(jobId);
+        if (job != null) {
+            synchronized (job) {
+                job.cpuUsage = 0.0;
+                job.rss = 0L;
+                this.persist(jobId, job);
+            }
+        }
+    }
+
+    /**
+     * Sample the resources used by all the jobs and save them for the jobs which weren't saved for a persist
+     * interval.
+     */
+    @Override
+    public void run() {
+        if (this.reader == null || this.jobs.isEmpty()) {
+            return;
+        }
+        final long start = System.nanoTime();
+        try {
+            final Set<Integer> pids = new HashSet<>();
+            this.jobs.values().forEach(job -> pids.add(job.pid));
+            final Map<Integer, ProcFsResourceUsageReader.Usage> usages = this.reader.read(pids);
+
+            final long now = System.currentTimeMillis();
+            for (final Map.Entry<String, SampledJob> entry : this.jobs.entrySet()) {
+                final SampledJob job = entry.getValue();
+                final ProcFsResourceUsageReader.Usage usage = usages.get(job.pid);
+                if (usage == null) {
+                    // The processes already ended, the job will be removed once that's detected
+                    continue;
+                }
+                synchronized (job) {
+                    job.update(usage, now);
+                    if (now - job.lastPersisted >= this.persistInterval) {
+                        this.persist(entry.getKey(), job);
+                    }
+                }
+            }
+        } catch (final IOException | RuntimeException e) {
+            log.error("Unable to sample the resources used by jobs", e);
+            this.sampleFailures.increment();
+        } finally {
+            this.sampleTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Get the number of CPUs currently used by all the jobs running on this node.
+     *
+     * @return The number of CPUs used between the last two samples
+     */
+    public double getCpuUsage() {
+        double cpuUsage = 0.0;
+        for (final SampledJob job : this.jobs.values()) {
+            cpuUsage += job.cpuUsage;
+        }
+        return cpuUsage;
+    }
+
+    /**
+     * Get the memory currently resident for all the jobs running on this node.
+     *
+     * @return The resident set size in bytes as of the last sample
+     */
+    public long getRss() {
+        long rss = 0L;
+        for (final SampledJob job : this.jobs.values()) {
+            rss += job.rss;
+        }
+        return rss;
+    }
+
+    /**
+     * Get the memory requested by the jobs which were sampled at least once along with the most memory each of them
+     * was observed to use.
+     *
+     * @return The requested and observed memory of the sampled jobs
+     */
+    public SampledMemory getSampledMemory() {
+        int requestedMemory = 0;
+        long peakRss = 0L;
+        for (final SampledJob job : this.jobs.values()) {
+            synchronized (job) {
+                if (job.lastSampled != 0L) {
+                    requestedMemory += job.memory;
+                    peakRss += job.peakRss;
+                }
+            }
+        }
+        return new SampledMemory(requestedMemory, peakRss);
+    }
+
+    /**
+     * Whether the resources used by jobs are sampled on this node.
+     *
+     * @return true if sampling is enabled and the proc filesystem is available
+     */
+    public boolean isEnabled() {
+        return this.reader != null;
+    }
+
+    private void persist(final String jobId, final SampledJob job) {
+        job.lastPersisted = System.currentTimeMillis();
+        if (job.lastSampled == 0L) {
+            return;
+        }
+        try {
+            this.jobPersistenceService.setJobResourceUsage(jobId, job.cpuTime, job.peakRss);
+        } catch (final GenieException | RuntimeException e) {
+            log.error("Unable to save the resources used by job {}", jobId, e);
+            this.persistFailures.increment();
+        }
+    }
+
+    /**
+     * The memory requested by the sampled jobs, in MB, and the sum of their peak resident set sizes, in bytes.
+     */
+    @Getter
+    public static final class SampledMemory {
+        private final int requestedMemory;
+        private final long peakRss;
+
+        /**
+         * Constructor.
+         *
+         * @param requestedMemory The memory, in MB, requested by the sampled jobs
+         * @param peakRss         The sum of the peak resident set sizes, in bytes, of the sampled jobs
+         */
+        public SampledMemory(final int requestedMemory, final long peakRss) {
+            this.requestedMemory = requestedMemory;
+            this.peakRss = peakRss;
+        }
+    }
+
+    /**
+     * The resources used by a job as of its last sample.
+     */
+    private static final class SampledJob {
+        private final int pid;
+        private final int memory;
+        private long lastPersisted;
+        private long lastSampled;
+        private long cpuTime;
+        private long peakRss;
+        private volatile double cpuUsage;
+        private volatile long rss;
+
+        private SampledJob(final int pid, final int memory, final long added) {
+            this.pid = pid;
+            this.memory = memory;
+            this.lastPersisted = added;
+        }
+
+        private void update(final ProcFsResourceUsageReader.Usage usage, final long now) {
+            // CPU time can go down if processes end before their parent waited for them
+            if (this.lastSampled != 0L && now > this.lastSampled) {
+                this.cpuUsage = Math.max(0L, usage.getCpuTime() - this.cpuTime) / (double) (now - this.lastSampled);
+            }
+            this.cpuTime = Math.max(this.cpuTime, usage.getCpuTime());
+            this.rss = usage.getRss();
+            this.peakRss = Math.max(this.peakRss, usage.getRss());
+            this.lastSampled = now;
+        }
+    }
+}
@@ -21,15 +21,13 @@ import com.netflix.genie.common.dto.Job;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.core.jobs.JobConstants;
 import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.services.DirectoryDeletionService;
 import com.netflix.genie.core.services.JobSearchService;
 import com.netflix.genie.web.properties.DiskCleanupProperties;
 import com.netflix.genie.web.tasks.TaskUtils;
 import com.netflix.spectator.api.Counter;
 import com.netflix.spectator.api.Registry;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.exec.CommandLine;
-import org.apache.commons.exec.Executor;
-import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.SystemUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
@@ -59,7 +57,7 @@ public class DiskCleanupTask implements Runnable {
     private final File jobsDir;
     private final JobSearchService jobSearchService;
     private final boolean runAsUser;
-    private final Executor processExecutor;
+    private final DirectoryDeletionService directoryDeletionService;
 
     private final AtomicLong numberOfDeletedJobDirs;
     private final AtomicLong numberOfDirsUnableToDelete;
@@ -69,13 +67,13 @@ public class DiskCleanupTask implements Runnable {
     /**
      * Constructor. Schedules this task to be run by the task scheduler.
      *
-     * @param properties       The disk cleanup properties to use.
-     * @param scheduler        The scheduler to use to schedule the cron trigger.
-     * @param jobsDir          The resource representing the location of the job directory
-     * @param jobSearchService The service to find jobs with
-     * @param jobsProperties   The jobs properties to use
-     * @param processExecutor  The process executor to use to delete directories
-     * @param registry         The metrics registry
+     * @param properties               The disk cleanup properties to use.
+     * @param scheduler                The scheduler to use to schedule the cron trigger.
+     * @param jobsDir                  The resource representing the location of the job directory
+     * @param jobSearchService         The service to find jobs with
+     * @param jobsProperties           The jobs properties to use
+     * @param directoryDeletionService The service to delete job directories with
+     * @param registry                 The metrics registry
      * @throws IOException When it is unable to open a file reference to the job directory
      */
     @Autowired
@@ -85,7 +83,7 @@ public class DiskCleanupTask implements Runnable {
         @NotNull final Resource jobsDir,
         @NotNull final JobSearchService jobSearchService,
         @NotNull final JobsProperties jobsProperties,
-        @NotNull final Executor processExecutor,
+        @NotNull final DirectoryDeletionService directoryDeletionService,
         @NotNull final Registry registry
     ) throws IOException {
         // Job Directory is guaranteed to exist by the MvcConfig bean creation but just in case someone overrides
@@ -97,7 +95,7 @@ public class DiskCleanupTask implements Runnable {
         this.jobsDir = jobsDir.getFile();
         this.jobSearchService = jobSearchService;
         this.runAsUser = jobsProperties.getUsers().isRunAsUserEnabled();
-        this.processExecutor = processExecutor;
+        this.directoryDeletionService = directoryDeletionService;
 
         this.numberOfDeletedJobDirs
             = registry.gauge("genie.tasks.diskCleanup.numberDeletedJobDirs.gauge", new AtomicLong());
@@ -137,6 +135,11 @@ public class DiskCleanupTask implements Runnable {
                 log.info("File {} isn't a directory. Skipping.", dir.getName());
                 continue;
             }
+            if (dir.isHidden()) {
+                // e.g. the job completion outbox, not a job
+                log.debug("Directory {} isn't a job directory. Skipping.", dir.getName());
+                continue;
+            }
 
             final String id = dir.getName();
             try {
@@ -152,16 +155,7 @@ public class DiskCleanupTask implements Runnable {
                 final Optional<Date> finished = job.getFinished();
                 if (finished.isPresent() && finished.get().before(retentionThreshold.getTime())) {
                     log.info("Attempting to delete job directory for job {}", id);
-                    if (this.runAsUser) {
-                        final CommandLine commandLine = new CommandLine("sudo");
-                        commandLine.addArgument("rm");
-                        commandLine.addArgument("-rf");
-                        commandLine.addArgument(dir.getAbsolutePath());
-                        this.processExecutor.execute(commandLine);
-                    } else {
-                        // Save forking a process ourselves if we don't have to
-                        FileUtils.deleteDirectory(dir);
-                    }
+                    this.directoryDeletionService.deleteDirectory(dir);
                     deletedCount++;
                     log.info("Successfully deleted job directory for job {}", id);
                 }
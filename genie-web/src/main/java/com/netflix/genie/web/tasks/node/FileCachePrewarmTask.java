@@ -0,0 +1,287 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.node;
+
+import com.netflix.genie.common.dto.Application;
+import com.netflix.genie.common.dto.ApplicationStatus;
+import com.netflix.genie.common.dto.Cluster;
+import com.netflix.genie.common.dto.ClusterStatus;
+import com.netflix.genie.common.dto.Command;
+import com.netflix.genie.common.dto.CommandStatus;
+import com.netflix.genie.common.dto.ExecutionEnvironmentDTO;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.services.ApplicationService;
+import com.netflix.genie.core.services.ClusterService;
+import com.netflix.genie.core.services.CommandService;
+import com.netflix.genie.core.services.impl.CacheGenieFileTransferService;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.validator.constraints.NotBlank;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+
+import javax.validation.constraints.NotNull;
+import java.time.Instant;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * This task runs on every Genie node and downloads the setup files, configs and dependencies of UP clusters and
+ * ACTIVE commands and applications into the local file cache so the first jobs on a new node don't have to.
+ * <p>
+ * All of them are prewarmed once the application is ready and individual ones whenever they're created or
+ * updated. All the work, including looking the resources up, is done on the prewarm executor so its pool size
+ * bounds how many files are downloaded at the same time.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@ConditionalOnProperty("genie.tasks.fileCachePrewarm.enabled")
+@Component
+@Slf4j
+public class FileCachePrewarmTask {
+
+    private static final int PAGE_SIZE = 100;
+
+    private final ApplicationService applicationService;
+    private final CommandService commandService;
+    private final ClusterService clusterService;
+    private final CacheGenieFileTransferService fileCache;
+    private final AsyncTaskExecutor executor;
+
+    private final Set<String> pendingFiles = ConcurrentHashMap.newKeySet();
+    private final AtomicLong prewarmedFiles = new AtomicLong();
+    private final AtomicLong failedFiles = new AtomicLong();
+    private volatile Instant lastStarted;
+    private final Counter prewarmedCounter;
+    private final Counter failedCounter;
+
+    /**
+     * Constructor.
+     *
+     * @param applicationService The service to find applications with
+     * @param commandService     The service to find commands with
+     * @param clusterService     The service to find clusters with
+     * @param fileCache          The file cache to prewarm
+     * @param executor           The executor to look up resources and download files on
+     * @param registry           The metrics registry to use
+     */
+    @Autowired
+    public FileCachePrewarmTask(
+        @NotNull final ApplicationService applicationService,
+        @NotNull final CommandService commandService,
+        @NotNull final ClusterService clusterService,
+        @Qualifier("cacheGenieFileTransferService") @NotNull final CacheGenieFileTransferService fileCache,
+        @Qualifier("fileCachePrewarmExecutor") @NotNull final AsyncTaskExecutor executor,
+        @NotNull final Registry registry
+    ) {
+        this.applicationService = applicationService;
+        this.commandService = commandService;
+        this.clusterService = clusterService;
+        this.fileCache = fileCache;
+        this.executor = executor;
+
+        this.prewarmedCounter = registry.counter("genie.tasks.fileCachePrewarm.prewarmed.counter");
+        this.failedCounter = registry.counter("genie.tasks.fileCachePrewarm.failed.counter");
+        registry.collectionSize("genie.tasks.fileCachePrewarm.pending.gauge", this.pendingFiles);
+    }
+
+    /**
+     * Prewarm the cache once the application is ready to take load.
+     *
+     * @param event The application ready event
+     */
+    @EventListener
+    public void onStartup(final ApplicationReadyEvent event) {
+        log.info("Prewarming the file cache due to {}", event);
+        this.prewarm();
+    }
+
+    /**
+     * Prewarm the files of all UP clusters and ACTIVE commands and applications in the background.
+     */
+    public void prewarm() {
+        this.lastStarted = Instant.now();
+        this.submit(
+            () -> {
+                this.prewarmAll(
+                    pageable -> this.clusterService.getClusters(
+                        null, EnumSet.of(ClusterStatus.UP), null, null, null, pageable
+                    )
+                );
+                this.prewarmAll(
+                    pageable -> this.commandService.getCommands(
+                        null, null, EnumSet.of(CommandStatus.ACTIVE), null, pageable
+                    )
+                );
+                this.prewarmAll(
+                    pageable -> this.applicationService.getApplications(
+                        null, null, EnumSet.of(ApplicationStatus.ACTIVE), null, null, pageable
+                    )
+                );
+            }
+        );
+    }
+
+    /**
+     * Prewarm the files of a cluster in the background if it's UP.
+     *
+     * @param id The id of the cluster
+     */
+    public void prewarmCluster(@NotBlank final String id) {
+        this.submit(
+            () -> {
+                final Cluster cluster = this.clusterService.getCluster(id);
+                if (cluster.getStatus() == ClusterStatus.UP) {
+                    this.prewarmFiles(cluster);
+                }
+            }
+        );
+    }
+
+    /**
+     * Prewarm the files of a command in the background if it's ACTIVE.
+     *
+     * @param id The id of the command
+     */
+    public void prewarmCommand(@NotBlank final String id) {
+        this.submit(
+            () -> {
+                final Command command = this.commandService.getCommand(id);
+                if (command.getStatus() == CommandStatus.ACTIVE) {
+                    this.prewarmFiles(command);
+                }
+            }
+        );
+    }
+
+    /**
+     * Prewarm the files of an application in the background if it's ACTIVE.
+     *
+     * @param id The id of the application
+     */
+    public void prewarmApplication(@NotBlank final String id) {
+        this.submit(
+            () -> {
+                final Application application = this.applicationService.getApplication(id);
+                if (application.getStatus() == ApplicationStatus.ACTIVE) {
+                    this.prewarmFiles(application);
+                }
+            }
+        );
+    }
+
+    /**
+     * Get the progress of prewarming the cache.
+     *
+     * @return The number of files waiting to be prewarmed, prewarmed and failed since startup and when the last full
+     * prewarm was started
+     */
+    public Map<String, Object> getStatus() {
+        final Map<String, Object> status = new LinkedHashMap<>();
+        status.put("pendingFiles", this.pendingFiles.size());
+        status.put("prewarmedFiles", this.prewarmedFiles.get());
+        status.put("failedFiles", this.failedFiles.get());
+        status.put("lastStarted", this.lastStarted);
+        return status;
+    }
+
+    private <T extends ExecutionEnvironmentDTO> void prewarmAll(final Function<Pageable, Page<T>> finder) {
+        Page<T> page;
+        int pageNumber = 0;
+        do {
+            page = finder.apply(new PageRequest(pageNumber++, PAGE_SIZE, Sort.Direction.ASC, "id"));
+            page.getContent().forEach(this::prewarmFiles);
+        } while (page.hasNext());
+    }
+
+    private void prewarmFiles(final ExecutionEnvironmentDTO resource) {
+        resource.getSetupFile().ifPresent(this::prewarmFile);
+        resource.getConfigs().forEach(this::prewarmFile);
+        resource.getDependencies().forEach(this::prewarmFile);
+    }
+
+    private void prewarmFile(final String file) {
+        // Skip files which are already waiting to be prewarmed
+        if (!this.pendingFiles.add(file)) {
+            return;
+        }
+        try {
+            this.executor.execute(
+                () -> {
+                    try {
+                        this.fileCache.prefetch(file);
+                        this.prewarmedFiles.incrementAndGet();
+                        this.prewarmedCounter.increment();
+                    } catch (final GenieException | RuntimeException e) {
+                        log.warn("Unable to prewarm file {} due to {}", file, e.getMessage(), e);
+                        this.failedFiles.incrementAndGet();
+                        this.failedCounter.increment();
+                    } finally {
+                        this.pendingFiles.remove(file);
+                    }
+                }
+            );
+        } catch (final TaskRejectedException tre) {
+            log.warn("Unable to queue file {} to be prewarmed", file, tre);
+            this.pendingFiles.remove(file);
+            this.failedFiles.incrementAndGet();
+            this.failedCounter.increment();
+        }
+    }
+
+    private void submit(final Lookup lookup) {
+        try {
+            this.executor.execute(
+                () -> {
+                    try {
+                        lookup.run();
+                    } catch (final GenieException | RuntimeException e) {
+                        log.warn("Unable to find the files to prewarm due to {}", e.getMessage(), e);
+                    }
+                }
+            );
+        } catch (final TaskRejectedException tre) {
+            log.warn("Unable to queue the lookup of files to prewarm", tre);
+        }
+    }
+
+    /**
+     * Finds the resources whose files should be prewarmed.
+     */
+    @FunctionalInterface
+    private interface Lookup {
+        void run() throws GenieException;
+    }
+}
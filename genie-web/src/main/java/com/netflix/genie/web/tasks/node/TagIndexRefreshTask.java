@@ -0,0 +1,69 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.node;
+
+import com.netflix.genie.core.jpa.services.TagIndex;
+import com.netflix.genie.core.properties.TagIndexProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * This task runs on every Genie node and periodically rebuilds the in-memory tag index used to find candidate
+ * clusters for jobs.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@ConditionalOnProperty("genie.tagIndex.enabled")
+@Component
+@Slf4j
+public class TagIndexRefreshTask implements Runnable {
+
+    private final TagIndex tagIndex;
+
+    /**
+     * Constructor. Schedules this task to be run by the task scheduler.
+     *
+     * @param properties The tag index properties to use
+     * @param scheduler  The scheduler to use to schedule the refreshes
+     * @param tagIndex   The tag index to refresh
+     */
+    @Autowired
+    public TagIndexRefreshTask(
+        @NotNull final TagIndexProperties properties,
+        @NotNull final TaskScheduler scheduler,
+        @NotNull final TagIndex tagIndex
+    ) {
+        this.tagIndex = tagIndex;
+        scheduler.scheduleAtFixedRate(this, properties.getRefreshRate());
+    }
+
+    /**
+     * Rebuild the tag index from the database.
+     */
+    @Override
+    public void run() {
+        log.debug("Refreshing tag index...");
+        this.tagIndex.refresh();
+    }
+}
@@ -24,17 +24,22 @@ import com.netflix.genie.common.exceptions.GenieServerException
 import com.netflix.genie.core.events.JobFinishedEvent
 import com.netflix.genie.core.events.JobFinishedReason
 import com.netflix.genie.core.properties.JobsProperties
+import com.netflix.genie.core.services.DirectoryDeletionService
+import com.netflix.genie.core.services.JobArchiveService
 import com.netflix.genie.core.services.JobPersistenceService
 import com.netflix.genie.core.services.JobSearchService
 import com.netflix.genie.core.services.MailService
-import com.netflix.genie.core.services.impl.GenieFileTransferService
 import com.netflix.genie.test.categories.UnitTest
+import com.netflix.genie.web.properties.JobCompletionProperties
 import com.netflix.spectator.api.NoopRegistry
 import org.junit.experimental.categories.Category
 import org.springframework.core.io.FileSystemResource
-import org.springframework.retry.support.RetryTemplate
+import org.springframework.core.task.SyncTaskExecutor
+import org.springframework.scheduling.TaskScheduler
 import spock.lang.Specification
 
+import java.nio.file.Files
+
 /**
  * Unit tests for JobCompletionHandler
  *
@@ -51,21 +56,24 @@ class JobCompletionServiceSpec extends Specification{
     JobSearchService jobSearchService;
     JobCompletionService jobCompletionService;
     MailService mailService;
-    GenieFileTransferService genieFileTransferService;
+    JobArchiveService jobArchiveService;
     JobsProperties jobsProperties;
 
     def setup(){
         jobPersistenceService = Mock(JobPersistenceService.class)
         jobSearchService = Mock(JobSearchService.class)
         mailService = Mock(MailService.class)
-        genieFileTransferService = Mock(GenieFileTransferService.class)
+        jobArchiveService = Mock(JobArchiveService.class)
         jobsProperties = new JobsProperties()
         jobsProperties.cleanup.deleteArchiveFile = false
         jobsProperties.cleanup.deleteDependencies = false
         jobsProperties.users.runAsUserEnabled = false
+        def completionProperties = new JobCompletionProperties()
+        completionProperties.maxAttempts = 1
         jobCompletionService = new JobCompletionService( jobPersistenceService, jobSearchService,
-                genieFileTransferService, new FileSystemResource("/tmp"), mailService, new NoopRegistry(),
-                jobsProperties, new RetryTemplate())
+                jobArchiveService, Mock(DirectoryDeletionService.class), new FileSystemResource(Files.createTempDirectory("genie").toFile()), mailService,
+                new NoopRegistry(), jobsProperties, completionProperties, Mock(TaskScheduler.class),
+                new SyncTaskExecutor(), new SyncTaskExecutor(), new SyncTaskExecutor())
     }
 
     def handleJobCompletion() throws Exception{
@@ -75,10 +83,7 @@ class JobCompletionServiceSpec extends Specification{
         jobCompletionService.handleJobCompletion(new JobFinishedEvent(jobId, JobFinishedReason.KILLED, "null", this))
         then:
         noExceptionThrown()
-        3 * jobSearchService.getJob(jobId) >>
-                { throw new GenieServerException("null")} >>
-                { throw new GenieServerException("null")} >>
-                { throw new GenieServerException("null")}
+        1 * jobSearchService.getJob(jobId) >> { throw new GenieServerException("null")}
         when:
         jobCompletionService.handleJobCompletion(new JobFinishedEvent(jobId, JobFinishedReason.KILLED, "null", this))
         then:
@@ -90,14 +95,14 @@ class JobCompletionServiceSpec extends Specification{
         jobCompletionService.handleJobCompletion(new JobFinishedEvent(jobId, JobFinishedReason.KILLED, "null", this))
         then:
         noExceptionThrown()
-        1 * jobSearchService.getJob(jobId) >> new Job.Builder(NAME, USER, VERSION, COMMAND_ARGS)
+        2 * jobSearchService.getJob(jobId) >> new Job.Builder(NAME, USER, VERSION, COMMAND_ARGS)
                 .withId(jobId).withStatus(JobStatus.RUNNING).build();
         1 * jobPersistenceService.updateJobStatus(jobId,_,_)
         when:
         jobCompletionService.handleJobCompletion(new JobFinishedEvent(jobId, JobFinishedReason.KILLED, "null", this))
         then:
         noExceptionThrown()
-        1 * jobSearchService.getJob(jobId) >> new Job.Builder(NAME, USER, VERSION, COMMAND_ARGS)
+        2 * jobSearchService.getJob(jobId) >> new Job.Builder(NAME, USER, VERSION, COMMAND_ARGS)
                 .withId(jobId).withStatus(JobStatus.RUNNING).build();
         1 * jobSearchService.getJobRequest(jobId) >> new JobRequest.Builder(NAME, USER, VERSION, COMMAND_ARGS, null, null)
                 .withId(jobId).withEmail('admin@netflix.com').build();
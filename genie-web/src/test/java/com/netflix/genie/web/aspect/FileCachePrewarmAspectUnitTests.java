@@ -0,0 +1,122 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.aspect;
+
+import com.netflix.genie.common.dto.Application;
+import com.netflix.genie.common.dto.Command;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.services.ApplicationService;
+import com.netflix.genie.core.services.ClusterService;
+import com.netflix.genie.core.services.CommandService;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.tasks.node.FileCachePrewarmTask;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.UUID;
+
+/**
+ * Unit tests for the file cache prewarm aspect.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class FileCachePrewarmAspectUnitTests {
+
+    private FileCachePrewarmTask prewarmTask;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.prewarmTask = Mockito.mock(FileCachePrewarmTask.class);
+    }
+
+    /**
+     * Make sure clusters are prewarmed when they're created or their files change but not when they're read.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canPrewarmCreatedAndUpdatedClusters() throws GenieException {
+        final String id = UUID.randomUUID().toString();
+        final ClusterService target = Mockito.mock(ClusterService.class);
+        Mockito.when(target.createCluster(Mockito.any())).thenReturn(id);
+        final ClusterService clusterService = this.proxy(target);
+
+        clusterService.createCluster(null);
+        clusterService.updateCluster(id, null);
+        clusterService.addDependenciesForCluster(id, null);
+        clusterService.getCluster(id);
+        clusterService.deleteCluster(id);
+
+        Mockito.verify(this.prewarmTask, Mockito.times(3)).prewarmCluster(id);
+        Mockito.verifyNoMoreInteractions(this.prewarmTask);
+    }
+
+    /**
+     * Make sure commands are prewarmed when they're created or their files change.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canPrewarmCreatedAndUpdatedCommands() throws GenieException {
+        final String id = UUID.randomUUID().toString();
+        final CommandService target = Mockito.mock(CommandService.class);
+        Mockito.when(target.createCommand(Mockito.any(Command.class))).thenReturn(id);
+        final CommandService commandService = this.proxy(target);
+
+        commandService.createCommand(Mockito.mock(Command.class));
+        commandService.updateConfigsForCommand(id, null);
+        commandService.getConfigsForCommand(id);
+
+        Mockito.verify(this.prewarmTask, Mockito.times(2)).prewarmCommand(id);
+        Mockito.verifyNoMoreInteractions(this.prewarmTask);
+    }
+
+    /**
+     * Make sure applications are prewarmed when they're created or their files change.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canPrewarmCreatedAndUpdatedApplications() throws GenieException {
+        final String id = UUID.randomUUID().toString();
+        final ApplicationService target = Mockito.mock(ApplicationService.class);
+        Mockito.when(target.createApplication(Mockito.any(Application.class))).thenReturn(id);
+        final ApplicationService applicationService = this.proxy(target);
+
+        applicationService.createApplication(Mockito.mock(Application.class));
+        applicationService.addConfigsToApplication(id, null);
+        applicationService.removeAllConfigsForApplication(id);
+
+        Mockito.verify(this.prewarmTask, Mockito.times(2)).prewarmApplication(id);
+        Mockito.verifyNoMoreInteractions(this.prewarmTask);
+    }
+
+    private <T> T proxy(final T target) {
+        final AspectJProxyFactory factory = new AspectJProxyFactory(target);
+        factory.addAspect(new FileCachePrewarmAspect(this.prewarmTask));
+        return factory.getProxy();
+    }
+}
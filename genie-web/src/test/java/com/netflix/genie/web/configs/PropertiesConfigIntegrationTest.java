@@ -18,8 +18,12 @@
 package com.netflix.genie.web.configs;
 
 import com.netflix.genie.core.properties.DataServiceRetryProperties;
+import com.netflix.genie.core.properties.FileCacheProperties;
 import com.netflix.genie.core.properties.HealthProperties;
+import com.netflix.genie.core.properties.JobsAttachmentsProperties;
 import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.properties.S3TransferProperties;
+import com.netflix.genie.core.properties.TagIndexProperties;
 import com.netflix.genie.test.categories.IntegrationTest;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
@@ -52,6 +56,15 @@ public class PropertiesConfigIntegrationTest {
     @Autowired
     private HealthProperties healthProperties;
 
+    @Autowired
+    private FileCacheProperties fileCacheProperties;
+
+    @Autowired
+    private TagIndexProperties tagIndexProperties;
+
+    @Autowired
+    private S3TransferProperties s3TransferProperties;
+
     /**
      * Verify than beans get autowired, and that (non-default) values correspond to the expected set via properties
      * file.
@@ -60,11 +73,22 @@ public class PropertiesConfigIntegrationTest {
     public void testPropertiesValues() {
 
         Assert.assertNotNull(jobsProperties);
+        Assert.assertThat(jobsProperties.getArchive().getCompressionLevel(), Matchers.is(3));
+        Assert.assertThat(jobsProperties.getArchive().getCompressionThreads(), Matchers.is(4));
+        Assert.assertThat(
+            jobsProperties.getAttachments().getMaterialization(),
+            Matchers.is(JobsAttachmentsProperties.Materialization.HARD_LINK)
+        );
         Assert.assertThat(jobsProperties.getCleanup().isDeleteArchiveFile(), Matchers.is(false));
+        Assert.assertThat(jobsProperties.getDownloads().getMaxConcurrent(), Matchers.is(7));
         Assert.assertThat(jobsProperties.getForwarding().isEnabled(), Matchers.is(true));
         Assert.assertThat(jobsProperties.getLocations().getJobs(), Matchers.is("file:///tmp"));
+        Assert.assertThat(jobsProperties.getLogShipping().isEnabled(), Matchers.is(true));
+        Assert.assertThat(jobsProperties.getLogShipping().getInterval(), Matchers.is(5000L));
         Assert.assertThat(jobsProperties.getMax().getStdOutSize(), Matchers.is(512L));
         Assert.assertThat(jobsProperties.getMemory().getMaxSystemMemory(), Matchers.is(1024));
+        Assert.assertThat(jobsProperties.getQueue().isEnabled(), Matchers.is(true));
+        Assert.assertThat(jobsProperties.getQueue().getMaxDepth(), Matchers.is(25));
         Assert.assertThat(jobsProperties.getUsers().isCreationEnabled(), Matchers.is(true));
         Assert.assertThat(jobsProperties.getUsers().getActiveLimit().isEnabled(), Matchers.is(true));
         Assert.assertThat(jobsProperties.getUsers().getActiveLimit().getCount(), Matchers.is(15));
@@ -75,5 +99,22 @@ public class PropertiesConfigIntegrationTest {
         Assert.assertNotNull(healthProperties);
         Assert.assertThat(healthProperties.getMaxCpuLoadPercent(), Matchers.is(33.3));
         Assert.assertThat(healthProperties.getMaxCpuLoadConsecutiveOccurrences(), Matchers.is(5));
+
+        Assert.assertNotNull(fileCacheProperties);
+        Assert.assertThat(
+            fileCacheProperties.getMaterialization(),
+            Matchers.is(FileCacheProperties.Materialization.HARD_LINK)
+        );
+        Assert.assertThat(fileCacheProperties.getMaxSize(), Matchers.is(2048L));
+        Assert.assertThat(fileCacheProperties.getRevalidationInterval(), Matchers.is(60000L));
+
+        Assert.assertNotNull(tagIndexProperties);
+        Assert.assertThat(tagIndexProperties.isEnabled(), Matchers.is(false));
+        Assert.assertThat(tagIndexProperties.getRefreshRate(), Matchers.is(5000L));
+        Assert.assertThat(tagIndexProperties.getMaxStaleness(), Matchers.is(20000L));
+
+        Assert.assertNotNull(s3TransferProperties);
+        Assert.assertThat(s3TransferProperties.isParallelEnabled(), Matchers.is(true));
+        Assert.assertThat(s3TransferProperties.getPartSize(), Matchers.is(8388608L));
     }
 }
@@ -27,19 +27,26 @@ import com.netflix.genie.core.jpa.repositories.JpaJobExecutionRepository;
 import com.netflix.genie.core.jpa.repositories.JpaJobMetadataRepository;
 import com.netflix.genie.core.jpa.repositories.JpaJobRepository;
 import com.netflix.genie.core.jpa.repositories.JpaJobRequestRepository;
+import com.netflix.genie.core.jpa.services.TagIndex;
 import com.netflix.genie.core.properties.JobsProperties;
-import com.netflix.genie.core.services.ApplicationService;
+import com.netflix.genie.core.properties.TagIndexProperties;
 import com.netflix.genie.core.services.ClusterLoadBalancer;
 import com.netflix.genie.core.services.ClusterService;
-import com.netflix.genie.core.services.CommandService;
 import com.netflix.genie.core.services.JobKillService;
 import com.netflix.genie.core.services.JobPersistenceService;
 import com.netflix.genie.core.services.JobSearchService;
 import com.netflix.genie.core.services.JobStateService;
+import com.netflix.genie.core.services.impl.RequestedMemoryAdmissionPolicy;
 import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.properties.JobMonitorProperties;
+import com.netflix.genie.web.properties.JobResourceUsageProperties;
+import com.netflix.genie.web.services.impl.UtilizationAwareAdmissionPolicy;
+import com.netflix.genie.web.tasks.job.JobResourceUsageSampler;
+import com.netflix.spectator.api.DefaultRegistry;
 import com.netflix.spectator.api.Registry;
 import org.apache.commons.exec.Executor;
 import org.assertj.core.util.Lists;
+import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -49,8 +56,11 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.ApplicationEventMulticaster;
 import org.springframework.core.io.FileSystemResource;
 import org.springframework.core.io.Resource;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.mail.javamail.JavaMailSender;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
@@ -97,6 +107,41 @@ public class ServicesConfigUnitTests {
         Assert.assertNotNull(this.servicesConfig.clusterLoadBalancer());
     }
 
+    /**
+     * Confirm the job admission policy is picked based on the properties.
+     */
+    @Test
+    public void canGetJobAdmissionPolicy() {
+        final JobsProperties jobsProperties = new JobsProperties();
+        final JobResourceUsageSampler resourceUsageSampler = Mockito.mock(JobResourceUsageSampler.class);
+        final JobResourceUsageProperties resourceUsageProperties = new JobResourceUsageProperties();
+        final JobMonitorProperties jobMonitorProperties = new JobMonitorProperties();
+        final Registry registry = new DefaultRegistry();
+
+        Assert.assertThat(
+            this.servicesConfig.jobAdmissionPolicy(
+                jobsProperties,
+                resourceUsageSampler,
+                resourceUsageProperties,
+                jobMonitorProperties,
+                registry
+            ),
+            Matchers.instanceOf(RequestedMemoryAdmissionPolicy.class)
+        );
+
+        jobsProperties.getAdmission().setUtilizationAware(true);
+        Assert.assertThat(
+            this.servicesConfig.jobAdmissionPolicy(
+                jobsProperties,
+                resourceUsageSampler,
+                resourceUsageProperties,
+                jobMonitorProperties,
+                registry
+            ),
+            Matchers.instanceOf(UtilizationAwareAdmissionPolicy.class)
+        );
+    }
+
     /**
      * Confirm we can get a GenieFileTransfer instance.
      *
@@ -107,6 +152,25 @@ public class ServicesConfigUnitTests {
         Assert.assertNotNull(this.servicesConfig.genieFileTransferService(scheme -> null));
     }
 
+    /**
+     * Confirm we can get a directory deletion service.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canGetDirectoryDeletionService() throws IOException {
+        final Resource jobsDir = Mockito.mock(Resource.class);
+        Mockito.when(jobsDir.getFile()).thenReturn(new File(System.getProperty("java.io.tmpdir")));
+        Assert.assertNotNull(
+            this.servicesConfig.directoryDeletionService(
+                jobsDir,
+                Mockito.mock(AsyncTaskExecutor.class),
+                new JobsProperties(),
+                new DefaultRegistry()
+            )
+        );
+    }
+
     /**
      * Confirm we can get a default mail service implementation.
      */
@@ -138,6 +202,20 @@ public class ServicesConfigUnitTests {
         );
     }
 
+    /**
+     * Can get a bean for the tag index.
+     */
+    @Test
+    public void canGetTagIndexBean() {
+        Assert.assertNotNull(
+            this.servicesConfig.tagIndex(
+                this.clusterRepository,
+                new TagIndexProperties(),
+                Mockito.mock(Registry.class)
+            )
+        );
+    }
+
     /**
      * Can get a bean for Command Service.
      */
@@ -148,7 +226,8 @@ public class ServicesConfigUnitTests {
             this.servicesConfig.commandService(
                 this.commandRepository,
                 this.applicationRepository,
-                this.clusterRepository
+                this.clusterRepository,
+                Mockito.mock(TagIndex.class)
             )
         );
     }
@@ -161,7 +240,9 @@ public class ServicesConfigUnitTests {
         Assert.assertNotNull(
             this.servicesConfig.clusterService(
                 this.clusterRepository,
-                this.commandRepository
+                this.commandRepository,
+                this.applicationRepository,
+                Mockito.mock(TagIndex.class)
             )
         );
     }
@@ -176,6 +257,7 @@ public class ServicesConfigUnitTests {
                 this.jobRepository,
                 this.jobRequestRepository,
                 this.jobExecutionRepository,
+                Mockito.mock(JpaJobMetadataRepository.class),
                 Mockito.mock(JpaClusterRepository.class),
                 Mockito.mock(JpaCommandRepository.class)
             )
@@ -218,6 +300,8 @@ public class ServicesConfigUnitTests {
                 eventMulticaster,
                 workflowTasks,
                 resource,
+                Mockito.mock(AsyncTaskExecutor.class),
+                new JobsProperties(),
                 Mockito.mock(Registry.class)
             )
         );
@@ -235,9 +319,7 @@ public class ServicesConfigUnitTests {
                 Mockito.mock(JobStateService.class),
                 Mockito.mock(JobSearchService.class),
                 new JobsProperties(),
-                Mockito.mock(ApplicationService.class),
                 Mockito.mock(ClusterService.class),
-                Mockito.mock(CommandService.class),
                 Lists.newArrayList(Mockito.mock(ClusterLoadBalancer.class)),
                 Mockito.mock(Registry.class),
                 UUID.randomUUID().toString()
@@ -257,9 +339,7 @@ public class ServicesConfigUnitTests {
                 Mockito.mock(JobStateService.class),
                 Mockito.mock(JobSearchService.class),
                 new JobsProperties(),
-                Mockito.mock(ApplicationService.class),
                 Mockito.mock(ClusterService.class),
-                Mockito.mock(CommandService.class),
                 Lists.newArrayList(),
                 Mockito.mock(Registry.class),
                 UUID.randomUUID().toString()
@@ -17,10 +17,15 @@
  */
 package com.netflix.genie.web.configs;
 
+import com.netflix.genie.core.properties.JobsProperties;
 import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.experimental.categories.Category;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
 /**
  * Unit tests for the TaskConfig class.
@@ -46,4 +51,114 @@ public class TaskConfigUnitTests {
     public void canGetTaskScheduler() {
         Assert.assertNotNull(new TaskConfig().taskScheduler(7));
     }
+
+    /**
+     * Make sure the job download executor is bounded by the given pool size.
+     */
+    @Test
+    public void canGetJobDownloadExecutor() {
+        final ThreadPoolTaskExecutor executor = (ThreadPoolTaskExecutor) new TaskConfig().jobDownloadExecutor(6);
+        Assert.assertThat(executor.getCorePoolSize(), Matchers.is(6));
+        Assert.assertThat(executor.getMaxPoolSize(), Matchers.is(6));
+    }
+
+    /**
+     * Make sure the file cache prewarm executor is bounded by the given pool size.
+     */
+    @Test
+    public void canGetFileCachePrewarmExecutor() {
+        final ThreadPoolTaskExecutor executor
+            = (ThreadPoolTaskExecutor) new TaskConfig().fileCachePrewarmExecutor(3);
+        Assert.assertThat(executor.getCorePoolSize(), Matchers.is(3));
+        Assert.assertThat(executor.getMaxPoolSize(), Matchers.is(3));
+    }
+
+    /**
+     * Make sure the job archive compression executor is sized by the number of compression threads.
+     */
+    @Test
+    public void canGetJobArchiveCompressionExecutor() {
+        final JobsProperties jobsProperties = new JobsProperties();
+        jobsProperties.getArchive().setCompressionThreads(6);
+        final ThreadPoolTaskExecutor executor
+            = (ThreadPoolTaskExecutor) new TaskConfig().jobArchiveCompressionExecutor(jobsProperties);
+        Assert.assertThat(executor.getCorePoolSize(), Matchers.is(6));
+        Assert.assertThat(executor.getMaxPoolSize(), Matchers.is(6));
+    }
+
+    /**
+     * Make sure the job log shipping executor is bounded by the given pool size.
+     */
+    @Test
+    public void canGetJobLogShippingExecutor() {
+        final ThreadPoolTaskExecutor executor
+            = (ThreadPoolTaskExecutor) new TaskConfig().jobLogShippingExecutor(4);
+        Assert.assertThat(executor.getCorePoolSize(), Matchers.is(4));
+        Assert.assertThat(executor.getMaxPoolSize(), Matchers.is(4));
+    }
+
+    /**
+     * Make sure the job launch executor is bounded by the given pool size and queue capacity.
+     */
+    @Test
+    public void canGetJobLaunchExecutor() {
+        final ThreadPoolTaskExecutor executor
+            = (ThreadPoolTaskExecutor) new TaskConfig().jobLaunchExecutor(3, 12, new DefaultRegistry());
+        executor.initialize();
+        try {
+            Assert.assertThat(executor.getCorePoolSize(), Matchers.is(3));
+            Assert.assertThat(executor.getMaxPoolSize(), Matchers.is(3));
+            Assert.assertThat(executor.getThreadPoolExecutor().getQueue().remainingCapacity(), Matchers.is(12));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Make sure the directory deletion executor is bounded by the given pool size and queue capacity.
+     */
+    @Test
+    public void canGetDirectoryDeletionExecutor() {
+        final ThreadPoolTaskExecutor executor
+            = (ThreadPoolTaskExecutor) new TaskConfig().directoryDeletionExecutor(6, 50);
+        executor.initialize();
+        try {
+            Assert.assertThat(executor.getMaxPoolSize(), Matchers.is(6));
+            Assert.assertThat(executor.getThreadPoolExecutor().getQueue().remainingCapacity(), Matchers.is(50));
+            Assert.assertThat(executor.getThreadNamePrefix(), Matchers.is("genie-directory-deletion-"));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Make sure the job completion executors are bounded and each stage has its own.
+     */
+    @Test
+    public void canGetJobCompletionExecutors() {
+        final TaskConfig config = new TaskConfig();
+        final Registry registry = new DefaultRegistry();
+        final ThreadPoolTaskExecutor finalizeExecutor
+            = (ThreadPoolTaskExecutor) config.jobCompletionFinalizeExecutor(2, 10, registry);
+        final ThreadPoolTaskExecutor archiveExecutor
+            = (ThreadPoolTaskExecutor) config.jobCompletionArchiveExecutor(4, 20, registry);
+        final ThreadPoolTaskExecutor notifyExecutor
+            = (ThreadPoolTaskExecutor) config.jobCompletionNotifyExecutor(1, 30, registry);
+        finalizeExecutor.initialize();
+        archiveExecutor.initialize();
+        notifyExecutor.initialize();
+        try {
+            Assert.assertThat(finalizeExecutor.getMaxPoolSize(), Matchers.is(2));
+            Assert.assertThat(finalizeExecutor.getThreadPoolExecutor().getQueue().remainingCapacity(), Matchers.is(10));
+            Assert.assertThat(archiveExecutor.getMaxPoolSize(), Matchers.is(4));
+            Assert.assertThat(archiveExecutor.getThreadPoolExecutor().getQueue().remainingCapacity(), Matchers.is(20));
+            Assert.assertThat(notifyExecutor.getMaxPoolSize(), Matchers.is(1));
+            Assert.assertThat(notifyExecutor.getThreadPoolExecutor().getQueue().remainingCapacity(), Matchers.is(30));
+            Assert.assertThat(archiveExecutor.getThreadNamePrefix(), Matchers.is("genie-job-archive-"));
+        } finally {
+            finalizeExecutor.shutdown();
+            archiveExecutor.shutdown();
+            notifyExecutor.shutdown();
+        }
+    }
 }
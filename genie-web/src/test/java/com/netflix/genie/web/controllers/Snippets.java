@@ -838,6 +838,16 @@ final class Snippets {
                 .fieldWithPath("memory")
                 .attributes(getConstraintsForField(JOB_CONSTRAINTS, "memory"))
                 .description("The amount of memory (in MB) allocated to the job client")
+                .optional(),
+            PayloadDocumentation
+                .fieldWithPath("cpuTime")
+                .attributes(getConstraintsForField(JOB_CONSTRAINTS, "cpuTime"))
+                .description("The CPU time (in milliseconds) used by the processes of the job as of the last sample")
+                .optional(),
+            PayloadDocumentation
+                .fieldWithPath("peakRss")
+                .attributes(getConstraintsForField(JOB_CONSTRAINTS, "peakRss"))
+                .description("The highest resident memory (in bytes) used by the processes of the job at once")
                 .optional()
         );
     }
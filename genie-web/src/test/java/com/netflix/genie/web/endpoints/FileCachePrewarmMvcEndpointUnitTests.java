@@ -0,0 +1,81 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.endpoints;
+
+import com.google.common.collect.ImmutableMap;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.tasks.node.FileCachePrewarmTask;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+
+import java.util.Map;
+
+/**
+ * Unit tests for the file cache prewarm endpoint.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class FileCachePrewarmMvcEndpointUnitTests {
+
+    private FileCachePrewarmTask prewarmTask;
+    private FileCachePrewarmMvcEndpoint endpoint;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.prewarmTask = Mockito.mock(FileCachePrewarmTask.class);
+        final Map<String, Object> status = ImmutableMap.of("pendingFiles", 3);
+        Mockito.when(this.prewarmTask.getStatus()).thenReturn(status);
+        this.endpoint = new FileCachePrewarmMvcEndpoint(this.prewarmTask);
+    }
+
+    /**
+     * Make sure the endpoint is mounted where expected and is sensitive.
+     */
+    @Test
+    public void canConstruct() {
+        Assert.assertThat(this.endpoint.getPath(), Matchers.is("/fileCachePrewarm"));
+        Assert.assertTrue(this.endpoint.isSensitive());
+    }
+
+    /**
+     * Make sure the status comes from the task.
+     */
+    @Test
+    public void canGetStatus() {
+        Assert.assertThat(this.endpoint.getStatus().get("pendingFiles"), Matchers.is(3));
+        Mockito.verify(this.prewarmTask, Mockito.never()).prewarm();
+    }
+
+    /**
+     * Make sure a post triggers a full prewarm.
+     */
+    @Test
+    public void canPrewarm() {
+        Assert.assertThat(this.endpoint.prewarm().get("pendingFiles"), Matchers.is(3));
+        Mockito.verify(this.prewarmTask, Mockito.times(1)).prewarm();
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Unit tests for JobCompletionProperties.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class JobCompletionPropertiesUnitTests {
+
+    private JobCompletionProperties properties;
+
+    /**
+     * Setup for tests.
+     */
+    @Before
+    public void setup() {
+        this.properties = new JobCompletionProperties();
+    }
+
+    /**
+     * Make sure constructor sets reasonable defaults.
+     */
+    @Test
+    public void canGetDefaultValues() {
+        Assert.assertThat(this.properties.getMaxAttempts(), Matchers.is(10));
+        Assert.assertThat(this.properties.getInitialRetryDelay(), Matchers.is(10000L));
+        Assert.assertThat(this.properties.getMaxRetryDelay(), Matchers.is(600000L));
+    }
+
+    /**
+     * Make sure can set how often and how far apart stages are attempted.
+     */
+    @Test
+    public void canSetRetries() {
+        this.properties.setMaxAttempts(3);
+        this.properties.setInitialRetryDelay(500L);
+        this.properties.setMaxRetryDelay(2000L);
+        Assert.assertThat(this.properties.getMaxAttempts(), Matchers.is(3));
+        Assert.assertThat(this.properties.getInitialRetryDelay(), Matchers.is(500L));
+        Assert.assertThat(this.properties.getMaxRetryDelay(), Matchers.is(2000L));
+    }
+}
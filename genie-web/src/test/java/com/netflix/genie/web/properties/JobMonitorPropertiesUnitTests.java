@@ -0,0 +1,105 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import java.util.UUID;
+
+/**
+ * Unit tests for JobMonitorProperties.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class JobMonitorPropertiesUnitTests {
+
+    private JobMonitorProperties properties;
+
+    /**
+     * Setup for tests.
+     */
+    @Before
+    public void setup() {
+        this.properties = new JobMonitorProperties();
+    }
+
+    /**
+     * Make sure constructor sets reasonable defaults.
+     */
+    @Test
+    public void canGetDefaultValues() {
+        Assert.assertThat(this.properties.getScanInterval(), Matchers.is(1000L));
+        Assert.assertThat(this.properties.getProcDirectory(), Matchers.is("/proc"));
+        Assert.assertTrue(this.properties.isWatchDoneFile());
+        Assert.assertThat(this.properties.getOutputSweepInterval(), Matchers.is(10000L));
+        Assert.assertThat(this.properties.getDeadlineTickDuration(), Matchers.is(100L));
+    }
+
+    /**
+     * Make sure can set a new scan interval.
+     */
+    @Test
+    public void canSetScanInterval() {
+        this.properties.setScanInterval(250L);
+        Assert.assertThat(this.properties.getScanInterval(), Matchers.is(250L));
+    }
+
+    /**
+     * Make sure can set a new proc directory.
+     */
+    @Test
+    public void canSetProcDirectory() {
+        final String procDirectory = UUID.randomUUID().toString();
+        this.properties.setProcDirectory(procDirectory);
+        Assert.assertThat(this.properties.getProcDirectory(), Matchers.is(procDirectory));
+    }
+
+    /**
+     * Make sure can disable watching done files.
+     */
+    @Test
+    public void canDisableWatchDoneFile() {
+        this.properties.setWatchDoneFile(false);
+        Assert.assertFalse(this.properties.isWatchDoneFile());
+    }
+
+    /**
+     * Make sure can set a new output sweep interval.
+     */
+    @Test
+    public void canSetOutputSweepInterval() {
+        this.properties.setOutputSweepInterval(2000L);
+        Assert.assertThat(this.properties.getOutputSweepInterval(), Matchers.is(2000L));
+    }
+
+    /**
+     * Make sure can set a new deadline tick duration.
+     */
+    @Test
+    public void canSetDeadlineTickDuration() {
+        this.properties.setDeadlineTickDuration(50L);
+        Assert.assertThat(this.properties.getDeadlineTickDuration(), Matchers.is(50L));
+    }
+}
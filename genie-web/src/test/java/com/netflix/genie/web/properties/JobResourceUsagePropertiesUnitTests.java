@@ -0,0 +1,88 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.properties;
+
+import com.netflix.genie.test.categories.UnitTest;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+/**
+ * Unit tests for JobResourceUsageProperties.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class JobResourceUsagePropertiesUnitTests {
+
+    private JobResourceUsageProperties properties;
+
+    /**
+     * Setup for tests.
+     */
+    @Before
+    public void setup() {
+        this.properties = new JobResourceUsageProperties();
+    }
+
+    /**
+     * Make sure constructor sets reasonable defaults.
+     */
+    @Test
+    public void canGetDefaultValues() {
+        Assert.assertTrue(this.properties.isEnabled());
+        Assert.assertThat(this.properties.getSampleInterval(), Matchers.is(10000L));
+        Assert.assertThat(this.properties.getPersistInterval(), Matchers.is(60000L));
+        Assert.assertThat(this.properties.getClockTicksPerSecond(), Matchers.is(100L));
+        Assert.assertThat(this.properties.getPageSize(), Matchers.is(4096L));
+    }
+
+    /**
+     * Make sure can disable sampling.
+     */
+    @Test
+    public void canDisable() {
+        this.properties.setEnabled(false);
+        Assert.assertFalse(this.properties.isEnabled());
+    }
+
+    /**
+     * Make sure can set new intervals.
+     */
+    @Test
+    public void canSetIntervals() {
+        this.properties.setSampleInterval(1000L);
+        this.properties.setPersistInterval(5000L);
+        Assert.assertThat(this.properties.getSampleInterval(), Matchers.is(1000L));
+        Assert.assertThat(this.properties.getPersistInterval(), Matchers.is(5000L));
+    }
+
+    /**
+     * Make sure can set the units the proc filesystem reports in.
+     */
+    @Test
+    public void canSetUnits() {
+        this.properties.setClockTicksPerSecond(250L);
+        this.properties.setPageSize(65536L);
+        Assert.assertThat(this.properties.getClockTicksPerSecond(), Matchers.is(250L));
+        Assert.assertThat(this.properties.getPageSize(), Matchers.is(65536L));
+    }
+}
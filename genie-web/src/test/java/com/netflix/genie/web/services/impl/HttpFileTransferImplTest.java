@@ -32,6 +32,7 @@ import org.junit.rules.TemporaryFolder;
 import org.mockito.Mockito;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.client.MockRestServiceServer;
 import org.springframework.test.web.client.match.MockRestRequestMatchers;
@@ -43,6 +44,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.time.Instant;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
@@ -130,6 +132,69 @@ public class HttpFileTransferImplTest {
             .record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
     }
 
+    /**
+     * Make sure a conditional get sends the last modified time and saves the file if it was modified.
+     *
+     * @throws GenieException On error
+     * @throws IOException On error
+     */
+    @Test
+    public void canGetIfModified() throws GenieException, IOException {
+        final File output = this.temporaryFolder.newFile();
+        final String contents = UUID.randomUUID().toString();
+        final long lastModified = 1500000000000L;
+        final HttpHeaders headers = new HttpHeaders();
+        headers.setIfModifiedSince(lastModified);
+
+        this.server
+            .expect(MockRestRequestMatchers.requestTo(TEST_URL))
+            .andExpect(MockRestRequestMatchers.method(HttpMethod.GET))
+            .andExpect(
+                MockRestRequestMatchers.header(
+                    HttpHeaders.IF_MODIFIED_SINCE,
+                    headers.getFirst(HttpHeaders.IF_MODIFIED_SINCE)
+                )
+            )
+            .andRespond(
+                MockRestResponseCreators
+                    .withSuccess(contents.getBytes(Charset.forName("UTF-8")), MediaType.APPLICATION_OCTET_STREAM)
+            );
+
+        Assert.assertTrue(this.httpFileTransfer.getFileIfModified(TEST_URL, output.getCanonicalPath(), lastModified));
+        Assert.assertThat(
+            new String(Files.readAllBytes(output.toPath()), Charset.forName("UTF-8")),
+            Matchers.is(contents)
+        );
+
+        this.server.verify();
+        Mockito
+            .verify(this.downloadTimer, Mockito.times(1))
+            .record(Mockito.anyLong(), Mockito.eq(TimeUnit.NANOSECONDS));
+    }
+
+    /**
+     * Make sure a conditional get leaves the file alone if the server says it wasn't modified.
+     *
+     * @throws GenieException On error
+     * @throws IOException On error
+     */
+    @Test
+    public void canSkipGetIfNotModified() throws GenieException, IOException {
+        final File output = this.temporaryFolder.newFile();
+
+        this.server
+            .expect(MockRestRequestMatchers.requestTo(TEST_URL))
+            .andExpect(MockRestRequestMatchers.method(HttpMethod.GET))
+            .andRespond(MockRestResponseCreators.withStatus(HttpStatus.NOT_MODIFIED));
+
+        Assert.assertFalse(
+            this.httpFileTransfer.getFileIfModified(TEST_URL, output.getCanonicalPath(), Instant.now().toEpochMilli())
+        );
+        Assert.assertThat(output.length(), Matchers.is(0L));
+
+        this.server.verify();
+    }
+
     /**
      * Make sure can't get a file if the intput isn't a valid url.
      *
@@ -0,0 +1,169 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.services.impl;
+
+import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.util.ProcFsResourceUsageReader;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.tasks.job.JobResourceUsageSampler;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+
+/**
+ * Unit tests for the UtilizationAwareAdmissionPolicy class.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class UtilizationAwareAdmissionPolicyUnitTests {
+
+    private static final int MAX_SYSTEM_MEMORY = 10_240;
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+    private static final String REJECTED_COUNTER = "genie.jobs.admission.utilization.rejected.counter";
+
+    private JobResourceUsageSampler sampler;
+    private ProcFsResourceUsageReader reader;
+    private Registry registry;
+    private UtilizationAwareAdmissionPolicy admissionPolicy;
+
+    /**
+     * Setup for the tests.
+     *
+     * @throws IOException on error
+     */
+    @Before
+    public void setup() throws IOException {
+        final JobsProperties jobsProperties = new JobsProperties();
+        jobsProperties.getMemory().setMaxSystemMemory(MAX_SYSTEM_MEMORY);
+        jobsProperties.getAdmission().setUtilizationAware(true);
+        jobsProperties.getAdmission().setOvercommitRatio(1.5);
+        jobsProperties.getAdmission().setHeadroom(2_048);
+        this.sampler = Mockito.mock(JobResourceUsageSampler.class);
+        Mockito.when(this.sampler.isEnabled()).thenReturn(true);
+        this.reader = Mockito.mock(ProcFsResourceUsageReader.class);
+        Mockito.when(this.reader.readAvailableMemory()).thenReturn(20_000L * BYTES_PER_MB);
+        this.registry = new DefaultRegistry();
+        this.admissionPolicy = new UtilizationAwareAdmissionPolicy(
+            jobsProperties,
+            this.sampler,
+            this.reader,
+            this.registry
+        );
+    }
+
+    /**
+     * Make sure more jobs than the requested memory allows are admitted when the running jobs use less than they
+     * requested.
+     */
+    @Test
+    public void canAdmitWhenRequestedMemoryIsInflated() {
+        this.sample(MAX_SYSTEM_MEMORY, 2_048L);
+        Assert.assertTrue(this.admissionPolicy.canAdmit(MAX_SYSTEM_MEMORY, 4_096));
+        Assert.assertThat(this.admissionPolicy.getObservedMemory(), Matchers.is(2_048L));
+        Assert.assertThat(this.admissionPolicy.getAvailableMemory(), Matchers.is(20_000L));
+        Assert.assertThat(this.registry.timer("genie.jobs.admission.check.timer").count(), Matchers.is(1L));
+    }
+
+    /**
+     * Make sure the requested memory can't exceed the memory of the node times the overcommit ratio.
+     */
+    @Test
+    public void cantAdmitPastOvercommitRatio() {
+        this.sample(14_336, 2_048L);
+        Assert.assertFalse(this.admissionPolicy.canAdmit(14_336, 2_048));
+        Assert.assertThat(this.rejections("overcommit"), Matchers.is(1L));
+    }
+
+    /**
+     * Make sure jobs aren't admitted when the memory observed to be used doesn't leave room for them.
+     */
+    @Test
+    public void cantAdmitWhenObservedMemoryIsHigh() {
+        this.sample(9_216, 9_500L);
+        Assert.assertFalse(this.admissionPolicy.canAdmit(9_216, 1_024));
+        Assert.assertThat(this.rejections("observed"), Matchers.is(1L));
+    }
+
+    /**
+     * Make sure jobs which weren't sampled yet are counted at the memory they requested.
+     */
+    @Test
+    public void canCountUnsampledJobsAtRequestedMemory() {
+        this.sample(2_048, 1_024L);
+        Assert.assertFalse(this.admissionPolicy.canAdmit(9_216, 3_072));
+        Assert.assertThat(this.admissionPolicy.getObservedMemory(), Matchers.is(8_192L));
+        Assert.assertThat(this.rejections("observed"), Matchers.is(1L));
+    }
+
+    /**
+     * Make sure load is shed when the node itself is running out of memory even though the requested memory fits.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void cantAdmitWithoutHeadroom() throws IOException {
+        Mockito.when(this.reader.readAvailableMemory()).thenReturn(4_000L * BYTES_PER_MB);
+        this.sample(0, 0L);
+        Assert.assertTrue(this.admissionPolicy.canAdmit(0, 1_024));
+        Assert.assertFalse(this.admissionPolicy.canAdmit(1_024, 1_024));
+        Assert.assertThat(this.rejections("available"), Matchers.is(1L));
+    }
+
+    /**
+     * Make sure jobs are admitted on the memory they requested when the resources of jobs aren't sampled.
+     */
+    @Test
+    public void canFallBackWhenNotSampling() {
+        Mockito.when(this.sampler.isEnabled()).thenReturn(false);
+        Assert.assertTrue(this.admissionPolicy.canAdmit(0, MAX_SYSTEM_MEMORY));
+        Assert.assertFalse(this.admissionPolicy.canAdmit(MAX_SYSTEM_MEMORY, 1));
+        Assert.assertThat(this.registry.counter("genie.jobs.admission.fallback.counter").count(), Matchers.is(2L));
+    }
+
+    /**
+     * Make sure jobs are admitted on the memory they requested when the available memory can't be read.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canFallBackWhenAvailableMemoryIsUnknown() throws IOException {
+        Mockito.when(this.reader.readAvailableMemory()).thenThrow(new IOException("no meminfo"));
+        this.sample(MAX_SYSTEM_MEMORY, 0L);
+        Assert.assertFalse(this.admissionPolicy.canAdmit(MAX_SYSTEM_MEMORY, 1));
+        Assert.assertThat(this.registry.counter("genie.jobs.admission.fallback.counter").count(), Matchers.is(1L));
+    }
+
+    private void sample(final int requestedMemory, final long peakRss) {
+        Mockito
+            .when(this.sampler.getSampledMemory())
+            .thenReturn(new JobResourceUsageSampler.SampledMemory(requestedMemory, peakRss * BYTES_PER_MB));
+    }
+
+    private long rejections(final String reason) {
+        return this.registry.counter(this.registry.createId(REJECTED_COUNTER).withTag("reason", reason)).count();
+    }
+}
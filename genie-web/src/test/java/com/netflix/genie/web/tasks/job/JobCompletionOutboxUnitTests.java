@@ -0,0 +1,173 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job;
+
+import com.netflix.genie.core.events.JobFinishedReason;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.apache.commons.io.FileUtils;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Unit tests for the JobCompletionOutbox class.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class JobCompletionOutboxUnitTests {
+
+    /**
+     * Temporary folder standing in for the outbox directory.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Registry registry;
+    private File directory;
+    private String jobId;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.registry = new DefaultRegistry();
+        this.directory = new File(this.folder.getRoot(), JobCompletionOutbox.DIRECTORY_NAME);
+        this.jobId = UUID.randomUUID().toString();
+    }
+
+    /**
+     * Make sure entries are written to disk and read back by the next outbox on the same directory.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canLoadEntriesLeftBehind() throws IOException {
+        final JobCompletionOutbox outbox = new JobCompletionOutbox(this.directory, this.registry);
+        Assert.assertTrue(outbox.getLoaded().isEmpty());
+        Assert.assertThat(outbox.getAge(), Matchers.is(0L));
+
+        final JobCompletionOutbox.Entry entry
+            = outbox.add(this.jobId, JobCompletionOutbox.Task.ARCHIVE, JobFinishedReason.KILLED, "killed");
+        entry.setAttempts(3);
+        outbox.update(entry);
+        outbox.remove(outbox.add(this.jobId, JobCompletionOutbox.Task.NOTIFY, JobFinishedReason.KILLED, "killed"));
+        Assert.assertThat(outbox.getDepth(), Matchers.is(1));
+        Assert.assertThat(outbox.getAge(), Matchers.greaterThanOrEqualTo(0L));
+
+        final JobCompletionOutbox reloaded = new JobCompletionOutbox(this.directory, this.registry);
+        final List<JobCompletionOutbox.Entry> loaded = reloaded.getLoaded();
+        Assert.assertThat(loaded.size(), Matchers.is(1));
+        final JobCompletionOutbox.Entry loadedEntry = loaded.get(0);
+        Assert.assertThat(loadedEntry.getJobId(), Matchers.is(this.jobId));
+        Assert.assertThat(loadedEntry.getTask(), Matchers.is(JobCompletionOutbox.Task.ARCHIVE));
+        Assert.assertThat(loadedEntry.getReason(), Matchers.is(JobFinishedReason.KILLED));
+        Assert.assertThat(loadedEntry.getMessage(), Matchers.is("killed"));
+        Assert.assertThat(loadedEntry.getCreated(), Matchers.is(entry.getCreated()));
+        Assert.assertThat(loadedEntry.getAttempts(), Matchers.is(3));
+        Assert.assertThat(
+            reloaded.get(this.jobId, JobCompletionOutbox.Task.ARCHIVE),
+            Matchers.sameInstance(loadedEntry)
+        );
+        Assert.assertNull(reloaded.get(this.jobId, JobCompletionOutbox.Task.NOTIFY));
+    }
+
+    /**
+     * Make sure a task is only recorded, and claimed, once until it's removed.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canOnlyAddAndClaimTaskOnce() throws IOException {
+        final JobCompletionOutbox outbox = new JobCompletionOutbox(this.directory, this.registry);
+        final JobCompletionOutbox.Entry entry
+            = outbox.add(this.jobId, JobCompletionOutbox.Task.FINALIZE, JobFinishedReason.KILLED, "killed");
+        Assert.assertThat(
+            outbox.add(this.jobId, JobCompletionOutbox.Task.FINALIZE, JobFinishedReason.PROCESS_COMPLETED, null),
+            Matchers.sameInstance(entry)
+        );
+        Assert.assertThat(outbox.getDepth(), Matchers.is(1));
+        Assert.assertTrue(outbox.claim(entry));
+        Assert.assertFalse(outbox.claim(entry));
+
+        outbox.remove(entry);
+        Assert.assertThat(outbox.getDepth(), Matchers.is(0));
+        final JobCompletionOutbox.Entry newEntry
+            = outbox.add(this.jobId, JobCompletionOutbox.Task.FINALIZE, JobFinishedReason.KILLED, "killed");
+        Assert.assertThat(newEntry, Matchers.not(Matchers.sameInstance(entry)));
+        Assert.assertTrue(outbox.claim(newEntry));
+    }
+
+    /**
+     * Make sure partial writes are cleaned up and unreadable entries are counted instead of failing the load.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canSkipBrokenEntries() throws IOException {
+        Assert.assertTrue(this.directory.mkdirs());
+        final File partial = new File(this.directory, this.jobId + ".finalize.tmp");
+        FileUtils.writeStringToFile(partial, "{\"jobId\":", StandardCharsets.UTF_8);
+        FileUtils.writeStringToFile(
+            new File(this.directory, this.jobId + ".notify.json"),
+            "not json",
+            StandardCharsets.UTF_8
+        );
+
+        final JobCompletionOutbox outbox = new JobCompletionOutbox(this.directory, this.registry);
+        Assert.assertTrue(outbox.getLoaded().isEmpty());
+        Assert.assertFalse(partial.exists());
+        Assert.assertThat(
+            this.registry.counter("genie.jobs.completion.outbox.read.failure.counter").count(),
+            Matchers.is(1L)
+        );
+    }
+
+    /**
+     * Make sure a task is still tracked when it can't be saved.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canTrackEntryWhichCantBeSaved() throws IOException {
+        final JobCompletionOutbox outbox = new JobCompletionOutbox(this.directory, this.registry);
+        FileUtils.deleteDirectory(this.directory);
+
+        final JobCompletionOutbox.Entry entry
+            = outbox.add(this.jobId, JobCompletionOutbox.Task.NOTIFY, JobFinishedReason.KILLED, "killed");
+        Assert.assertThat(outbox.get(this.jobId, JobCompletionOutbox.Task.NOTIFY), Matchers.sameInstance(entry));
+        Assert.assertThat(
+            this.registry.counter("genie.jobs.completion.outbox.write.failure.counter").count(),
+            Matchers.is(1L)
+        );
+    }
+}
@@ -0,0 +1,427 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job;
+
+import com.google.common.collect.Lists;
+import com.netflix.genie.common.dto.Job;
+import com.netflix.genie.common.dto.JobRequest;
+import com.netflix.genie.common.dto.JobStatus;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.core.events.JobFinishedEvent;
+import com.netflix.genie.core.events.JobFinishedReason;
+import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.services.DirectoryDeletionService;
+import com.netflix.genie.core.services.JobArchiveService;
+import com.netflix.genie.core.services.JobPersistenceService;
+import com.netflix.genie.core.services.JobSearchService;
+import com.netflix.genie.core.services.MailService;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.properties.JobCompletionProperties;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.File;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Unit tests for the stages of the JobCompletionService class.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class JobCompletionServiceUnitTests {
+
+    private static final String NAME = UUID.randomUUID().toString();
+    private static final String USER = UUID.randomUUID().toString();
+    private static final String VERSION = UUID.randomUUID().toString();
+    private static final String COMMAND_ARGS = UUID.randomUUID().toString();
+    private static final String EMAIL = "genie@example.com";
+
+    /**
+     * Temporary folder standing in for the jobs directory.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<Runnable> finalizeTasks = Lists.newArrayList();
+    private final List<Runnable> archiveTasks = Lists.newArrayList();
+    private final List<Runnable> notifyTasks = Lists.newArrayList();
+    private JobPersistenceService jobPersistenceService;
+    private JobSearchService jobSearchService;
+    private MailService mailService;
+    private Registry registry;
+    private JobCompletionProperties completionProperties;
+    private TaskScheduler scheduler;
+    private String jobId;
+
+    /**
+     * Setup for the tests.
+     *
+     * @throws GenieException on error
+     */
+    @Before
+    public void setup() throws GenieException {
+        this.jobPersistenceService = Mockito.mock(JobPersistenceService.class);
+        this.jobSearchService = Mockito.mock(JobSearchService.class);
+        this.mailService = Mockito.mock(MailService.class);
+        this.registry = new DefaultRegistry();
+        this.completionProperties = new JobCompletionProperties();
+        this.scheduler = Mockito.mock(TaskScheduler.class);
+        this.jobId = UUID.randomUUID().toString();
+
+        Mockito
+            .when(this.jobSearchService.getJobRequest(this.jobId))
+            .thenReturn(
+                new JobRequest.Builder(NAME, USER, VERSION, COMMAND_ARGS, null, null)
+                    .withId(this.jobId)
+                    .withEmail(EMAIL)
+                    .build()
+            );
+        Mockito.when(this.jobSearchService.getJobStatus(this.jobId)).thenReturn(JobStatus.KILLED);
+    }
+
+    /**
+     * Make sure the final status is saved before the job is handed over to the archive and notify stages.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canFinalizeBeforeArchivingAndNotifying() throws GenieException {
+        this.mockJob(JobStatus.INIT);
+        final JobCompletionService service
+            = this.createService(this.finalizeTasks::add, this.archiveTasks::add, this.notifyTasks::add);
+
+        service.handleJobCompletion(this.event());
+        Mockito.verify(this.jobSearchService, Mockito.never()).getJob(this.jobId);
+        Assert.assertThat(this.finalizeTasks.size(), Matchers.is(1));
+
+        this.finalizeTasks.get(0).run();
+        Mockito
+            .verify(this.jobPersistenceService, Mockito.times(1))
+            .updateJobStatus(this.jobId, JobStatus.KILLED, "killed");
+        Assert.assertThat(this.archiveTasks.size(), Matchers.is(1));
+        Assert.assertThat(this.notifyTasks.size(), Matchers.is(1));
+        Mockito
+            .verify(this.mailService, Mockito.never())
+            .sendEmail(Mockito.anyString(), Mockito.anyString(), Mockito.anyString());
+
+        // A stuck archive mustn't hold up the email
+        this.notifyTasks.get(0).run();
+        Mockito
+            .verify(this.mailService, Mockito.times(1))
+            .sendEmail(Mockito.eq(EMAIL), Mockito.anyString(), Mockito.anyString());
+        this.archiveTasks.get(0).run();
+
+        for (final String stage : new String[]{"finalize", "archive", "notify"}) {
+            Assert.assertThat(
+                this.registry.timer("genie.jobs.completion." + stage + ".wait.timer").count(),
+                Matchers.is(1L)
+            );
+            Assert.assertThat(
+                this.registry.timer("genie.jobs.completion." + stage + ".run.timer").count(),
+                Matchers.is(1L)
+            );
+        }
+    }
+
+    /**
+     * Make sure jobs which are already done aren't archived or notified about again.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void wontArchiveOrNotifyIfJobAlreadyDone() throws GenieException {
+        this.mockJob(JobStatus.SUCCEEDED);
+        final JobCompletionService service
+            = this.createService(new SyncTaskExecutor(), this.archiveTasks::add, this.notifyTasks::add);
+
+        service.handleJobCompletion(this.event());
+        Mockito
+            .verify(this.jobPersistenceService, Mockito.never())
+            .updateJobStatus(Mockito.anyString(), Mockito.any(JobStatus.class), Mockito.anyString());
+        Assert.assertTrue(this.archiveTasks.isEmpty());
+        Assert.assertTrue(this.notifyTasks.isEmpty());
+    }
+
+    /**
+     * Make sure a job isn't run on the thread handing it over to a stage whose executor is full but handed over again
+     * later.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canHandOverStageAgainLaterWhenExecutorIsFull() throws GenieException {
+        this.mockJob(JobStatus.RUNNING);
+        final AtomicBoolean full = new AtomicBoolean(true);
+        final TaskExecutor notifyExecutor = task -> {
+            if (full.get()) {
+                throw new TaskRejectedException("full");
+            }
+            task.run();
+        };
+        final JobCompletionService service
+            = this.createService(new SyncTaskExecutor(), this.archiveTasks::add, notifyExecutor);
+
+        service.handleJobCompletion(this.event());
+        Mockito
+            .verify(this.mailService, Mockito.never())
+            .sendEmail(Mockito.anyString(), Mockito.anyString(), Mockito.anyString());
+        Assert.assertThat(this.archiveTasks.size(), Matchers.is(1));
+        Assert.assertTrue(this.outboxEntry("notify").exists());
+        Assert.assertThat(
+            this.registry.counter("genie.jobs.completion.notify.rejected.counter").count(),
+            Matchers.is(1L)
+        );
+        Assert.assertThat(
+            this.registry.counter("genie.jobs.completion.finalize.rejected.counter").count(),
+            Matchers.is(0L)
+        );
+        final ArgumentCaptor<Runnable> handOverCaptor = ArgumentCaptor.forClass(Runnable.class);
+        final ArgumentCaptor<Date> dateCaptor = ArgumentCaptor.forClass(Date.class);
+        Mockito.verify(this.scheduler, Mockito.times(1)).schedule(handOverCaptor.capture(), dateCaptor.capture());
+        Assert.assertThat(
+            dateCaptor.getValue().getTime(),
+            Matchers.greaterThan(System.currentTimeMillis() + this.completionProperties.getInitialRetryDelay() / 2)
+        );
+
+        full.set(false);
+        handOverCaptor.getValue().run();
+        Mockito
+            .verify(this.mailService, Mockito.times(1))
+            .sendEmail(Mockito.eq(EMAIL), Mockito.anyString(), Mockito.anyString());
+        Assert.assertFalse(this.outboxEntry("notify").exists());
+        Assert.assertThat(
+            this.registry.counter("genie.jobs.completion.notify.retry.counter").count(),
+            Matchers.is(0L)
+        );
+    }
+
+    /**
+     * Make sure a failed stage is scheduled to be attempted again later instead of retried on its thread.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canAttemptFailedStageAgainLater() throws GenieException {
+        this.mockJob(JobStatus.RUNNING);
+        Mockito
+            .doThrow(new IllegalStateException("mail server down"))
+            .doNothing()
+            .when(this.mailService)
+            .sendEmail(Mockito.eq(EMAIL), Mockito.anyString(), Mockito.anyString());
+        final JobCompletionService service
+            = this.createService(new SyncTaskExecutor(), this.archiveTasks::add, new SyncTaskExecutor());
+
+        service.handleJobCompletion(this.event());
+        final ArgumentCaptor<Runnable> retryCaptor = ArgumentCaptor.forClass(Runnable.class);
+        final ArgumentCaptor<Date> dateCaptor = ArgumentCaptor.forClass(Date.class);
+        Mockito.verify(this.scheduler, Mockito.times(1)).schedule(retryCaptor.capture(), dateCaptor.capture());
+        Assert.assertThat(
+            dateCaptor.getValue().getTime(),
+            Matchers.greaterThan(System.currentTimeMillis() + this.completionProperties.getInitialRetryDelay() / 2)
+        );
+        Assert.assertThat(
+            this.registry.counter("genie.jobs.completion.notify.retry.counter").count(),
+            Matchers.is(1L)
+        );
+        Assert.assertTrue(this.outboxEntry("notify").exists());
+        Assert.assertTrue(this.outboxEntry("archive").exists());
+        Assert.assertFalse(this.outboxEntry("finalize").exists());
+
+        retryCaptor.getValue().run();
+        Mockito
+            .verify(this.mailService, Mockito.times(2))
+            .sendEmail(Mockito.eq(EMAIL), Mockito.anyString(), Mockito.anyString());
+        Assert.assertFalse(this.outboxEntry("notify").exists());
+        Assert.assertThat(this.registry.counter("genie.jobs.email.failure.rate").count(), Matchers.is(0L));
+    }
+
+    /**
+     * Make sure a failed stage whose executor is full when it's attempted again isn't run on the scheduler thread but
+     * handed over again after a growing delay.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canBackOffWhenExecutorIsFullForFailedStage() throws GenieException {
+        this.mockJob(JobStatus.RUNNING);
+        Mockito
+            .doThrow(new IllegalStateException("mail server down"))
+            .doNothing()
+            .when(this.mailService)
+            .sendEmail(Mockito.eq(EMAIL), Mockito.anyString(), Mockito.anyString());
+        final AtomicBoolean full = new AtomicBoolean(false);
+        final TaskExecutor notifyExecutor = task -> {
+            if (full.get()) {
+                throw new TaskRejectedException("full");
+            }
+            task.run();
+        };
+        final JobCompletionService service
+            = this.createService(new SyncTaskExecutor(), this.archiveTasks::add, notifyExecutor);
+        final long initialRetryDelay = this.completionProperties.getInitialRetryDelay();
+
+        service.handleJobCompletion(this.event());
+        final ArgumentCaptor<Runnable> retryCaptor = ArgumentCaptor.forClass(Runnable.class);
+        final ArgumentCaptor<Date> dateCaptor = ArgumentCaptor.forClass(Date.class);
+        Mockito.verify(this.scheduler, Mockito.times(1)).schedule(retryCaptor.capture(), dateCaptor.capture());
+
+        full.set(true);
+        retryCaptor.getValue().run();
+        Mockito.verify(this.scheduler, Mockito.times(2)).schedule(retryCaptor.capture(), dateCaptor.capture());
+        final long firstDelay = dateCaptor.getValue().getTime() - System.currentTimeMillis();
+        Assert.assertThat(firstDelay, Matchers.greaterThan(initialRetryDelay / 2));
+        Assert.assertThat(firstDelay, Matchers.lessThanOrEqualTo(initialRetryDelay));
+
+        retryCaptor.getValue().run();
+        Mockito.verify(this.scheduler, Mockito.times(3)).schedule(retryCaptor.capture(), dateCaptor.capture());
+        final long secondDelay = dateCaptor.getValue().getTime() - System.currentTimeMillis();
+        Assert.assertThat(secondDelay, Matchers.greaterThan(initialRetryDelay));
+        Mockito
+            .verify(this.mailService, Mockito.times(1))
+            .sendEmail(Mockito.eq(EMAIL), Mockito.anyString(), Mockito.anyString());
+        Assert.assertThat(
+            this.registry.counter("genie.jobs.completion.notify.rejected.counter").count(),
+            Matchers.is(2L)
+        );
+
+        full.set(false);
+        retryCaptor.getValue().run();
+        Mockito
+            .verify(this.mailService, Mockito.times(2))
+            .sendEmail(Mockito.eq(EMAIL), Mockito.anyString(), Mockito.anyString());
+        Assert.assertFalse(this.outboxEntry("notify").exists());
+    }
+
+    /**
+     * Make sure a stage is given up on once it ran out of attempts and the following stages still run.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canGiveUpOnStageAfterMaxAttempts() throws GenieException {
+        this.mockJob(JobStatus.INIT);
+        Mockito
+            .doThrow(new IllegalStateException("database down"))
+            .when(this.jobPersistenceService)
+            .updateJobStatus(this.jobId, JobStatus.KILLED, "killed");
+        this.completionProperties.setMaxAttempts(1);
+        final JobCompletionService service
+            = this.createService(new SyncTaskExecutor(), this.archiveTasks::add, this.notifyTasks::add);
+
+        service.handleJobCompletion(this.event());
+        Mockito
+            .verify(this.scheduler, Mockito.never())
+            .schedule(Mockito.any(Runnable.class), Mockito.any(Date.class));
+        Assert.assertThat(
+            this.registry.counter("genie.jobs.finalStatusUpdateFailure.rate").count(),
+            Matchers.is(1L)
+        );
+        Assert.assertFalse(this.outboxEntry("finalize").exists());
+        Assert.assertThat(this.archiveTasks.size(), Matchers.is(1));
+        Assert.assertThat(this.notifyTasks.size(), Matchers.is(1));
+    }
+
+    /**
+     * Make sure the stages left behind when the node went down are resumed when it starts up again.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canResumePendingStagesOnStartup() throws GenieException {
+        this.mockJob(JobStatus.INIT);
+        this.createService(this.finalizeTasks::add, this.archiveTasks::add, this.notifyTasks::add)
+            .handleJobCompletion(this.event());
+        Assert.assertThat(this.finalizeTasks.size(), Matchers.is(1));
+        Assert.assertTrue(this.outboxEntry("finalize").exists());
+
+        // The node went down before the job was finalized
+        final JobCompletionService restarted
+            = this.createService(new SyncTaskExecutor(), new SyncTaskExecutor(), new SyncTaskExecutor());
+        restarted.onStartup(Mockito.mock(ApplicationReadyEvent.class));
+        Mockito
+            .verify(this.jobPersistenceService, Mockito.times(1))
+            .updateJobStatus(this.jobId, JobStatus.KILLED, "killed");
+        Mockito
+            .verify(this.mailService, Mockito.times(1))
+            .sendEmail(Mockito.eq(EMAIL), Mockito.anyString(), Mockito.anyString());
+        Assert.assertFalse(this.outboxEntry("finalize").exists());
+        Assert.assertFalse(this.outboxEntry("archive").exists());
+        Assert.assertFalse(this.outboxEntry("notify").exists());
+    }
+
+    private JobCompletionService createService(
+        final TaskExecutor finalizeExecutor,
+        final TaskExecutor archiveExecutor,
+        final TaskExecutor notifyExecutor
+    ) throws GenieException {
+        return new JobCompletionService(
+            this.jobPersistenceService,
+            this.jobSearchService,
+            Mockito.mock(JobArchiveService.class),
+            Mockito.mock(DirectoryDeletionService.class),
+            new FileSystemResource(this.folder.getRoot()),
+            this.mailService,
+            this.registry,
+            new JobsProperties(),
+            this.completionProperties,
+            this.scheduler,
+            finalizeExecutor,
+            archiveExecutor,
+            notifyExecutor
+        );
+    }
+
+    private void mockJob(final JobStatus status) throws GenieException {
+        Mockito
+            .when(this.jobSearchService.getJob(this.jobId))
+            .thenReturn(
+                new Job.Builder(NAME, USER, VERSION, COMMAND_ARGS).withId(this.jobId).withStatus(status).build()
+            );
+    }
+
+    private File outboxEntry(final String task) {
+        return new File(
+            new File(this.folder.getRoot(), JobCompletionOutbox.DIRECTORY_NAME),
+            this.jobId + "." + task + ".json"
+        );
+    }
+
+    private JobFinishedEvent event() {
+        return new JobFinishedEvent(this.jobId, JobFinishedReason.KILLED, "killed", this);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job;
+
+import com.netflix.genie.common.dto.JobStatusMessages;
+import com.netflix.genie.core.events.KillJobEvent;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.properties.JobMonitorProperties;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.event.ApplicationEventMulticaster;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Unit tests for JobDeadlineWheel.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class JobDeadlineWheelUnitTests {
+
+    private static final long TICK = 10L;
+
+    private ApplicationEventMulticaster eventMulticaster;
+    private Registry registry;
+    private JobDeadlineWheel wheel;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        final JobMonitorProperties properties = new JobMonitorProperties();
+        properties.setDeadlineTickDuration(TICK);
+        this.eventMulticaster = Mockito.mock(ApplicationEventMulticaster.class);
+        this.registry = new DefaultRegistry();
+        this.wheel = new JobDeadlineWheel(properties, this.eventMulticaster, this.registry);
+    }
+
+    /**
+     * Stop the thread advancing the wheel.
+     */
+    @After
+    public void cleanup() {
+        this.wheel.close();
+    }
+
+    /**
+     * Make sure a job is killed once its deadline passed and only once.
+     */
+    @Test
+    public void canKillJobAtDeadline() {
+        final String jobId = UUID.randomUUID().toString();
+        final long deadline = System.currentTimeMillis() + 3600000L;
+        this.wheel.add(jobId, new Date(deadline));
+
+        this.wheel.expire(deadline - TICK);
+        Mockito.verify(this.eventMulticaster, Mockito.never()).multicastEvent(Mockito.any(ApplicationEvent.class));
+
+        this.wheel.expire(deadline + TICK);
+        final ArgumentCaptor<KillJobEvent> captor = ArgumentCaptor.forClass(KillJobEvent.class);
+        Mockito.verify(this.eventMulticaster, Mockito.times(1)).multicastEvent(captor.capture());
+        Assert.assertThat(captor.getValue().getId(), Matchers.is(jobId));
+        Assert.assertThat(captor.getValue().getReason(), Matchers.is(JobStatusMessages.JOB_EXCEEDED_TIMEOUT));
+
+        this.wheel.expire(deadline + 2 * TICK);
+        Mockito.verify(this.eventMulticaster, Mockito.times(1)).multicastEvent(Mockito.any(ApplicationEvent.class));
+        Assert.assertThat(this.registry.counter("genie.jobs.deadline.expired.counter").count(), Matchers.is(1L));
+    }
+
+    /**
+     * Make sure removed jobs aren't killed and replaced deadlines only fire at the new time.
+     */
+    @Test
+    public void canRemoveAndReplaceDeadline() {
+        final String jobId1 = UUID.randomUUID().toString();
+        final String jobId2 = UUID.randomUUID().toString();
+        final long deadline = System.currentTimeMillis() + 3600000L;
+        this.wheel.add(jobId1, new Date(deadline));
+        this.wheel.remove(jobId1);
+        this.wheel.add(jobId2, new Date(deadline));
+        this.wheel.add(jobId2, new Date(deadline + 1000L));
+
+        this.wheel.expire(deadline + TICK);
+        Mockito.verify(this.eventMulticaster, Mockito.never()).multicastEvent(Mockito.any(ApplicationEvent.class));
+
+        this.wheel.expire(deadline + 1000L + TICK);
+        final ArgumentCaptor<KillJobEvent> captor = ArgumentCaptor.forClass(KillJobEvent.class);
+        Mockito.verify(this.eventMulticaster, Mockito.times(1)).multicastEvent(captor.capture());
+        Assert.assertThat(captor.getValue().getId(), Matchers.is(jobId2));
+    }
+
+    /**
+     * Make sure the wheel thread kills a job shortly after its deadline.
+     */
+    @Test
+    public void canKillJobWithoutBeingAdvanced() {
+        final String jobId = UUID.randomUUID().toString();
+        this.wheel.add(jobId, new Date(System.currentTimeMillis() + 50L));
+        Mockito
+            .verify(this.eventMulticaster, Mockito.timeout(5000L).times(1))
+            .multicastEvent(Mockito.any(KillJobEvent.class));
+    }
+}
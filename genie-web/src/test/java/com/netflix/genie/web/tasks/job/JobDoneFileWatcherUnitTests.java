@@ -0,0 +1,168 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job;
+
+import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.properties.JobMonitorProperties;
+import com.netflix.spectator.api.DefaultRegistry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+/**
+ * Unit tests for JobDoneFileWatcher.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class JobDoneFileWatcherUnitTests {
+
+    private static final long TIMEOUT = 10000L;
+
+    /**
+     * Temporary folder to use as the jobs directory.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private JobProcessScanner processScanner;
+    private JobMonitorProperties properties;
+    private JobDoneFileWatcher watcher;
+
+    /**
+     * Setup for the tests.
+     *
+     * @throws IOException on error
+     */
+    @Before
+    public void setup() throws IOException {
+        this.processScanner = Mockito.mock(JobProcessScanner.class);
+        this.properties = new JobMonitorProperties();
+        this.watcher = this.createWatcher();
+    }
+
+    /**
+     * Stop the watching thread.
+     *
+     * @throws IOException on error
+     */
+    @After
+    public void cleanup() throws IOException {
+        this.watcher.close();
+    }
+
+    /**
+     * Make sure the job is checked once the run script renames the temporary done file into place.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canDetectDoneFile() throws IOException {
+        final String jobId = this.createJobDirectory();
+        this.watcher.watch(jobId);
+
+        final File temporary = this.getFile(jobId, JobConstants.GENIE_TEMPORARY_DONE_FILE_NAME);
+        Files.write(temporary.toPath(), "{\"exitCode\": \"0\"}".getBytes(StandardCharsets.UTF_8));
+        Files.move(
+            temporary.toPath(),
+            this.getFile(jobId, JobConstants.GENIE_DONE_FILE_NAME).toPath(),
+            StandardCopyOption.ATOMIC_MOVE
+        );
+
+        Mockito.verify(this.processScanner, Mockito.timeout(TIMEOUT).times(1)).expedite(jobId);
+    }
+
+    /**
+     * Make sure a job which wrote its done file before it was watched is checked right away.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canDetectExistingDoneFile() throws IOException {
+        final String jobId = this.createJobDirectory();
+        Files.write(this.getFile(jobId, JobConstants.GENIE_DONE_FILE_NAME).toPath(), new byte[0]);
+        this.watcher.watch(jobId);
+        Mockito.verify(this.processScanner, Mockito.times(1)).expedite(jobId);
+    }
+
+    /**
+     * Make sure nothing happens for other files or jobs no longer watched.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canIgnoreOtherFiles() throws Exception {
+        final String jobId = this.createJobDirectory();
+        this.watcher.watch(jobId);
+        Files.write(this.getFile(jobId, JobConstants.GENIE_TEMPORARY_DONE_FILE_NAME).toPath(), new byte[0]);
+        this.watcher.unwatch(jobId);
+        Files.write(this.getFile(jobId, JobConstants.GENIE_DONE_FILE_NAME).toPath(), new byte[0]);
+
+        Thread.sleep(500L);
+        Mockito.verify(this.processScanner, Mockito.never()).expedite(Mockito.anyString());
+    }
+
+    /**
+     * Make sure nothing is watched when disabled.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void wontWatchWhenDisabled() throws IOException {
+        this.watcher.close();
+        this.properties.setWatchDoneFile(false);
+        this.watcher = this.createWatcher();
+        final String jobId = this.createJobDirectory();
+        Files.write(this.getFile(jobId, JobConstants.GENIE_DONE_FILE_NAME).toPath(), new byte[0]);
+        this.watcher.watch(jobId);
+        Mockito.verify(this.processScanner, Mockito.never()).expedite(Mockito.anyString());
+    }
+
+    private JobDoneFileWatcher createWatcher() throws IOException {
+        return new JobDoneFileWatcher(
+            this.processScanner,
+            this.properties,
+            new FileSystemResource(this.folder.getRoot()),
+            new DefaultRegistry()
+        );
+    }
+
+    private String createJobDirectory() throws IOException {
+        final String jobId = UUID.randomUUID().toString();
+        this.folder.newFolder(jobId, JobConstants.GENIE_PATH_VAR);
+        return jobId;
+    }
+
+    private File getFile(final String jobId, final String path) {
+        return new File(new File(this.folder.getRoot(), jobId), path);
+    }
+}
@@ -0,0 +1,393 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job;
+
+import com.netflix.genie.common.dto.Job;
+import com.netflix.genie.common.dto.JobExecution;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.events.JobFinishedEvent;
+import com.netflix.genie.core.events.JobFinishedReason;
+import com.netflix.genie.core.events.JobStartedEvent;
+import com.netflix.genie.core.jobs.JobConstants;
+import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.services.FileTransfer;
+import com.netflix.genie.core.services.JobSearchService;
+import com.netflix.genie.core.services.impl.GenieFileTransferService;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * Unit tests for the JobLogShipper class.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class JobLogShipperUnitTests {
+
+    private static final String ARCHIVE_LOCATION = "s3://bucket/genie/archives/job.tar.gz";
+    private static final String LOGS_LOCATION = ARCHIVE_LOCATION + ".logs/";
+    private static final long INTERVAL = 5000L;
+
+    /**
+     * Temporary folder to use as the jobs directory.
+     */
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private String jobId;
+    private File stdOut;
+    private File stdErr;
+    private JobSearchService jobSearchService;
+    private GenieFileTransferService fileTransferService;
+    private TaskScheduler scheduler;
+    private ScheduledFuture<?> future;
+    private JobsProperties jobsProperties;
+    private Registry registry;
+    private Map<String, String> uploaded;
+    private JobLogShipper shipper;
+
+    /**
+     * Setup for the tests.
+     *
+     * @throws Exception on error
+     */
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() throws Exception {
+        this.jobId = UUID.randomUUID().toString();
+        final File jobDir = this.temporaryFolder.newFolder(this.jobId);
+        this.stdOut = new File(jobDir, JobConstants.STDOUT_LOG_FILE_NAME);
+        this.stdErr = new File(jobDir, JobConstants.STDERR_LOG_FILE_NAME);
+
+        this.jobSearchService = Mockito.mock(JobSearchService.class);
+        Mockito.when(this.jobSearchService.getJob(this.jobId)).thenReturn(this.getJob(ARCHIVE_LOCATION));
+
+        this.uploaded = new TreeMap<>();
+        this.fileTransferService = Mockito.mock(GenieFileTransferService.class);
+        Mockito
+            .doAnswer(
+                invocation -> {
+                    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+                    ((FileTransfer.StreamWriter) invocation.getArguments()[0]).write(output);
+                    this.uploaded.put(
+                        (String) invocation.getArguments()[1],
+                        new String(output.toByteArray(), StandardCharsets.UTF_8)
+                    );
+                    return null;
+                }
+            )
+            .when(this.fileTransferService)
+            .putStream(Mockito.any(FileTransfer.StreamWriter.class), Mockito.anyString());
+
+        this.future = Mockito.mock(ScheduledFuture.class);
+        this.scheduler = Mockito.mock(TaskScheduler.class);
+        Mockito
+            .when(this.scheduler.scheduleWithFixedDelay(Mockito.any(Runnable.class), Mockito.anyLong()))
+            .thenReturn((ScheduledFuture) this.future);
+
+        this.jobsProperties = new JobsProperties();
+        this.jobsProperties.getLogShipping().setEnabled(true);
+        this.jobsProperties.getLogShipping().setInterval(INTERVAL);
+        this.registry = new DefaultRegistry();
+        this.shipper = this.createShipper();
+    }
+
+    /**
+     * Make sure only what was appended since the last shipment is shipped and empty files aren't.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canShipIncrementally() throws Exception {
+        final Runnable ship = this.start();
+
+        this.append(this.stdOut, "hello ");
+        ship.run();
+        this.append(this.stdOut, "world");
+        this.append(this.stdErr, "oops");
+        ship.run();
+        ship.run();
+
+        Assert.assertThat(this.uploaded.size(), Matchers.is(3));
+        Assert.assertThat(this.uploaded.get(this.segment(JobConstants.STDOUT_LOG_FILE_NAME, 0)), Matchers.is("hello "));
+        Assert.assertThat(this.uploaded.get(this.segment(JobConstants.STDOUT_LOG_FILE_NAME, 6)), Matchers.is("world"));
+        Assert.assertThat(this.uploaded.get(this.segment(JobConstants.STDERR_LOG_FILE_NAME, 0)), Matchers.is("oops"));
+        Assert.assertThat(
+            this.registry.counter("genie.jobs.logShipping.bytes.counter").count(),
+            Matchers.is(15L)
+        );
+    }
+
+    /**
+     * Make sure new output larger than the maximum segment size is split in several segments.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canSplitSegments() throws Exception {
+        this.jobsProperties.getLogShipping().setMaxSegmentSize(4L);
+        final Runnable ship = this.start();
+
+        this.append(this.stdOut, "0123456789");
+        ship.run();
+
+        Assert.assertThat(this.uploaded.size(), Matchers.is(3));
+        Assert.assertThat(this.uploaded.get(this.segment(JobConstants.STDOUT_LOG_FILE_NAME, 0)), Matchers.is("0123"));
+        Assert.assertThat(this.uploaded.get(this.segment(JobConstants.STDOUT_LOG_FILE_NAME, 4)), Matchers.is("4567"));
+        Assert.assertThat(this.uploaded.get(this.segment(JobConstants.STDOUT_LOG_FILE_NAME, 8)), Matchers.is("89"));
+    }
+
+    /**
+     * Make sure a failed shipment is retried from the same offset the next time.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canRetryFailedShipment() throws Exception {
+        final Runnable ship = this.start();
+        final String segment = this.segment(JobConstants.STDOUT_LOG_FILE_NAME, 0);
+        Mockito
+            .doThrow(new GenieServerException("throttled"))
+            .doAnswer(
+                invocation -> {
+                    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+                    ((FileTransfer.StreamWriter) invocation.getArguments()[0]).write(output);
+                    this.uploaded.put(segment, new String(output.toByteArray(), StandardCharsets.UTF_8));
+                    return null;
+                }
+            )
+            .when(this.fileTransferService)
+            .putStream(Mockito.any(FileTransfer.StreamWriter.class), Mockito.eq(segment));
+
+        this.append(this.stdOut, "abc");
+        ship.run();
+        Assert.assertTrue(this.uploaded.isEmpty());
+        Assert.assertThat(
+            this.registry.counter("genie.jobs.logShipping.failures.counter").count(),
+            Matchers.is(1L)
+        );
+
+        this.append(this.stdOut, "def");
+        ship.run();
+        Assert.assertThat(this.uploaded.size(), Matchers.is(1));
+        Assert.assertThat(this.uploaded.get(segment), Matchers.is("abcdef"));
+    }
+
+    /**
+     * Make sure whatever is left is shipped when the job finishes and shipping stops afterwards.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canShipRemainderWhenJobFinishes() throws Exception {
+        final Runnable ship = this.start();
+        this.append(this.stdOut, "first");
+        ship.run();
+        this.append(this.stdOut, "last");
+
+        this.shipper.onJobFinished(
+            new JobFinishedEvent(this.jobId, JobFinishedReason.PROCESS_COMPLETED, "done", this)
+        );
+        Mockito.verify(this.future, Mockito.times(1)).cancel(false);
+        Assert.assertThat(this.uploaded.size(), Matchers.is(2));
+        Assert.assertThat(this.uploaded.get(this.segment(JobConstants.STDOUT_LOG_FILE_NAME, 5)), Matchers.is("last"));
+
+        this.append(this.stdOut, "ignored");
+        this.shipper.onJobFinished(
+            new JobFinishedEvent(this.jobId, JobFinishedReason.PROCESS_COMPLETED, "done", this)
+        );
+        Assert.assertThat(this.uploaded.size(), Matchers.is(2));
+    }
+
+    /**
+     * Make sure nothing is scheduled when shipping is disabled.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void wontShipWhenDisabled() throws Exception {
+        this.jobsProperties.getLogShipping().setEnabled(false);
+        this.shipper.onJobStarted(this.getStartedEvent());
+        Mockito.verify(this.jobSearchService, Mockito.never()).getJob(Mockito.anyString());
+        Mockito
+            .verify(this.scheduler, Mockito.never())
+            .scheduleWithFixedDelay(Mockito.any(Runnable.class), Mockito.anyLong());
+    }
+
+    /**
+     * Make sure nothing is scheduled when the job isn't archived.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void wontShipWithoutArchiveLocation() throws Exception {
+        Mockito.when(this.jobSearchService.getJob(this.jobId)).thenReturn(this.getJob(null));
+        this.shipper.onJobStarted(this.getStartedEvent());
+        Mockito
+            .verify(this.scheduler, Mockito.never())
+            .scheduleWithFixedDelay(Mockito.any(Runnable.class), Mockito.anyLong());
+    }
+
+    /**
+     * Make sure a shipment rejected by a full executor doesn't stop later shipments.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canShipAfterRejection() throws Exception {
+        final TaskExecutorAdapter executor = Mockito.spy(new TaskExecutorAdapter(new SyncTaskExecutor()));
+        Mockito
+            .doThrow(new TaskRejectedException("full"))
+            .doCallRealMethod()
+            .when(executor)
+            .execute(Mockito.any(Runnable.class));
+        this.shipper = new JobLogShipper(
+            this.jobSearchService,
+            this.fileTransferService,
+            this.scheduler,
+            executor,
+            new FileSystemResource(this.temporaryFolder.getRoot()),
+            this.jobsProperties,
+            this.registry
+        );
+        final Runnable ship = this.start();
+
+        this.append(this.stdOut, "abc");
+        ship.run();
+        Assert.assertTrue(this.uploaded.isEmpty());
+        ship.run();
+        Assert.assertThat(this.uploaded.size(), Matchers.is(1));
+    }
+
+    /**
+     * Make sure the rest of the output of a finished job is shipped on the shipping executor and tried again later if
+     * the executor is full.
+     *
+     * @throws Exception on error
+     */
+    @Test
+    public void canShipRemainderOnExecutorWhenJobFinishes() throws Exception {
+        final List<Runnable> tasks = new ArrayList<>();
+        final TaskExecutorAdapter executor = Mockito.spy(new TaskExecutorAdapter(tasks::add));
+        Mockito
+            .doThrow(new TaskRejectedException("full"))
+            .doCallRealMethod()
+            .when(executor)
+            .execute(Mockito.any(Runnable.class));
+        this.shipper = new JobLogShipper(
+            this.jobSearchService,
+            this.fileTransferService,
+            this.scheduler,
+            executor,
+            new FileSystemResource(this.temporaryFolder.getRoot()),
+            this.jobsProperties,
+            this.registry
+        );
+        this.start();
+        this.append(this.stdOut, "last");
+
+        this.shipper.onJobFinished(
+            new JobFinishedEvent(this.jobId, JobFinishedReason.PROCESS_COMPLETED, "done", this)
+        );
+        final ArgumentCaptor<Runnable> retry = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(this.scheduler, Mockito.times(1)).schedule(retry.capture(), Mockito.any(Date.class));
+        Assert.assertTrue(tasks.isEmpty());
+
+        retry.getValue().run();
+        Assert.assertThat(tasks.size(), Matchers.is(1));
+        Assert.assertTrue(this.uploaded.isEmpty());
+        tasks.get(0).run();
+        Assert.assertThat(this.uploaded.get(this.segment(JobConstants.STDOUT_LOG_FILE_NAME, 0)), Matchers.is("last"));
+    }
+
+    private JobLogShipper createShipper() throws IOException {
+        return new JobLogShipper(
+            this.jobSearchService,
+            this.fileTransferService,
+            this.scheduler,
+            new TaskExecutorAdapter(new SyncTaskExecutor()),
+            new FileSystemResource(this.temporaryFolder.getRoot()),
+            this.jobsProperties,
+            this.registry
+        );
+    }
+
+    private Runnable start() {
+        this.shipper.onJobStarted(this.getStartedEvent());
+        final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(this.scheduler, Mockito.times(1)).scheduleWithFixedDelay(captor.capture(), Mockito.eq(INTERVAL));
+        return captor.getValue();
+    }
+
+    private JobStartedEvent getStartedEvent() {
+        return new JobStartedEvent(
+            new JobExecution.Builder(UUID.randomUUID().toString()).withId(this.jobId).build(),
+            this
+        );
+    }
+
+    private Job getJob(final String archiveLocation) {
+        return new Job.Builder(UUID.randomUUID().toString(), UUID.randomUUID().toString(), "1.0", "-v")
+            .withId(this.jobId)
+            .withArchiveLocation(archiveLocation)
+            .build();
+    }
+
+    private String segment(final String fileName, final long offset) {
+        return String.format("%s%s.%020d", LOGS_LOCATION, fileName, offset);
+    }
+
+    private void append(final File file, final String content) throws IOException {
+        Files.write(
+            file.toPath(),
+            content.getBytes(StandardCharsets.UTF_8),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.APPEND
+        );
+    }
+}
@@ -19,10 +19,12 @@ package com.netflix.genie.web.tasks.job;
 
 import com.netflix.genie.common.dto.JobExecution;
 import com.netflix.genie.common.dto.JobStatusMessages;
+import com.netflix.genie.common.exceptions.GenieTimeoutException;
 import com.netflix.genie.core.events.JobFinishedEvent;
 import com.netflix.genie.core.events.KillJobEvent;
 import com.netflix.genie.core.jobs.JobConstants;
 import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.util.ProcessChecker;
 import com.netflix.genie.test.categories.UnitTest;
 import com.netflix.genie.web.tasks.GenieTaskScheduleType;
 import com.netflix.spectator.api.Counter;
@@ -176,6 +178,44 @@ public class JobMonitorUnitTests {
         Mockito.verify(this.publisher, Mockito.times(1)).publishEvent(Mockito.any(KillJobEvent.class));
     }
 
+    /**
+     * Make sure the output sizes are only checked when asked to if they aren't checked with the process.
+     *
+     * @throws IOException          on error
+     * @throws GenieTimeoutException on timeout
+     */
+    @Test
+    public void canCheckOutputSizesSeparately() throws IOException, GenieTimeoutException {
+        Assume.assumeTrue(SystemUtils.IS_OS_UNIX);
+        final JobsProperties outputMaxProperties = new JobsProperties();
+        outputMaxProperties.getMax().setStdOutSize(MAX_STD_OUT_LENGTH);
+        final ProcessChecker processChecker = Mockito.mock(ProcessChecker.class);
+        this.monitor = new JobMonitor(
+            this.jobExecution,
+            this.stdOut,
+            this.stdErr,
+            processChecker,
+            this.publisher,
+            this.eventMulticaster,
+            this.registry,
+            outputMaxProperties,
+            false
+        );
+        Mockito.when(this.stdOut.exists()).thenReturn(true);
+        Mockito.when(this.stdOut.length()).thenReturn(MAX_STD_OUT_LENGTH + 1);
+
+        this.monitor.run();
+        Mockito.verify(processChecker, Mockito.times(1)).checkProcess();
+        Mockito.verify(this.stdOut, Mockito.never()).length();
+        Mockito.verify(this.successfulCheckRate, Mockito.times(1)).increment();
+
+        Assert.assertTrue(this.monitor.checkOutputSizes());
+        final ArgumentCaptor<KillJobEvent> captor = ArgumentCaptor.forClass(KillJobEvent.class);
+        Mockito.verify(this.publisher, Mockito.times(1)).publishEvent(captor.capture());
+        Assert.assertThat(captor.getValue().getReason(), Matchers.is(JobStatusMessages.JOB_EXCEEDED_STDOUT_LENGTH));
+        Mockito.verify(this.stdOutTooLarge, Mockito.times(1)).increment();
+    }
+
     /**
      * Make sure that a process whose std err file has grown too large will attempt to be killed.
      *
@@ -258,6 +298,12 @@ public class JobMonitorUnitTests {
         );
         Assert.assertThat(captor.getValue().getSource(), Matchers.is(this.monitor));
         Mockito.verify(this.finishedRate, Mockito.times(1)).increment();
+        Assert.assertTrue(this.monitor.isFinished());
+
+        // Once finished the process isn't checked again
+        this.monitor.run();
+        Mockito.verify(this.executor, Mockito.times(1)).execute(Mockito.any(CommandLine.class));
+        Mockito.verify(this.eventMulticaster, Mockito.times(1)).multicastEvent(Mockito.any(JobFinishedEvent.class));
     }
 
     /**
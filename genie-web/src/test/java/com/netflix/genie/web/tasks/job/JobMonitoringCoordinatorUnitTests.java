@@ -30,10 +30,10 @@ import com.netflix.genie.core.jobs.JobConstants;
 import com.netflix.genie.core.properties.JobsProperties;
 import com.netflix.genie.core.services.JobSearchService;
 import com.netflix.genie.core.services.JobSubmitterService;
+import com.netflix.genie.core.services.impl.RequestedMemoryAdmissionPolicy;
 import com.netflix.genie.test.categories.UnitTest;
 import com.netflix.spectator.api.Counter;
 import com.netflix.spectator.api.Registry;
-import org.apache.commons.exec.Executor;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
 import org.junit.Before;
@@ -46,6 +46,7 @@ import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.ApplicationEventMulticaster;
 import org.springframework.context.event.ContextRefreshedEvent;
 import org.springframework.core.io.Resource;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.scheduling.TaskScheduler;
 
 import java.io.File;
@@ -76,6 +77,11 @@ public class JobMonitoringCoordinatorUnitTests {
     public TemporaryFolder folder = new TemporaryFolder();
 
     private TaskScheduler scheduler;
+    private JobProcessScanner processScanner;
+    private JobDoneFileWatcher doneFileWatcher;
+    private JobDeadlineWheel deadlineWheel;
+    private JobResourceUsageSampler resourceUsageSampler;
+    private AsyncTaskExecutor launchExecutor;
     private JobMonitoringCoordinator coordinator;
     private JobSubmitterService jobSubmitterService;
     private JobSearchService jobSearchService;
@@ -95,8 +101,12 @@ public class JobMonitoringCoordinatorUnitTests {
         this.tomorrow = cal.getTime();
         this.jobSearchService = Mockito.mock(JobSearchService.class);
         this.jobSubmitterService = Mockito.mock(JobSubmitterService.class);
-        final Executor executor = Mockito.mock(Executor.class);
+        this.processScanner = Mockito.mock(JobProcessScanner.class);
+        this.doneFileWatcher = Mockito.mock(JobDoneFileWatcher.class);
+        this.deadlineWheel = Mockito.mock(JobDeadlineWheel.class);
+        this.resourceUsageSampler = Mockito.mock(JobResourceUsageSampler.class);
         this.scheduler = Mockito.mock(TaskScheduler.class);
+        this.launchExecutor = Mockito.mock(AsyncTaskExecutor.class);
         this.eventMulticaster = Mockito.mock(ApplicationEventMulticaster.class);
         final Registry registry = Mockito.mock(Registry.class);
         this.unableToCancel = Mockito.mock(Counter.class);
@@ -106,16 +116,22 @@ public class JobMonitoringCoordinatorUnitTests {
         final Resource jobsDir = Mockito.mock(Resource.class);
         Mockito.when(jobsDir.getFile()).thenReturn(jobsFile);
 
+        final JobsProperties jobsProperties = new JobsProperties();
         this.coordinator = new JobMonitoringCoordinator(
             HOSTNAME,
             this.jobSearchService,
             Mockito.mock(ApplicationEventPublisher.class),
             this.eventMulticaster,
             this.scheduler,
-            executor,
+            this.launchExecutor,
+            this.processScanner,
+            this.doneFileWatcher,
+            this.deadlineWheel,
+            this.resourceUsageSampler,
+            new RequestedMemoryAdmissionPolicy(jobsProperties),
             registry,
             jobsDir,
-            new JobsProperties(),
+            jobsProperties,
             jobSubmitterService
         );
     }
@@ -133,8 +149,8 @@ public class JobMonitoringCoordinatorUnitTests {
         Mockito.when(this.jobSearchService.getAllActiveJobsOnHost(HOSTNAME)).thenReturn(Sets.newHashSet());
         this.coordinator.onStartup(event);
         Mockito
-            .verify(this.scheduler, Mockito.never())
-            .scheduleWithFixedDelay(Mockito.any(JobMonitor.class), Mockito.anyLong());
+            .verify(this.processScanner, Mockito.never())
+            .add(Mockito.anyString(), Mockito.any(JobMonitor.class));
 
         // Simulate a job being started
         final String job1Id = UUID.randomUUID().toString();
@@ -157,14 +173,14 @@ public class JobMonitoringCoordinatorUnitTests {
         final JobStartedEvent event1 = new JobStartedEvent(job1, this);
         final ScheduledFuture future = Mockito.mock(ScheduledFuture.class);
         Mockito
-            .when(this.scheduler.scheduleWithFixedDelay(Mockito.any(JobMonitor.class), Mockito.eq(DELAY)))
+            .when(this.processScanner.add(Mockito.anyString(), Mockito.any(JobMonitor.class)))
             .thenReturn(future);
         coordinator.init(job1Id);
         coordinator.schedule(job1Id, null, null, null, null, 1024);
         this.coordinator.onJobStarted(event1);
         Mockito
-            .verify(this.scheduler, Mockito.times(1))
-            .scheduleWithFixedDelay(Mockito.any(JobMonitor.class), Mockito.eq(DELAY));
+            .verify(this.processScanner, Mockito.times(1))
+            .add(Mockito.anyString(), Mockito.any(JobMonitor.class));
 
         final Job j1 = Mockito.mock(Job.class);
         Mockito.when(j1.getId()).thenReturn(Optional.of(job1Id));
@@ -191,8 +207,8 @@ public class JobMonitoringCoordinatorUnitTests {
 
         Mockito.verify(this.eventMulticaster, Mockito.times(2)).multicastEvent(Mockito.any(JobFinishedEvent.class));
         Mockito
-            .verify(this.scheduler, Mockito.times(3))
-            .scheduleWithFixedDelay(Mockito.any(JobMonitor.class), Mockito.eq(DELAY));
+            .verify(this.processScanner, Mockito.times(3))
+            .add(Mockito.anyString(), Mockito.any(JobMonitor.class));
         Assert.assertThat(this.coordinator.getNumActiveJobs(), Matchers.is(3));
         Assert.assertThat(this.coordinator.getUsedMemory(), Matchers.is(3 * 1024));
     }
@@ -240,7 +256,7 @@ public class JobMonitoringCoordinatorUnitTests {
         final ScheduledFuture future = Mockito.mock(ScheduledFuture.class);
 
         Mockito.when(
-            this.scheduler.scheduleWithFixedDelay(Mockito.any(JobMonitor.class), Mockito.eq(DELAY))
+            this.processScanner.add(Mockito.anyString(), Mockito.any(JobMonitor.class))
         ).thenReturn(future);
 
         Assert.assertThat(this.coordinator.getNumActiveJobs(), Matchers.is(4));
@@ -262,8 +278,8 @@ public class JobMonitoringCoordinatorUnitTests {
         Assert.assertThat(this.coordinator.getUsedMemory(), Matchers.is(4096));
 
         Mockito
-            .verify(this.scheduler, Mockito.times(5))
-            .scheduleWithFixedDelay(Mockito.any(JobMonitor.class), Mockito.eq(DELAY));
+            .verify(this.processScanner, Mockito.times(5))
+            .add(Mockito.anyString(), Mockito.any(JobMonitor.class));
     }
 
     /**
@@ -299,7 +315,7 @@ public class JobMonitoringCoordinatorUnitTests {
         Mockito.when(future2.cancel(true)).thenReturn(false);
 
         Mockito.when(
-            this.scheduler.scheduleWithFixedDelay(Mockito.any(JobMonitor.class), Mockito.eq(DELAY))
+            this.processScanner.add(Mockito.anyString(), Mockito.any(JobMonitor.class))
         ).thenReturn(future1, future2);
 
         Assert.assertThat(this.coordinator.getNumActiveJobs(), Matchers.is(0));
@@ -316,8 +332,8 @@ public class JobMonitoringCoordinatorUnitTests {
         Assert.assertThat(this.coordinator.getUsedMemory(), Matchers.is(2048));
 
         Mockito
-            .verify(this.scheduler, Mockito.times(2))
-            .scheduleWithFixedDelay(Mockito.any(JobMonitor.class), Mockito.eq(DELAY));
+            .verify(this.processScanner, Mockito.times(2))
+            .add(Mockito.anyString(), Mockito.any(JobMonitor.class));
 
         Assert.assertThat(this.coordinator.getNumActiveJobs(), Matchers.is(2));
         Assert.assertThat(this.coordinator.getUsedMemory(), Matchers.is(2048));
@@ -333,6 +349,22 @@ public class JobMonitoringCoordinatorUnitTests {
 
         Mockito.verify(future1, Mockito.times(1)).cancel(true);
         Mockito.verify(future2, Mockito.times(1)).cancel(true);
+        Mockito.verify(this.doneFileWatcher, Mockito.times(1)).watch(job1Id);
+        Mockito.verify(this.doneFileWatcher, Mockito.times(1)).watch(job2Id);
+        Mockito.verify(this.doneFileWatcher, Mockito.times(2)).unwatch(job1Id);
+        Mockito.verify(this.doneFileWatcher, Mockito.times(1)).unwatch(job2Id);
+        Mockito.verify(this.deadlineWheel, Mockito.times(1)).add(job1Id, this.tomorrow);
+        Mockito.verify(this.deadlineWheel, Mockito.times(1)).add(job2Id, this.tomorrow);
+        Mockito.verify(this.deadlineWheel, Mockito.times(2)).remove(job1Id);
+        Mockito.verify(this.deadlineWheel, Mockito.times(1)).remove(job2Id);
+        Mockito
+            .verify(this.resourceUsageSampler, Mockito.times(1))
+            .add(Mockito.eq(job1Id), Mockito.anyInt(), Mockito.eq(1024));
+        Mockito
+            .verify(this.resourceUsageSampler, Mockito.times(1))
+            .add(Mockito.eq(job2Id), Mockito.anyInt(), Mockito.eq(1024));
+        Mockito.verify(this.resourceUsageSampler, Mockito.times(2)).remove(job1Id);
+        Mockito.verify(this.resourceUsageSampler, Mockito.times(1)).remove(job2Id);
         Mockito.verify(this.unableToCancel, Mockito.times(1)).increment();
     }
 
@@ -363,7 +395,7 @@ public class JobMonitoringCoordinatorUnitTests {
             = new JobFinishedEvent(jobId, JobFinishedReason.FAILED_TO_INIT, "something", this);
         Mockito.when(task.isDone()).thenReturn(true).thenReturn(false).thenReturn(false);
         Mockito.when(task.cancel(true)).thenReturn(true).thenReturn(false);
-        Mockito.when(scheduler.schedule(Mockito.any(), Mockito.any(Date.class))).thenReturn(task);
+        Mockito.when(this.launchExecutor.submit(Mockito.any(Runnable.class))).thenReturn(task);
         Assert.assertThat(this.coordinator.getNumActiveJobs(), Matchers.is(0));
         Assert.assertThat(this.coordinator.getUsedMemory(), Matchers.is(0));
         coordinator.init(jobId);
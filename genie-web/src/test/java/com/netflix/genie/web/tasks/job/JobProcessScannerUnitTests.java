@@ -0,0 +1,257 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job;
+
+import com.netflix.genie.core.util.ProcFsProcessChecker;
+import com.netflix.genie.core.util.UnixProcessChecker;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.properties.JobMonitorProperties;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.apache.commons.exec.Executor;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.Future;
+
+/**
+ * Unit tests for JobProcessScanner.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class JobProcessScannerUnitTests {
+
+    private static final long SCAN_INTERVAL = 500L;
+
+    /**
+     * Temporary folder standing in for the proc filesystem.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private JobMonitorProperties properties;
+    private TaskScheduler scheduler;
+    private Registry registry;
+    private JobProcessScanner scanner;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.properties = new JobMonitorProperties();
+        this.properties.setScanInterval(SCAN_INTERVAL);
+        this.properties.setProcDirectory(this.folder.getRoot().getAbsolutePath());
+        this.scheduler = Mockito.mock(TaskScheduler.class);
+        this.registry = new DefaultRegistry();
+        this.scanner = new JobProcessScanner(
+            this.properties,
+            this.scheduler,
+            Mockito.mock(Executor.class),
+            this.registry
+        );
+    }
+
+    /**
+     * Make sure the scanner schedules itself.
+     */
+    @Test
+    public void canSchedule() {
+        Mockito.verify(this.scheduler, Mockito.times(1)).scheduleWithFixedDelay(this.scanner, SCAN_INTERVAL);
+    }
+
+    /**
+     * Make sure processes are checked through the proc filesystem only when it's there.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canGetProcessChecker() throws IOException {
+        Assert.assertThat(
+            this.scanner.getProcessChecker(1, new Date()),
+            Matchers.instanceOf(UnixProcessChecker.class)
+        );
+
+        final File self = this.folder.newFolder("self");
+        Files.write(new File(self, "stat").toPath(), "1 (java) R".getBytes(StandardCharsets.UTF_8));
+        this.scanner = new JobProcessScanner(
+            this.properties,
+            this.scheduler,
+            Mockito.mock(Executor.class),
+            this.registry
+        );
+        Assert.assertThat(
+            this.scanner.getProcessChecker(1, new Date()),
+            Matchers.instanceOf(ProcFsProcessChecker.class)
+        );
+    }
+
+    /**
+     * Make sure all jobs are checked on the first scan and only again once their delay elapsed.
+     */
+    @Test
+    public void canCheckJobsWhenDue() {
+        final JobMonitor monitor1 = this.getMonitor(0L);
+        final JobMonitor monitor2 = this.getMonitor(Long.MAX_VALUE / 2);
+        this.scanner.add(UUID.randomUUID().toString(), monitor1);
+        this.scanner.add(UUID.randomUUID().toString(), monitor2);
+
+        this.scanner.run();
+        this.scanner.run();
+
+        Mockito.verify(monitor1, Mockito.times(2)).run();
+        Mockito.verify(monitor2, Mockito.times(1)).run();
+        Assert.assertThat(this.registry.distributionSummary("genie.jobs.monitor.scan.jobs").count(), Matchers.is(2L));
+        Assert.assertThat(
+            this.registry.distributionSummary("genie.jobs.monitor.scan.jobs").totalAmount(),
+            Matchers.is(3L)
+        );
+    }
+
+    /**
+     * Make sure a job is no longer checked once its future is cancelled.
+     */
+    @Test
+    public void canStopCheckingJob() {
+        final JobMonitor monitor = this.getMonitor(0L);
+        final Future<?> future = this.scanner.add(UUID.randomUUID().toString(), monitor);
+        this.scanner.run();
+        Assert.assertTrue(future.cancel(true));
+        Assert.assertTrue(future.isDone());
+        this.scanner.run();
+        Mockito.verify(monitor, Mockito.times(1)).run();
+    }
+
+    /**
+     * Make sure adding a monitor for a job already being checked replaces the previous monitor.
+     */
+    @Test
+    public void canReplaceMonitor() {
+        final String jobId = UUID.randomUUID().toString();
+        final JobMonitor monitor1 = this.getMonitor(0L);
+        final JobMonitor monitor2 = this.getMonitor(0L);
+        final Future<?> future1 = this.scanner.add(jobId, monitor1);
+        final Future<?> future2 = this.scanner.add(jobId, monitor2);
+        Assert.assertTrue(future1.isCancelled());
+        Assert.assertFalse(future2.isDone());
+
+        this.scanner.run();
+        Mockito.verify(monitor1, Mockito.never()).run();
+        Mockito.verify(monitor2, Mockito.times(1)).run();
+    }
+
+    /**
+     * Make sure a failing monitor doesn't keep the other jobs from being checked.
+     */
+    @Test
+    public void canCheckJobsAfterFailure() {
+        final JobMonitor monitor1 = this.getMonitor(0L);
+        Mockito.doThrow(new IllegalStateException("fail")).when(monitor1).run();
+        final JobMonitor monitor2 = this.getMonitor(0L);
+        this.scanner.add(UUID.randomUUID().toString(), monitor1);
+        this.scanner.add(UUID.randomUUID().toString(), monitor2);
+
+        this.scanner.run();
+        Mockito.verify(monitor1, Mockito.times(1)).run();
+        Mockito.verify(monitor2, Mockito.times(1)).run();
+        Assert.assertThat(this.registry.counter("genie.jobs.monitor.scan.failure.counter").count(), Matchers.is(1L));
+    }
+
+    /**
+     * Make sure an expedited job is checked right away and again shortly after until its process is gone.
+     */
+    @Test
+    public void canExpediteCheck() {
+        final String jobId = UUID.randomUUID().toString();
+        final JobMonitor monitor = this.getMonitor(Long.MAX_VALUE / 2);
+        this.scanner.add(jobId, monitor);
+        this.scanner.run();
+        Mockito.verify(monitor, Mockito.times(1)).run();
+
+        this.scanner.expedite(jobId);
+        final ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        Mockito.verify(this.scheduler, Mockito.times(1)).schedule(captor.capture(), Mockito.any(Date.class));
+        captor.getValue().run();
+        Mockito.verify(monitor, Mockito.times(2)).run();
+
+        // Still running so it's checked again shortly after
+        Mockito.verify(this.scheduler, Mockito.times(2)).schedule(captor.capture(), Mockito.any(Date.class));
+        Mockito.when(monitor.isFinished()).thenReturn(true);
+        captor.getValue().run();
+        Mockito.verify(monitor, Mockito.times(2)).run();
+        Mockito.verify(this.scheduler, Mockito.times(2)).schedule(Mockito.any(Runnable.class), Mockito.any(Date.class));
+        Assert.assertThat(this.registry.counter("genie.jobs.monitor.expedited.counter").count(), Matchers.is(1L));
+    }
+
+    /**
+     * Make sure expediting a job which isn't monitored does nothing.
+     */
+    @Test
+    public void cantExpediteUnknownJob() {
+        this.scanner.expedite(UUID.randomUUID().toString());
+        Mockito
+            .verify(this.scheduler, Mockito.never())
+            .schedule(Mockito.any(Runnable.class), Mockito.any(Date.class));
+    }
+
+    /**
+     * Make sure the output sizes of all the monitored jobs are checked in one sweep.
+     */
+    @Test
+    public void canSweepOutputSizes() {
+        Mockito
+            .verify(this.scheduler, Mockito.times(1))
+            .scheduleWithFixedDelay(Mockito.any(Runnable.class), Mockito.eq(this.properties.getOutputSweepInterval()));
+        final JobMonitor monitor1 = this.getMonitor(0L);
+        Mockito.when(monitor1.checkOutputSizes()).thenThrow(new IllegalStateException("fail"));
+        final JobMonitor monitor2 = this.getMonitor(0L);
+        final JobMonitor monitor3 = this.getMonitor(0L);
+        this.scanner.add(UUID.randomUUID().toString(), monitor1);
+        this.scanner.add(UUID.randomUUID().toString(), monitor2);
+        this.scanner.add(UUID.randomUUID().toString(), monitor3).cancel(true);
+
+        this.scanner.sweepOutputSizes();
+        Mockito.verify(monitor1, Mockito.times(1)).checkOutputSizes();
+        Mockito.verify(monitor2, Mockito.times(1)).checkOutputSizes();
+        Mockito.verify(monitor3, Mockito.never()).checkOutputSizes();
+        Mockito.verify(monitor2, Mockito.never()).run();
+        Assert.assertThat(this.registry.timer("genie.jobs.monitor.outputSweep.timer").count(), Matchers.is(1L));
+    }
+
+    private JobMonitor getMonitor(final long delay) {
+        final JobMonitor monitor = Mockito.mock(JobMonitor.class);
+        Mockito.when(monitor.getFixedDelay()).thenReturn(delay);
+        return monitor;
+    }
+}
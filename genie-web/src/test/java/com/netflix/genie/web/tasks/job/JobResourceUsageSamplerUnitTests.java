@@ -0,0 +1,238 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.job;
+
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieNotFoundException;
+import com.netflix.genie.core.services.JobPersistenceService;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.genie.web.properties.JobMonitorProperties;
+import com.netflix.genie.web.properties.JobResourceUsageProperties;
+import com.netflix.spectator.api.DefaultRegistry;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.springframework.scheduling.TaskScheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.UUID;
+
+/**
+ * Unit tests for JobResourceUsageSampler.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class JobResourceUsageSamplerUnitTests {
+
+    private static final long SAMPLE_INTERVAL = 500L;
+    private static final int PID = 3808;
+    private static final int JOB_MEMORY = 1024;
+
+    /**
+     * Temporary folder standing in for the proc filesystem.
+     */
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private JobResourceUsageProperties properties;
+    private JobMonitorProperties monitorProperties;
+    private TaskScheduler scheduler;
+    private JobPersistenceService jobPersistenceService;
+    private Registry registry;
+    private JobResourceUsageSampler sampler;
+
+    /**
+     * Setup for the tests.
+     *
+     * @throws IOException on error
+     */
+    @Before
+    public void setup() throws IOException {
+        this.writeStat("self", 1, 0L, 0L);
+        this.properties = new JobResourceUsageProperties();
+        this.properties.setSampleInterval(SAMPLE_INTERVAL);
+        this.properties.setPersistInterval(Long.MAX_VALUE);
+        this.monitorProperties = new JobMonitorProperties();
+        this.monitorProperties.setProcDirectory(this.folder.getRoot().getAbsolutePath());
+        this.scheduler = Mockito.mock(TaskScheduler.class);
+        this.jobPersistenceService = Mockito.mock(JobPersistenceService.class);
+        this.registry = new DefaultRegistry();
+        this.sampler = new JobResourceUsageSampler(
+            this.properties,
+            this.monitorProperties,
+            this.scheduler,
+            this.jobPersistenceService,
+            this.registry
+        );
+    }
+
+    /**
+     * Make sure the sampler only schedules itself if enabled and there is a proc filesystem.
+     */
+    @Test
+    public void canSchedule() {
+        Mockito.verify(this.scheduler, Mockito.times(1)).scheduleWithFixedDelay(this.sampler, SAMPLE_INTERVAL);
+
+        this.properties.setEnabled(false);
+        final JobResourceUsageSampler disabled = new JobResourceUsageSampler(
+            this.properties,
+            this.monitorProperties,
+            this.scheduler,
+            this.jobPersistenceService,
+            this.registry
+        );
+        Mockito.verify(this.scheduler, Mockito.never()).scheduleWithFixedDelay(disabled, SAMPLE_INTERVAL);
+        Assert.assertFalse(disabled.isEnabled());
+
+        this.properties.setEnabled(true);
+        this.monitorProperties.setProcDirectory(new File(this.folder.getRoot(), "proc").getAbsolutePath());
+        final JobResourceUsageSampler unsupported = new JobResourceUsageSampler(
+            this.properties,
+            this.monitorProperties,
+            this.scheduler,
+            this.jobPersistenceService,
+            this.registry
+        );
+        Mockito.verify(this.scheduler, Mockito.never()).scheduleWithFixedDelay(unsupported, SAMPLE_INTERVAL);
+    }
+
+    /**
+     * Make sure the usage of jobs is published and their peak saved when they finish.
+     *
+     * @throws IOException    on error
+     * @throws GenieException on error
+     */
+    @Test
+    public void canSampleJob() throws IOException, GenieException {
+        final String jobId = UUID.randomUUID().toString();
+        this.sampler.add(jobId, PID, JOB_MEMORY);
+        this.writeStat(Integer.toString(PID), PID, 100L, 1000L);
+        this.sampler.run();
+        Assert.assertThat(this.sampler.getRss(), Matchers.is(1000L * 4096L));
+
+        this.writeStat(Integer.toString(PID), PID, 300L, 500L);
+        this.sampler.run();
+        Assert.assertThat(this.sampler.getRss(), Matchers.is(500L * 4096L));
+        Assert.assertThat(this.sampler.getCpuUsage(), Matchers.greaterThanOrEqualTo(0.0));
+        Mockito
+            .verify(this.jobPersistenceService, Mockito.never())
+            .setJobResourceUsage(Mockito.anyString(), Mockito.anyLong(), Mockito.anyLong());
+
+        this.sampler.remove(jobId);
+        Mockito.verify(this.jobPersistenceService, Mockito.times(1)).setJobResourceUsage(jobId, 3000L, 1000L * 4096L);
+        Assert.assertThat(this.sampler.getRss(), Matchers.is(0L));
+        this.sampler.remove(jobId);
+        Mockito
+            .verify(this.jobPersistenceService, Mockito.times(1))
+            .setJobResourceUsage(Mockito.anyString(), Mockito.anyLong(), Mockito.anyLong());
+    }
+
+    /**
+     * Make sure the usage is saved every persist interval while the job runs.
+     *
+     * @throws IOException    on error
+     * @throws GenieException on error
+     */
+    @Test
+    public void canPersistWhileRunning() throws IOException, GenieException {
+        this.properties.setPersistInterval(0L);
+        this.sampler = new JobResourceUsageSampler(
+            this.properties,
+            this.monitorProperties,
+            this.scheduler,
+            this.jobPersistenceService,
+            this.registry
+        );
+        final String jobId = UUID.randomUUID().toString();
+        this.sampler.add(jobId, PID, JOB_MEMORY);
+        this.writeStat(Integer.toString(PID), PID, 100L, 1000L);
+        Mockito
+            .doThrow(new GenieNotFoundException("no metadata"))
+            .when(this.jobPersistenceService)
+            .setJobResourceUsage(jobId, 1000L, 1000L * 4096L);
+
+        this.sampler.run();
+        this.sampler.run();
+        Mockito
+            .verify(this.jobPersistenceService, Mockito.times(2))
+            .setJobResourceUsage(jobId, 1000L, 1000L * 4096L);
+        Assert.assertThat(this.registry.counter("genie.jobs.usage.persist.failure.counter").count(), Matchers.is(2L));
+    }
+
+    /**
+     * Make sure a job which was never sampled isn't saved when it finishes.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void wontPersistUnsampledJob() throws GenieException {
+        final String jobId = UUID.randomUUID().toString();
+        this.sampler.add(jobId, PID, JOB_MEMORY);
+        this.sampler.run();
+        this.sampler.remove(jobId);
+        Mockito
+            .verify(this.jobPersistenceService, Mockito.never())
+            .setJobResourceUsage(Mockito.anyString(), Mockito.anyLong(), Mockito.anyLong());
+    }
+
+    /**
+     * Make sure only the jobs sampled at least once are counted in the sampled memory and at their peak.
+     *
+     * @throws IOException on error
+     */
+    @Test
+    public void canGetSampledMemory() throws IOException {
+        Assert.assertTrue(this.sampler.isEnabled());
+        final String jobId = UUID.randomUUID().toString();
+        this.sampler.add(jobId, PID, JOB_MEMORY);
+        Assert.assertThat(this.sampler.getSampledMemory().getRequestedMemory(), Matchers.is(0));
+        Assert.assertThat(this.sampler.getSampledMemory().getPeakRss(), Matchers.is(0L));
+
+        this.writeStat(Integer.toString(PID), PID, 100L, 1000L);
+        this.sampler.run();
+        this.writeStat(Integer.toString(PID), PID, 100L, 500L);
+        this.sampler.run();
+        this.sampler.add(UUID.randomUUID().toString(), PID + 1, JOB_MEMORY);
+        Assert.assertThat(this.sampler.getSampledMemory().getRequestedMemory(), Matchers.is(JOB_MEMORY));
+        Assert.assertThat(this.sampler.getSampledMemory().getPeakRss(), Matchers.is(1000L * 4096L));
+
+        this.sampler.remove(jobId);
+        Assert.assertThat(this.sampler.getSampledMemory().getRequestedMemory(), Matchers.is(0));
+    }
+
+    private void writeStat(final String name, final int session, final long utime, final long rss) throws IOException {
+        final File directory = new File(this.folder.getRoot(), name);
+        if (!directory.exists() && !directory.mkdir()) {
+            throw new IOException("Unable to create " + directory);
+        }
+        final String stat = name + " (bash) S 1 " + session + " " + session + " 0 -1 4194560 1 2 3 4 "
+            + utime + " 0 0 0 20 0 1 0 12345 1000000 " + rss + " 0 0\n";
+        Files.write(new File(directory, "stat").toPath(), stat.getBytes(StandardCharsets.UTF_8));
+    }
+}
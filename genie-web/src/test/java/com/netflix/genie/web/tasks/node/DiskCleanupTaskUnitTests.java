@@ -22,13 +22,15 @@ import com.netflix.genie.common.dto.JobStatus;
 import com.netflix.genie.common.exceptions.GenieException;
 import com.netflix.genie.common.exceptions.GenieServerException;
 import com.netflix.genie.core.properties.JobsProperties;
+import com.netflix.genie.core.services.DirectoryDeletionService;
 import com.netflix.genie.core.services.JobSearchService;
+import com.netflix.genie.core.services.impl.ParallelDirectoryDeletionServiceImpl;
 import com.netflix.genie.test.categories.UnitTest;
 import com.netflix.genie.web.properties.DiskCleanupProperties;
 import com.netflix.genie.web.tasks.TaskUtils;
 import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.DefaultRegistry;
 import com.netflix.spectator.api.Registry;
-import org.apache.commons.exec.Executor;
 import org.apache.commons.lang3.SystemUtils;
 import org.hamcrest.Matchers;
 import org.junit.Assert;
@@ -83,7 +85,7 @@ public class DiskCleanupTaskUnitTests {
                 jobsDir,
                 Mockito.mock(JobSearchService.class),
                 properties,
-                Mockito.mock(Executor.class),
+                Mockito.mock(DirectoryDeletionService.class),
                 Mockito.mock(Registry.class)
             )
         );
@@ -107,7 +109,7 @@ public class DiskCleanupTaskUnitTests {
                 jobsDir,
                 Mockito.mock(JobSearchService.class),
                 new JobsProperties(),
-                Mockito.mock(Executor.class),
+                Mockito.mock(DirectoryDeletionService.class),
                 Mockito.mock(Registry.class)
             )
         );
@@ -132,7 +134,7 @@ public class DiskCleanupTaskUnitTests {
                 jobsDir,
                 Mockito.mock(JobSearchService.class),
                 new JobsProperties(),
-                Mockito.mock(Executor.class),
+                Mockito.mock(DirectoryDeletionService.class),
                 Mockito.mock(Registry.class)
             )
         );
@@ -159,7 +161,7 @@ public class DiskCleanupTaskUnitTests {
                 jobsDir,
                 Mockito.mock(JobSearchService.class),
                 properties,
-                Mockito.mock(Executor.class),
+                Mockito.mock(DirectoryDeletionService.class),
                 Mockito.mock(Registry.class)
             )
         );
@@ -179,6 +181,8 @@ public class DiskCleanupTaskUnitTests {
 
         // Create some random junk file that should be ignored
         this.tmpJobDir.newFile(UUID.randomUUID().toString());
+        // As should hidden directories like the job completion outbox
+        final File hiddenDir = this.tmpJobDir.newFolder(".completion-outbox");
         final DiskCleanupProperties properties = new DiskCleanupProperties();
         final Calendar cal = TaskUtils.getMidnightUTC();
         TaskUtils.subtractDaysFromDate(cal, properties.getRetention());
@@ -248,7 +252,7 @@ public class DiskCleanupTaskUnitTests {
             jobDir,
             jobSearchService,
             jobsProperties,
-            Mockito.mock(Executor.class),
+            new ParallelDirectoryDeletionServiceImpl(jobDir, Runnable::run, false, new DefaultRegistry()),
             registry
         );
         Assert.assertThat(numberOfDeletedJobDirs.get(), Matchers.is(0L));
@@ -261,6 +265,8 @@ public class DiskCleanupTaskUnitTests {
         Assert.assertFalse(new File(jobDir.getFile(), job3Id).exists());
         Assert.assertTrue(new File(jobDir.getFile(), job4Id).exists());
         Assert.assertTrue(new File(jobDir.getFile(), job5Id).exists());
+        Assert.assertTrue(hiddenDir.exists());
+        Mockito.verify(jobSearchService, Mockito.never()).getJob(hiddenDir.getName());
     }
 
     private void createJobDir(final String id) throws IOException {
@@ -0,0 +1,236 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.node;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.netflix.genie.common.dto.Application;
+import com.netflix.genie.common.dto.ApplicationStatus;
+import com.netflix.genie.common.dto.Cluster;
+import com.netflix.genie.common.dto.ClusterStatus;
+import com.netflix.genie.common.dto.Command;
+import com.netflix.genie.common.dto.CommandStatus;
+import com.netflix.genie.common.exceptions.GenieException;
+import com.netflix.genie.common.exceptions.GenieServerException;
+import com.netflix.genie.core.services.ApplicationService;
+import com.netflix.genie.core.services.ClusterService;
+import com.netflix.genie.core.services.CommandService;
+import com.netflix.genie.core.services.impl.CacheGenieFileTransferService;
+import com.netflix.genie.test.categories.UnitTest;
+import com.netflix.spectator.api.Counter;
+import com.netflix.spectator.api.Registry;
+import org.hamcrest.Matchers;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Unit tests for the file cache prewarm task.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class FileCachePrewarmTaskUnitTests {
+
+    private ApplicationService applicationService;
+    private CommandService commandService;
+    private ClusterService clusterService;
+    private CacheGenieFileTransferService fileCache;
+    private Counter failedCounter;
+    private FileCachePrewarmTask task;
+
+    /**
+     * Setup for the tests.
+     */
+    @Before
+    public void setup() {
+        this.applicationService = Mockito.mock(ApplicationService.class);
+        this.commandService = Mockito.mock(CommandService.class);
+        this.clusterService = Mockito.mock(ClusterService.class);
+        this.fileCache = Mockito.mock(CacheGenieFileTransferService.class);
+        this.failedCounter = Mockito.mock(Counter.class);
+        final Registry registry = Mockito.mock(Registry.class);
+        Mockito.when(registry.counter(Mockito.anyString())).thenReturn(Mockito.mock(Counter.class));
+        Mockito.when(registry.counter("genie.tasks.fileCachePrewarm.failed.counter")).thenReturn(this.failedCounter);
+
+        this.task = new FileCachePrewarmTask(
+            this.applicationService,
+            this.commandService,
+            this.clusterService,
+            this.fileCache,
+            new ConcurrentTaskExecutor(MoreExecutors.directExecutor()),
+            registry
+        );
+    }
+
+    /**
+     * Make sure the files of all UP clusters and ACTIVE commands and applications are prewarmed on startup.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canPrewarmAllOnStartup() throws GenieException {
+        final Cluster cluster = new Cluster.Builder(name(), name(), name(), ClusterStatus.UP)
+            .withConfigs(Sets.newHashSet("s3://bucket/cluster/site.xml"))
+            .withDependencies(Sets.newHashSet("s3://bucket/shared/lib.jar"))
+            .build();
+        final Command command = new Command.Builder(name(), name(), name(), CommandStatus.ACTIVE, name(), 1000L)
+            .withSetupFile("s3://bucket/command/setup.sh")
+            .withDependencies(Sets.newHashSet("s3://bucket/shared/lib.jar"))
+            .build();
+        final Application application = new Application.Builder(name(), name(), name(), ApplicationStatus.ACTIVE)
+            .withDependencies(Sets.newHashSet("s3://bucket/application/app.tar.gz"))
+            .build();
+        Mockito
+            .when(
+                this.clusterService.getClusters(
+                    Mockito.isNull(String.class),
+                    Mockito.eq(EnumSet.of(ClusterStatus.UP)),
+                    Mockito.any(),
+                    Mockito.isNull(Date.class),
+                    Mockito.isNull(Date.class),
+                    Mockito.any(Pageable.class)
+                )
+            )
+            .thenReturn(new PageImpl<>(Lists.newArrayList(cluster)));
+        Mockito
+            .when(
+                this.commandService.getCommands(
+                    Mockito.isNull(String.class),
+                    Mockito.isNull(String.class),
+                    Mockito.eq(EnumSet.of(CommandStatus.ACTIVE)),
+                    Mockito.any(),
+                    Mockito.any(Pageable.class)
+                )
+            )
+            .thenReturn(new PageImpl<>(Lists.newArrayList(command)));
+        Mockito
+            .when(
+                this.applicationService.getApplications(
+                    Mockito.isNull(String.class),
+                    Mockito.isNull(String.class),
+                    Mockito.eq(EnumSet.of(ApplicationStatus.ACTIVE)),
+                    Mockito.any(),
+                    Mockito.isNull(String.class),
+                    Mockito.any(Pageable.class)
+                )
+            )
+            .thenReturn(new PageImpl<>(Lists.newArrayList(application)));
+
+        this.task.onStartup(Mockito.mock(ApplicationReadyEvent.class));
+
+        Mockito.verify(this.fileCache, Mockito.times(1)).prefetch("s3://bucket/cluster/site.xml");
+        Mockito.verify(this.fileCache, Mockito.times(2)).prefetch("s3://bucket/shared/lib.jar");
+        Mockito.verify(this.fileCache, Mockito.times(1)).prefetch("s3://bucket/command/setup.sh");
+        Mockito.verify(this.fileCache, Mockito.times(1)).prefetch("s3://bucket/application/app.tar.gz");
+        final Map<String, Object> status = this.task.getStatus();
+        Assert.assertThat(status.get("pendingFiles"), Matchers.is(0));
+        Assert.assertThat(status.get("prewarmedFiles"), Matchers.is(5L));
+        Assert.assertThat(status.get("failedFiles"), Matchers.is(0L));
+        Assert.assertThat(status.get("lastStarted"), Matchers.notNullValue());
+    }
+
+    /**
+     * Make sure single resources are only prewarmed if jobs can use them.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canPrewarmUsableResources() throws GenieException {
+        final String clusterId = UUID.randomUUID().toString();
+        final String commandId = UUID.randomUUID().toString();
+        final String applicationId = UUID.randomUUID().toString();
+        Mockito
+            .when(this.clusterService.getCluster(clusterId))
+            .thenReturn(
+                new Cluster.Builder(name(), name(), name(), ClusterStatus.OUT_OF_SERVICE)
+                    .withConfigs(Sets.newHashSet("s3://bucket/cluster/site.xml"))
+                    .build()
+            );
+        Mockito
+            .when(this.commandService.getCommand(commandId))
+            .thenReturn(
+                new Command.Builder(name(), name(), name(), CommandStatus.ACTIVE, name(), 1000L)
+                    .withConfigs(Sets.newHashSet("s3://bucket/command/command.xml"))
+                    .build()
+            );
+        Mockito
+            .when(this.applicationService.getApplication(applicationId))
+            .thenReturn(
+                new Application.Builder(name(), name(), name(), ApplicationStatus.DEPRECATED)
+                    .withConfigs(Sets.newHashSet("s3://bucket/application/app.xml"))
+                    .build()
+            );
+
+        this.task.prewarmCluster(clusterId);
+        this.task.prewarmCommand(commandId);
+        this.task.prewarmApplication(applicationId);
+
+        Mockito.verify(this.fileCache, Mockito.times(1)).prefetch(Mockito.anyString());
+        Mockito.verify(this.fileCache, Mockito.times(1)).prefetch("s3://bucket/command/command.xml");
+    }
+
+    /**
+     * Make sure failures to find resources or download files are recorded and don't stop the prewarm.
+     *
+     * @throws GenieException on error
+     */
+    @Test
+    public void canRecordFailures() throws GenieException {
+        final String commandId = UUID.randomUUID().toString();
+        Mockito
+            .when(this.commandService.getCommand(commandId))
+            .thenReturn(
+                new Command.Builder(name(), name(), name(), CommandStatus.ACTIVE, name(), 1000L)
+                    .withConfigs(Sets.newHashSet("s3://bucket/command/bad.xml", "s3://bucket/command/good.xml"))
+                    .build()
+            );
+        Mockito.when(this.clusterService.getCluster(Mockito.anyString())).thenThrow(new GenieServerException("bad"));
+        Mockito
+            .doThrow(new GenieServerException("bad"))
+            .when(this.fileCache)
+            .prefetch("s3://bucket/command/bad.xml");
+
+        this.task.prewarmCluster(UUID.randomUUID().toString());
+        this.task.prewarmCommand(commandId);
+
+        Mockito.verify(this.fileCache, Mockito.times(1)).prefetch("s3://bucket/command/good.xml");
+        Mockito.verify(this.failedCounter, Mockito.times(1)).increment();
+        final Map<String, Object> status = this.task.getStatus();
+        Assert.assertThat(status.get("prewarmedFiles"), Matchers.is(1L));
+        Assert.assertThat(status.get("failedFiles"), Matchers.is(1L));
+        Assert.assertThat(status.get("lastStarted"), Matchers.nullValue());
+    }
+
+    private static String name() {
+        return UUID.randomUUID().toString();
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ *
+ *  Copyright 2017 Netflix, Inc.
+ *
+ *     Licensed under the Apache License, Version 2.0 (the "License");
+ *     you may not use this file except in compliance with the License.
+ *     You may obtain a copy of the License at
+ *
+ *         http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *     Unless required by applicable law or agreed to in writing, software
+ *     distributed under the License is distributed on an "AS IS" BASIS,
+ *     WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *     See the License for the specific language governing permissions and
+ *     limitations under the License.
+ *
+ */
+package com.netflix.genie.web.tasks.node;
+
+import com.netflix.genie.core.jpa.services.TagIndex;
+import com.netflix.genie.core.properties.TagIndexProperties;
+import com.netflix.genie.test.categories.UnitTest;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mockito;
+import org.springframework.scheduling.TaskScheduler;
+
+/**
+ * Unit tests for the tag index refresh task.
+ *
+ * @author tgianos
+ * @since 3.1.0
+ */
+@Category(UnitTest.class)
+public class TagIndexRefreshTaskUnitTests {
+
+    /**
+     * Make sure the task schedules itself at the configured rate and refreshes the index when run.
+     */
+    @Test
+    public void canScheduleAndRefresh() {
+        final TagIndexProperties properties = new TagIndexProperties();
+        properties.setRefreshRate(12345L);
+        final TaskScheduler scheduler = Mockito.mock(TaskScheduler.class);
+        final TagIndex tagIndex = Mockito.mock(TagIndex.class);
+
+        final TagIndexRefreshTask task = new TagIndexRefreshTask(properties, scheduler, tagIndex);
+        Mockito.verify(scheduler, Mockito.times(1)).scheduleAtFixedRate(task, 12345L);
+        Mockito.verify(tagIndex, Mockito.never()).refresh();
+
+        task.run();
+        Mockito.verify(tagIndex, Mockito.times(1)).refresh();
+    }
+}